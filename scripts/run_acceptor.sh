@@ -0,0 +1,64 @@
+#!/usr/bin/env bash
+set -euo pipefail
+
+# Socket-to-journal latency over loopback: generate a source queue, start the FIX acceptor
+# journaling into a fresh queue, replay the source to it with the load client, then stop the
+# acceptor and print its latency, throughput and CPU cost. The journal is an ordinary queue, so
+# the flyweight consumer is run over it last to show nothing was lost.
+# Usage: scripts/run_acceptor.sh <num_messages> [msgs_per_sec] [wait]
+# Example: scripts/run_acceptor.sh 1000000 200000 spin
+# Defaults: num_messages=1000000, msgs_per_sec=0 (as fast as possible), wait=backoff
+
+ROOT_DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")"/.. && pwd)"
+cd "$ROOT_DIR"
+
+NUM_MESSAGES=${1:-1000000}
+RATE=${2:-0}
+WAIT=${3:-backoff}
+PORT=${PORT:-9878}
+
+DATA_DIR="./data"
+METRICS_DIR="./metrics"
+SOURCE_Q="$DATA_DIR/fix-source.q"
+JOURNAL_Q="$DATA_DIR/fix-journal.q"
+METRICS_PATH="$METRICS_DIR/acceptor-$WAIT.txt"
+mkdir -p "$DATA_DIR" "$METRICS_DIR"
+rm -rf "$SOURCE_Q" "$JOURNAL_Q"
+
+# Acceptor and client run as two JVMs at once, so launch the fat jar rather than two Gradle builds
+./gradlew -q shadowJar
+JAR=build/libs/fix-performance-test.jar
+JVM_OPTS=(
+  --add-opens=java.base/jdk.internal.misc=ALL-UNNAMED
+  --add-exports=java.base/jdk.internal.misc=ALL-UNNAMED
+  --add-exports=java.base/jdk.internal.ref=ALL-UNNAMED
+  --add-exports=java.base/sun.nio.ch=ALL-UNNAMED
+  --add-exports=jdk.unsupported/sun.misc=ALL-UNNAMED
+  --add-opens=java.base/sun.nio.ch=ALL-UNNAMED
+  --add-opens=java.base/java.lang=ALL-UNNAMED
+  --add-opens=java.base/java.lang.reflect=ALL-UNNAMED
+  --add-opens=java.base/java.io=ALL-UNNAMED
+  --add-opens=java.base/java.nio=ALL-UNNAMED
+  --add-opens=java.base/java.util=ALL-UNNAMED
+)
+
+java "${JVM_OPTS[@]}" -jar "$JAR" generate "$SOURCE_Q" "$NUM_MESSAGES"
+
+echo "Starting acceptor on port $PORT ($WAIT), journal $JOURNAL_Q"
+java "${JVM_OPTS[@]}" -jar "$JAR" acceptor "$JOURNAL_Q" "$PORT" "$WAIT" "$METRICS_PATH" &
+ACCEPTOR_PID=$!
+for _ in $(seq 1 50); do
+  (echo > "/dev/tcp/127.0.0.1/$PORT") 2>/dev/null && break
+  sleep 0.2
+done
+
+java "${JVM_OPTS[@]}" -jar "$JAR" load-client "$SOURCE_Q" 127.0.0.1 "$PORT" "$RATE"
+sleep 1
+# SIGTERM runs the shutdown hook, which stops the acceptor and writes metrics
+kill -TERM "$ACCEPTOR_PID"
+wait "$ACCEPTOR_PID" || true
+grep -E '^(p50|p99|p99.9|max|messages|throughput_msgs_per_sec|e2e_p50|e2e_p99|e2e_p99.9|e2e_max|framing_errors|thread_cpu_util)=' \
+  "$METRICS_PATH" | sed 's/^/  /'
+
+java "${JVM_OPTS[@]}" -jar "$JAR" flyweight "$JOURNAL_Q" "$METRICS_DIR/fly-journal.txt" \
+  --validate count
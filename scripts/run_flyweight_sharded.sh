@@ -0,0 +1,14 @@
+#!/bin/bash
+
+# Run the sharded flyweight consumer once per shard count to see how it scales across cores
+# Usage: scripts/run_flyweight_sharded.sh <queue_path> [shard_counts]
+# Example: scripts/run_flyweight_sharded.sh ./data/fix.q "1 2 4 8"
+QUEUE_PATH=${1:-"./data/fix.q"}
+SHARD_COUNTS=${2:-"1 2 4"}
+
+for SHARDS in $SHARD_COUNTS; do
+  METRICS_PATH="./metrics/fly-sharded-$SHARDS.txt"
+  echo "Starting sharded flyweight consumer for $QUEUE_PATH with $SHARDS shards (metrics path: $METRICS_PATH)"
+  ./gradlew -q run --args="flyweight-sharded $QUEUE_PATH $SHARDS $METRICS_PATH"
+  grep -E '^(throughput_msgs_per_sec|shard[0-9]+:)' "$METRICS_PATH" | sed 's/^/  /'
+done
@@ -0,0 +1,41 @@
+#!/usr/bin/env bash
+set -euo pipefail
+
+# Compare WIRE ("fix" field document) and RAW (bare FIX bytes) queue formats:
+# bytes on disk per message and flyweight drain cost per message.
+# Usage: scripts/run_format_compare.sh <num_messages>
+# Defaults: num_messages=2000000
+
+ROOT_DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")"/.. && pwd)"
+cd "$ROOT_DIR"
+
+NUM_MESSAGES=${1:-2000000}
+DATA_DIR="./data"
+METRICS_DIR="./metrics"
+mkdir -p "$DATA_DIR" "$METRICS_DIR"
+
+for FORMAT in wire raw; do
+  Q_PATH="$DATA_DIR/fix-$FORMAT.q"
+  rm -rf "$Q_PATH"
+  echo "[$FORMAT] Generate $NUM_MESSAGES messages -> $Q_PATH"
+  ./gradlew -q run --args="generate $Q_PATH $NUM_MESSAGES $FORMAT"
+  echo "[$FORMAT] Flyweight consume -> $METRICS_DIR/fly-$FORMAT.txt"
+  ./gradlew -q run --args="flyweight $Q_PATH $METRICS_DIR/fly-$FORMAT.txt"
+done
+
+echo
+echo "================ Queue Format Comparison ================"
+printf "%-6s %14s %12s %14s %10s\n" "Format" "DiskBytes" "Bytes/msg" "Msgs/sec" "p50(ns)"
+for FORMAT in wire raw; do
+  Q_PATH="$DATA_DIR/fix-$FORMAT.q"
+  METRICS="$METRICS_DIR/fly-$FORMAT.txt"
+  # Allocated blocks of the cycle files only; Chronicle pre-sizes files sparsely
+  DISK_KB=$(du -sk "$Q_PATH"/*.cq4 | awk '{s+=$1} END {print s}')
+  DISK_BYTES=$((DISK_KB * 1024))
+  MESSAGES=$(grep '^messages=' "$METRICS" | cut -d= -f2)
+  PER_MSG=$(awk "BEGIN {printf \"%.1f\", $DISK_BYTES/$MESSAGES}")
+  TPUT=$(grep '^throughput_msgs_per_sec=' "$METRICS" | cut -d= -f2)
+  P50=$(grep '^p50=' "$METRICS" | cut -d= -f2)
+  printf "%-6s %14s %12s %14s %10s\n" "$FORMAT" "$DISK_BYTES" "$PER_MSG" "$TPUT" "$P50"
+done
+echo "========================================================="
@@ -0,0 +1,14 @@
+#!/bin/bash
+
+# Generate a large queue with N encoder threads; the output for a given seed is the same whatever
+# the thread count, so timings across thread counts are comparable
+# Usage: scripts/run_generate_parallel.sh <queue_path> <message_count> [threads] [wire|raw] [seed]
+# Example: scripts/run_generate_parallel.sh ./data/fix.q 1000000000 8 raw 42
+QUEUE_PATH=${1:-"./data/fix.q"}
+MESSAGE_COUNT=${2:-"2000000"}
+THREADS=${3:-"$(nproc)"}
+FORMAT=${4:-"wire"}
+SEED=${5:-""}
+
+echo "Generating $MESSAGE_COUNT FIX messages to $QUEUE_PATH with $THREADS threads (format: $FORMAT${SEED:+, seed: $SEED})"
+./gradlew -q run --args="generate-parallel $QUEUE_PATH $MESSAGE_COUNT $THREADS $FORMAT $SEED"
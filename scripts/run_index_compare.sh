@@ -0,0 +1,8 @@
+#!/bin/bash
+
+# Compare the boxed ConcurrentHashMap index with the primitive open-addressing index
+# Usage: scripts/run_index_compare.sh [open_orders...]  (defaults: 1000000 10000000 50000000)
+SIZES=${*:-"1000000 10000000 50000000"}
+
+echo "Comparing open-order indexes at sizes: $SIZES (results -> ./metrics/index-compare.txt)"
+./gradlew -q run --args="index-compare $SIZES"
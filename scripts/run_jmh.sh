@@ -0,0 +1,13 @@
+#!/bin/bash
+
+# Run JMH microbenchmarks (GC profiler enabled) via the jmh Gradle plugin
+# Usage: scripts/run_jmh.sh [include_regex]
+# Example: scripts/run_jmh.sh FlyweightConsumerBenchmark
+INCLUDES=${1:-""}
+
+echo "Running JMH benchmarks ${INCLUDES:+matching '$INCLUDES'} (results -> build/results/jmh/results.json)"
+if [ -n "$INCLUDES" ]; then
+  ./gradlew -q jmh -PjmhIncludes="$INCLUDES"
+else
+  ./gradlew -q jmh
+fi
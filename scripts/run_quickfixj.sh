@@ -3,6 +3,17 @@
 # Run QuickFIX/J consumer via Application plugin so JVM flags apply
 QUEUE_PATH=${1:-"./data/fix.q"}
 THREAD_COUNT=${2:-"8"}
+# block|spin|drop: reader behaviour when a stripe's ring is full
+BACKPRESSURE=${3:-""}
+# POOLED=1 reuses Message, field and Order objects per stripe (quickfixj-pooled)
+COMMAND=quickfixj
+if [ "${POOLED:-0}" = "1" ]; then
+  COMMAND=quickfixj-pooled
+fi
 
-echo "Starting QuickFIX/J consumer for $QUEUE_PATH with $THREAD_COUNT threads"
-./gradlew -q run --args="quickfixj $QUEUE_PATH $THREAD_COUNT"
+echo "Starting $COMMAND consumer for $QUEUE_PATH with $THREAD_COUNT threads"
+if [ -n "$BACKPRESSURE" ]; then
+  ./gradlew -q run --args="$COMMAND $QUEUE_PATH $THREAD_COUNT ./metrics/qfj.txt 0 $BACKPRESSURE"
+else
+  ./gradlew -q run --args="$COMMAND $QUEUE_PATH $THREAD_COUNT"
+fi
@@ -0,0 +1,74 @@
+#!/usr/bin/env bash
+set -euo pipefail
+
+# Latency vs offered load: for each target rate, tail a fresh queue with a consumer while the
+# open-loop generator sends at that rate, stamping each message's intended send time (tag 50001).
+# End-to-end latency is measured from that intended time, so queueing behind a saturated consumer
+# shows up instead of being hidden by a slowed-down producer (coordinated omission).
+# Usage: scripts/run_rate_sweep.sh [rates] [seconds_per_rate] [consumer] [threads]
+# Example: scripts/run_rate_sweep.sh "50000 100000 200000 400000 800000" 20 quickfixj 4
+# Env: BURST (messages per burst, default 1), WAIT (consumer wait strategy, default spin)
+
+ROOT_DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")"/.. && pwd)"
+cd "$ROOT_DIR"
+
+RATES=${1:-"50000 100000 200000 400000"}
+SECONDS_PER_RATE=${2:-10}
+CONSUMER=${3:-flyweight}
+THREADS=${4:-4}
+BURST=${BURST:-1}
+WAIT=${WAIT:-spin}
+
+DATA_DIR="./data"
+METRICS_DIR="./metrics"
+Q_PATH="$DATA_DIR/fix-rate.q"
+SUMMARY="$METRICS_DIR/rate-sweep-$CONSUMER.csv"
+mkdir -p "$DATA_DIR" "$METRICS_DIR"
+
+# Producer and consumer run as two JVMs at once, so launch the fat jar rather than two Gradle builds
+./gradlew -q shadowJar
+JAR=build/libs/fix-performance-test.jar
+JVM_OPTS=(
+  --add-opens=java.base/jdk.internal.misc=ALL-UNNAMED
+  --add-exports=java.base/jdk.internal.misc=ALL-UNNAMED
+  --add-exports=java.base/jdk.internal.ref=ALL-UNNAMED
+  --add-exports=java.base/sun.nio.ch=ALL-UNNAMED
+  --add-exports=jdk.unsupported/sun.misc=ALL-UNNAMED
+  --add-opens=java.base/sun.nio.ch=ALL-UNNAMED
+  --add-opens=java.base/java.lang=ALL-UNNAMED
+  --add-opens=java.base/java.lang.reflect=ALL-UNNAMED
+  --add-opens=java.base/java.io=ALL-UNNAMED
+  --add-opens=java.base/java.nio=ALL-UNNAMED
+  --add-opens=java.base/java.util=ALL-UNNAMED
+)
+
+echo "target_rate,achieved_rate,late_sends,e2e_p50_ns,e2e_p99_ns,e2e_p99.9_ns,e2e_max_ns" > "$SUMMARY"
+
+for RATE in $RATES; do
+  rm -rf "$Q_PATH"
+  COUNT=$((RATE * SECONDS_PER_RATE))
+  if [ "$CONSUMER" = "quickfixj" ]; then
+    METRICS_PATH="$METRICS_DIR/qfj-rate-$RATE.txt"
+    TAIL_ARGS=(quickfixj-tail "$Q_PATH" "$THREADS" "$WAIT" "$METRICS_PATH" 0 1000)
+  else
+    METRICS_PATH="$METRICS_DIR/fly-rate-$RATE.txt"
+    TAIL_ARGS=(flyweight-tail "$Q_PATH" "$WAIT" "$METRICS_PATH" 0 1000)
+  fi
+  echo "Offering $RATE msgs/s (burst $BURST) for ${SECONDS_PER_RATE}s to $CONSUMER"
+  java "${JVM_OPTS[@]}" -jar "$JAR" "${TAIL_ARGS[@]}" &
+  TAIL_PID=$!
+  GEN_LOG=$(java "${JVM_OPTS[@]}" -jar "$JAR" generate-rate "$Q_PATH" "$COUNT" "$RATE" "$BURST" | tee /dev/stderr)
+  # Let the consumer drain any backlog before stopping it
+  sleep 2
+  kill -TERM "$TAIL_PID"
+  wait "$TAIL_PID" || true
+
+  ACHIEVED=$(echo "$GEN_LOG" | sed -nE 's/.*achieved=([0-9]+).*/\1/p' | tail -n1)
+  LATE=$(echo "$GEN_LOG" | sed -nE 's/.*lateSends=([0-9]+).*/\1/p' | tail -n1)
+  metric() { sed -nE "s/^$1=([0-9]+)$/\1/p" "$METRICS_PATH"; }
+  echo "$RATE,${ACHIEVED:-},${LATE:-},$(metric e2e_p50),$(metric e2e_p99),$(metric 'e2e_p99\.9'),$(metric e2e_max)" >> "$SUMMARY"
+done
+
+echo
+echo "== Latency vs offered load ($SUMMARY) =="
+column -s, -t "$SUMMARY"
@@ -0,0 +1,48 @@
+#!/usr/bin/env bash
+set -euo pipefail
+
+# Usage: scripts/run_recovery.sh <num_messages> [tail_messages] [snapshot_every]
+# Measures restart cost with and without an open-order snapshot. Generates num_messages, runs the
+# flyweight consumer once from an empty state (full replay, writing snapshots), appends
+# tail_messages more and restarts from the snapshot, which replays only the new tail.
+# Defaults: num_messages=2000000, tail_messages=100000, snapshot_every=100000
+
+ROOT_DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")"/.. && pwd)"
+cd "$ROOT_DIR"
+
+NUM_MESSAGES=${1:-2000000}
+TAIL_MESSAGES=${2:-100000}
+SNAPSHOT_EVERY=${3:-100000}
+
+Q_PATH="./data/recovery.q"
+SNAPSHOT="./data/recovery.snap"
+METRICS_DIR="./metrics"
+mkdir -p ./data "$METRICS_DIR"
+
+rm -rf "$Q_PATH" "$SNAPSHOT" "$SNAPSHOT.tmp"
+echo "[1/4] Generate $NUM_MESSAGES messages"
+./gradlew -q run --args="generate $Q_PATH $NUM_MESSAGES"
+
+echo "[2/4] Cold start: replay the whole queue, snapshot every $SNAPSHOT_EVERY messages"
+./gradlew -q run --args="flyweight-recover $Q_PATH $SNAPSHOT $SNAPSHOT_EVERY $METRICS_DIR/recovery-cold.txt"
+
+echo "[3/4] Append $TAIL_MESSAGES messages"
+./gradlew -q run --args="generate $Q_PATH $TAIL_MESSAGES"
+
+echo "[4/4] Warm start: load the snapshot, replay only the tail"
+./gradlew -q run --args="flyweight-recover $Q_PATH $SNAPSHOT $SNAPSHOT_EVERY $METRICS_DIR/recovery-warm.txt"
+
+value() {
+  grep -E "^$2=" "$1" | head -n1 | cut -d= -f2
+}
+
+echo
+printf "%-6s %12s %16s %14s %16s %18s %18s %18s\n" "Start" "startup_ms" "snapshot_load_ms" \
+  "recovered" "replayed" "capture_max_us" "over_budget" "snapshots_skipped"
+for run in cold warm; do
+  M="$METRICS_DIR/recovery-$run.txt"
+  printf "%-6s %12s %16s %14s %16s %18s %18s %18s\n" "$run" "$(value "$M" startup_ms)" \
+    "$(value "$M" snapshot_load_ms)" "$(value "$M" recovered_orders)" \
+    "$(value "$M" replayed_messages)" "$(value "$M" snapshot_capture_max_us)" \
+    "$(value "$M" snapshot_captures_over_budget)" "$(value "$M" snapshots_skipped)"
+done
@@ -0,0 +1,61 @@
+#!/usr/bin/env bash
+set -euo pipefail
+
+# Tail a live queue with each wait strategy while the generator writes into it, then compare
+# latency, throughput and CPU cost (thread_cpu_util ~1.0 means a fully burned core).
+# Usage: scripts/run_tail_compare.sh <num_messages> [strategies] [consumer] [threads]
+# Example: scripts/run_tail_compare.sh 2000000 "spin yield backoff" quickfixj 4
+# Defaults: num_messages=1000000, strategies="spin yield backoff", consumer=flyweight, threads=4
+
+ROOT_DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")"/.. && pwd)"
+cd "$ROOT_DIR"
+
+NUM_MESSAGES=${1:-1000000}
+STRATEGIES=${2:-"spin yield backoff"}
+CONSUMER=${3:-flyweight}
+THREADS=${4:-4}
+# Keep tailing this long after the generator finishes to measure idle CPU
+IDLE_SECONDS=${IDLE_SECONDS:-5}
+
+DATA_DIR="./data"
+METRICS_DIR="./metrics"
+Q_PATH="$DATA_DIR/fix-tail.q"
+mkdir -p "$DATA_DIR" "$METRICS_DIR"
+
+# Producer and consumer run as two JVMs at once, so launch the fat jar rather than two Gradle builds
+./gradlew -q shadowJar
+JAR=build/libs/fix-performance-test.jar
+JVM_OPTS=(
+  --add-opens=java.base/jdk.internal.misc=ALL-UNNAMED
+  --add-exports=java.base/jdk.internal.misc=ALL-UNNAMED
+  --add-exports=java.base/jdk.internal.ref=ALL-UNNAMED
+  --add-exports=java.base/sun.nio.ch=ALL-UNNAMED
+  --add-exports=jdk.unsupported/sun.misc=ALL-UNNAMED
+  --add-opens=java.base/sun.nio.ch=ALL-UNNAMED
+  --add-opens=java.base/java.lang=ALL-UNNAMED
+  --add-opens=java.base/java.lang.reflect=ALL-UNNAMED
+  --add-opens=java.base/java.io=ALL-UNNAMED
+  --add-opens=java.base/java.nio=ALL-UNNAMED
+  --add-opens=java.base/java.util=ALL-UNNAMED
+)
+
+for WAIT in $STRATEGIES; do
+  rm -rf "$Q_PATH"
+  if [ "$CONSUMER" = "quickfixj" ]; then
+    METRICS_PATH="$METRICS_DIR/qfj-tail-$WAIT.txt"
+    TAIL_ARGS=(quickfixj-tail "$Q_PATH" "$THREADS" "$WAIT" "$METRICS_PATH")
+  else
+    METRICS_PATH="$METRICS_DIR/fly-tail-$WAIT.txt"
+    TAIL_ARGS=(flyweight-tail "$Q_PATH" "$WAIT" "$METRICS_PATH")
+  fi
+  echo "Tailing $Q_PATH with $CONSUMER ($WAIT) while generating $NUM_MESSAGES messages"
+  java "${JVM_OPTS[@]}" -jar "$JAR" "${TAIL_ARGS[@]}" &
+  TAIL_PID=$!
+  java "${JVM_OPTS[@]}" -jar "$JAR" generate "$Q_PATH" "$NUM_MESSAGES"
+  sleep "$IDLE_SECONDS"
+  # SIGTERM runs the shutdown hook, which stops the tail loop and writes metrics
+  kill -TERM "$TAIL_PID"
+  wait "$TAIL_PID" || true
+  grep -E '^(p50|p99|p99.9|messages|throughput_msgs_per_sec|idle_polls|thread_cpu_util|process_cpu_cores|process_cpu_ns_per_msg)=' \
+    "$METRICS_PATH" | sed 's/^/  /'
+done
@@ -0,0 +1,29 @@
+#!/usr/bin/env bash
+set -euo pipefail
+
+# Run both consumers with interval logging so latency and throughput can be lined up over time.
+# Writes metrics/fly.{txt,hlog,csv} and metrics/qfj.{txt,hlog,csv}.
+# Usage: scripts/run_timeline.sh <queue_path> [threads] [interval_ms]
+# Example: scripts/run_timeline.sh ./data/fix.q 8 1000
+
+ROOT_DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")"/.. && pwd)"
+cd "$ROOT_DIR"
+
+QUEUE_PATH=${1:-"./data/fix.q"}
+THREADS=${2:-8}
+INTERVAL_MS=${3:-1000}
+METRICS_DIR="./metrics"
+mkdir -p "$METRICS_DIR"
+
+echo "Flyweight consume, ${INTERVAL_MS}ms intervals -> $METRICS_DIR/fly.{txt,hlog,csv}"
+./gradlew -q run --args="flyweight $QUEUE_PATH $METRICS_DIR/fly.txt $INTERVAL_MS"
+
+echo "QuickFIX/J consume (threads=$THREADS), ${INTERVAL_MS}ms intervals -> $METRICS_DIR/qfj.{txt,hlog,csv}"
+./gradlew -q run --args="quickfixj $QUEUE_PATH $THREADS $METRICS_DIR/qfj.txt $INTERVAL_MS"
+
+for NAME in fly qfj; do
+  echo
+  echo "== $NAME: elapsed_ms, msgs/s, service p99, e2e p99 per interval =="
+  # Column positions follow IntervalReporter's header: 3 fixed columns, then 6 per series
+  awk -F, 'NR > 1 { printf "  %8s  %10s  %10s  %12s\n", $1, $3, $7, $13 }' "$METRICS_DIR/$NAME.csv"
+done
@@ -0,0 +1,52 @@
+#!/usr/bin/env bash
+set -euo pipefail
+
+# Usage: scripts/run_vt_compare.sh <num_messages> [threads] [lanes]
+# Runs the QuickFIX/J consumer on platform-thread stripes and on virtual-thread lanes against the
+# same queue and prints latency, GC and thread counts side by side.
+# Defaults: num_messages=2000000, threads=8, lanes=1024
+
+ROOT_DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")"/.. && pwd)"
+cd "$ROOT_DIR"
+
+NUM_MESSAGES=${1:-2000000}
+THREADS=${2:-8}
+LANES=${3:-1024}
+
+Q_PATH="./data/vt-compare.q"
+METRICS_DIR="./metrics"
+mkdir -p ./data "$METRICS_DIR"
+
+rm -rf "$Q_PATH"
+echo "[1/3] Generate $NUM_MESSAGES messages"
+./gradlew -q run --args="generate $Q_PATH $NUM_MESSAGES"
+
+echo "[2/3] QuickFIX/J on $THREADS platform-thread stripes"
+./gradlew -q run --args="quickfixj $Q_PATH $THREADS $METRICS_DIR/qfj-stripes.txt"
+cp "$METRICS_DIR/gc-qfj.txt" "$METRICS_DIR/gc-qfj-stripes.txt"
+
+echo "[3/3] QuickFIX/J on $LANES virtual-thread lanes"
+./gradlew -q run --args="quickfixj-vt $Q_PATH $LANES $METRICS_DIR/qfj-vt.txt"
+
+value() {
+  grep -E "^$2=" "$1" | head -n1 | cut -d= -f2
+}
+
+peak_heap_mb() {
+  sed -n '/^mem_peaks_jmx=/,/^mem_peaks_tracked=/p' "$1" | grep 'usedBytes=' \
+    | sed -E 's/.*usedBytes=([0-9]+).*/\1/' | awk '{s+=$1} END {printf "%.1f", s/1024/1024}'
+}
+
+echo
+printf "%-10s %12s %10s %10s %10s %8s %12s %16s %14s\n" "Mode" "msgs/s" "p50" "p99" "p99.9" \
+  "GCs" "GC ms" "platform threads" "peak pools MB"
+for mode in stripes vt; do
+  M="$METRICS_DIR/qfj-$mode.txt"
+  G="$METRICS_DIR/gc-qfj-$mode.txt"
+  printf "%-10s %12s %10s %10s %10s %8s %12s %16s %14s\n" "$mode" \
+    "$(value "$M" throughput_msgs_per_sec)" "$(value "$M" p50)" "$(value "$M" p99)" \
+    "$(value "$M" p99.9)" "$(value "$G" gc_count)" "$(value "$G" gc_total_pause_ms)" \
+    "$(value "$M" platform_threads_peak)" "$(peak_heap_mb "$G")"
+done
+echo "virtual threads: started=$(value "$METRICS_DIR/qfj-vt.txt" virtual_threads_started)" \
+  "peak=$(value "$METRICS_DIR/qfj-vt.txt" virtual_threads_peak)"
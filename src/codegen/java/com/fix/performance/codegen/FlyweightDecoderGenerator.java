@@ -0,0 +1,216 @@
+package com.fix.performance.codegen;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.lang.model.SourceVersion;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Build-time generator of {@code FlyweightDecoder} subclasses from a QuickFIX/J data dictionary.
+ * For each selected message type it collects the header fields and the message's fields, with
+ * components flattened and repeating groups reduced to their NoXxx count, and emits one decoder
+ * with a typed getter per field:
+ *
+ * <ul>
+ *   <li>INT, SEQNUM, LENGTH, NUMINGROUP, DAYOFMONTH: {@code int name()}
+ *   <li>PRICE, PRICEOFFSET, AMT: {@code long nameCents()}
+ *   <li>QTY: {@code long name()} in whole units
+ *   <li>CHAR: {@code char name()}; BOOLEAN: {@code boolean name()}
+ *   <li>STRING: {@code long nameAsLong()} for numeric ids, plus {@code appendName(StringBuilder)}
+ *   <li>anything else: {@code appendName(StringBuilder)}
+ * </ul>
+ *
+ * <p>Every field also gets {@code hasName()}. Absent numeric fields read as the type's MIN_VALUE.
+ *
+ * <p>Usage: {@code <out_dir> <package> <dictionary> <MessageName...>}. The dictionary is a file
+ * path or, if no such file exists, a classpath resource such as {@code FIX44.xml}.
+ */
+public final class FlyweightDecoderGenerator {
+    private static final Logger logger = LogManager.getLogger(FlyweightDecoderGenerator.class);
+
+    private final Map<String, FieldDef> fieldsByName = new HashMap<>();
+    private final Map<String, Element> components = new HashMap<>();
+    private final Map<String, Element> messages = new HashMap<>();
+    private final Element header;
+
+    record FieldDef(int tag, String name, String type) {}
+
+    FlyweightDecoderGenerator(Document dictionary) {
+        Element root = dictionary.getDocumentElement();
+        for (Element f : children(child(root, "fields"), "field")) {
+            FieldDef def = new FieldDef(Integer.parseInt(f.getAttribute("number")),
+                    f.getAttribute("name"), f.getAttribute("type"));
+            fieldsByName.put(def.name(), def);
+        }
+        for (Element c : children(child(root, "components"), "component"))
+            components.put(c.getAttribute("name"), c);
+        for (Element m : children(child(root, "messages"), "message"))
+            messages.put(m.getAttribute("name"), m);
+        this.header = child(root, "header");
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4) {
+            System.err.println("Usage: FlyweightDecoderGenerator <out_dir> <package> <dictionary>"
+                    + " <message...>");
+            System.exit(1);
+        }
+        Path outDir = Path.of(args[0]);
+        String pkg = args[1];
+        FlyweightDecoderGenerator gen = new FlyweightDecoderGenerator(load(args[2]));
+        Path pkgDir = outDir.resolve(pkg.replace('.', '/'));
+        Files.createDirectories(pkgDir);
+        for (int i = 3; i < args.length; i++) {
+            String name = args[i];
+            Path file = pkgDir.resolve(name + "Decoder.java");
+            Files.writeString(file, gen.generate(pkg, name));
+            logger.info("Generated {}", file);
+        }
+    }
+
+    static Document load(String dictionary) throws Exception {
+        Path file = Path.of(dictionary);
+        ClassLoader loader = FlyweightDecoderGenerator.class.getClassLoader();
+        try (InputStream in = Files.exists(file) ? Files.newInputStream(file)
+                : loader.getResourceAsStream(dictionary)) {
+            if (in == null)
+                throw new IllegalArgumentException("Dictionary not found: " + dictionary);
+            return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read dictionary " + dictionary, e);
+        }
+    }
+
+    /** Java source of the decoder for message {@code name}. */
+    String generate(String pkg, String name) {
+        Element message = messages.get(name);
+        if (message == null)
+            throw new IllegalArgumentException("Message " + name + " is not in the dictionary");
+        String msgType = message.getAttribute("msgtype");
+        Map<Integer, FieldDef> fields = new LinkedHashMap<>();
+        collect(header, fields);
+        collect(message, fields);
+        List<FieldDef> defs = new ArrayList<>(fields.values());
+
+        String cls = name + "Decoder";
+        StringBuilder sb = new StringBuilder();
+        sb.append("// Generated by FlyweightDecoderGenerator. Do not edit.\n");
+        sb.append("package ").append(pkg).append(";\n\n");
+        sb.append("import com.fix.performance.flyweight.FlyweightDecoder;\n\n");
+        sb.append("/** Flyweight decoder for ").append(name).append(" (35=").append(msgType)
+                .append("). */\n");
+        sb.append("public final class ").append(cls).append(" extends FlyweightDecoder {\n");
+        sb.append("    public static final String MSG_TYPE = \"").append(msgType).append("\";\n");
+        sb.append("    private static final int[] TAGS = {");
+        for (int i = 0; i < defs.size(); i++) {
+            sb.append(i % 16 == 0 ? "\n            " : " ").append(defs.get(i).tag());
+            if (i < defs.size() - 1)
+                sb.append(',');
+        }
+        sb.append("\n    };\n");
+        sb.append("    private static final short[] SLOTS = slotTable(TAGS);\n\n");
+        sb.append("    public ").append(cls).append("() {\n");
+        sb.append("        super(MSG_TYPE, SLOTS, TAGS.length);\n");
+        sb.append("    }\n");
+        for (int slot = 0; slot < defs.size(); slot++)
+            appendAccessors(sb, defs.get(slot), slot);
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    /** Adds the fields of {@code parent} in declaration order, flattening components. */
+    private void collect(Element parent, Map<Integer, FieldDef> out) {
+        for (Element e : children(parent, null)) {
+            String ref = e.getAttribute("name");
+            switch (e.getTagName()) {
+                // Members of a repeating group can occur many times; only the count is indexed
+                case "field", "group" -> add(ref, out);
+                case "component" -> {
+                    Element c = components.get(ref);
+                    if (c == null)
+                        throw new IllegalArgumentException("Unknown component " + ref);
+                    collect(c, out);
+                }
+                default -> {}
+            }
+        }
+    }
+
+    private void add(String fieldName, Map<Integer, FieldDef> out) {
+        FieldDef def = fieldsByName.get(fieldName);
+        if (def == null)
+            throw new IllegalArgumentException("Unknown field " + fieldName);
+        out.putIfAbsent(def.tag(), def);
+    }
+
+    private static void appendAccessors(StringBuilder sb, FieldDef f, int slot) {
+        String upper = f.name();
+        String lower = identifier(Character.toLowerCase(upper.charAt(0)) + upper.substring(1));
+        sb.append("\n    /** ").append(f.name()).append('(').append(f.tag()).append("), ")
+                .append(f.type()).append(". */\n");
+        sb.append("    public boolean has").append(upper).append("() {\n");
+        sb.append("        return has(").append(slot).append(");\n");
+        sb.append("    }\n");
+        switch (f.type()) {
+            case "INT", "SEQNUM", "LENGTH", "NUMINGROUP", "DAYOFMONTH" ->
+                    getter(sb, "int", lower, "intValue", slot);
+            case "PRICE", "PRICEOFFSET", "AMT" ->
+                    getter(sb, "long", lower + "Cents", "centsValue", slot);
+            case "QTY" -> getter(sb, "long", lower, "unitsValue", slot);
+            case "CHAR" -> getter(sb, "char", lower, "charValue", slot);
+            case "BOOLEAN" -> getter(sb, "boolean", lower, "booleanValue", slot);
+            case "STRING" -> {
+                getter(sb, "long", lower + "AsLong", "longValue", slot);
+                appender(sb, upper, slot);
+            }
+            default -> appender(sb, upper, slot);
+        }
+    }
+
+    private static void getter(StringBuilder sb, String type, String name, String helper,
+            int slot) {
+        sb.append("\n    public ").append(type).append(' ').append(name).append("() {\n");
+        sb.append("        return ").append(helper).append('(').append(slot).append(");\n");
+        sb.append("    }\n");
+    }
+
+    private static void appender(StringBuilder sb, String upper, int slot) {
+        sb.append("\n    public StringBuilder append").append(upper)
+                .append("(StringBuilder sb) {\n");
+        sb.append("        return appendValue(").append(slot).append(", sb);\n");
+        sb.append("    }\n");
+    }
+
+    private static String identifier(String name) {
+        return SourceVersion.isName(name) ? name : name + '_';
+    }
+
+    private static Element child(Element parent, String name) {
+        List<Element> found = children(parent, name);
+        if (found.isEmpty())
+            throw new IllegalArgumentException("Dictionary has no <" + name + "> section");
+        return found.get(0);
+    }
+
+    private static List<Element> children(Element parent, String name) {
+        List<Element> out = new ArrayList<>();
+        for (Node n = parent.getFirstChild(); n != null; n = n.getNextSibling()) {
+            if (n instanceof Element e && (name == null || e.getTagName().equals(name)))
+                out.add(e);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,218 @@
+package com.fix.performance;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import com.fix.performance.fix.FixMessageBuilder;
+import com.fix.performance.flyweight.FixView;
+import com.fix.performance.flyweight.Swar;
+import com.fix.performance.flyweight.SymbolTable;
+import com.fix.performance.flyweight.Validation;
+import com.fix.performance.flyweight.gen.NewOrderSingleDecoder;
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesStore;
+
+/**
+ * Flyweight hot path: full {@code processBytes} on NOS/cancel pairs and the numeric field
+ * parsers in isolation, SWAR against the byte-at-a-time {@code *Scalar} reference. Messages live
+ * in direct Bytes, as they do when read from the queue.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FlyweightConsumerBenchmark {
+    private FlyweightConsumer consumer;
+    private FlyweightConsumer consumerWithBook;
+    private FlyweightConsumer validatingConsumer;
+    private FlyweightConsumer consumerWithView;
+    private long viewSum;
+    private NewOrderSingleDecoder nosDecoder;
+    private FixView view;
+    private SymbolTable symbols;
+    private Bytes<?> nos;
+    private Bytes<?> cancel;
+    private Bytes<?> clOrdId;
+    private Bytes<?> quantity;
+    private Bytes<?> price;
+    private Bytes<?> sendTime;
+    private Bytes<?> symbol;
+
+    @Setup
+    public void setup() {
+        consumer = new FlyweightConsumer();
+        consumerWithBook = new FlyweightConsumer();
+        consumerWithBook.enableOrderBook();
+        validatingConsumer = new FlyweightConsumer();
+        validatingConsumer.setValidation(Validation.REJECT);
+        consumerWithView = new FlyweightConsumer();
+        consumerWithView.addViewHandler(v -> viewSum += v.getLong(11) + v.valueLength(58));
+        nosDecoder = new NewOrderSingleDecoder();
+        view = new FixView();
+        symbols = new SymbolTable();
+        FixMessageBuilder b = new FixMessageBuilder("SENDER", "TARGET");
+        nos = direct(b.buildNewOrderSingle("123456789", "AAPL", '1', 500, 18_725, System.nanoTime()));
+        cancel = direct(b.buildOrderCancelRequest("987654321", "123456789", "AAPL", '1',
+                System.nanoTime()));
+        clOrdId = direct("123456789012");
+        quantity = direct("1000");
+        price = direct("187.25");
+        sendTime = direct("1760600000123456789");
+        symbol = direct("AAPL");
+        symbols.idOf("AAPL");
+    }
+
+    @TearDown
+    public void tearDown() {
+        consumer.close();
+        consumer.gcTracker.stop();
+        consumerWithBook.close();
+        consumerWithBook.gcTracker.stop();
+        validatingConsumer.close();
+        validatingConsumer.gcTracker.stop();
+        consumerWithView.close();
+        consumerWithView.gcTracker.stop();
+        for (Bytes<?> bytes : new Bytes<?>[] {nos, cancel, clOrdId, quantity, price, sendTime,
+                symbol})
+            bytes.releaseLast();
+    }
+
+    /** One NOS followed by its cancel keeps the open-order index at a steady size. */
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public int processNosThenCancel() {
+        consumer.processBytes(nos);
+        consumer.processBytes(cancel);
+        return consumer.getOpenOrdersMap().size();
+    }
+
+    /** As above, also adding and removing the order's price level in the depth book. */
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public int processNosThenCancelWithBook() {
+        consumerWithBook.processBytes(nos);
+        consumerWithBook.processBytes(cancel);
+        return consumerWithBook.getOpenOrdersMap().size();
+    }
+
+    /**
+     * As above with BodyLength and CheckSum checked: the scan runs to the trailer instead of
+     * stopping at the last needed field, summing bytes a word at a time as it goes.
+     */
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public int processNosThenCancelValidated() {
+        validatingConsumer.processBytes(nos);
+        validatingConsumer.processBytes(cancel);
+        return validatingConsumer.getOpenOrdersMap().size();
+    }
+
+    /**
+     * As above with a view handler: the view is filled by the same scan, which then runs to the
+     * end of each message.
+     */
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public long processNosThenCancelWithView() {
+        consumerWithView.processBytes(nos);
+        consumerWithView.processBytes(cancel);
+        return viewSum;
+    }
+
+    /** Checksum sum of a whole NewOrderSingle on its own, wide-word. */
+    @Benchmark
+    public long byteSum() {
+        return Swar.byteSum(store(nos), nos.readPosition(), nos.readLimit());
+    }
+
+    /** Generated decoder: index every field, then read the ones processBytes uses. */
+    @Benchmark
+    public long decodeNewOrderSingle() {
+        nosDecoder.wrap(nos);
+        return nosDecoder.clOrdIDAsLong() + nosDecoder.orderQty() + nosDecoder.priceCents()
+                + nosDecoder.side();
+    }
+
+    /** One scan, then the lookups of several independent handlers. */
+    @Benchmark
+    public long viewWrapThenFiveLookups() {
+        view.wrap(nos);
+        return view.getLong(11) + view.getInt(38) + view.getPriceCents(44) + view.getChar(54)
+                + view.valueLength(55);
+    }
+
+    /** Known symbol: hash the bytes, probe, compare; no allocation. */
+    @Benchmark
+    public int symbolId() {
+        return symbols.idOf(store(symbol), symbol.readPosition(), symbol.readLimit());
+    }
+
+    @Benchmark
+    public long parseLong() {
+        return FlyweightConsumer.parseLong(store(clOrdId), clOrdId.readPosition(),
+                clOrdId.readLimit());
+    }
+
+    @Benchmark
+    public int parseInt() {
+        return FlyweightConsumer.parseInt(store(quantity), quantity.readPosition(),
+                quantity.readLimit());
+    }
+
+    @Benchmark
+    public long parsePriceCents() {
+        return FlyweightConsumer.parsePriceCents(store(price), price.readPosition(),
+                price.readLimit());
+    }
+
+    @Benchmark
+    public long parseLongScalar() {
+        return Swar.parseLongScalar(store(clOrdId), clOrdId.readPosition(), clOrdId.readLimit());
+    }
+
+    @Benchmark
+    public int parseIntScalar() {
+        return Swar.parseIntScalar(store(quantity), quantity.readPosition(), quantity.readLimit());
+    }
+
+    @Benchmark
+    public long parsePriceCentsScalar() {
+        return Swar.parsePriceCentsScalar(store(price), price.readPosition(), price.readLimit());
+    }
+
+    /** Tag 50001: 19 digits, the longest numeric field we parse. */
+    @Benchmark
+    public long parseSendTime() {
+        return FlyweightConsumer.parseLong(store(sendTime), sendTime.readPosition(),
+                sendTime.readLimit());
+    }
+
+    @Benchmark
+    public long parseSendTimeScalar() {
+        return Swar.parseLongScalar(store(sendTime), sendTime.readPosition(),
+                sendTime.readLimit());
+    }
+
+    /** Full-length delimiter search: byte 0 never occurs in a NewOrderSingle. */
+    @Benchmark
+    public long indexOfSoh() {
+        return Swar.indexOf(store(nos), nos.readPosition(), nos.readLimit(), (byte) 0);
+    }
+
+    private static BytesStore<?, ?> store(Bytes<?> bytes) {
+        return bytes.bytesStore();
+    }
+
+    private static Bytes<?> direct(String ascii) {
+        Bytes<?> bytes = Bytes.allocateElasticDirect(256);
+        bytes.write(ascii.getBytes(StandardCharsets.US_ASCII));
+        return bytes;
+    }
+}
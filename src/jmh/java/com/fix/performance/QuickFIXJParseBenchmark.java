@@ -0,0 +1,63 @@
+package com.fix.performance;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import com.fix.performance.fix.FixMessageBuilder;
+import com.fix.performance.fix.PooledFixParser;
+import quickfix.DataDictionary;
+import quickfix.Message;
+
+/**
+ * QuickFIX/J baseline: {@code Message.fromString} with the FIX44 dictionary, as the consumer does,
+ * against {@link PooledFixParser} refilling one message (run with {@code -prof gc} for
+ * allocation per op).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class QuickFIXJParseBenchmark {
+    private DataDictionary dictionary;
+    private PooledFixParser pooled;
+    private String nos;
+    private String cancel;
+
+    @Setup
+    public void setup() throws Exception {
+        dictionary = new DataDictionary("FIX44.xml");
+        pooled = new PooledFixParser(dictionary, "D", "F");
+        FixMessageBuilder b = new FixMessageBuilder("SENDER", "TARGET");
+        nos = b.buildNewOrderSingle("123456789", "AAPL", '1', 500, 18_725, System.nanoTime());
+        cancel = b.buildOrderCancelRequest("987654321", "123456789", "AAPL", '1',
+                System.nanoTime());
+    }
+
+    @Benchmark
+    public Message parseNewOrderSingle() throws Exception {
+        Message msg = new Message();
+        msg.fromString(nos, dictionary, false);
+        return msg;
+    }
+
+    @Benchmark
+    public Message parseOrderCancelRequest() throws Exception {
+        Message msg = new Message();
+        msg.fromString(cancel, dictionary, false);
+        return msg;
+    }
+
+    @Benchmark
+    public Message parseNewOrderSinglePooled() throws Exception {
+        return pooled.parse(nos);
+    }
+
+    @Benchmark
+    public Message parseOrderCancelRequestPooled() throws Exception {
+        return pooled.parse(cancel);
+    }
+}
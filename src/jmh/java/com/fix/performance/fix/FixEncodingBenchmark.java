@@ -0,0 +1,58 @@
+package com.fix.performance.fix;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import net.openhft.chronicle.bytes.Bytes;
+
+/** String-based {@link FixMessageBuilder} against the allocation-free {@link FixMessageEncoder}. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FixEncodingBenchmark {
+    private FixMessageBuilder builder;
+    private FixMessageEncoder encoder;
+    private long clOrdId;
+
+    @Setup
+    public void setup() {
+        builder = new FixMessageBuilder("SENDER", "TARGET");
+        encoder = new FixMessageEncoder("SENDER", "TARGET");
+    }
+
+    @TearDown
+    public void tearDown() {
+        encoder.close();
+    }
+
+    @Benchmark
+    public String builderNewOrderSingle() {
+        long id = ++clOrdId;
+        return builder.buildNewOrderSingle(Long.toString(id), "AAPL", '1', 500, 18_725, id);
+    }
+
+    @Benchmark
+    public String builderOrderCancelRequest() {
+        long id = ++clOrdId;
+        return builder.buildOrderCancelRequest(Long.toString(id), Long.toString(id - 1), "AAPL",
+                '1', id);
+    }
+
+    @Benchmark
+    public Bytes<?> encoderNewOrderSingle() {
+        long id = ++clOrdId;
+        return encoder.encodeNewOrderSingle(id, "AAPL", '1', 500, 18_725, id);
+    }
+
+    @Benchmark
+    public Bytes<?> encoderOrderCancelRequest() {
+        long id = ++clOrdId;
+        return encoder.encodeOrderCancelRequest(id, id - 1, "AAPL", '1', id);
+    }
+}
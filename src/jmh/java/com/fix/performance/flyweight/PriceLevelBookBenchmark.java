@@ -0,0 +1,64 @@
+package com.fix.performance.flyweight;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Depth-book updates as the book widens: opening and emptying a level at a random price inside
+ * a book of {@code levels} levels, against adding to and removing from a level that stays. Both
+ * should grow no faster than log(levels).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PriceLevelBookBenchmark {
+    private static final int PRICES = 1 << 12;
+
+    @Param({"16", "1024", "65536"})
+    public int levels;
+
+    private PriceLevelBook book;
+    private final long[] newLevelPrices = new long[PRICES];
+    private final long[] existingPrices = new long[PRICES];
+    private int next;
+
+    @Setup
+    public void setup() {
+        book = new PriceLevelBook();
+        Random random = new Random(3);
+        // Resting levels on even ticks; new levels open on the odd ticks between them
+        for (int i = 0; i < levels; i++)
+            book.add(0, Order.BUY, 2L * i, 100);
+        for (int i = 0; i < PRICES; i++) {
+            newLevelPrices[i] = 2L * random.nextInt(levels) + 1;
+            existingPrices[i] = 2L * random.nextInt(levels);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public long openAndEmptyLevel() {
+        long price = newLevelPrices[next++ & (PRICES - 1)];
+        book.add(0, Order.BUY, price, 100);
+        book.remove(0, Order.BUY, price, 100);
+        return book.bestBid(0);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public long addToAndRemoveFromExistingLevel() {
+        long price = existingPrices[next++ & (PRICES - 1)];
+        book.add(0, Order.BUY, price, 100);
+        book.remove(0, Order.BUY, price, 100);
+        return book.bestBid(0);
+    }
+}
@@ -0,0 +1,83 @@
+package com.fix.performance.net;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import com.fix.performance.fix.FixMessageBuilder;
+import com.fix.performance.flyweight.Swar;
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesStore;
+
+/**
+ * Framing a buffer of back-to-back messages, per message, against the floor it should be close
+ * to: one {@code memchr}-style pass over the same bytes, and finding every SOH in them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FixFramerBenchmark {
+    private static final int MESSAGES = 512;
+
+    private final Consumer<Bytes<?>> countFrame = frame -> frames++;
+    private Bytes<?> batch;
+    private long frames;
+
+    @Setup
+    public void setup() {
+        FixMessageBuilder b = new FixMessageBuilder("SENDER", "TARGET");
+        batch = Bytes.allocateElasticDirect(MESSAGES * 256);
+        for (int i = 0; i < MESSAGES; i++) {
+            String msg = i % 2 == 0
+                    ? b.buildNewOrderSingle(Integer.toString(100_000_000 + i), "AAPL", '1', 500,
+                            18_725, System.nanoTime(), 1_760_600_000_123_456_789L)
+                    : b.buildOrderCancelRequest(Integer.toString(200_000_000 + i),
+                            Integer.toString(100_000_000 + i - 1), "AAPL", '1', System.nanoTime());
+            batch.write(msg.getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        batch.releaseLast();
+    }
+
+    /** Header and trailer of each message, body skipped by BodyLength. */
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public long frameAll() {
+        long start = batch.readPosition();
+        frames = 0;
+        FixFramer.frameAll(batch, countFrame);
+        batch.readPosition(start);
+        return frames;
+    }
+
+    /** One full-length scan for a byte that never occurs. */
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public long memchr() {
+        return Swar.indexOf(batch.bytesStore(), batch.readPosition(), batch.readLimit(), (byte) 0);
+    }
+
+    /** Every field delimiter, as a framer that walks fields to the trailer would. */
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public long everySoh() {
+        BytesStore<?, ?> store = batch.bytesStore();
+        long end = batch.readLimit();
+        long n = 0;
+        for (long i = Swar.indexOf(store, batch.readPosition(), end, (byte) 1); i < end;
+                i = Swar.indexOf(store, i + 1, end, (byte) 1))
+            n++;
+        return n;
+    }
+}
@@ -0,0 +1,71 @@
+package com.fix.performance.queue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import com.fix.performance.fix.FixMessageEncoder;
+import net.openhft.chronicle.bytes.Bytes;
+
+/** Append one encoded NOS and read it back through a {@link FixTailer}, per queue format. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class QueueRoundTripBenchmark {
+    @Param({"WIRE", "RAW"})
+    public String format;
+
+    private Path dir;
+    private ChronicleQueueService svc;
+    private FixTailer tailer;
+    private FixMessageEncoder encoder;
+    private Bytes<?> message;
+    private long checksum;
+    private final Consumer<Bytes<?>> reader = bytes -> checksum += bytes.readRemaining();
+
+    @Setup
+    public void setup() throws Exception {
+        dir = Files.createDirectories(Path.of("data", "jmh-" + System.nanoTime()));
+        svc = new ChronicleQueueService(dir.resolve("fix.q"), QueueFormat.valueOf(format));
+        tailer = svc.createTailer();
+        encoder = new FixMessageEncoder("SENDER", "TARGET");
+        message = encoder.encodeNewOrderSingle(123456789L, "AAPL", '1', 500, 18_725, 1L);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        tailer.close();
+        svc.close();
+        encoder.close();
+        try (var paths = Files.walk(dir)) {
+            paths.sorted((a, b) -> b.getNameCount() - a.getNameCount()).forEach(p -> {
+                try {
+                    Files.deleteIfExists(p);
+                } catch (Exception ignored) {
+                }
+            });
+        }
+    }
+
+    @Benchmark
+    public void append() {
+        svc.writeFixBytes(message);
+    }
+
+    @Benchmark
+    public long appendAndRead() {
+        svc.writeFixBytes(message);
+        if (!tailer.readBytes(reader))
+            throw new IllegalStateException("appended excerpt not visible to tailer");
+        return checksum;
+    }
+}
@@ -1,67 +1,421 @@
 package com.fix.performance;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Path;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import com.fix.performance.flyweight.FixView;
+import com.fix.performance.flyweight.FlyweightDecoder;
+import com.fix.performance.flyweight.OpenAddressingOrderIndex;
 import com.fix.performance.flyweight.Order;
+import com.fix.performance.flyweight.OrderSnapshotter;
+import com.fix.performance.flyweight.OrderIndex;
+import com.fix.performance.flyweight.PriceLevelBook;
+import com.fix.performance.flyweight.Swar;
+import com.fix.performance.flyweight.SymbolTable;
+import com.fix.performance.flyweight.Validation;
+import com.fix.performance.flyweight.gen.ExecutionReportDecoder;
+import com.fix.performance.flyweight.gen.OrderCancelReplaceRequestDecoder;
+import com.fix.performance.fix.FixMessageBuilder;
+import com.fix.performance.metrics.CpuTimer;
+import com.fix.performance.metrics.EpochNanoClock;
 import com.fix.performance.metrics.HistogramUtil;
+import com.fix.performance.metrics.IntervalReporter;
 import com.fix.performance.metrics.GcTracker;
+import com.fix.performance.net.FixFramer;
 import com.fix.performance.queue.ChronicleQueueService;
+import com.fix.performance.queue.FixTailer;
+import com.fix.performance.queue.ReadRange;
+import com.fix.performance.queue.TailStats;
+import com.fix.performance.ring.WaitStrategy;
 import net.openhft.affinity.AffinityLock;
 import net.openhft.chronicle.bytes.Bytes;
 import net.openhft.chronicle.bytes.BytesStore;
 
 /**
  * Flyweight consumer: parses FIX strings directly (string scanning) to extract fields without
- * building full message objects. Maintains a map of open orders keyed by ClOrdID.
+ * building full message objects. Maintains an index of open orders keyed by the numeric ClOrdID;
+ * symbols are stored as {@link SymbolTable} ids, so a NewOrderSingle for a known symbol allocates
+ * nothing. OrderCancelReplaceRequest moves the pooled {@link Order} to its new ClOrdID and amends
+ * quantity and price in place; ExecutionReport updates the filled quantity and releases the order
+ * once it is filled or otherwise done. Both are read through the generated decoders, which the
+ * same scan fills past MsgType. {@link #enableOrderBook} additionally keeps a
+ * {@link PriceLevelBook} of aggregated depth up to date with every change, and
+ * {@link #setValidation} checks BodyLength and CheckSum within the same scan. With
+ * {@link #enableSnapshots} the index is periodically snapshotted and a restart replays only the
+ * messages after the last snapshot. Without snapshots, {@link #setReadRange} can restrict the
+ * run to an index range or resume a named tailer. {@link #consumeStream} reads FIX from a byte
+ * stream instead of a queue.
  */
 public final class FlyweightConsumer implements AutoCloseable {
     private static final Logger logger = LogManager.getLogger(FlyweightConsumer.class);
 
-    private final Map<Long, Order> clOrdIdToOrder = new ConcurrentHashMap<>();
-    // Reusable scratch to minimize garbage while creating small Strings (e.g., ClOrdID, Symbol)
-    private final StringBuilder scratch = new StringBuilder(64);
-    // Reusable ranges to avoid per-call allocations
-    private final MutableRange r35 = new MutableRange();
-    private final MutableRange r11 = new MutableRange();
-    private final MutableRange r55 = new MutableRange();
-    private final MutableRange r38 = new MutableRange();
-    private final MutableRange r44 = new MutableRange();
-    private final MutableRange r41 = new MutableRange();
-
-    public Map<Long, Order> getOpenOrdersMap() {
+    private final OrderIndex clOrdIdToOrder;
+    private final SymbolTable symbols;
+    // Filled by the order-field scan, only when view handlers are registered
+    private final FixView view = new FixView();
+    private final List<Consumer<FixView>> viewHandlers = new ArrayList<>();
+    // Replaces and execution reports are read through the generated decoders, fed by the scan
+    private final OrderCancelReplaceRequestDecoder replace =
+            new OrderCancelReplaceRequestDecoder();
+    private final ExecutionReportDecoder execReport = new ExecutionReportDecoder();
+    // Null unless enableOrderBook was called
+    private PriceLevelBook book;
+
+    public FlyweightConsumer() {
+        this(new OpenAddressingOrderIndex());
+    }
+
+    public FlyweightConsumer(OrderIndex index) {
+        this(index, new SymbolTable());
+    }
+
+    /** @param symbols symbol ids for {@link Order#symbolId}; may be shared with other consumers */
+    public FlyweightConsumer(OrderIndex index, SymbolTable symbols) {
+        this.clOrdIdToOrder = Objects.requireNonNull(index, "index");
+        this.symbols = Objects.requireNonNull(symbols, "symbols");
+    }
+
+    public OrderIndex getOpenOrdersMap() {
         return clOrdIdToOrder;
     }
 
+    /**
+     * Maintains per-symbol, per-side price-level depth from now on, built from the open orders
+     * already indexed, and returns it. Read it from view handlers or once consuming has returned.
+     */
+    public PriceLevelBook enableOrderBook() {
+        if (book == null) {
+            book = new PriceLevelBook();
+            book.rebuild(clOrdIdToOrder);
+        }
+        return book;
+    }
+
+    /** The book from {@link #enableOrderBook}, or {@code null}. */
+    public PriceLevelBook orderBook() {
+        return book;
+    }
+
+    /** Resolves {@link Order#symbolId} of this consumer's orders. */
+    public SymbolTable symbols() {
+        return symbols;
+    }
+
     // Metrics recording (ns)
     private final org.HdrHistogram.Recorder recorder =
             new org.HdrHistogram.Recorder(10_000_000_000L, 3);
+    // Producer stamp (tag 50001) to processed; auto-resizing since a backlog can sit for minutes
+    private final org.HdrHistogram.Recorder endToEndRecorder = new org.HdrHistogram.Recorder(3);
     private static final int WARMUP_SKIP = 100;
+    private static final byte SOH = 1;
+    private long lastSendEpochNanos = FixMessageBuilder.NO_SEND_TIME;
     private final AtomicLong processedCounter = new AtomicLong(0);
     final GcTracker gcTracker = new GcTracker().start();
+    private volatile boolean stopRequested;
+    private long intervalLogMs;
+    private ReadRange range = ReadRange.ALL;
+    private Validation validation = Validation.OFF;
+    private long invalidMessages;
+    private long lastReadIndex = FixTailer.NO_INDEX;
+    // Snapshot recovery; null unless enableSnapshots was called
+    private Path snapshotFile;
+    private OrderSnapshotter snapshotter;
+    private long snapshotIndex = OrderSnapshotter.NO_SNAPSHOT;
+    private long snapshotLoadNs;
+    private long recoveredOrders;
+    private long replayedMessages;
+    private long startupNs;
+
+    /**
+     * Starts from the open-order snapshot at {@code file}, if there is one, and resumes the queue
+     * after the index it covers; while consuming, snapshots the index every {@code everyMessages}
+     * (off-thread, see {@link OrderSnapshotter}) and once more at the end. Call before consuming;
+     * the index must be empty.
+     */
+    public void enableSnapshots(Path file, long everyMessages) {
+        enableSnapshots(file, everyMessages, OrderSnapshotter.DEFAULT_CAPTURE_BUDGET_NS);
+    }
+
+    /**
+     * As {@link #enableSnapshots(Path, long)}; captures that stop processing for longer than
+     * {@code captureBudgetNs} are counted and logged.
+     */
+    public void enableSnapshots(Path file, long everyMessages, long captureBudgetNs) {
+        if (clOrdIdToOrder.size() != 0)
+            throw new IllegalStateException("Snapshots must be enabled before consuming");
+        if (!range.isAll())
+            throw new IllegalStateException("Snapshots choose their own start, not a read range");
+        this.snapshotFile = Objects.requireNonNull(file, "file");
+        this.snapshotter = new OrderSnapshotter(file, everyMessages, captureBudgetNs);
+    }
+
+    /**
+     * Reads only {@code range} (a named tailer, an index range or both) instead of the whole queue.
+     * Not combinable with {@link #enableSnapshots}, which picks its own start index. Call before
+     * consuming.
+     */
+    public void setReadRange(ReadRange range) {
+        Objects.requireNonNull(range, "range");
+        if (snapshotter != null && !range.isAll())
+            throw new IllegalStateException("Snapshots choose their own start, not a read range");
+        this.range = range;
+    }
+
+    /**
+     * Checks BodyLength (9) and CheckSum (10) of every message while it is parsed: the byte sum
+     * is accumulated a word at a time as the fields are scanned, so there is no second pass, but
+     * the scan no longer stops early and always runs to the trailer. Call before consuming.
+     */
+    public void setValidation(Validation validation) {
+        this.validation = Objects.requireNonNull(validation, "validation");
+    }
+
+    /** Messages that failed validation, applied or not depending on {@link #setValidation}. */
+    public long invalidMessages() {
+        return invalidMessages;
+    }
+
+    /** Queue index of the last message read, or {@link FixTailer#NO_INDEX}. */
+    public long lastReadIndex() {
+        return lastReadIndex;
+    }
 
     public void consume(Path queuePath) {
         Objects.requireNonNull(queuePath, "queuePath");
         try (AffinityLock lock = AffinityLock.acquireLock();
                 ChronicleQueueService svc = new ChronicleQueueService(queuePath)) {
-            svc.forEachBytes(this::processBytesWithTiming);
+            read(svc, null);
         }
     }
 
     public void consume(Path queuePath, Path metricsOut) {
         Objects.requireNonNull(queuePath, "queuePath");
+        IntervalReporter intervals = startIntervalLog(metricsOut);
+        long elapsedNs;
+        try {
+            long startNs = System.nanoTime();
+            try (AffinityLock lock = AffinityLock.acquireLock();
+                    ChronicleQueueService svc = new ChronicleQueueService(queuePath)) {
+                read(svc, null);
+            }
+            elapsedNs = System.nanoTime() - startNs;
+        } finally {
+            if (intervals != null)
+                intervals.close();
+        }
+        writeSummary(metricsOut, intervals, "Flyweight", processedCounter.get(), elapsedNs);
+        appendValidationMetrics(metricsOut);
+        appendRecoveryMetrics(metricsOut);
+    }
+
+    /**
+     * Processes a stream of back-to-back FIX messages, e.g. a FIX log file or a socket, until it
+     * ends, with no queue in between: a {@link FixFramer} finds the message boundaries and each
+     * message is parsed in place in its buffer. Throws if the stream can't be framed.
+     */
+    public void consumeStream(ReadableByteChannel in, Path metricsOut) {
+        Objects.requireNonNull(in, "in");
+        IntervalReporter intervals = startIntervalLog(metricsOut);
+        long messages = processedCounter.get();
+        long elapsedNs;
+        try (AffinityLock lock = AffinityLock.acquireLock();
+                FixFramer framer = new FixFramer()) {
+            Consumer<Bytes<?>> onMessage = this::processBytesWithTiming;
+            long startNs = System.nanoTime();
+            while (framer.readFrom(in) >= 0) {
+                if (framer.drain(onMessage) == FixFramer.MALFORMED)
+                    throw new IllegalStateException("Unframeable FIX after "
+                            + (processedCounter.get() - messages) + " messages");
+            }
+            elapsedNs = System.nanoTime() - startNs;
+            if (framer.pending() > 0)
+                logger.warn("Stream ended mid-message, {} bytes dropped", framer.pending());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read FIX stream", e);
+        } finally {
+            if (intervals != null)
+                intervals.close();
+        }
+        writeSummary(metricsOut, intervals, "Flyweight stream", processedCounter.get() - messages,
+                elapsedNs);
+        appendValidationMetrics(metricsOut);
+    }
+
+    /**
+     * Reads the queue to its end ({@code wait == null}) or tails it until {@link #stop()}. With
+     * snapshots enabled, first loads the snapshot and starts after its index, and snapshots as it
+     * goes; startup time is measured up to the first time the reader is caught up.
+     */
+    private TailStats read(ChronicleQueueService svc, WaitStrategy wait) {
+        if (snapshotter == null) {
+            try (FixTailer tailer = svc.createTailer(range)) {
+                Consumer<Bytes<?>> onMessage = this::processBytesWithTiming;
+                TailStats stats = null;
+                if (wait != null)
+                    stats = ChronicleQueueService.tail(tailer, onMessage, wait,
+                            () -> !stopRequested);
+                else
+                    while (tailer.readBytes(onMessage)) {}
+                lastReadIndex = tailer.lastIndex();
+                if (!range.isAll())
+                    logger.info("Read {} up to index {}", range, lastReadIndex);
+                return stats;
+            }
+        }
+        long startNs = System.nanoTime();
+        snapshotIndex = OrderSnapshotter.load(snapshotFile, clOrdIdToOrder, symbols);
+        snapshotLoadNs = System.nanoTime() - startNs;
+        recoveredOrders = clOrdIdToOrder.size();
+        if (book != null)
+            book.rebuild(clOrdIdToOrder);
+        long resumeAfter = snapshotIndex == OrderSnapshotter.NO_SNAPSHOT ? FixTailer.NO_INDEX
+                : snapshotIndex;
+        try (FixTailer tailer = svc.createTailerAfter(resumeAfter)) {
+            Consumer<Bytes<?>> onMessage = bytes -> {
+                processBytesWithTiming(bytes);
+                snapshotter.onProcessed(clOrdIdToOrder, symbols, tailer.lastIndex());
+            };
+            while (tailer.readBytes(onMessage))
+                replayedMessages++;
+            startupNs = System.nanoTime() - startNs;
+            logger.info("Recovered {} orders from snapshot and replayed {} messages in {} ms",
+                    recoveredOrders, replayedMessages, startupNs / 1_000_000);
+            TailStats live = wait == null ? null
+                    : ChronicleQueueService.tail(tailer, onMessage, wait, () -> !stopRequested);
+            lastReadIndex = tailer.lastIndex();
+            if (tailer.lastIndex() != resumeAfter)
+                snapshotter.capture(clOrdIdToOrder, symbols, tailer.lastIndex(), true);
+            snapshotter.flush();
+            return live == null ? null
+                    : new TailStats(replayedMessages + live.messages(), live.idlePolls());
+        }
+    }
+
+    private void appendValidationMetrics(Path metricsOut) {
+        if (validation == Validation.OFF)
+            return;
+        HistogramUtil.appendMetrics(metricsOut, "validation=" + validation + "\ninvalid_messages="
+                + invalidMessages + "\n");
+    }
+
+    private void appendRecoveryMetrics(Path metricsOut) {
+        if (snapshotter == null)
+            return;
+        HistogramUtil.appendMetrics(metricsOut, "startup_ms=" + startupNs / 1_000_000
+                + "\nsnapshot_load_ms=" + snapshotLoadNs / 1_000_000 + "\nsnapshot_index="
+                + snapshotIndex + "\nrecovered_orders=" + recoveredOrders
+                + "\nreplayed_messages=" + replayedMessages + "\nsnapshots_written="
+                + snapshotter.written() + "\nsnapshots_skipped=" + snapshotter.skipped()
+                + "\nsnapshot_capture_max_us=" + snapshotter.maxCaptureNs() / 1_000
+                + "\nsnapshot_capture_budget_us=" + snapshotter.captureBudgetNs() / 1_000
+                + "\nsnapshot_captures_over_budget=" + snapshotter.capturesOverBudget()
+                + "\nsnapshot_write_max_ms=" + snapshotter.maxWriteNs() / 1_000_000 + "\n");
+    }
+
+    /** Time from consume start, snapshot load included, until the reader first caught up. */
+    public long startupNanos() {
+        return startupNs;
+    }
+
+    /**
+     * When {@code intervalMs > 0}, runs with a metrics path also log an interval histogram and a
+     * throughput row every {@code intervalMs} next to it ({@code fly.txt} gives {@code fly.hlog} and
+     * {@code fly.csv}).
+     */
+    public void setIntervalLogMs(long intervalMs) {
+        this.intervalLogMs = intervalMs;
+    }
+
+    private IntervalReporter startIntervalLog(Path metricsOut) {
+        if (intervalLogMs <= 0 || metricsOut == null)
+            return null;
+        return IntervalReporter.beside(metricsOut, intervalLogMs, processedCounter::get)
+                .add("service", recorder).add("e2e", endToEndRecorder).start();
+    }
+
+    private void writeSummary(Path metricsOut, IntervalReporter intervals, String label,
+            long messages, long elapsedNs) {
+        if (intervals == null) {
+            HistogramUtil.writeHistogram(metricsOut, recorder, label, messages, elapsedNs);
+            HistogramUtil.appendHistogram(metricsOut, endToEndRecorder, "End-to-end", "e2e_");
+        } else {
+            HistogramUtil.writeHistogram(metricsOut, intervals.total("service"), label, messages,
+                    elapsedNs);
+            HistogramUtil.appendHistogram(metricsOut, intervals.total("e2e"), "End-to-end",
+                    "e2e_");
+        }
+    }
+
+    /**
+     * Live mode: processes the queue from the start and keeps tailing it while a writer appends,
+     * idling with {@code wait} between empty polls, until {@link #stop()}. Writes the service-time
+     * histogram plus throughput, idle polls and CPU cost to {@code metricsOut}.
+     */
+    public TailStats tail(Path queuePath, WaitStrategy wait, Path metricsOut) {
+        Objects.requireNonNull(queuePath, "queuePath");
+        Objects.requireNonNull(wait, "wait");
+        IntervalReporter intervals = startIntervalLog(metricsOut);
+        TailStats stats;
+        long elapsedNs;
+        String cpu;
         try (AffinityLock lock = AffinityLock.acquireLock();
                 ChronicleQueueService svc = new ChronicleQueueService(queuePath)) {
-            svc.forEachBytes(this::processBytesWithTiming);
+            CpuTimer cpuTimer = CpuTimer.start();
+            long startNs = System.nanoTime();
+            stats = read(svc, wait);
+            elapsedNs = System.nanoTime() - startNs;
+            cpu = cpuTimer.report(elapsedNs, stats.messages());
+        } finally {
+            if (intervals != null)
+                intervals.close();
         }
-        HistogramUtil.writeHistogram(metricsOut, recorder, "Flyweight");
+        logger.info("Flyweight tail stopped: wait={}, messages={}, idlePolls={}", wait,
+                stats.messages(), stats.idlePolls());
+        writeSummary(metricsOut, intervals, "Flyweight tail", stats.messages(), elapsedNs);
+        HistogramUtil.appendMetrics(metricsOut,
+                "wait_strategy=" + wait + "\nidle_polls=" + stats.idlePolls() + "\n" + cpu);
+        appendValidationMetrics(metricsOut);
+        appendRecoveryMetrics(metricsOut);
+        return stats;
+    }
+
+    /** Asks a running {@link #tail} to return; safe to call from any thread, including before. */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * Registers a handler (risk, enrichment, logging, ...) called with a {@link FixView} of every
+     * message after the order index is updated. The view is filled by the same scan that updates
+     * the index, so the message is read once however many handlers use it, but that scan then
+     * runs to the end of every message. The view is valid only during the call. Register before
+     * consuming.
+     */
+    public void addViewHandler(Consumer<FixView> handler) {
+        viewHandlers.add(Objects.requireNonNull(handler, "handler"));
     }
 
     void processBytes(Bytes<?> bytes) {
+        FixView v = viewHandlers.isEmpty() ? null : view;
+        if (!applyOrderFields(bytes, v) || v == null)
+            return;
+        for (int i = 0; i < viewHandlers.size(); i++)
+            viewHandlers.get(i).accept(view);
+    }
+
+    /**
+     * Updates the order index (and book) from one message; false if validation rejected it. With
+     * a {@code view}, every field is also recorded in it during the same scan.
+     */
+    private boolean applyOrderFields(Bytes<?> bytes, FixView view) {
         long pos = bytes.readPosition();
         long limit = pos + bytes.readRemaining();
         BytesStore<?, ?> store = bytes.bytesStore();
@@ -74,94 +428,247 @@ public final class FlyweightConsumer implements AutoCloseable {
         long priceCents = Long.MIN_VALUE;
         long symStart = -1;
         long symEnd = -1;
+        byte side = 0;
+        // Set at MsgType G or 8: the later fields go to it instead of the switch below
+        FlyweightDecoder decoder = null;
+        lastSendEpochNanos = FixMessageBuilder.NO_SEND_TIME;
+        // Validation state: bytes summed so far cover [msgStart, summedTo)
+        final boolean validate = validation != Validation.OFF;
+        // Validation and the view need every field, so no early exit
+        final boolean fullScan = validate || view != null;
+        if (view != null)
+            view.begin(store);
+        long checksumSum = 0;
+        long summedTo = pos;
+        long bodyStart = -1;
+        int bodyLength = -1;
+        long trailerStart = -1;
+        int checkSum = -1;
 
         while (pos < limit) {
+            long fieldStart = pos;
             // Parse tag number until '='; skip invalid tokens to next SOH
             int tag = 0;
             boolean hasDigit = false;
+            boolean hasValue = false;
             while (pos < limit) {
                 int b = store.readUnsignedByte(pos++);
-                if (b == '=')
+                if (b == '=') {
+                    hasValue = true;
                     break;
+                }
                 int d = b - '0';
                 if (d >= 0 && d <= 9) {
                     tag = tag * 10 + d;
                     hasDigit = true;
                 } else {
-                    // Skip to end of this field
-                    while (pos < limit && store.readUnsignedByte(pos++) != 1) {}
-                    hasDigit = false;
+                    // Skip to end of this field, unless b was its SOH (an empty token)
+                    if (b != SOH)
+                        while (pos < limit && store.readUnsignedByte(pos++) != 1) {}
                     break;
                 }
             }
+            final boolean tagged = hasDigit && hasValue;
 
             long valStart = pos;
-            while (pos < limit && store.readUnsignedByte(pos) != 1)
-                pos++;
             long valEnd = pos;
-            if (pos < limit)
-                pos++; // skip SOH
+            if (hasValue) {
+                pos = Swar.indexOf(store, pos, limit, SOH);
+                valEnd = pos;
+                if (pos < limit)
+                    pos++; // skip SOH
+            }
+            if (tagged && view != null)
+                view.field(tag, valStart, valEnd);
+
+            if (validate) {
+                if (tagged && tag == 10) { // CheckSum: sums every byte before this field
+                    checksumSum += Swar.byteSum(store, summedTo, fieldStart);
+                    trailerStart = fieldStart;
+                    if (valEnd - valStart == 3)
+                        checkSum = parseInt(store, valStart, valEnd);
+                    break;
+                }
+                // Whole words only; the remainder is carried into the next field's sum
+                long wordEnd = summedTo + ((pos - summedTo) & ~7L);
+                checksumSum += Swar.byteSum(store, summedTo, wordEnd);
+                summedTo = wordEnd;
+                if (tagged && tag == 9 && bodyStart == -1) { // BodyLength
+                    bodyLength = parseInt(store, valStart, valEnd);
+                    bodyStart = pos;
+                }
+            }
 
-            if (!hasDigit)
+            if (!tagged)
                 continue;
 
-            switch (tag) {
-                case 35: // MsgType
-                    if (valEnd > valStart) {
-                        msgType = (byte) store.readUnsignedByte(valStart);
-                        haveMsgType = true;
-                    }
-                    break;
-                case 11: // ClOrdID
-                    clOrdId = parseLong(store, valStart, valEnd);
-                    break;
-                case 41: // OrigClOrdID
-                    origClOrdId = parseLong(store, valStart, valEnd);
-                    break;
-                case 55: // Symbol
-                    symStart = valStart;
-                    symEnd = valEnd;
-                    break;
-                case 38: // OrderQty
-                    quantity = parseInt(store, valStart, valEnd);
-                    break;
-                case 44: // Price
-                    priceCents = parsePriceCents(store, valStart, valEnd);
-                    break;
-                default:
-                    break;
+            if (decoder != null) {
+                decoder.field(tag, valStart, valEnd);
+            } else {
+                switch (tag) {
+                    case 35: // MsgType
+                        if (valEnd > valStart) {
+                            msgType = (byte) store.readUnsignedByte(valStart);
+                            haveMsgType = true;
+                            decoder = msgType == 'G' ? replace
+                                    : msgType == '8' ? execReport : null;
+                            if (decoder != null)
+                                decoder.begin(store);
+                        }
+                        break;
+                    case 11: // ClOrdID
+                        clOrdId = parseLong(store, valStart, valEnd);
+                        break;
+                    case 41: // OrigClOrdID
+                        origClOrdId = parseLong(store, valStart, valEnd);
+                        break;
+                    case 55: // Symbol
+                        symStart = valStart;
+                        symEnd = valEnd;
+                        break;
+                    case 54: // Side
+                        if (valEnd > valStart)
+                            side = (byte) store.readUnsignedByte(valStart);
+                        break;
+                    case 38: // OrderQty
+                        quantity = parseInt(store, valStart, valEnd);
+                        break;
+                    case 44: // Price
+                        priceCents = parsePriceCents(store, valStart, valEnd);
+                        break;
+                    case FixMessageBuilder.SEND_EPOCH_NANOS_TAG: // precedes the order fields
+                        lastSendEpochNanos = parseLong(store, valStart, valEnd);
+                        break;
+                    default:
+                        break;
+                }
             }
 
             // Early exit when we have all required fields for the message type
-            if (haveMsgType) {
-                if (msgType == 'D' && clOrdId != Long.MIN_VALUE && symStart != -1
+            if (haveMsgType && !fullScan) {
+                if (msgType == 'D' && clOrdId != Long.MIN_VALUE && symStart != -1 && side != 0
                         && quantity != Integer.MIN_VALUE && priceCents != Long.MIN_VALUE) {
                     break;
                 }
                 if (msgType == 'F' && origClOrdId != Long.MIN_VALUE) {
                     break;
                 }
+                if (msgType == 'G' && replace.hasClOrdID() && replace.hasOrigClOrdID()
+                        && replace.hasOrderQty() && replace.hasPrice()) {
+                    break;
+                }
+                // OrigClOrdID, when an execution report has one, comes before these
+                if (msgType == '8' && execReport.hasClOrdID() && execReport.hasOrdStatus()
+                        && execReport.hasCumQty()) {
+                    break;
+                }
             }
         }
 
+        if (validate && (trailerStart == -1 || bodyStart == -1
+                || trailerStart - bodyStart != bodyLength || (checksumSum & 0xFF) != checkSum)) {
+            invalidMessages++;
+            if (validation == Validation.REJECT)
+                return false;
+        }
+
+        if (decoder != null)
+            lastSendEpochNanos = decoder.sendEpochNanos();
         if (!haveMsgType)
-            return;
+            return true;
 
         if (msgType == 'D') {
             if (clOrdId == Long.MIN_VALUE || symStart == -1 || quantity == Integer.MIN_VALUE
                     || priceCents == Long.MIN_VALUE)
-                return;
-            String sym = dedupeSymbol(asciiSlice(store, symStart, symEnd));
+                return true;
             Order ord = acquireOrder();
-            ord.set(sym, quantity, priceCents);
-            clOrdIdToOrder.put(clOrdId, ord);
+            ord.set(symbols.idOf(store, symStart, symEnd), side, quantity, priceCents);
+            Order displaced = clOrdIdToOrder.put(clOrdId, ord);
+            if (book != null) {
+                if (displaced != null)
+                    book.remove(displaced);
+                book.add(ord);
+            }
         } else if (msgType == 'F') {
             if (origClOrdId == Long.MIN_VALUE)
-                return;
+                return true;
             Order removed = clOrdIdToOrder.remove(origClOrdId);
-            if (removed != null)
+            if (removed != null) {
+                if (book != null)
+                    book.remove(removed);
                 releaseOrder(removed);
+            }
+        } else if (msgType == 'G') {
+            applyReplace();
+        } else if (msgType == '8') {
+            applyExecutionReport();
         }
+        return true;
+    }
+
+    private void applyReplace() {
+        if (!replace.hasClOrdID() || !replace.hasOrigClOrdID())
+            return;
+        Order ord = rekey(replace.origClOrdIDAsLong(), replace.clOrdIDAsLong());
+        if (ord == null)
+            return;
+        if (book != null)
+            book.remove(ord);
+        ord.amend(replace.hasOrderQty() ? (int) replace.orderQty() : ord.quantity,
+                replace.hasPrice() ? replace.priceCents() : ord.priceCents);
+        if (book != null)
+            book.add(ord);
+    }
+
+    private void applyExecutionReport() {
+        if (!execReport.hasClOrdID())
+            return;
+        long clOrdId = execReport.clOrdIDAsLong();
+        Order ord = clOrdIdToOrder.get(clOrdId);
+        // A replace acknowledgement may be the first message carrying the new ClOrdID
+        if (ord == null && execReport.hasOrigClOrdID())
+            ord = rekey(execReport.origClOrdIDAsLong(), clOrdId);
+        if (ord == null)
+            return;
+        if (book != null)
+            book.remove(ord);
+        if (execReport.hasCumQty())
+            ord.cumQty = (int) execReport.cumQty();
+        else if (execReport.hasLastQty())
+            ord.cumQty += (int) execReport.lastQty();
+        if (isTerminal((byte) execReport.ordStatus()) || ord.cumQty >= ord.quantity) {
+            clOrdIdToOrder.remove(clOrdId);
+            releaseOrder(ord);
+        } else if (book != null) {
+            book.add(ord);
+        }
+    }
+
+    /** Moves the order under {@code fromId} to {@code toId}, the same object; null if absent. */
+    private Order rekey(long fromId, long toId) {
+        Order ord = clOrdIdToOrder.remove(fromId);
+        if (ord == null)
+            return null;
+        Order displaced = clOrdIdToOrder.put(toId, ord);
+        if (displaced != null && displaced != ord) {
+            if (book != null)
+                book.remove(displaced);
+            releaseOrder(displaced);
+        }
+        return ord;
+    }
+
+    /** OrdStatus values after which the order can no longer trade. */
+    private static boolean isTerminal(byte ordStatus) {
+        return ordStatus == '2' // Filled
+                || ordStatus == '4' // Canceled
+                || ordStatus == '8' // Rejected
+                || ordStatus == 'C'; // Expired
+    }
+
+    /** Send timestamp (tag 50001) of the last processed message, or {@code NO_SEND_TIME}. */
+    long lastSendEpochNanos() {
+        return lastSendEpochNanos;
     }
 
     private void processBytesWithTiming(Bytes<?> bytes) {
@@ -173,13 +680,19 @@ public final class FlyweightConsumer implements AutoCloseable {
             long prev = processedCounter.getAndIncrement();
             if (prev >= WARMUP_SKIP) {
                 recorder.recordValue(endNs - startNs);
+                recordEndToEnd(endToEndRecorder, lastSendEpochNanos);
             }
         }
     }
 
+    /** Records now minus the producer's stamp, if the message had one; skew below zero reads 0. */
+    static void recordEndToEnd(org.HdrHistogram.Recorder e2e, long sendEpochNanos) {
+        if (sendEpochNanos == FixMessageBuilder.NO_SEND_TIME)
+            return;
+        e2e.recordValue(Math.max(0, EpochNanoClock.now() - sendEpochNanos));
+    }
+
     private final java.util.ArrayDeque<Order> pool = new java.util.ArrayDeque<>(1024);
-    private final java.util.concurrent.ConcurrentHashMap<String, String> symbolCache =
-            new java.util.concurrent.ConcurrentHashMap<>();
 
     private Order acquireOrder() {
         Order ord = pool.pollFirst();
@@ -192,137 +705,24 @@ public final class FlyweightConsumer implements AutoCloseable {
             pool.addFirst(ord);
     }
 
-    private String dedupeSymbol(String s) {
-        String cached = symbolCache.putIfAbsent(s, s);
-        return cached == null ? s : cached;
+    static long parseLong(BytesStore<?, ?> store, long s, long e) {
+        return Swar.parseLong(store, s, e);
     }
 
-    private static long parseLongAscii(String s) {
-        long v = 0;
-        for (int i = 0; i < s.length(); i++) {
-            char c = s.charAt(i);
-            if (c < '0' || c > '9')
-                break;
-            v = v * 10 + (c - '0');
-        }
-        return v;
-    }
-
-    private static long parseLong(BytesStore<?, ?> store, long s, long e) {
-        long v = 0;
-        boolean neg = false;
-        for (long i = s; i < e; i++) {
-            int b = store.readUnsignedByte(i);
-            if (b == '-') {
-                neg = true;
-                continue;
-            }
-            int d = b - '0';
-            if (d >= 0 && d <= 9)
-                v = v * 10 + d;
-        }
-        return neg ? -v : v;
-    }
-
-    private String asciiSlice(BytesStore<?, ?> store, long start, long end) {
-        scratch.setLength(0);
-        for (long i = start; i < end; i++) {
-            scratch.append((char) store.readUnsignedByte(i));
-        }
-        return scratch.toString();
-    }
-
-    private static int parseInt(BytesStore<?, ?> store, long s, long e) {
-        int val = 0;
-        for (long i = s; i < e; i++) {
-            int d = store.readUnsignedByte(i) - '0';
-            if (d >= 0 && d <= 9)
-                val = val * 10 + d;
-        }
-        return val;
-    }
-
-    private static long parsePriceCents(BytesStore<?, ?> store, long s, long e) {
-        long dollars = 0;
-        long cents = 0;
-        boolean frac = false;
-        int fracDigits = 0;
-        boolean neg = false;
-        for (long i = s; i < e; i++) {
-            int b = store.readUnsignedByte(i);
-            if (b == '-') {
-                neg = true;
-                continue;
-            }
-            if (b == '.') {
-                frac = true;
-                continue;
-            }
-            int d = b - '0';
-            if (d < 0 || d > 9)
-                continue;
-            if (!frac)
-                dollars = dollars * 10 + d;
-            else if (fracDigits < 2) {
-                cents = cents * 10 + d;
-                fracDigits++;
-            }
-        }
-        while (fracDigits < 2) {
-            cents *= 10;
-            fracDigits++;
-        }
-        long total = dollars * 100 + cents;
-        return neg ? -total : total;
-    }
-
-    private static boolean findTag(BytesStore<?, ?> store, long start, long limit, int targetTag,
-            MutableRange out) {
-        long i = start;
-        while (i < limit) {
-            int tag = 0;
-            boolean hasDigit = false;
-            long j = i;
-            for (; j < limit; j++) {
-                int b = store.readUnsignedByte(j);
-                if (b == '=')
-                    break;
-                int d = b - '0';
-                if (d >= 0 && d <= 9) {
-                    tag = tag * 10 + d;
-                    hasDigit = true;
-                } else {
-                    while (j < limit && store.readUnsignedByte(j) != 1)
-                        j++;
-                    break;
-                }
-            }
-            if (j >= limit)
-                return false;
-            long valStart = j + 1;
-            long k = valStart;
-            while (k < limit && store.readUnsignedByte(k) != 1)
-                k++;
-            if (hasDigit && tag == targetTag) {
-                out.start = valStart;
-                out.end = k;
-                return true;
-            }
-            i = k + 1;
-        }
-        return false;
+    static int parseInt(BytesStore<?, ?> store, long s, long e) {
+        return Swar.parseInt(store, s, e);
     }
 
-    private static final class MutableRange {
-        long start;
-        long end;
+    static long parsePriceCents(BytesStore<?, ?> store, long s, long e) {
+        return Swar.parsePriceCents(store, s, e);
     }
 
     // Removed string-based helpers; flyweight operates on Bytes directly
 
     @Override
     public void close() {
-        // nothing
+        if (snapshotter != null)
+            snapshotter.close();
     }
 }
 
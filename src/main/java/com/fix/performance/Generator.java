@@ -3,6 +3,7 @@ package com.fix.performance;
 import java.nio.file.Path;
 import com.fix.performance.generator.FixMessageGenerator;
 import com.fix.performance.generator.GenerationResult;
+import com.fix.performance.queue.QueueFormat;
 
 /**
  * Simple CLI entry to run the generator directly, keeping backward compatibility with
@@ -11,15 +12,17 @@ import com.fix.performance.generator.GenerationResult;
 public final class Generator {
     public static void main(String[] args) {
         if (args.length < 2) {
-            System.err.println("Usage: Generator <queue_path> <message_count>");
+            System.err.println("Usage: Generator <queue_path> <message_count> [wire|raw]");
             System.exit(2);
             return;
         }
         Path queue = Path.of(args[0]);
         long count = Long.parseLong(args[1]);
+        QueueFormat format = args.length > 2 ? QueueFormat.parse(args[2]) : null;
 
         FixMessageGenerator gen = new FixMessageGenerator();
-        GenerationResult res = gen.generate(queue, count, System.nanoTime(), "SENDER", "TARGET");
+        GenerationResult res =
+                gen.generate(queue, count, System.nanoTime(), "SENDER", "TARGET", format);
         System.out.printf("Generated: total=%d, NOS=%d, Cancel=%d%n", res.totalMessages(),
                 res.nosCount(), res.cancelCount());
     }
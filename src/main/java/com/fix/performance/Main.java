@@ -11,40 +11,211 @@ import org.apache.logging.log4j.Logger;
  */
 public class Main {
     private static final Logger logger = LogManager.getLogger(Main.class);
+    private static final long DEFAULT_SNAPSHOT_EVERY = 100_000;
+    private static final java.util.Set<String> READ_RANGE_COMMANDS = java.util.Set.of("flyweight",
+            "flyweight-tail", "quickfixj", "quickfixj-pooled", "quickfixj-vt", "quickfixj-tail");
+    private static final java.util.Set<String> VALIDATION_COMMANDS =
+            java.util.Set.of("flyweight", "flyweight-tail", "flyweight-log");
 
     public static void main(String[] args) {
         logger.info("FIX Performance Test Application Starting...");
 
+        java.util.List<String> rest = new java.util.ArrayList<>();
+        com.fix.performance.flyweight.Validation validation = parseValidation(args, rest);
+        boolean validationGiven = rest.size() < args.length;
+        args = rest.toArray(new String[0]);
+        rest.clear();
+        com.fix.performance.queue.ReadRange range = parseReadRange(args, rest);
+        boolean rangeGiven = rest.size() < args.length;
+        args = rest.toArray(new String[0]);
         if (args.length == 0) {
             printUsage();
             return;
         }
 
         String command = args[0].toLowerCase();
+        // Fail rather than run a whole pass without an option the command would drop
+        if (rangeGiven && !READ_RANGE_COMMANDS.contains(command))
+            throw new IllegalArgumentException(
+                    "--tailer, --from and --to are not supported by " + command);
+        if (validationGiven && !VALIDATION_COMMANDS.contains(command))
+            throw new IllegalArgumentException("--validate is not supported by " + command);
 
         switch (command) {
             case "generate" -> {
                 if (args.length < 3) {
-                    logger.error("Usage: generate <queue_path> <message_count>");
+                    logger.error("Usage: generate <queue_path> <message_count> [wire|raw]"
+                            + " [replace_pct] [fill_pct]");
                     return;
                 }
-                runGenerator(args[1], Long.parseLong(args[2]));
+                com.fix.performance.queue.QueueFormat format = args.length > 3
+                        ? com.fix.performance.queue.QueueFormat.parse(args[3])
+                        : null;
+                com.fix.performance.generator.MessageMix mix =
+                        new com.fix.performance.generator.MessageMix(
+                                args.length > 4 ? Integer.parseInt(args[4]) : 0,
+                                args.length > 5 ? Integer.parseInt(args[5]) : 0);
+                runGenerator(args[1], Long.parseLong(args[2]), format, mix);
+            }
+            case "generate-parallel" -> {
+                if (args.length < 4) {
+                    logger.error("Usage: generate-parallel <queue_path> <message_count> <threads>"
+                            + " [wire|raw] [seed]");
+                    return;
+                }
+                com.fix.performance.queue.QueueFormat format = args.length > 4
+                        ? com.fix.performance.queue.QueueFormat.parse(args[4])
+                        : null;
+                long seed = args.length > 5 ? Long.parseLong(args[5]) : System.nanoTime();
+                runParallelGenerator(args[1], Long.parseLong(args[2]), Integer.parseInt(args[3]),
+                        format, seed);
+            }
+            case "generate-rate" -> {
+                if (args.length < 4) {
+                    logger.error("Usage: generate-rate <queue_path> <message_count> <msgs_per_sec>"
+                            + " [burst_size] [wire|raw]");
+                    return;
+                }
+                int burst = args.length > 4 ? Integer.parseInt(args[4]) : 1;
+                com.fix.performance.queue.QueueFormat format = args.length > 5
+                        ? com.fix.performance.queue.QueueFormat.parse(args[5])
+                        : null;
+                runRateGenerator(args[1], Long.parseLong(args[2]), Long.parseLong(args[3]), burst,
+                        format);
             }
             case "flyweight" -> {
                 if (args.length < 2) {
-                    logger.error("Usage: flyweight <queue_path> [metrics_path]");
+                    logger.error("Usage: flyweight <queue_path> [metrics_path] [interval_ms]");
                     return;
                 }
                 String metricsPath = args.length > 2 ? args[2] : null;
-                runFlyweightConsumer(args[1], metricsPath);
+                long intervalMs = args.length > 3 ? Long.parseLong(args[3]) : 0;
+                runFlyweightConsumer(args[1], metricsPath, intervalMs, range, validation);
+            }
+            case "flyweight-log" -> {
+                if (args.length < 2) {
+                    logger.error(
+                            "Usage: flyweight-log <fix_log_path> [metrics_path] [interval_ms]");
+                    return;
+                }
+                String metricsPath = args.length > 2 ? args[2] : null;
+                long intervalMs = args.length > 3 ? Long.parseLong(args[3]) : 0;
+                runFlyweightLog(args[1], metricsPath, intervalMs, validation);
+            }
+            case "export-log" -> {
+                if (args.length < 3) {
+                    logger.error("Usage: export-log <queue_path> <fix_log_path>");
+                    return;
+                }
+                runExportLog(args[1], args[2]);
+            }
+            case "flyweight-recover" -> {
+                if (args.length < 3) {
+                    logger.error("Usage: flyweight-recover <queue_path> <snapshot_path>"
+                            + " [snapshot_every] [metrics_path] [interval_ms]");
+                    return;
+                }
+                long every = args.length > 3 ? Long.parseLong(args[3]) : DEFAULT_SNAPSHOT_EVERY;
+                String metricsPath = args.length > 4 ? args[4] : null;
+                long intervalMs = args.length > 5 ? Long.parseLong(args[5]) : 0;
+                runFlyweightRecover(args[1], args[2], every, metricsPath, intervalMs);
             }
-            case "quickfixj" -> {
+            case "flyweight-sharded" -> {
                 if (args.length < 3) {
-                    logger.error("Usage: quickfixj <queue_path> <thread_count> [metrics_path]");
+                    logger.error("Usage: flyweight-sharded <queue_path> <shards> [metrics_path]");
                     return;
                 }
                 String metricsPath = args.length > 3 ? args[3] : null;
-                runQuickFIXJConsumer(args[1], Integer.parseInt(args[2]), metricsPath);
+                runShardedFlyweightConsumer(args[1], Integer.parseInt(args[2]), metricsPath);
+            }
+            case "quickfixj", "quickfixj-pooled" -> {
+                if (args.length < 3) {
+                    logger.error("Usage: {} <queue_path> <thread_count> [metrics_path]"
+                            + " [interval_ms] [block|spin|drop]", args[0]);
+                    return;
+                }
+                String metricsPath = args.length > 3 ? args[3] : null;
+                long intervalMs = args.length > 4 ? Long.parseLong(args[4]) : 0;
+                com.fix.performance.ring.Backpressure backpressure = args.length > 5
+                        ? com.fix.performance.ring.Backpressure.parse(args[5])
+                        : com.fix.performance.ring.Backpressure.BLOCK;
+                runQuickFIXJConsumer(args[1], Integer.parseInt(args[2]), metricsPath, intervalMs,
+                        backpressure, args[0].equals("quickfixj-pooled"), range);
+            }
+            case "quickfixj-vt" -> {
+                if (args.length < 2) {
+                    logger.error("Usage: quickfixj-vt <queue_path> [lanes] [metrics_path]"
+                            + " [interval_ms]");
+                    return;
+                }
+                int lanes = args.length > 2 ? Integer.parseInt(args[2])
+                        : com.fix.performance.QuickFIXJConsumer.DEFAULT_VIRTUAL_LANES;
+                String metricsPath = args.length > 3 ? args[3] : null;
+                long intervalMs = args.length > 4 ? Long.parseLong(args[4]) : 0;
+                runQuickFIXJVirtual(args[1], lanes, metricsPath, intervalMs, range);
+            }
+            case "flyweight-tail" -> {
+                if (args.length < 3) {
+                    logger.error("Usage: flyweight-tail <queue_path> <spin|yield|backoff>"
+                            + " [metrics_path] [duration_seconds] [interval_ms] [snapshot_path]"
+                            + " [snapshot_every]");
+                    return;
+                }
+                String metricsPath = args.length > 3 ? args[3] : null;
+                long seconds = args.length > 4 ? Long.parseLong(args[4]) : 0;
+                long intervalMs = args.length > 5 ? Long.parseLong(args[5]) : 0;
+                String snapshotPath = args.length > 6 ? args[6] : null;
+                long every = args.length > 7 ? Long.parseLong(args[7]) : DEFAULT_SNAPSHOT_EVERY;
+                runFlyweightTail(args[1], args[2], metricsPath, seconds, intervalMs, snapshotPath,
+                        every, range, validation);
+            }
+            case "quickfixj-tail" -> {
+                if (args.length < 4) {
+                    logger.error("Usage: quickfixj-tail <queue_path> <thread_count>"
+                            + " <spin|yield|backoff> [metrics_path] [duration_seconds]"
+                            + " [interval_ms] [block|spin|drop]");
+                    return;
+                }
+                String metricsPath = args.length > 4 ? args[4] : null;
+                long seconds = args.length > 5 ? Long.parseLong(args[5]) : 0;
+                long intervalMs = args.length > 6 ? Long.parseLong(args[6]) : 0;
+                com.fix.performance.ring.Backpressure backpressure = args.length > 7
+                        ? com.fix.performance.ring.Backpressure.parse(args[7])
+                        : com.fix.performance.ring.Backpressure.BLOCK;
+                runQuickFIXJTail(args[1], Integer.parseInt(args[2]), args[3], metricsPath,
+                        seconds, intervalMs, backpressure, range);
+            }
+            case "acceptor" -> {
+                if (args.length < 3) {
+                    logger.error("Usage: acceptor <journal_path> <port> [spin|yield|backoff]"
+                            + " [metrics_path] [duration_seconds] [wire|raw]");
+                    return;
+                }
+                String waitName = args.length > 3 ? args[3] : "backoff";
+                String metricsPath = args.length > 4 ? args[4] : null;
+                long seconds = args.length > 5 ? Long.parseLong(args[5]) : 0;
+                com.fix.performance.queue.QueueFormat format = args.length > 6
+                        ? com.fix.performance.queue.QueueFormat.parse(args[6])
+                        : null;
+                runAcceptor(args[1], Integer.parseInt(args[2]), waitName, metricsPath, seconds,
+                        format);
+            }
+            case "load-client" -> {
+                if (args.length < 4) {
+                    logger.error("Usage: load-client <queue_path> <host> <port> [msgs_per_sec]"
+                            + " [burst_size]");
+                    return;
+                }
+                long rate = args.length > 4 ? Long.parseLong(args[4]) : 0;
+                int burst = args.length > 5 ? Integer.parseInt(args[5]) : 1;
+                runLoadClient(args[1], args[2], Integer.parseInt(args[3]), rate, burst);
+            }
+            case "index-compare" -> {
+                int[] sizes = args.length > 1
+                        ? java.util.Arrays.stream(args, 1, args.length).mapToInt(Integer::parseInt)
+                                .toArray()
+                        : new int[] {1_000_000, 10_000_000, 50_000_000};
+                runIndexComparison(sizes);
             }
             default -> {
                 logger.error("Unknown command: {}", command);
@@ -58,10 +229,61 @@ public class Main {
         System.out.println("Usage: java -jar fix-performance-test.jar <command> [args...]");
         System.out.println();
         System.out.println("Commands:");
-        System.out.println("  generate <queue_path> <message_count>  - Generate FIX messages");
-        System.out.println("  flyweight <queue_path> [metrics_path]  - Run flyweight consumer");
+        System.out.println("  generate <queue_path> <message_count> [wire|raw] [replace_pct]"
+                + " [fill_pct]  - Generate FIX messages; the percentages turn that share of"
+                + " cancels into cancel/replaces (35=G) and fills (35=8)");
+        System.out.println("  generate-parallel <queue_path> <message_count> <threads> [wire|raw]"
+                + " [seed]  - Generate with N encoder threads (same output for any N)");
+        System.out.println("  generate-rate <queue_path> <message_count> <msgs_per_sec>"
+                + " [burst_size] [wire|raw]  - Generate at a fixed rate, stamping intended send"
+                + " times");
+        System.out.println(
+                "  flyweight <queue_path> [metrics_path] [interval_ms]  - Run flyweight consumer");
+        System.out.println("  flyweight-log <fix_log_path> [metrics_path] [interval_ms]"
+                + "  - Run flyweight consumer over a file of back-to-back FIX messages, framed"
+                + " as it is read");
+        System.out.println("  export-log <queue_path> <fix_log_path>  - Write every message of a"
+                + " queue to a plain FIX log file");
+        System.out.println("  flyweight-recover <queue_path> <snapshot_path> [snapshot_every]"
+                + " [metrics_path] [interval_ms]  - Run flyweight consumer from the last open-order"
+                + " snapshot, replaying only later messages");
+        System.out.println("  flyweight-sharded <queue_path> <shards> [metrics_path]"
+                + "  - Run flyweight consumer on N pinned shard threads");
+        System.out.println("  quickfixj <queue_path> <thread_count> [metrics_path] [interval_ms]"
+                + " [block|spin|drop]  - Run QuickFIX/J consumer");
+        System.out.println("  quickfixj-pooled <queue_path> <thread_count> [metrics_path]"
+                + " [interval_ms] [block|spin|drop]  - Same, reusing Message, field and Order"
+                + " objects per stripe");
+        System.out.println("  quickfixj-vt <queue_path> [lanes] [metrics_path] [interval_ms]"
+                + "  - Run QuickFIX/J consumer on per-ClOrdID virtual-thread lanes");
+        System.out.println("  flyweight-tail <queue_path> <spin|yield|backoff> [metrics_path]"
+                + " [duration_seconds] [interval_ms] [snapshot_path] [snapshot_every]"
+                + "  - Tail a live queue until Ctrl-C or the duration");
+        System.out.println("  quickfixj-tail <queue_path> <thread_count> <spin|yield|backoff>"
+                + " [metrics_path] [duration_seconds] [interval_ms] [block|spin|drop]  - Same,"
+                + " with the QuickFIX/J consumer");
+        System.out.println("  (block|spin|drop: what the QuickFIX/J reader does when a stripe's"
+                + " bounded ring is full; default block)");
+        System.out.println("  (interval_ms > 0 also writes <metrics>.hlog and <metrics>.csv"
+                + " with per-interval latency and throughput)");
+        System.out.println("  acceptor <journal_path> <port> [spin|yield|backoff] [metrics_path]"
+                + " [duration_seconds] [wire|raw]  - Accept FIX over TCP and journal every"
+                + " message into a queue until Ctrl-C or the duration");
+        System.out.println("  load-client <queue_path> <host> <port> [msgs_per_sec] [burst_size]"
+                + "  - Replay a queue to an acceptor, re-stamping tag 50001 as it sends");
+        System.out.println(
+                "  index-compare [open_orders...]  - Compare boxed vs primitive open-order index");
+        System.out.println();
+        System.out.println("Read options (flyweight, flyweight-tail and the quickfixj commands;"
+                + " anywhere on the line; other commands reject them):");
+        System.out.println("  --tailer <name>  - Resume the named tailer; its position is saved in"
+                + " the queue as it reads");
+        System.out.println("  --from <index>   - First queue index to read (decimal or 0x hex)");
         System.out.println(
-                "  quickfixj <queue_path> <thread_count> [metrics_path]  - Run QuickFIX/J consumer");
+                "  --to <index>     - Last queue index to read; tail commands stop there");
+        System.out.println("  --validate <off|count|reject>  - flyweight, flyweight-tail and"
+                + " flyweight-log only, rejected elsewhere: check BodyLength and CheckSum while"
+                + " parsing; count bad messages or also drop them");
         System.out.println();
         System.out.println("Examples:");
         System.out.println("  java -jar fix-performance-test.jar generate ./data/fix.q 2000000");
@@ -71,26 +293,218 @@ public class Main {
                 "  java -jar fix-performance-test.jar quickfixj ./data/fix.q 8 ./metrics/qfj.txt");
     }
 
-    private static void runGenerator(String queuePath, long messageCount) {
-        logger.info("Starting FIX message generator: queue={}, count={}", queuePath, messageCount);
+    /**
+     * Removes {@code --validate <mode>} from {@code args}, copying the other arguments to
+     * {@code rest} in order.
+     */
+    static com.fix.performance.flyweight.Validation parseValidation(String[] args,
+            java.util.List<String> rest) {
+        com.fix.performance.flyweight.Validation validation =
+                com.fix.performance.flyweight.Validation.OFF;
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].equals("--validate")) {
+                rest.add(args[i]);
+                continue;
+            }
+            if (i + 1 >= args.length)
+                throw new IllegalArgumentException("--validate needs a value");
+            validation = com.fix.performance.flyweight.Validation.parse(args[++i]);
+        }
+        return validation;
+    }
+
+    /**
+     * Removes {@code --tailer <name>}, {@code --from <index>} and {@code --to <index>} from
+     * {@code args}, copying the other arguments to {@code rest} in order.
+     */
+    static com.fix.performance.queue.ReadRange parseReadRange(String[] args,
+            java.util.List<String> rest) {
+        String name = null;
+        long from = com.fix.performance.queue.ReadRange.UNBOUNDED;
+        long to = com.fix.performance.queue.ReadRange.UNBOUNDED;
+        for (int i = 0; i < args.length; i++) {
+            String a = args[i];
+            boolean option = a.equals("--tailer") || a.equals("--from") || a.equals("--to");
+            if (!option) {
+                rest.add(a);
+                continue;
+            }
+            if (i + 1 >= args.length)
+                throw new IllegalArgumentException(a + " needs a value");
+            String value = args[++i];
+            switch (a) {
+                case "--tailer" -> name = value;
+                case "--from" -> from = com.fix.performance.queue.ReadRange.parseIndex(value);
+                default -> to = com.fix.performance.queue.ReadRange.parseIndex(value);
+            }
+        }
+        return new com.fix.performance.queue.ReadRange(name, from, to);
+    }
+
+    private static void logLastIndex(com.fix.performance.queue.ReadRange range, long lastIndex) {
+        if (!range.isAll())
+            logger.info("Last queue index read: {} (0x{}){}", lastIndex,
+                    Long.toHexString(lastIndex), range.tailerName() == null ? ""
+                            : ", saved for tailer '" + range.tailerName() + "'");
+    }
+
+    private static void logInvalid(com.fix.performance.flyweight.Validation validation,
+            long invalid) {
+        if (validation != com.fix.performance.flyweight.Validation.OFF)
+            logger.info("Messages failing BodyLength/CheckSum validation: {} ({})", invalid,
+                    validation == com.fix.performance.flyweight.Validation.REJECT ? "dropped"
+                            : "applied");
+    }
+
+    private static void runGenerator(String queuePath, long messageCount,
+            com.fix.performance.queue.QueueFormat format,
+            com.fix.performance.generator.MessageMix mix) {
+        logger.info("Starting FIX message generator: queue={}, count={}, format={}, mix={}",
+                queuePath, messageCount, format, mix);
         com.fix.performance.generator.FixMessageGenerator gen =
                 new com.fix.performance.generator.FixMessageGenerator();
         java.nio.file.Path path = java.nio.file.Path.of(queuePath);
+        com.fix.performance.generator.GenerationResult res = gen.generate(path, messageCount,
+                System.nanoTime(), "SENDER", "TARGET", format, null, mix);
+        logger.info("Generation done: total={}, nos={}, cancels={}, replaces={}, execReports={}",
+                res.totalMessages(), res.nosCount(), res.cancelCount(), res.replaceCount(),
+                res.execReportCount());
+    }
+
+    private static void runParallelGenerator(String queuePath, long messageCount, int threads,
+            com.fix.performance.queue.QueueFormat format, long seed) {
+        logger.info("Starting parallel generator: queue={}, count={}, threads={}, format={},"
+                + " seed={}", queuePath, messageCount, threads, format, seed);
         com.fix.performance.generator.GenerationResult res =
-                gen.generate(path, messageCount, System.nanoTime(), "SENDER", "TARGET");
+                new com.fix.performance.generator.ParallelFixMessageGenerator().generate(
+                        java.nio.file.Path.of(queuePath), messageCount, seed, "SENDER", "TARGET",
+                        format, threads);
         logger.info("Generation done: total={}, nos={}, cancels={}", res.totalMessages(),
                 res.nosCount(), res.cancelCount());
     }
 
-    private static void runFlyweightConsumer(String queuePath, String metricsPath) {
-        logger.info("Starting flyweight consumer: queue={}, metricsPath={}", queuePath,
-                metricsPath);
+    private static void runRateGenerator(String queuePath, long messageCount, long ratePerSec,
+            int burstSize, com.fix.performance.queue.QueueFormat format) {
+        logger.info("Starting rate-controlled generator: queue={}, count={}, rate={}/s, burst={},"
+                + " format={}", queuePath, messageCount, ratePerSec, burstSize, format);
+        com.fix.performance.generator.SendPacer pacer =
+                new com.fix.performance.generator.SendPacer(ratePerSec, burstSize);
+        com.fix.performance.generator.GenerationResult res =
+                new com.fix.performance.generator.FixMessageGenerator().generate(
+                        java.nio.file.Path.of(queuePath), messageCount, System.nanoTime(),
+                        "SENDER", "TARGET", format, pacer);
+        logger.info("Generation done: total={}, nos={}, cancels={}, target={}/s, achieved={}/s,"
+                + " lateSends={}, maxLagUs={}", res.totalMessages(), res.nosCount(),
+                res.cancelCount(), ratePerSec, pacer.achievedMessagesPerSecond(),
+                pacer.lateSends(), pacer.maxLagNs() / 1_000);
+    }
+
+    private static void runAcceptor(String journalPath, int port, String waitName,
+            String metricsPath, long durationSeconds,
+            com.fix.performance.queue.QueueFormat format) {
+        com.fix.performance.ring.WaitStrategy wait =
+                com.fix.performance.ring.WaitStrategy.parse(waitName);
+        logger.info("Starting FIX acceptor: journal={}, port={}, wait={}, metricsPath={},"
+                + " duration={}s", journalPath, port, wait, metricsPath, durationSeconds);
+        java.nio.file.Path m = java.nio.file.Path
+                .of(metricsPath != null ? metricsPath : "./metrics/acceptor-" + wait + ".txt");
+        // The journal's appender is used by the thread that opened it, which runs the acceptor
+        try (com.fix.performance.queue.ChronicleQueueService journal =
+                new com.fix.performance.queue.ChronicleQueueService(
+                        java.nio.file.Path.of(journalPath), format);
+                com.fix.performance.net.FixAcceptor acceptor =
+                        new com.fix.performance.net.FixAcceptor(journal, port, wait)) {
+            com.fix.performance.metrics.CpuTimer cpuTimer =
+                    com.fix.performance.metrics.CpuTimer.start();
+            long startNs = System.nanoTime();
+            runUntilStopped(acceptor::stop, durationSeconds, acceptor::run);
+            long elapsedNs = System.nanoTime() - startNs;
+            acceptor.writeMetrics(m, elapsedNs);
+            com.fix.performance.metrics.HistogramUtil.appendMetrics(m,
+                    "wait_strategy=" + wait + "\n"
+                            + cpuTimer.report(elapsedNs, acceptor.messages()));
+        }
+    }
+
+    private static void runLoadClient(String queuePath, String host, int port, long ratePerSec,
+            int burstSize) {
+        com.fix.performance.generator.SendPacer pacer = ratePerSec > 0
+                ? new com.fix.performance.generator.SendPacer(ratePerSec, burstSize)
+                : null;
+        com.fix.performance.net.FixLoadClient client = new com.fix.performance.net.FixLoadClient(
+                new java.net.InetSocketAddress(host, port), pacer);
+        client.replay(java.nio.file.Path.of(queuePath));
+        if (pacer != null)
+            logger.info("Pacing: target={}/s, achieved={}/s, lateSends={}, maxLagUs={}",
+                    ratePerSec, pacer.achievedMessagesPerSecond(), pacer.lateSends(),
+                    pacer.maxLagNs() / 1_000);
+    }
+
+    private static void runFlyweightLog(String logPath, String metricsPath, long intervalMs,
+            com.fix.performance.flyweight.Validation validation) {
+        logger.info("Starting flyweight consumer on FIX log: log={}, metricsPath={}, validation={}",
+                logPath, metricsPath, validation);
+        java.nio.file.Path m =
+                java.nio.file.Path.of(metricsPath != null ? metricsPath : "./metrics/fly-log.txt");
+        try (com.fix.performance.FlyweightConsumer consumer =
+                new com.fix.performance.FlyweightConsumer();
+                java.nio.channels.FileChannel in = java.nio.channels.FileChannel
+                        .open(java.nio.file.Path.of(logPath))) {
+            consumer.setIntervalLogMs(intervalMs);
+            consumer.setValidation(validation);
+            consumer.consumeStream(in, m);
+            logInvalid(validation, consumer.invalidMessages());
+            logger.info("Open orders after log: {}", consumer.getOpenOrdersMap().size());
+        } catch (java.io.IOException e) {
+            throw new java.io.UncheckedIOException("Failed to read " + logPath, e);
+        }
+    }
+
+    private static void runExportLog(String queuePath, String logPath) {
+        java.nio.file.Path out = java.nio.file.Path.of(logPath);
+        long[] count = new long[1];
+        try (com.fix.performance.queue.ChronicleQueueService svc =
+                new com.fix.performance.queue.ChronicleQueueService(
+                        java.nio.file.Path.of(queuePath));
+                java.io.OutputStream os = new java.io.BufferedOutputStream(
+                        java.nio.file.Files.newOutputStream(out), 1 << 16)) {
+            svc.forEach(msg -> {
+                try {
+                    os.write(msg.getBytes(java.nio.charset.StandardCharsets.US_ASCII));
+                } catch (java.io.IOException e) {
+                    throw new java.io.UncheckedIOException(e);
+                }
+                count[0]++;
+            });
+        } catch (java.io.IOException e) {
+            throw new java.io.UncheckedIOException("Failed to write " + logPath, e);
+        }
+        logger.info("Exported {} messages from {} to {}", count[0], queuePath, logPath);
+    }
+
+    private static void runIndexComparison(int[] sizes) {
+        logger.info("Starting open-order index comparison: sizes={}",
+                java.util.Arrays.toString(sizes));
+        com.fix.performance.flyweight.OrderIndexComparison.run(sizes,
+                java.nio.file.Path.of("./metrics/index-compare.txt"));
+    }
+
+    private static void runFlyweightConsumer(String queuePath, String metricsPath,
+            long intervalMs, com.fix.performance.queue.ReadRange range,
+            com.fix.performance.flyweight.Validation validation) {
+        logger.info("Starting flyweight consumer: queue={}, metricsPath={}, intervalMs={},"
+                + " validation={}", queuePath, metricsPath, intervalMs, validation);
         java.nio.file.Path path = java.nio.file.Path.of(queuePath);
         try (com.fix.performance.FlyweightConsumer consumer =
                 new com.fix.performance.FlyweightConsumer()) {
             java.nio.file.Path m =
                     java.nio.file.Path.of(metricsPath != null ? metricsPath : "./metrics/fly.txt");
+            consumer.setIntervalLogMs(intervalMs);
+            consumer.setReadRange(range);
+            consumer.setValidation(validation);
             consumer.consume(path, m);
+            logLastIndex(range, consumer.lastReadIndex());
+            logInvalid(validation, consumer.invalidMessages());
             try {
                 var snap = consumer.gcTracker.snapshot();
                 java.nio.file.Path out = java.nio.file.Path.of("./metrics/gc-fly.txt");
@@ -121,44 +535,194 @@ public class Main {
         }
     }
 
-    private static void runQuickFIXJConsumer(String queuePath, int threadCount,
+    private static void runFlyweightRecover(String queuePath, String snapshotPath,
+            long snapshotEvery, String metricsPath, long intervalMs) {
+        logger.info("Starting flyweight consumer with snapshots: queue={}, snapshot={}, every={},"
+                + " metricsPath={}", queuePath, snapshotPath, snapshotEvery, metricsPath);
+        java.nio.file.Path m = java.nio.file.Path
+                .of(metricsPath != null ? metricsPath : "./metrics/fly-recover.txt");
+        try (com.fix.performance.FlyweightConsumer consumer =
+                new com.fix.performance.FlyweightConsumer()) {
+            consumer.setIntervalLogMs(intervalMs);
+            consumer.enableSnapshots(java.nio.file.Path.of(snapshotPath), snapshotEvery);
+            consumer.consume(java.nio.file.Path.of(queuePath), m);
+            logger.info("Startup (snapshot load + replay) took {} ms",
+                    consumer.startupNanos() / 1_000_000);
+        }
+    }
+
+    private static void runShardedFlyweightConsumer(String queuePath, int shards,
             String metricsPath) {
-        logger.info("Starting QuickFIX/J consumer: queue={}, threads={}, metricsPath={}", queuePath,
-                threadCount, metricsPath);
+        logger.info("Starting sharded flyweight consumer: queue={}, shards={}, metricsPath={}",
+                queuePath, shards, metricsPath);
         java.nio.file.Path path = java.nio.file.Path.of(queuePath);
+        java.nio.file.Path m = java.nio.file.Path
+                .of(metricsPath != null ? metricsPath : "./metrics/fly-sharded-" + shards + ".txt");
+        try (com.fix.performance.ShardedFlyweightConsumer consumer =
+                new com.fix.performance.ShardedFlyweightConsumer(shards)) {
+            consumer.consume(path, m);
+        }
+    }
+
+    private static void runFlyweightTail(String queuePath, String waitName, String metricsPath,
+            long durationSeconds, long intervalMs, String snapshotPath, long snapshotEvery,
+            com.fix.performance.queue.ReadRange range,
+            com.fix.performance.flyweight.Validation validation) {
+        com.fix.performance.ring.WaitStrategy wait =
+                com.fix.performance.ring.WaitStrategy.parse(waitName);
+        logger.info(
+                "Tailing with flyweight consumer: queue={}, wait={}, metricsPath={}, duration={}s",
+                queuePath, wait, metricsPath, durationSeconds);
+        java.nio.file.Path m = java.nio.file.Path
+                .of(metricsPath != null ? metricsPath : "./metrics/fly-tail-" + wait + ".txt");
+        try (com.fix.performance.FlyweightConsumer consumer =
+                new com.fix.performance.FlyweightConsumer()) {
+            consumer.setIntervalLogMs(intervalMs);
+            consumer.setReadRange(range);
+            consumer.setValidation(validation);
+            if (snapshotPath != null)
+                consumer.enableSnapshots(java.nio.file.Path.of(snapshotPath), snapshotEvery);
+            runUntilStopped(consumer::stop, durationSeconds,
+                    () -> consumer.tail(java.nio.file.Path.of(queuePath), wait, m));
+            logLastIndex(range, consumer.lastReadIndex());
+            logInvalid(validation, consumer.invalidMessages());
+        }
+    }
+
+    private static void runQuickFIXJTail(String queuePath, int threadCount, String waitName,
+            String metricsPath, long durationSeconds, long intervalMs,
+            com.fix.performance.ring.Backpressure backpressure,
+            com.fix.performance.queue.ReadRange range) {
+        com.fix.performance.ring.WaitStrategy wait =
+                com.fix.performance.ring.WaitStrategy.parse(waitName);
+        logger.info(
+                "Tailing with QuickFIX/J consumer: queue={}, threads={}, wait={}, metricsPath={},"
+                        + " duration={}s, backpressure={}",
+                queuePath, threadCount, wait, metricsPath, durationSeconds, backpressure);
+        java.nio.file.Path m = java.nio.file.Path
+                .of(metricsPath != null ? metricsPath : "./metrics/qfj-tail-" + wait + ".txt");
         try (com.fix.performance.QuickFIXJConsumer consumer =
-                new com.fix.performance.QuickFIXJConsumer(threadCount)) {
+                new com.fix.performance.QuickFIXJConsumer(threadCount,
+                        com.fix.performance.QuickFIXJConsumer.DEFAULT_RING_CAPACITY,
+                        backpressure)) {
+            consumer.setIntervalLogMs(intervalMs);
+            consumer.setReadRange(range);
+            runUntilStopped(consumer::stop, durationSeconds,
+                    () -> consumer.tail(java.nio.file.Path.of(queuePath), wait, m));
+            logLastIndex(range, consumer.lastReadIndex());
+        }
+    }
+
+    /**
+     * Runs a tailing {@code body} until {@code stop} is triggered by the duration elapsing (when
+     * positive) or by JVM shutdown (Ctrl-C); the shutdown hook waits briefly so metrics get written.
+     */
+    private static void runUntilStopped(Runnable stop, long durationSeconds, Runnable body) {
+        java.util.concurrent.CountDownLatch finished = new java.util.concurrent.CountDownLatch(1);
+        Thread hook = new Thread(() -> {
+            stop.run();
+            try {
+                finished.await(10, java.util.concurrent.TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "tail-shutdown");
+        Runtime.getRuntime().addShutdownHook(hook);
+        if (durationSeconds > 0) {
+            Thread timer = new Thread(() -> {
+                try {
+                    Thread.sleep(durationSeconds * 1000);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                stop.run();
+            }, "tail-timer");
+            timer.setDaemon(true);
+            timer.start();
+        }
+        try {
+            body.run();
+        } finally {
+            finished.countDown();
+            try {
+                Runtime.getRuntime().removeShutdownHook(hook);
+            } catch (IllegalStateException ignored) {
+                // already shutting down
+            }
+        }
+    }
+
+    private static void runQuickFIXJConsumer(String queuePath, int threadCount,
+            String metricsPath, long intervalMs,
+            com.fix.performance.ring.Backpressure backpressure, boolean pooled,
+            com.fix.performance.queue.ReadRange range) {
+        logger.info("Starting QuickFIX/J consumer: queue={}, threads={}, metricsPath={},"
+                + " intervalMs={}, backpressure={}, pooled={}", queuePath, threadCount,
+                metricsPath, intervalMs, backpressure, pooled);
+        java.nio.file.Path path = java.nio.file.Path.of(queuePath);
+        int ringCapacity = com.fix.performance.QuickFIXJConsumer.DEFAULT_RING_CAPACITY;
+        try (com.fix.performance.QuickFIXJConsumer consumer = pooled
+                ? com.fix.performance.QuickFIXJConsumer.pooled(threadCount, ringCapacity,
+                        backpressure)
+                : new com.fix.performance.QuickFIXJConsumer(threadCount, ringCapacity,
+                        backpressure)) {
+            consumer.setIntervalLogMs(intervalMs);
+            consumer.setReadRange(range);
             if (metricsPath == null)
                 consumer.consume(path);
             else
                 consumer.consume(path, java.nio.file.Path.of(metricsPath));
-            try {
-                var snap = consumer.gcTracker.snapshot();
-                java.nio.file.Path out = java.nio.file.Path.of("./metrics/gc-qfj.txt");
-                if (out.getParent() != null)
-                    java.nio.file.Files.createDirectories(out.getParent());
-                StringBuilder sb = new StringBuilder();
-                sb.append("gc_count=").append(snap.count).append('\n');
-                sb.append("gc_total_pause_ms=").append(snap.totalPauseMs).append('\n');
-                sb.append("gc_breakdown=\n");
-                for (var e : snap.countByType.entrySet()) {
-                    long ms = snap.totalPauseMsByType.getOrDefault(e.getKey(), 0L);
-                    sb.append("  ").append(e.getKey()).append(':').append(e.getValue()).append(" (ms=")
-                            .append(ms).append(")\n");
-                }
-                sb.append("mem_peaks_jmx=\n");
-                for (var e : snap.jmxPeakUsedByPool.entrySet()) {
-                    sb.append("  ").append(e.getKey()).append(" usedBytes=").append(e.getValue())
-                            .append('\n');
-                }
-                sb.append("mem_peaks_tracked=\n");
-                for (var e : snap.trackedMaxUsedByPool.entrySet()) {
-                    sb.append("  ").append(e.getKey()).append(" usedBytes=").append(e.getValue())
-                            .append('\n');
-                }
-                java.nio.file.Files.writeString(out, sb.toString());
-            } catch (Exception ignored) {
+            logLastIndex(range, consumer.lastReadIndex());
+            writeGcReport(consumer, java.nio.file.Path.of(
+                    pooled ? "./metrics/gc-qfj-pooled.txt" : "./metrics/gc-qfj.txt"));
+        }
+    }
+
+    private static void runQuickFIXJVirtual(String queuePath, int lanes, String metricsPath,
+            long intervalMs, com.fix.performance.queue.ReadRange range) {
+        logger.info("Starting QuickFIX/J consumer on virtual threads: queue={}, lanes={},"
+                + " metricsPath={}, intervalMs={}", queuePath, lanes, metricsPath, intervalMs);
+        java.nio.file.Path path = java.nio.file.Path.of(queuePath);
+        try (com.fix.performance.QuickFIXJConsumer consumer =
+                com.fix.performance.QuickFIXJConsumer.withVirtualThreads(lanes)) {
+            consumer.setIntervalLogMs(intervalMs);
+            consumer.setReadRange(range);
+            if (metricsPath == null)
+                consumer.consume(path);
+            else
+                consumer.consume(path, java.nio.file.Path.of(metricsPath));
+            logLastIndex(range, consumer.lastReadIndex());
+            writeGcReport(consumer, java.nio.file.Path.of("./metrics/gc-qfj-vt.txt"));
+        }
+    }
+
+    private static void writeGcReport(com.fix.performance.QuickFIXJConsumer consumer,
+            java.nio.file.Path out) {
+        try {
+            var snap = consumer.gcTracker.snapshot();
+            if (out.getParent() != null)
+                java.nio.file.Files.createDirectories(out.getParent());
+            StringBuilder sb = new StringBuilder();
+            sb.append("gc_count=").append(snap.count).append('\n');
+            sb.append("gc_total_pause_ms=").append(snap.totalPauseMs).append('\n');
+            sb.append("gc_breakdown=\n");
+            for (var e : snap.countByType.entrySet()) {
+                long ms = snap.totalPauseMsByType.getOrDefault(e.getKey(), 0L);
+                sb.append("  ").append(e.getKey()).append(':').append(e.getValue()).append(" (ms=")
+                        .append(ms).append(")\n");
+            }
+            sb.append("mem_peaks_jmx=\n");
+            for (var e : snap.jmxPeakUsedByPool.entrySet()) {
+                sb.append("  ").append(e.getKey()).append(" usedBytes=").append(e.getValue())
+                        .append('\n');
+            }
+            sb.append("mem_peaks_tracked=\n");
+            for (var e : snap.trackedMaxUsedByPool.entrySet()) {
+                sb.append("  ").append(e.getKey()).append(" usedBytes=").append(e.getValue())
+                        .append('\n');
             }
+            java.nio.file.Files.writeString(out, sb.toString());
+        } catch (Exception ignored) {
         }
     }
 }
@@ -1,48 +1,129 @@
 package com.fix.performance;
 
+import java.lang.management.ManagementFactory;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import org.HdrHistogram.Recorder;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import com.fix.performance.fix.FixMessageBuilder;
+import com.fix.performance.fix.PooledFixParser;
+import com.fix.performance.flyweight.Swar;
+import com.fix.performance.metrics.CpuTimer;
 import com.fix.performance.metrics.HistogramUtil;
+import com.fix.performance.metrics.IntervalReporter;
 import com.fix.performance.flyweight.Order;
 import com.fix.performance.metrics.GcTracker;
 import com.fix.performance.queue.ChronicleQueueService;
+import com.fix.performance.queue.FixTailer;
+import com.fix.performance.queue.ReadRange;
+import com.fix.performance.queue.TailStats;
+import com.fix.performance.ring.Backpressure;
+import com.fix.performance.ring.SpscRing;
+import com.fix.performance.ring.VirtualThreadLanes;
+import com.fix.performance.ring.WaitStrategy;
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesStore;
 import quickfix.DataDictionary;
 import quickfix.Message;
 import quickfix.field.ClOrdID;
 import quickfix.field.MsgType;
 
 /**
- * Consumes FIX strings from Chronicle Queue, parses to QuickFIX/J Message, and dispatches work on a
- * thread pool to maintain a map of open orders by ClOrdID. NewOrderSingle stores the message;
- * OrderCancelRequest removes the original order.
+ * Consumes FIX messages from Chronicle Queue, parses them to QuickFIX/J Message, and maintains a
+ * map of open orders by ClOrdID. NewOrderSingle stores the message; OrderCancelRequest removes the
+ * original order. The reader only extracts the routing key (ClOrdID/OrigClOrdID) from the raw
+ * bytes and hands the bytes to the stripe owning that key; the full parse runs on the stripe, so
+ * it scales with the thread count while per-key ordering is kept.
+ *
+ * <p>Each stripe is one worker thread fed through a bounded, preallocated {@link SpscRing}; the
+ * reader is the only producer. When a stripe's ring is full the reader applies the configured
+ * {@link Backpressure}, and per-stripe depth, stall and drop counts are written with the metrics.
+ * {@link #withVirtualThreads} replaces the stripes with {@link VirtualThreadLanes}: many per-key
+ * serial lanes, each drained by a virtual thread only while it has work. {@link #pooled} keeps the
+ * stripes but has each one reuse its {@link Message} and field objects ({@link PooledFixParser})
+ * and recycle the {@link Order}s its cancels remove.
+ *
+ * <p>{@link #setReadRange} restricts the reader to an index range or a named tailer. A named
+ * tailer's saved position is the last message routed, so messages still in a stripe when the
+ * process dies are not read again on restart.
  */
 public final class QuickFIXJConsumer implements AutoCloseable {
     private static final Logger logger = LogManager.getLogger(QuickFIXJConsumer.class);
+    static final int DEFAULT_RING_CAPACITY = 1 << 14;
+    private static final int SLOT_CAPACITY = 512;
+    private static final long NO_ROUTE = Long.MIN_VALUE;
+    static final int DEFAULT_VIRTUAL_LANES = 1024;
+    private static final int VIRTUAL_MAX_IN_FLIGHT = 1 << 16;
+    // Per-stripe bound on recycled orders kept for reuse
+    private static final int ORDER_POOL_CAPACITY = 1 << 16;
 
-    private final ExecutorService[] stripes;
+    private final Stripe[] stripes;
+    // Non-null in virtual-thread mode, in which case there are no stripes
+    private final VirtualThreadLanes<String> lanes;
+    private final Backpressure backpressure;
+    private final boolean pooled;
+    private final WaitStrategy producerWait;
     private final Map<String, Order> clOrdIdToOrder;
     private final DataDictionary dictionary;
     private final Recorder recorder = new Recorder(10_000_000_000L, 3);
+    // Producer stamp (tag 50001) to processed, including stripe queueing
+    private final Recorder endToEndRecorder = new Recorder(3);
     private static final int WARMUP_SKIP = 100;
     private final AtomicLong processedCounter = new AtomicLong(0);
     final GcTracker gcTracker = new GcTracker().start();
+    private volatile boolean stopRequested;
+    private long intervalLogMs;
+    private ReadRange range = ReadRange.ALL;
+    private long lastReadIndex = FixTailer.NO_INDEX;
 
     public QuickFIXJConsumer(int threadCount) {
-        if (threadCount <= 0)
+        this(threadCount, DEFAULT_RING_CAPACITY, Backpressure.BLOCK);
+    }
+
+    /**
+     * @param ringCapacity slots per stripe, a power of two
+     * @param backpressure what the reader does when a stripe's ring is full
+     */
+    public QuickFIXJConsumer(int threadCount, int ringCapacity, Backpressure backpressure) {
+        this(threadCount, ringCapacity, backpressure, 0, false);
+    }
+
+    /**
+     * Pooled mode: as the stripe constructor, but each stripe parses into one reused
+     * {@link Message} and refills orders from a free list of the ones its cancels removed. An
+     * order read from {@link #getOpenOrdersMap()} may therefore be overwritten once it has been
+     * cancelled.
+     */
+    public static QuickFIXJConsumer pooled(int threadCount, int ringCapacity,
+            Backpressure backpressure) {
+        return new QuickFIXJConsumer(threadCount, ringCapacity, backpressure, 0, true);
+    }
+
+    /**
+     * Virtual-thread mode: messages are hashed by ClOrdID onto {@code laneCount} serial lanes, each
+     * drained by a virtual thread while it has work, so per-ClOrdID order holds as with stripes.
+     * The reader blocks once 65,536 messages are outstanding.
+     */
+    public static QuickFIXJConsumer withVirtualThreads(int laneCount) {
+        if (laneCount <= 0)
+            throw new IllegalArgumentException("laneCount must be > 0");
+        return new QuickFIXJConsumer(0, 1, Backpressure.BLOCK, laneCount, false);
+    }
+
+    private QuickFIXJConsumer(int threadCount, int ringCapacity, Backpressure backpressure,
+            int virtualLanes, boolean pooled) {
+        if (threadCount <= 0 && virtualLanes <= 0)
             throw new IllegalArgumentException("threadCount must be > 0");
-        this.stripes = new ExecutorService[threadCount];
-        for (int i = 0; i < threadCount; i++) {
-            this.stripes[i] = Executors.newSingleThreadExecutor();
-        }
+        this.pooled = pooled;
+        this.backpressure = Objects.requireNonNull(backpressure, "backpressure");
+        this.producerWait = backpressure == Backpressure.SPIN ? WaitStrategy.busySpin()
+                : WaitStrategy.backoff();
         this.clOrdIdToOrder = new ConcurrentHashMap<>();
         // Use built-in FIX44 dictionary from QFJ
         try {
@@ -50,68 +131,245 @@ public final class QuickFIXJConsumer implements AutoCloseable {
         } catch (Exception e) {
             throw new RuntimeException("Failed to load FIX44 dictionary", e);
         }
+        this.lanes = virtualLanes > 0
+                ? new VirtualThreadLanes<>(virtualLanes, VIRTUAL_MAX_IN_FLIGHT,
+                        this::processMessageWithTiming)
+                : null;
+        this.stripes = new Stripe[threadCount];
+        for (int i = 0; i < threadCount; i++)
+            stripes[i] = new Stripe(i, ringCapacity);
+        for (Stripe stripe : stripes)
+            stripe.thread.start();
     }
 
     public Map<String, Order> getOpenOrdersMap() {
         return clOrdIdToOrder;
     }
 
+    /**
+     * Reads only {@code range} (a named tailer, an index range or both) instead of the whole queue.
+     * Call before consuming.
+     */
+    public void setReadRange(ReadRange range) {
+        this.range = Objects.requireNonNull(range, "range");
+    }
+
+    /** Queue index of the last message the reader routed, or {@link FixTailer#NO_INDEX}. */
+    public long lastReadIndex() {
+        return lastReadIndex;
+    }
+
     public void consume(Path queuePath) {
         Objects.requireNonNull(queuePath, "queuePath");
         try (ChronicleQueueService svc = new ChronicleQueueService(queuePath)) {
-            svc.forEach(this::submitWork);
+            lastReadIndex = svc.forEachBytes(range, this::submitWork);
         }
+        if (!range.isAll())
+            logger.info("Read {} up to index {}", range, lastReadIndex);
     }
 
     public void consume(Path queuePath, Path metricsOut) {
-        consume(queuePath);
-        shutdownStripes();
-        HistogramUtil.writeHistogram(metricsOut, recorder, "QuickFIXJ");
+        IntervalReporter intervals = startIntervalLog(metricsOut);
+        long elapsedNs;
+        try {
+            long startNs = System.nanoTime();
+            consume(queuePath);
+            shutdownStripes();
+            elapsedNs = System.nanoTime() - startNs;
+        } finally {
+            if (intervals != null)
+                intervals.close();
+        }
+        writeSummary(metricsOut, intervals, "QuickFIXJ", processedCounter.get(), elapsedNs);
+        appendStripeMetrics(metricsOut);
+    }
+
+    /**
+     * When {@code intervalMs > 0}, runs with a metrics path also log an interval histogram and a
+     * throughput row every {@code intervalMs} next to it ({@code qfj.txt} gives {@code qfj.hlog} and
+     * {@code qfj.csv}).
+     */
+    public void setIntervalLogMs(long intervalMs) {
+        this.intervalLogMs = intervalMs;
+    }
+
+    private IntervalReporter startIntervalLog(Path metricsOut) {
+        if (intervalLogMs <= 0 || metricsOut == null)
+            return null;
+        return IntervalReporter.beside(metricsOut, intervalLogMs, processedCounter::get)
+                .add("service", recorder).add("e2e", endToEndRecorder).start();
+    }
+
+    private void writeSummary(Path metricsOut, IntervalReporter intervals, String label,
+            long messages, long elapsedNs) {
+        if (intervals == null) {
+            HistogramUtil.writeHistogram(metricsOut, recorder, label, messages, elapsedNs);
+            HistogramUtil.appendHistogram(metricsOut, endToEndRecorder, "End-to-end", "e2e_");
+        } else {
+            HistogramUtil.writeHistogram(metricsOut, intervals.total("service"), label, messages,
+                    elapsedNs);
+            HistogramUtil.appendHistogram(metricsOut, intervals.total("e2e"), "End-to-end",
+                    "e2e_");
+        }
+    }
+
+    /**
+     * Live mode: routes messages from the start of the queue and keeps tailing it while a writer
+     * appends, idling the reader with {@code wait} between empty polls, until {@link #stop()}. The
+     * stripes are then drained and the histogram plus throughput, idle polls and CPU cost (process
+     * wide, so stripe threads count) are written to {@code metricsOut}.
+     */
+    public TailStats tail(Path queuePath, WaitStrategy wait, Path metricsOut) {
+        Objects.requireNonNull(queuePath, "queuePath");
+        Objects.requireNonNull(wait, "wait");
+        IntervalReporter intervals = startIntervalLog(metricsOut);
+        CpuTimer cpuTimer = CpuTimer.start();
+        long startNs = System.nanoTime();
+        TailStats stats;
+        long elapsedNs;
+        try {
+            try (ChronicleQueueService svc = new ChronicleQueueService(queuePath);
+                    FixTailer tailer = svc.createTailer(range)) {
+                stats = ChronicleQueueService.tail(tailer, this::submitWork, wait,
+                        () -> !stopRequested);
+                lastReadIndex = tailer.lastIndex();
+            }
+            shutdownStripes();
+            elapsedNs = System.nanoTime() - startNs;
+        } finally {
+            if (intervals != null)
+                intervals.close();
+        }
+        logger.info("QuickFIX/J tail stopped: wait={}, messages={}, idlePolls={}", wait,
+                stats.messages(), stats.idlePolls());
+        writeSummary(metricsOut, intervals, "QuickFIXJ tail", processedCounter.get(), elapsedNs);
+        appendStripeMetrics(metricsOut);
+        HistogramUtil.appendMetrics(metricsOut, "wait_strategy=" + wait + "\nidle_polls="
+                + stats.idlePolls() + "\n" + cpuTimer.report(elapsedNs, processedCounter.get()));
+        return stats;
+    }
+
+    /** Asks a running {@link #tail} to return; safe to call from any thread, including before. */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * Reader side: finds the routing key in the raw bytes and copies the message into its stripe's
+     * ring; the QuickFIX/J parse runs on the stripe. Messages other than NewOrderSingle and
+     * OrderCancelRequest are skipped without being parsed.
+     */
+    private void submitWork(Bytes<?> bytes) {
+        long pos = bytes.readPosition();
+        long hash = routingHash(bytes.bytesStore(), pos, pos + bytes.readRemaining());
+        if (hash == NO_ROUTE)
+            return;
+        if (lanes != null)
+            lanes.submit((int) hash, ascii(bytes, new StringBuilder((int) bytes.readRemaining())));
+        else
+            stripes[Math.floorMod((int) hash, stripes.length)].offer(bytes);
+    }
+
+    /**
+     * {@code String.hashCode()} of the ClOrdID(11) of a NewOrderSingle or the OrigClOrdID(41) of an
+     * OrderCancelRequest, computed on the ASCII bytes, or {@link #NO_ROUTE}. Matches hashing the
+     * parsed field, so a ClOrdID lands on the same stripe as before.
+     */
+    static long routingHash(BytesStore<?, ?> store, long start, long limit) {
+        byte msgType = 0;
+        long clOrdId = NO_ROUTE;
+        long origClOrdId = NO_ROUTE;
+        long pos = start;
+        while (pos < limit) {
+            int tag = 0;
+            long eq = pos;
+            boolean valid = true;
+            for (; eq < limit; eq++) {
+                int b = store.readUnsignedByte(eq);
+                if (b == '=')
+                    break;
+                int d = b - '0';
+                if (d < 0 || d > 9) {
+                    valid = false;
+                    break;
+                }
+                tag = tag * 10 + d;
+            }
+            long soh = Swar.indexOf(store, eq, limit, (byte) 1);
+            if (valid && eq > pos && eq < limit) {
+                if (tag == 35)
+                    msgType = soh == eq + 2 ? store.readByte(eq + 1) : (byte) '?';
+                else if (tag == 11)
+                    clOrdId = asciiHash(store, eq + 1, soh);
+                else if (tag == 41)
+                    origClOrdId = asciiHash(store, eq + 1, soh);
+
+                if (msgType == 'D' && clOrdId != NO_ROUTE)
+                    return clOrdId;
+                if (msgType == 'F' && origClOrdId != NO_ROUTE)
+                    return origClOrdId;
+            }
+            pos = soh + 1;
+        }
+        return NO_ROUTE;
+    }
+
+    private static String ascii(Bytes<?> bytes, StringBuilder sb) {
+        for (long i = bytes.readPosition(); i < bytes.readLimit(); i++)
+            sb.append((char) bytes.readUnsignedByte(i));
+        return sb.toString();
+    }
+
+    private static long asciiHash(BytesStore<?, ?> store, long s, long e) {
+        int h = 0;
+        for (long i = s; i < e; i++)
+            h = 31 * h + store.readUnsignedByte(i);
+        return h;
     }
 
-    private void submitWork(String fixString) {
-        // Parse once to route to a per-key single-thread stripe ensuring ordering per ClOrdID
+    /**
+     * Full QuickFIX/J parse on the stripe thread, into the stripe's reused message in pooled mode;
+     * null (and logged) if the message is invalid.
+     */
+    private Message parse(String fixString, Stripe pool) {
         try {
+            if (pool != null)
+                return pool.parser.parse(fixString);
             Message msg = new Message();
             msg.fromString(fixString, dictionary, false);
-            String msgType = msg.getHeader().getString(MsgType.FIELD);
-            String key;
-            if (MsgType.ORDER_SINGLE.equals(msgType)) {
-                key = msg.getString(ClOrdID.FIELD);
-            } else if (MsgType.ORDER_CANCEL_REQUEST.equals(msgType)) {
-                key = msg.getString(41); // OrigClOrdID
-            } else {
-                return;
-            }
-            int idx = Math.floorMod(key.hashCode(), stripes.length);
-            stripes[idx].submit(() -> processMessageWithTiming(msg));
+            return msg;
         } catch (Exception e) {
-            logger.error("Failed to route FIX: {}", fixString, e);
+            logger.error("Failed to parse FIX: {}", fixString, e);
+            return null;
         }
     }
 
-    private void applyMessage(Message msg) {
+    private void applyMessage(Message msg, Stripe pool) {
         try {
             String msgType = msg.getHeader().getString(MsgType.FIELD);
             if (MsgType.ORDER_SINGLE.equals(msgType)) {
                 String cl = msg.getString(ClOrdID.FIELD);
-                Order ord = convertToOrder(msg);
-                clOrdIdToOrder.put(cl, ord);
+                Order ord = convertToOrder(msg, pool != null ? pool.takeOrder() : new Order());
+                Order replaced = clOrdIdToOrder.put(cl, ord);
+                if (pool != null && replaced != null)
+                    pool.recycle(replaced);
             } else if (MsgType.ORDER_CANCEL_REQUEST.equals(msgType)) {
                 String orig = msg.getString(41); // OrigClOrdID
-                clOrdIdToOrder.remove(orig);
+                Order removed = clOrdIdToOrder.remove(orig);
+                // Same key, same stripe: the order was created by this stripe's pool
+                if (pool != null && removed != null)
+                    pool.recycle(removed);
             }
         } catch (Exception e) {
             logger.error("Failed to apply message", e);
         }
     }
 
-    private static Order convertToOrder(Message msg) throws Exception {
+    private static Order convertToOrder(Message msg, Order ord) throws Exception {
         String symbol = msg.getString(55);
         int qty = msg.getInt(38);
         // Price may be decimal; convert to cents similar to flyweight
         long priceCents = parsePriceCents(msg.getString(44));
-        Order ord = new Order();
         ord.set(symbol, qty, priceCents);
         return ord;
     }
@@ -135,36 +393,221 @@ public final class QuickFIXJConsumer implements AutoCloseable {
         return neg ? -total : total;
     }
 
-    private void processMessageWithTiming(Message msg) {
+    private void processMessageWithTiming(String fixString) {
+        processMessageWithTiming(fixString, null);
+    }
+
+    /** @param pool the calling stripe in pooled mode, otherwise null */
+    private void processMessageWithTiming(String fixString, Stripe pool) {
         final long startNs = System.nanoTime();
+        Message msg = null;
         try {
-            applyMessage(msg);
+            msg = parse(fixString, pool);
+            if (msg != null)
+                applyMessage(msg, pool);
         } finally {
             final long endNs = System.nanoTime();
             long prev = processedCounter.getAndIncrement();
             if (prev >= WARMUP_SKIP) {
                 recorder.recordValue(endNs - startNs);
+                if (msg != null)
+                    FlyweightConsumer.recordEndToEnd(endToEndRecorder, sendEpochNanos(msg));
             }
         }
     }
 
+    private static long sendEpochNanos(Message msg) {
+        int tag = FixMessageBuilder.SEND_EPOCH_NANOS_TAG;
+        try {
+            // Not a header field in the dictionary, so the parser leaves it in the body
+            if (msg.isSetField(tag))
+                return Long.parseLong(msg.getString(tag));
+            if (msg.getHeader().isSetField(tag))
+                return Long.parseLong(msg.getHeader().getString(tag));
+        } catch (Exception ignored) {
+        }
+        return FixMessageBuilder.NO_SEND_TIME;
+    }
+
     @Override
     public void close() {
         shutdownStripes();
         gcTracker.stop();
     }
 
+    /** Per-stripe ring counters; exact once the stripes are drained, approximate while running. */
+    public List<StripeStats> stripeStats() {
+        List<StripeStats> out = new ArrayList<>(stripes.length);
+        for (Stripe s : stripes)
+            out.add(new StripeStats(s.id, s.processed, s.ring.size(), s.maxDepth, s.stalls,
+                    s.stallNs, s.dropped));
+        return out;
+    }
+
+    /**
+     * @param depth messages waiting in the ring when sampled
+     * @param maxDepth deepest the ring got, sampled by the reader after each hand-off
+     * @param stalls hand-offs that found the ring full and waited (BLOCK/SPIN)
+     * @param stallNs time the reader spent waiting on this stripe
+     * @param dropped messages discarded because the ring was full (DROP)
+     */
+    public record StripeStats(int stripe, long processed, int depth, int maxDepth, long stalls,
+            long stallNs, long dropped) {}
+
+    private void appendStripeMetrics(Path metricsOut) {
+        int platformPeak = ManagementFactory.getThreadMXBean().getPeakThreadCount();
+        if (lanes != null) {
+            logger.info("QuickFIX/J virtual lanes: lanes={}, threadsStarted={}, peak={}",
+                    lanes.laneCount(), lanes.threadsStarted(), lanes.peakThreads());
+            HistogramUtil.appendMetrics(metricsOut, "mode=virtual\nlanes=" + lanes.laneCount()
+                    + "\nvirtual_threads_started=" + lanes.threadsStarted()
+                    + "\nvirtual_threads_peak=" + lanes.peakThreads() + "\nproducer_stalls="
+                    + lanes.submitStalls() + "\nplatform_threads_peak=" + platformPeak + "\n");
+            return;
+        }
+        long stalls = 0;
+        long stallNs = 0;
+        long dropped = 0;
+        long fallbacks = 0;
+        long ordersReused = 0;
+        for (Stripe s : stripes) {
+            if (pooled) {
+                fallbacks += s.parser.fallbacks();
+                ordersReused += s.ordersReused;
+            }
+        }
+        StringBuilder perStripe = new StringBuilder();
+        for (StripeStats s : stripeStats()) {
+            stalls += s.stalls();
+            stallNs += s.stallNs();
+            dropped += s.dropped();
+            perStripe.append("stripe").append(s.stripe()).append(": processed=")
+                    .append(s.processed()).append(" max_depth=").append(s.maxDepth())
+                    .append(" stalls=").append(s.stalls()).append(" stall_ms=")
+                    .append(s.stallNs() / 1_000_000).append(" dropped=").append(s.dropped())
+                    .append('\n');
+        }
+        logger.info("QuickFIX/J stripes: backpressure={}, stalls={}, dropped={}", backpressure,
+                stalls, dropped);
+        HistogramUtil.appendMetrics(metricsOut, "mode=stripes\nbackpressure=" + backpressure
+                + "\nring_capacity=" + stripes[0].ring.capacity() + "\nproducer_stalls=" + stalls
+                + "\nproducer_stall_ms=" + stallNs / 1_000_000 + "\ndropped=" + dropped
+                + "\nplatform_threads_peak=" + platformPeak + "\npooled=" + pooled
+                + (pooled ? "\npooled_fallback_parses=" + fallbacks + "\norders_reused="
+                        + ordersReused : "")
+                + "\n" + perStripe);
+    }
+
     private void shutdownStripes() {
-        for (ExecutorService es : stripes)
-            es.shutdown();
-        for (ExecutorService es : stripes) {
+        if (lanes != null)
+            lanes.awaitIdle();
+        for (Stripe s : stripes)
+            s.done = true;
+        for (Stripe s : stripes) {
             try {
-                es.awaitTermination(30, TimeUnit.SECONDS);
+                s.thread.join();
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
             }
         }
     }
+
+    private static final class WorkSlot {
+        final Bytes<?> bytes = Bytes.allocateElasticDirect(SLOT_CAPACITY);
+    }
+
+    private final class Stripe implements Runnable {
+        final int id;
+        final SpscRing<WorkSlot> ring;
+        final Thread thread;
+        volatile boolean done;
+        // Reader-thread counters
+        int maxDepth;
+        long stalls;
+        long stallNs;
+        long dropped;
+        // Worker-thread state
+        long processed;
+        // Pooled mode only: reused message and the orders this stripe's cancels removed
+        final PooledFixParser parser;
+        final Order[] freeOrders;
+        int freeCount;
+        long ordersReused;
+
+        Stripe(int id, int ringCapacity) {
+            this.id = id;
+            this.ring = new SpscRing<>(ringCapacity, WorkSlot::new);
+            this.parser = pooled ? new PooledFixParser(dictionary, MsgType.ORDER_SINGLE,
+                    MsgType.ORDER_CANCEL_REQUEST) : null;
+            this.freeOrders = pooled ? new Order[ORDER_POOL_CAPACITY] : null;
+            this.thread = new Thread(this, "qfj-stripe-" + id);
+            thread.setDaemon(true);
+        }
+
+        /** Reader side: copies {@code bytes} into the ring, applying backpressure if it is full. */
+        void offer(Bytes<?> bytes) {
+            WorkSlot slot = ring.claim();
+            if (slot == null) {
+                if (backpressure == Backpressure.DROP) {
+                    dropped++;
+                    return;
+                }
+                stalls++;
+                long startNs = System.nanoTime();
+                int idle = 0;
+                while ((slot = ring.claim()) == null)
+                    producerWait.idle(++idle);
+                stallNs += System.nanoTime() - startNs;
+            }
+            slot.bytes.clear();
+            slot.bytes.write(bytes);
+            ring.publish();
+            int depth = ring.size();
+            if (depth > maxDepth)
+                maxDepth = depth;
+        }
+
+        Order takeOrder() {
+            if (freeCount == 0)
+                return new Order();
+            ordersReused++;
+            Order ord = freeOrders[--freeCount];
+            freeOrders[freeCount] = null;
+            return ord;
+        }
+
+        void recycle(Order ord) {
+            if (freeCount < freeOrders.length)
+                freeOrders[freeCount++] = ord;
+        }
+
+        @Override
+        public void run() {
+            WaitStrategy idleWait = WaitStrategy.backoff();
+            StringBuilder text = new StringBuilder(SLOT_CAPACITY);
+            int idle = 0;
+            while (true) {
+                WorkSlot slot = ring.peek();
+                if (slot == null) {
+                    // done is written after the last publish, so re-check before exiting
+                    if (done && ring.peek() == null)
+                        break;
+                    idleWait.idle(++idle);
+                    continue;
+                }
+                idle = 0;
+                text.setLength(0);
+                String fix = ascii(slot.bytes, text);
+                ring.release();
+                try {
+                    processMessageWithTiming(fix, pooled ? this : null);
+                } catch (RuntimeException e) {
+                    logger.error("Stripe {} failed to process a message", id, e);
+                }
+                processed++;
+            }
+        }
+    }
 }
 
 
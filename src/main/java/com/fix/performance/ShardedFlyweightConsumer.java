@@ -0,0 +1,335 @@
+package com.fix.performance;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import com.fix.performance.flyweight.OpenAddressingOrderIndex;
+import com.fix.performance.flyweight.Order;
+import com.fix.performance.flyweight.OrderIndex;
+import com.fix.performance.flyweight.Swar;
+import com.fix.performance.flyweight.SymbolTable;
+import com.fix.performance.queue.ChronicleQueueService;
+import com.fix.performance.ring.SpscRing;
+import net.openhft.affinity.AffinityLock;
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesStore;
+
+/**
+ * Multi-core flyweight consumer. One pinned reader thread extracts only the routing key (ClOrdID
+ * for NewOrderSingle, OrigClOrdID for OrderCancelRequest) and copies the message into the
+ * {@link SpscRing} of the shard owning that key. Each shard is a pinned worker thread with its own
+ * {@link FlyweightConsumer}, i.e. its own partition of the open-order index, so all messages for a
+ * ClOrdID are applied in queue order by one thread. The only shared state is the
+ * {@link SymbolTable}, which is lock-free for known symbols, so symbol ids are the same on every
+ * shard. Other messages are counted as unrouted and skipped, except cancel/replaces and execution
+ * reports, which are refused: a replace moves an order to a new ClOrdID, which may belong to
+ * another shard, so applying neither would leave the open-order index silently wrong.
+ */
+public final class ShardedFlyweightConsumer implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(ShardedFlyweightConsumer.class);
+    private static final int DEFAULT_RING_CAPACITY = 1 << 16;
+    private static final int SLOT_CAPACITY = 512;
+    private static final int WARMUP_SKIP = 100;
+    private static final long NO_KEY = Long.MIN_VALUE;
+
+    private final Shard[] shards;
+    private final SymbolTable symbols = new SymbolTable();
+    private long routed;
+    private long unrouted;
+    private long producerStalls;
+    private long producerStallNs;
+
+    public ShardedFlyweightConsumer(int shardCount) {
+        this(shardCount, DEFAULT_RING_CAPACITY);
+    }
+
+    public ShardedFlyweightConsumer(int shardCount, int ringCapacity) {
+        if (shardCount <= 0)
+            throw new IllegalArgumentException("shardCount must be > 0");
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++)
+            shards[i] = new Shard(i, ringCapacity, symbols);
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    /** Open-order index partition owned by shard {@code i}; read it only after consume returns. */
+    public OrderIndex shardIndex(int i) {
+        return shards[i].consumer.getOpenOrdersMap();
+    }
+
+    /** Resolves {@link Order#symbolId}; one table is shared by all shards. */
+    public SymbolTable symbols() {
+        return symbols;
+    }
+
+    public Order openOrder(long clOrdId) {
+        return shardIndex(shardFor(clOrdId, shards.length)).get(clOrdId);
+    }
+
+    public long openOrderCount() {
+        long n = 0;
+        for (Shard s : shards)
+            n += s.consumer.getOpenOrdersMap().size();
+        return n;
+    }
+
+    public void consume(Path queuePath) {
+        consume(queuePath, null);
+    }
+
+    public void consume(Path queuePath, Path metricsOut) {
+        Objects.requireNonNull(queuePath, "queuePath");
+        for (Shard s : shards)
+            s.start();
+        long startNs = System.nanoTime();
+        try (AffinityLock lock = AffinityLock.acquireLock();
+                ChronicleQueueService svc = new ChronicleQueueService(queuePath)) {
+            svc.forEachBytes(this::route);
+        } finally {
+            for (Shard s : shards)
+                s.finish();
+        }
+        for (Shard s : shards)
+            s.rethrowFailure();
+        long elapsedNs = System.nanoTime() - startNs;
+        logger.info("Sharded flyweight done: shards={}, routed={}, unrouted={}, stalls={}, "
+                + "stall_ms={}", shards.length, routed, unrouted, producerStalls,
+                producerStallNs / 1_000_000);
+        if (metricsOut != null)
+            writeMetrics(metricsOut, elapsedNs);
+    }
+
+    private void route(Bytes<?> bytes) {
+        long key = routingKey(bytes);
+        if (key == NO_KEY) {
+            unrouted++;
+            return;
+        }
+        Shard shard = shards[shardFor(key, shards.length)];
+        SpscRing<MessageSlot> ring = shard.ring;
+        MessageSlot slot = ring.claim();
+        if (slot == null) {
+            producerStalls++;
+            long startNs = System.nanoTime();
+            while ((slot = ring.claim()) == null) {
+                // A dead worker never drains its ring
+                shard.rethrowFailure();
+                Thread.onSpinWait();
+            }
+            producerStallNs += System.nanoTime() - startNs;
+        }
+        slot.bytes.clear();
+        slot.bytes.write(bytes);
+        slot.enqueueNs = System.nanoTime();
+        ring.publish();
+        routed++;
+    }
+
+    /**
+     * Scans only as far as needed to find the routing key: ClOrdID(11) of a NewOrderSingle or
+     * OrigClOrdID(41) of an OrderCancelRequest. Returns {@link #NO_KEY} for anything else.
+     *
+     * @throws IllegalStateException for an OrderCancelReplaceRequest or ExecutionReport
+     */
+    static long routingKey(Bytes<?> bytes) {
+        long pos = bytes.readPosition();
+        long limit = pos + bytes.readRemaining();
+        BytesStore<?, ?> store = bytes.bytesStore();
+
+        byte msgType = 0;
+        long clOrdId = NO_KEY;
+        long origClOrdId = NO_KEY;
+        while (pos < limit) {
+            int tag = 0;
+            boolean hasDigit = false;
+            while (pos < limit) {
+                int b = store.readUnsignedByte(pos++);
+                if (b == '=')
+                    break;
+                int d = b - '0';
+                if (d >= 0 && d <= 9) {
+                    tag = tag * 10 + d;
+                    hasDigit = true;
+                } else {
+                    pos--; // may itself be the SOH that ends the token
+                    hasDigit = false;
+                    break;
+                }
+            }
+            if (!hasDigit) {
+                // Not digits=value: skip through this token's SOH and go straight to the next
+                pos = Swar.indexOf(store, pos, limit, (byte) 1) + 1;
+                continue;
+            }
+            long valStart = pos;
+            pos = Swar.indexOf(store, pos, limit, (byte) 1);
+            long valEnd = pos;
+            if (pos < limit)
+                pos++;
+
+            if (tag == 35 && valEnd > valStart) {
+                msgType = (byte) store.readUnsignedByte(valStart);
+                if (msgType == 'G' || msgType == '8')
+                    throw new IllegalStateException("Sharded consumer cannot apply MsgType(35)="
+                            + (char) msgType + "; use the flyweight consumer for queues with "
+                            + "cancel/replaces or fills");
+            } else if (tag == 11)
+                clOrdId = FlyweightConsumer.parseLong(store, valStart, valEnd);
+            else if (tag == 41)
+                origClOrdId = FlyweightConsumer.parseLong(store, valStart, valEnd);
+
+            if (msgType == 'D' && clOrdId != NO_KEY)
+                return clOrdId;
+            if (msgType == 'F' && origClOrdId != NO_KEY)
+                return origClOrdId;
+        }
+        return NO_KEY;
+    }
+
+    static int shardFor(long key, int shardCount) {
+        // Fibonacci mix so sequential ClOrdIDs spread evenly whatever the shard count
+        return (int) (((key * 0x9E3779B97F4A7C15L) >>> 33) % shardCount);
+    }
+
+    private void writeMetrics(Path out, long elapsedNs) {
+        try {
+            if (out.getParent() != null)
+                Files.createDirectories(out.getParent());
+            long total = 0;
+            for (Shard s : shards)
+                total += s.processed;
+            StringBuilder sb = new StringBuilder();
+            sb.append("Flyweight sharded latency (ns)\n");
+            sb.append("shards=").append(shards.length).append('\n');
+            sb.append("messages=").append(total).append('\n');
+            sb.append("elapsed_ms=").append(elapsedNs / 1_000_000).append('\n');
+            sb.append("throughput_msgs_per_sec=")
+                    .append((long) (total * 1_000_000_000.0 / Math.max(1, elapsedNs)))
+                    .append('\n');
+            sb.append("unrouted=").append(unrouted).append('\n');
+            sb.append("producer_stalls=").append(producerStalls).append('\n');
+            sb.append("producer_stall_ms=").append(producerStallNs / 1_000_000).append('\n');
+            for (Shard s : shards) {
+                Histogram service = s.serviceTime.getIntervalHistogram();
+                Histogram handoff = s.handoffLatency.getIntervalHistogram();
+                Histogram e2e = s.endToEnd.getIntervalHistogram();
+                long activeNs = Math.max(1, s.lastNs - s.firstNs);
+                sb.append("shard").append(s.id).append(": messages=").append(s.processed)
+                        .append(" throughput_msgs_per_sec=")
+                        .append((long) (s.processed * 1_000_000_000.0 / activeNs))
+                        .append(" open_orders=").append(s.consumer.getOpenOrdersMap().size())
+                        .append('\n');
+                appendPercentiles(sb, "  service", service);
+                appendPercentiles(sb, "  handoff", handoff);
+                appendPercentiles(sb, "  e2e", e2e);
+            }
+            Files.writeString(out, sb.toString());
+        } catch (Exception e) {
+            logger.error("Failed to write sharded metrics to {}", out, e);
+        }
+    }
+
+    private static void appendPercentiles(StringBuilder sb, String label, Histogram h) {
+        sb.append(label).append(": count=").append(h.getTotalCount()).append(" p50=")
+                .append(h.getValueAtPercentile(50)).append(" p99=")
+                .append(h.getValueAtPercentile(99)).append(" p99.9=")
+                .append(h.getValueAtPercentile(99.9)).append(" max=").append(h.getMaxValue())
+                .append('\n');
+    }
+
+    @Override
+    public void close() {
+        for (Shard s : shards) {
+            s.consumer.close();
+            s.consumer.gcTracker.stop();
+        }
+    }
+
+    private static final class MessageSlot {
+        final Bytes<?> bytes = Bytes.allocateElasticDirect(SLOT_CAPACITY);
+        long enqueueNs;
+    }
+
+    private static final class Shard implements Runnable {
+        final int id;
+        final SpscRing<MessageSlot> ring;
+        final FlyweightConsumer consumer;
+        // Time spent in processBytes, enqueue-to-processed including ring residency, and producer
+        // stamp (tag 50001) to processed
+        final Recorder serviceTime = new Recorder(10_000_000_000L, 3);
+        final Recorder handoffLatency = new Recorder(10_000_000_000L, 3);
+        final Recorder endToEnd = new Recorder(3);
+        volatile boolean done;
+        volatile Throwable failure;
+        Thread thread;
+        long processed;
+        long firstNs;
+        long lastNs;
+
+        Shard(int id, int ringCapacity, SymbolTable symbols) {
+            this.id = id;
+            this.ring = new SpscRing<>(ringCapacity, MessageSlot::new);
+            this.consumer = new FlyweightConsumer(new OpenAddressingOrderIndex(), symbols);
+        }
+
+        void start() {
+            done = false;
+            failure = null;
+            thread = new Thread(this, "flyweight-shard-" + id);
+            thread.start();
+        }
+
+        void finish() {
+            done = true;
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void rethrowFailure() {
+            if (failure != null)
+                throw new IllegalStateException("Shard " + id + " failed", failure);
+        }
+
+        @Override
+        public void run() {
+            try (AffinityLock lock = AffinityLock.acquireLock()) {
+                while (true) {
+                    MessageSlot slot = ring.peek();
+                    if (slot == null) {
+                        // done is written after the last publish, so re-check before exiting
+                        if (done && ring.peek() == null)
+                            break;
+                        Thread.onSpinWait();
+                        continue;
+                    }
+                    long startNs = System.nanoTime();
+                    consumer.processBytes(slot.bytes);
+                    long endNs = System.nanoTime();
+                    long enqueueNs = slot.enqueueNs;
+                    ring.release();
+                    if (processed == 0)
+                        firstNs = startNs;
+                    lastNs = endNs;
+                    if (processed++ >= WARMUP_SKIP) {
+                        serviceTime.recordValue(endNs - startNs);
+                        handoffLatency.recordValue(endNs - enqueueNs);
+                        FlyweightConsumer.recordEndToEnd(endToEnd, consumer.lastSendEpochNanos());
+                    }
+                }
+            } catch (Throwable t) {
+                logger.error("Shard {} failed", id, t);
+                failure = t;
+            }
+        }
+    }
+}
@@ -6,11 +6,20 @@ import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 
 /**
- * Utility to build minimal FIX 4.4 messages (NewOrderSingle, OrderCancelRequest) with proper
+ * Utility to build minimal FIX 4.4 messages (NewOrderSingle, OrderCancelRequest,
+ * OrderCancelReplaceRequest, ExecutionReport) with proper
  * BodyLength (9) and CheckSum (10) calculation. Session sequence number is intentionally omitted
  * per project constraints.
  */
 public final class FixMessageBuilder {
+    /**
+     * User-defined tag carrying the producer's {@link com.fix.performance.metrics.EpochNanoClock}
+     * reading, placed right after SendingTime(52) so consumers see it before the order fields.
+     */
+    public static final int SEND_EPOCH_NANOS_TAG = 50001;
+    /** Pass as {@code sendEpochNanos} to leave tag 50001 out. */
+    public static final long NO_SEND_TIME = Long.MIN_VALUE;
+
     private static final char SOH = '\u0001';
 
     private static final DateTimeFormatter SENDING_TIME_FMT =
@@ -26,12 +35,15 @@ public final class FixMessageBuilder {
 
     public String buildNewOrderSingle(String clOrdId, String symbol, char side, int quantity,
             long priceCents, long nanoTimestamp) {
-        String sendingTime = SENDING_TIME_FMT.format(Instant.now());
+        return buildNewOrderSingle(clOrdId, symbol, side, quantity, priceCents, nanoTimestamp,
+                NO_SEND_TIME);
+    }
 
-        StringBuilder body = new StringBuilder(128);
-        body.append("35=D").append(SOH).append("49=").append(senderCompId).append(SOH).append("56=")
-                .append(targetCompId).append(SOH).append("52=").append(sendingTime).append(SOH)
-                .append("11=").append(clOrdId).append(SOH).append("55=").append(symbol).append(SOH)
+    public String buildNewOrderSingle(String clOrdId, String symbol, char side, int quantity,
+            long priceCents, long nanoTimestamp, long sendEpochNanos) {
+        StringBuilder body = new StringBuilder(160);
+        appendHeader(body, 'D', sendEpochNanos);
+        body.append("11=").append(clOrdId).append(SOH).append("55=").append(symbol).append(SOH)
                 .append("54=").append(side).append(SOH).append("38=").append(quantity).append(SOH)
                 .append("40=2").append(SOH) // Limit
                 .append("44=").append(formatPrice(priceCents)).append(SOH).append("60=")
@@ -42,18 +54,79 @@ public final class FixMessageBuilder {
 
     public String buildOrderCancelRequest(String clOrdId, String origClOrdId, String symbol,
             char side, long nanoTimestamp) {
-        String sendingTime = SENDING_TIME_FMT.format(Instant.now());
+        return buildOrderCancelRequest(clOrdId, origClOrdId, symbol, side, nanoTimestamp,
+                NO_SEND_TIME);
+    }
 
-        StringBuilder body = new StringBuilder(96);
-        body.append("35=F").append(SOH).append("49=").append(senderCompId).append(SOH).append("56=")
-                .append(targetCompId).append(SOH).append("52=").append(sendingTime).append(SOH)
-                .append("11=").append(clOrdId).append(SOH).append("41=").append(origClOrdId)
+    public String buildOrderCancelRequest(String clOrdId, String origClOrdId, String symbol,
+            char side, long nanoTimestamp, long sendEpochNanos) {
+        StringBuilder body = new StringBuilder(128);
+        appendHeader(body, 'F', sendEpochNanos);
+        body.append("11=").append(clOrdId).append(SOH).append("41=").append(origClOrdId)
                 .append(SOH).append("55=").append(symbol).append(SOH).append("54=").append(side)
                 .append(SOH).append("60=").append(nanoTimestamp).append(SOH);
 
         return finalizeMessage(body);
     }
 
+    public String buildOrderCancelReplaceRequest(String clOrdId, String origClOrdId,
+            String symbol, char side, int quantity, long priceCents, long nanoTimestamp) {
+        return buildOrderCancelReplaceRequest(clOrdId, origClOrdId, symbol, side, quantity,
+                priceCents, nanoTimestamp, NO_SEND_TIME);
+    }
+
+    public String buildOrderCancelReplaceRequest(String clOrdId, String origClOrdId,
+            String symbol, char side, int quantity, long priceCents, long nanoTimestamp,
+            long sendEpochNanos) {
+        StringBuilder body = new StringBuilder(160);
+        appendHeader(body, 'G', sendEpochNanos);
+        body.append("11=").append(clOrdId).append(SOH).append("41=").append(origClOrdId)
+                .append(SOH).append("55=").append(symbol).append(SOH).append("54=").append(side)
+                .append(SOH).append("38=").append(quantity).append(SOH).append("40=2").append(SOH)
+                .append("44=").append(formatPrice(priceCents)).append(SOH).append("60=")
+                .append(nanoTimestamp).append(SOH);
+
+        return finalizeMessage(body);
+    }
+
+    /**
+     * ExecutionReport for a fill of {@code lastQty} at {@code lastPxCents}; the OrderID(37) is the
+     * ClOrdID.
+     */
+    public String buildExecutionReport(String clOrdId, String execId, char execType,
+            char ordStatus, String symbol, char side, int orderQty, int lastQty, long lastPxCents,
+            int cumQty, long avgPxCents, long nanoTimestamp) {
+        return buildExecutionReport(clOrdId, execId, execType, ordStatus, symbol, side, orderQty,
+                lastQty, lastPxCents, cumQty, avgPxCents, nanoTimestamp, NO_SEND_TIME);
+    }
+
+    public String buildExecutionReport(String clOrdId, String execId, char execType,
+            char ordStatus, String symbol, char side, int orderQty, int lastQty, long lastPxCents,
+            int cumQty, long avgPxCents, long nanoTimestamp, long sendEpochNanos) {
+        StringBuilder body = new StringBuilder(224);
+        appendHeader(body, '8', sendEpochNanos);
+        body.append("37=").append(clOrdId).append(SOH).append("11=").append(clOrdId).append(SOH)
+                .append("17=").append(execId).append(SOH).append("150=").append(execType)
+                .append(SOH).append("39=").append(ordStatus).append(SOH).append("55=")
+                .append(symbol).append(SOH).append("54=").append(side).append(SOH).append("38=")
+                .append(orderQty).append(SOH).append("32=").append(lastQty).append(SOH)
+                .append("31=").append(formatPrice(lastPxCents)).append(SOH).append("151=")
+                .append(Math.max(0, orderQty - cumQty)).append(SOH).append("14=").append(cumQty)
+                .append(SOH).append("6=").append(formatPrice(avgPxCents)).append(SOH)
+                .append("60=").append(nanoTimestamp).append(SOH);
+
+        return finalizeMessage(body);
+    }
+
+    private void appendHeader(StringBuilder body, char msgType, long sendEpochNanos) {
+        String sendingTime = SENDING_TIME_FMT.format(Instant.now());
+        body.append("35=").append(msgType).append(SOH).append("49=").append(senderCompId)
+                .append(SOH).append("56=").append(targetCompId).append(SOH).append("52=")
+                .append(sendingTime).append(SOH);
+        if (sendEpochNanos != NO_SEND_TIME)
+            body.append(SEND_EPOCH_NANOS_TAG).append('=').append(sendEpochNanos).append(SOH);
+    }
+
     private static String formatPrice(long cents) {
         long abs = Math.abs(cents);
         long dollars = abs / 100L;
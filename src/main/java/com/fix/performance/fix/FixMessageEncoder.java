@@ -0,0 +1,387 @@
+package com.fix.performance.fix;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import net.openhft.chronicle.bytes.Bytes;
+
+/**
+ * Allocation-free counterpart of {@link FixMessageBuilder}: encodes FIX 4.4 messages straight into
+ * a reusable off-heap {@link Bytes} buffer. The body is written first at a fixed offset, then
+ * BeginString/BodyLength are written backwards in front of it, so no bytes are ever moved. The
+ * CheckSum is accumulated while encoding, and the SendingTime(52) field is cached and only
+ * re-rendered when the clock's millisecond changes. The optional send timestamp (tag 50001) is
+ * written right after SendingTime, matching {@link FixMessageBuilder}.
+ *
+ * <p>The returned {@code Bytes} is positioned on the encoded message and stays valid until the
+ * next encode call. Not thread-safe: use one encoder per thread.
+ */
+public final class FixMessageEncoder implements AutoCloseable {
+    private static final byte SOH = 1;
+    // "8=FIX.4.4<SOH>9=" + up to 10 BodyLength digits + SOH
+    private static final int HEADER_RESERVE = 32;
+    private static final byte[] BEGIN_STRING = ascii("8=FIX.4.4\u00019=");
+    private static final int BEGIN_STRING_SUM = sum(BEGIN_STRING);
+    private static final byte[] MSG_TYPE_NOS = ascii("35=D\u0001");
+    private static final int MSG_TYPE_NOS_SUM = sum(MSG_TYPE_NOS);
+    private static final byte[] MSG_TYPE_CANCEL = ascii("35=F\u0001");
+    private static final int MSG_TYPE_CANCEL_SUM = sum(MSG_TYPE_CANCEL);
+    private static final byte[] MSG_TYPE_REPLACE = ascii("35=G\u0001");
+    private static final int MSG_TYPE_REPLACE_SUM = sum(MSG_TYPE_REPLACE);
+    private static final byte[] MSG_TYPE_EXEC_REPORT = ascii("35=8\u0001");
+    private static final int MSG_TYPE_EXEC_REPORT_SUM = sum(MSG_TYPE_EXEC_REPORT);
+    private static final byte[] ORD_TYPE_LIMIT = ascii("40=2\u0001");
+    private static final int ORD_TYPE_LIMIT_SUM = sum(ORD_TYPE_LIMIT);
+    // "52=" + yyyyMMdd-HH:mm:ss.SSS + SOH
+    private static final int SENDING_TIME_LEN = 3 + 21 + 1;
+
+    private final Bytes<?> buffer = Bytes.allocateElasticDirect(512);
+    private final Clock clock;
+    private final byte[] compIds;
+    private final int compIdsSum;
+    private final byte[] sendingTime = new byte[SENDING_TIME_LEN];
+    private int sendingTimeSum;
+    private long cachedMillis = Long.MIN_VALUE;
+    private long cachedSecond = Long.MIN_VALUE;
+    private final byte[] digits = new byte[20];
+    private int sum;
+
+    public FixMessageEncoder(String senderCompId, String targetCompId) {
+        this(senderCompId, targetCompId, Clock.systemUTC());
+    }
+
+    public FixMessageEncoder(String senderCompId, String targetCompId, Clock clock) {
+        this.clock = clock;
+        this.compIds = ascii("49=" + senderCompId + '\u0001' + "56=" + targetCompId + '\u0001');
+        this.compIdsSum = sum(compIds);
+        sendingTime[0] = '5';
+        sendingTime[1] = '2';
+        sendingTime[2] = '=';
+        sendingTime[11] = '-';
+        sendingTime[14] = ':';
+        sendingTime[17] = ':';
+        sendingTime[20] = '.';
+        sendingTime[SENDING_TIME_LEN - 1] = SOH;
+    }
+
+    public Bytes<?> encodeNewOrderSingle(long clOrdId, CharSequence symbol, char side, int quantity,
+            long priceCents, long nanoTimestamp) {
+        return encodeNewOrderSingle(clOrdId, symbol, side, quantity, priceCents, nanoTimestamp,
+                FixMessageBuilder.NO_SEND_TIME);
+    }
+
+    /** As above, also stamping {@code sendEpochNanos} into tag 50001 after SendingTime. */
+    public Bytes<?> encodeNewOrderSingle(long clOrdId, CharSequence symbol, char side, int quantity,
+            long priceCents, long nanoTimestamp, long sendEpochNanos) {
+        begin(MSG_TYPE_NOS, MSG_TYPE_NOS_SUM, sendEpochNanos);
+        tag(11);
+        putLong(clOrdId);
+        putSoh();
+        tag(55);
+        putAscii(symbol);
+        putSoh();
+        tag(54);
+        put((byte) side);
+        putSoh();
+        tag(38);
+        putLong(quantity);
+        putSoh();
+        putConst(ORD_TYPE_LIMIT, ORD_TYPE_LIMIT_SUM);
+        tag(44);
+        putPrice(priceCents);
+        putSoh();
+        tag(60);
+        putLong(nanoTimestamp);
+        putSoh();
+        return finish();
+    }
+
+    public Bytes<?> encodeOrderCancelRequest(long clOrdId, long origClOrdId, CharSequence symbol,
+            char side, long nanoTimestamp) {
+        return encodeOrderCancelRequest(clOrdId, origClOrdId, symbol, side, nanoTimestamp,
+                FixMessageBuilder.NO_SEND_TIME);
+    }
+
+    /** As above, also stamping {@code sendEpochNanos} into tag 50001 after SendingTime. */
+    public Bytes<?> encodeOrderCancelRequest(long clOrdId, long origClOrdId, CharSequence symbol,
+            char side, long nanoTimestamp, long sendEpochNanos) {
+        begin(MSG_TYPE_CANCEL, MSG_TYPE_CANCEL_SUM, sendEpochNanos);
+        tag(11);
+        putLong(clOrdId);
+        putSoh();
+        tag(41);
+        putLong(origClOrdId);
+        putSoh();
+        tag(55);
+        putAscii(symbol);
+        putSoh();
+        tag(54);
+        put((byte) side);
+        putSoh();
+        tag(60);
+        putLong(nanoTimestamp);
+        putSoh();
+        return finish();
+    }
+
+    public Bytes<?> encodeOrderCancelReplaceRequest(long clOrdId, long origClOrdId,
+            CharSequence symbol, char side, int quantity, long priceCents, long nanoTimestamp) {
+        return encodeOrderCancelReplaceRequest(clOrdId, origClOrdId, symbol, side, quantity,
+                priceCents, nanoTimestamp, FixMessageBuilder.NO_SEND_TIME);
+    }
+
+    /** As above, also stamping {@code sendEpochNanos} into tag 50001 after SendingTime. */
+    public Bytes<?> encodeOrderCancelReplaceRequest(long clOrdId, long origClOrdId,
+            CharSequence symbol, char side, int quantity, long priceCents, long nanoTimestamp,
+            long sendEpochNanos) {
+        begin(MSG_TYPE_REPLACE, MSG_TYPE_REPLACE_SUM, sendEpochNanos);
+        tag(11);
+        putLong(clOrdId);
+        putSoh();
+        tag(41);
+        putLong(origClOrdId);
+        putSoh();
+        tag(55);
+        putAscii(symbol);
+        putSoh();
+        tag(54);
+        put((byte) side);
+        putSoh();
+        tag(38);
+        putLong(quantity);
+        putSoh();
+        putConst(ORD_TYPE_LIMIT, ORD_TYPE_LIMIT_SUM);
+        tag(44);
+        putPrice(priceCents);
+        putSoh();
+        tag(60);
+        putLong(nanoTimestamp);
+        putSoh();
+        return finish();
+    }
+
+    /** Matches {@link FixMessageBuilder#buildExecutionReport}. */
+    public Bytes<?> encodeExecutionReport(long clOrdId, long execId, char execType,
+            char ordStatus, CharSequence symbol, char side, int orderQty, int lastQty,
+            long lastPxCents, int cumQty, long avgPxCents, long nanoTimestamp,
+            long sendEpochNanos) {
+        begin(MSG_TYPE_EXEC_REPORT, MSG_TYPE_EXEC_REPORT_SUM, sendEpochNanos);
+        tag(37);
+        putLong(clOrdId);
+        putSoh();
+        tag(11);
+        putLong(clOrdId);
+        putSoh();
+        tag(17);
+        putLong(execId);
+        putSoh();
+        tag(150);
+        put((byte) execType);
+        putSoh();
+        tag(39);
+        put((byte) ordStatus);
+        putSoh();
+        tag(55);
+        putAscii(symbol);
+        putSoh();
+        tag(54);
+        put((byte) side);
+        putSoh();
+        tag(38);
+        putLong(orderQty);
+        putSoh();
+        tag(32);
+        putLong(lastQty);
+        putSoh();
+        tag(31);
+        putPrice(lastPxCents);
+        putSoh();
+        tag(151);
+        putLong(Math.max(0, orderQty - cumQty));
+        putSoh();
+        tag(14);
+        putLong(cumQty);
+        putSoh();
+        tag(6);
+        putPrice(avgPxCents);
+        putSoh();
+        tag(60);
+        putLong(nanoTimestamp);
+        putSoh();
+        return finish();
+    }
+
+    private void begin(byte[] msgType, int msgTypeSum, long sendEpochNanos) {
+        buffer.clear();
+        buffer.writePosition(HEADER_RESERVE);
+        sum = 0;
+        putConst(msgType, msgTypeSum);
+        putConst(compIds, compIdsSum);
+        refreshSendingTime();
+        putConst(sendingTime, sendingTimeSum);
+        if (sendEpochNanos != FixMessageBuilder.NO_SEND_TIME) {
+            tag(FixMessageBuilder.SEND_EPOCH_NANOS_TAG);
+            putLong(sendEpochNanos);
+            putSoh();
+        }
+    }
+
+    private Bytes<?> finish() {
+        long bodyEnd = buffer.writePosition();
+        long bodyLength = bodyEnd - HEADER_RESERVE;
+
+        int n = renderDigits(bodyLength);
+        long start = HEADER_RESERVE - (BEGIN_STRING.length + n + 1);
+        long p = start;
+        for (byte b : BEGIN_STRING)
+            buffer.writeByte(p++, b);
+        int headerSum = BEGIN_STRING_SUM + SOH;
+        for (int i = digits.length - n; i < digits.length; i++) {
+            buffer.writeByte(p++, digits[i]);
+            headerSum += digits[i];
+        }
+        buffer.writeByte(p, SOH);
+        sum += headerSum;
+
+        int checksum = sum & 0xFF;
+        buffer.writeByte((byte) '1');
+        buffer.writeByte((byte) '0');
+        buffer.writeByte((byte) '=');
+        buffer.writeByte((byte) ('0' + checksum / 100));
+        buffer.writeByte((byte) ('0' + (checksum / 10) % 10));
+        buffer.writeByte((byte) ('0' + checksum % 10));
+        buffer.writeByte(SOH);
+
+        buffer.readPosition(start);
+        return buffer;
+    }
+
+    private void refreshSendingTime() {
+        long millis = clock.millis();
+        if (millis == cachedMillis)
+            return;
+        long second = Math.floorDiv(millis, 1000L);
+        if (second != cachedSecond) {
+            renderDateTime(second);
+            cachedSecond = second;
+        }
+        int ms = (int) Math.floorMod(millis, 1000L);
+        sendingTime[21] = (byte) ('0' + ms / 100);
+        sendingTime[22] = (byte) ('0' + (ms / 10) % 10);
+        sendingTime[23] = (byte) ('0' + ms % 10);
+        cachedMillis = millis;
+        sendingTimeSum = sum(sendingTime);
+    }
+
+    /** Renders yyyyMMdd-HH:mm:ss for the given epoch second into the cached SendingTime field. */
+    private void renderDateTime(long epochSecond) {
+        long days = Math.floorDiv(epochSecond, 86_400L);
+        int secOfDay = (int) Math.floorMod(epochSecond, 86_400L);
+        // Civil-from-days (proleptic Gregorian), valid for any epoch day
+        long z = days + 719_468L;
+        long era = Math.floorDiv(z, 146_097L);
+        long doe = z - era * 146_097L;
+        long yoe = (doe - doe / 1_460 + doe / 36_524 - doe / 146_096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        int day = (int) (doy - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        int year = (int) (yoe + era * 400 + (month <= 2 ? 1 : 0));
+
+        put4(3, year);
+        put2(7, month);
+        put2(9, day);
+        put2(12, secOfDay / 3600);
+        put2(15, (secOfDay / 60) % 60);
+        put2(18, secOfDay % 60);
+    }
+
+    private void put4(int at, int v) {
+        sendingTime[at] = (byte) ('0' + (v / 1000) % 10);
+        sendingTime[at + 1] = (byte) ('0' + (v / 100) % 10);
+        sendingTime[at + 2] = (byte) ('0' + (v / 10) % 10);
+        sendingTime[at + 3] = (byte) ('0' + v % 10);
+    }
+
+    private void put2(int at, int v) {
+        sendingTime[at] = (byte) ('0' + v / 10);
+        sendingTime[at + 1] = (byte) ('0' + v % 10);
+    }
+
+    private void tag(int tag) {
+        putLong(tag);
+        put((byte) '=');
+    }
+
+    private void putSoh() {
+        buffer.writeByte(SOH);
+        sum += SOH;
+    }
+
+    private void put(byte b) {
+        buffer.writeByte(b);
+        sum += b & 0xFF;
+    }
+
+    private void putConst(byte[] bytes, int bytesSum) {
+        buffer.write(bytes);
+        sum += bytesSum;
+    }
+
+    private void putAscii(CharSequence cs) {
+        for (int i = 0; i < cs.length(); i++)
+            put((byte) cs.charAt(i));
+    }
+
+    private void putLong(long v) {
+        if (v < 0) {
+            put((byte) '-');
+        } else {
+            v = -v;
+        }
+        // Render from the negated value so Long.MIN_VALUE needs no special case
+        int i = digits.length;
+        do {
+            digits[--i] = (byte) ('0' - (v % 10));
+            v /= 10;
+        } while (v != 0);
+        for (; i < digits.length; i++)
+            put(digits[i]);
+    }
+
+    private void putPrice(long cents) {
+        if (cents < 0)
+            put((byte) '-');
+        long abs = Math.abs(cents);
+        putLong(abs / 100L);
+        put((byte) '.');
+        int remainder = (int) (abs % 100L);
+        put((byte) ('0' + remainder / 10));
+        put((byte) ('0' + remainder % 10));
+    }
+
+    /** Renders a non-negative value right-aligned into {@link #digits}, returning the length. */
+    private int renderDigits(long v) {
+        int i = digits.length;
+        do {
+            digits[--i] = (byte) ('0' + (v % 10));
+            v /= 10;
+        } while (v != 0);
+        return digits.length - i;
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static int sum(byte[] bytes) {
+        int s = 0;
+        for (byte b : bytes)
+            s += b & 0xFF;
+        return s;
+    }
+
+    @Override
+    public void close() {
+        buffer.releaseLast();
+    }
+}
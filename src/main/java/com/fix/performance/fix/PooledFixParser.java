@@ -0,0 +1,133 @@
+package com.fix.performance.fix;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import quickfix.DataDictionary;
+import quickfix.FieldMap;
+import quickfix.InvalidMessage;
+import quickfix.Message;
+import quickfix.StringField;
+
+/**
+ * Garbage-light QuickFIX/J parsing for one thread. Every call clears and refills the same
+ * {@link Message}, and fields with tags below 1024 reuse one {@link StringField} per tag, so a
+ * message costs its value strings and nothing else. Header/trailer membership and the group-count
+ * tags of the pre-registered message types are looked up in the dictionary once, at construction;
+ * {@link DataDictionary#isGroup} allocates a key on every call.
+ *
+ * <p>Messages of other types, or carrying a repeating group, fall back to
+ * {@link Message#fromString} on the same instance. The returned message is only valid until the
+ * next {@link #parse}. Not thread-safe.
+ */
+public final class PooledFixParser {
+    private static final Logger logger = LogManager.getLogger(PooledFixParser.class);
+    private static final int DIRECT_TAGS = 1024;
+    private static final byte BODY = 0;
+    private static final byte HEADER = 1;
+    private static final byte TRAILER = 2;
+
+    private final DataDictionary dictionary;
+    private final byte[] sectionByTag = new byte[DIRECT_TAGS];
+    private final Map<String, boolean[]> groupTagsByType = new HashMap<>();
+    private final StringField[] fields = new StringField[DIRECT_TAGS];
+    private final Message message = new Message();
+    private long parsed;
+    private long fallbacks;
+
+    /** @param msgTypes MsgType(35) values parsed without falling back, e.g. "D" and "F" */
+    public PooledFixParser(DataDictionary dictionary, String... msgTypes) {
+        this.dictionary = dictionary;
+        for (int tag = 1; tag < DIRECT_TAGS; tag++) {
+            if (dictionary.isHeaderField(tag))
+                sectionByTag[tag] = HEADER;
+            else if (dictionary.isTrailerField(tag))
+                sectionByTag[tag] = TRAILER;
+        }
+        for (String msgType : msgTypes) {
+            boolean[] groups = new boolean[DIRECT_TAGS];
+            for (int tag = 1; tag < DIRECT_TAGS; tag++)
+                groups[tag] = dictionary.isGroup(msgType, tag);
+            groupTagsByType.put(msgType, groups);
+        }
+        logger.debug("Pooled parser ready for message types {}", groupTagsByType.keySet());
+    }
+
+    /** Parses {@code fix} into the reused message, without validation. */
+    public Message parse(String fix) throws InvalidMessage {
+        clear();
+        parsed++;
+        boolean[] groups = null;
+        int len = fix.length();
+        int pos = 0;
+        while (pos < len) {
+            int soh = fix.indexOf('\u0001', pos);
+            if (soh < 0)
+                soh = len;
+            int tag = 0;
+            int eq = pos;
+            for (; eq < soh && fix.charAt(eq) != '='; eq++) {
+                int d = fix.charAt(eq) - '0';
+                if (d < 0 || d > 9)
+                    throw new InvalidMessage("Bad tag at offset " + pos + ": " + fix);
+                tag = tag * 10 + d;
+            }
+            if (eq == pos || eq == soh)
+                throw new InvalidMessage("Bad field at offset " + pos + ": " + fix);
+            String value = fix.substring(eq + 1, soh);
+            if (tag == 35) {
+                groups = groupTagsByType.get(value);
+                if (groups == null)
+                    return fallback(fix);
+            } else if (groups != null && tag < DIRECT_TAGS && groups[tag]) {
+                return fallback(fix);
+            }
+            set(tag, value);
+            pos = soh + 1;
+        }
+        if (groups == null)
+            throw new InvalidMessage("No MsgType(35): " + fix);
+        return message;
+    }
+
+    private void set(int tag, String value) {
+        if (tag >= DIRECT_TAGS) {
+            message.setString(tag, value);
+            return;
+        }
+        FieldMap target = switch (sectionByTag[tag]) {
+            case HEADER -> message.getHeader();
+            case TRAILER -> message.getTrailer();
+            default -> message;
+        };
+        StringField field = fields[tag];
+        if (field == null)
+            fields[tag] = field = new StringField(tag);
+        field.setValue(value);
+        target.setField(field);
+    }
+
+    private Message fallback(String fix) throws InvalidMessage {
+        fallbacks++;
+        clear();
+        message.fromString(fix, dictionary, false);
+        return message;
+    }
+
+    private void clear() {
+        message.clear();
+        message.getHeader().clear();
+        message.getTrailer().clear();
+    }
+
+    /** Messages parsed so far, fallbacks included. */
+    public long parsed() {
+        return parsed;
+    }
+
+    /** Messages handed to {@link Message#fromString}: unregistered type or a repeating group. */
+    public long fallbacks() {
+        return fallbacks;
+    }
+}
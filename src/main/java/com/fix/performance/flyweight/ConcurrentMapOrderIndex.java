@@ -0,0 +1,56 @@
+package com.fix.performance.flyweight;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link OrderIndex} backed by {@code ConcurrentHashMap<Long, Order>}. This is the original
+ * flyweight index (boxes every key, allocates a node per insert) and is kept as the baseline for
+ * comparisons.
+ */
+public final class ConcurrentMapOrderIndex implements OrderIndex {
+    private final Map<Long, Order> map;
+
+    public ConcurrentMapOrderIndex() {
+        this.map = new ConcurrentHashMap<>();
+    }
+
+    public ConcurrentMapOrderIndex(int expectedSize) {
+        this.map = new ConcurrentHashMap<>(expectedSize);
+    }
+
+    @Override
+    public Order get(long clOrdId) {
+        return map.get(clOrdId);
+    }
+
+    @Override
+    public Order put(long clOrdId, Order order) {
+        return map.put(clOrdId, order);
+    }
+
+    @Override
+    public Order remove(long clOrdId) {
+        return map.remove(clOrdId);
+    }
+
+    @Override
+    public boolean containsKey(long clOrdId) {
+        return map.containsKey(clOrdId);
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+    }
+
+    @Override
+    public void forEach(Visitor visitor) {
+        map.forEach(visitor::accept);
+    }
+}
@@ -0,0 +1,259 @@
+package com.fix.performance.flyweight;
+
+import java.util.Arrays;
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesStore;
+
+/**
+ * Reusable random-access view of one FIX message. {@link #wrap} scans the message once and records
+ * the value range of every tag, after which any field is an O(1) lookup with no allocation, so
+ * several handlers can read different fields without rescanning.
+ *
+ * <p>Tags below {@code directTags} (all standard FIX44 tags with the default of 1024) index plain
+ * arrays. Higher tags, e.g. 50001 or firm-specific fields, go to a small open-addressing table
+ * that grows only when a message carries more of them than it holds. Presence is tracked with a
+ * per-wrap generation stamp, so wrapping costs nothing beyond the scan. A repeated tag (a
+ * repeating group) resolves to its first occurrence. Not thread-safe; use one view per thread.
+ */
+public final class FixView {
+    private static final byte SOH = 1;
+    private static final int DEFAULT_DIRECT_TAGS = 1024;
+    private static final int INITIAL_OVERFLOW = 16;
+
+    private final long[] directStart;
+    private final long[] directEnd;
+    private final long[] directSeen;
+
+    private int[] overflowTag;
+    private long[] overflowStart;
+    private long[] overflowEnd;
+    private long[] overflowSeen;
+    private int overflowSize;
+
+    private long generation;
+    private BytesStore<?, ?> store;
+    private int fieldCount;
+
+    public FixView() {
+        this(DEFAULT_DIRECT_TAGS);
+    }
+
+    public FixView(int directTags) {
+        if (directTags <= 0)
+            throw new IllegalArgumentException("directTags must be > 0");
+        this.directStart = new long[directTags];
+        this.directEnd = new long[directTags];
+        this.directSeen = new long[directTags];
+        // Generation 0 is "before the first wrap"; nothing may match it
+        Arrays.fill(directSeen, -1);
+        allocateOverflow(INITIAL_OVERFLOW);
+    }
+
+    /** Indexes the readable region of {@code bytes}. */
+    public FixView wrap(Bytes<?> bytes) {
+        long pos = bytes.readPosition();
+        return wrap(bytes.bytesStore(), pos, pos + bytes.readRemaining());
+    }
+
+    /**
+     * Indexes the fields in [start, limit). Lookups stay valid until the next wrap or until
+     * {@code store} is released or overwritten. Tokens that are not {@code digits=value} are
+     * skipped.
+     */
+    public FixView wrap(BytesStore<?, ?> store, long start, long limit) {
+        begin(store);
+        long pos = start;
+        while (pos < limit) {
+            int tag = 0;
+            long eq = pos;
+            boolean valid = true;
+            for (; eq < limit; eq++) {
+                int b = store.readUnsignedByte(eq);
+                if (b == '=')
+                    break;
+                int d = b - '0';
+                if (d < 0 || d > 9) {
+                    valid = false;
+                    break;
+                }
+                tag = tag * 10 + d;
+            }
+            long soh = Swar.indexOf(store, eq, limit, SOH);
+            if (valid && eq > pos && eq < limit)
+                field(tag, eq + 1, soh);
+            pos = soh + 1;
+        }
+        return this;
+    }
+
+    /**
+     * Starts indexing a message in {@code store} whose fields the caller finds itself and passes
+     * to {@link #field}, so a scan that is made anyway (e.g. the flyweight consumer's) fills the
+     * view without a second one.
+     */
+    public void begin(BytesStore<?, ?> store) {
+        this.store = store;
+        generation++;
+        overflowSize = 0;
+        fieldCount = 0;
+    }
+
+    /** Records the value [valueStart, valueEnd) of {@code tag}; a repeat keeps the first. */
+    public void field(int tag, long valueStart, long valueEnd) {
+        if (tag < 0)
+            return;
+        fieldCount++;
+        if (tag < directStart.length) {
+            if (directSeen[tag] != generation) {
+                directStart[tag] = valueStart;
+                directEnd[tag] = valueEnd;
+                directSeen[tag] = generation;
+            }
+        } else {
+            putOverflow(tag, valueStart, valueEnd, generation);
+        }
+    }
+
+    /** Number of well-formed fields in the wrapped message, repeats included. */
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    public BytesStore<?, ?> store() {
+        return store;
+    }
+
+    public boolean has(int tag) {
+        return tag >= 0 && (tag < directStart.length ? directSeen[tag] == generation
+                : findOverflow(tag) >= 0);
+    }
+
+    /** Offset of the value of {@code tag} in {@link #store()}, or -1 if absent. */
+    public long valueStart(int tag) {
+        if (tag < 0)
+            return -1;
+        if (tag < directStart.length)
+            return directSeen[tag] == generation ? directStart[tag] : -1;
+        int i = findOverflow(tag);
+        return i >= 0 ? overflowStart[i] : -1;
+    }
+
+    /** End offset (exclusive) of the value of {@code tag}, or -1 if absent. */
+    public long valueEnd(int tag) {
+        if (tag < 0)
+            return -1;
+        if (tag < directStart.length)
+            return directSeen[tag] == generation ? directEnd[tag] : -1;
+        int i = findOverflow(tag);
+        return i >= 0 ? overflowEnd[i] : -1;
+    }
+
+    /** Length of the value of {@code tag}, or -1 if absent. */
+    public int valueLength(int tag) {
+        long s = valueStart(tag);
+        return s < 0 ? -1 : (int) (valueEnd(tag) - s);
+    }
+
+    /** Integer value of {@code tag}, or {@code Integer.MIN_VALUE} if absent. */
+    public int getInt(int tag) {
+        long s = valueStart(tag);
+        return s < 0 ? Integer.MIN_VALUE : Swar.parseInt(store, s, valueEnd(tag));
+    }
+
+    /** Long value of {@code tag}, or {@code Long.MIN_VALUE} if absent. */
+    public long getLong(int tag) {
+        long s = valueStart(tag);
+        return s < 0 ? Long.MIN_VALUE : Swar.parseLong(store, s, valueEnd(tag));
+    }
+
+    /** Decimal value of {@code tag} in hundredths, or {@code Long.MIN_VALUE} if absent. */
+    public long getPriceCents(int tag) {
+        long s = valueStart(tag);
+        return s < 0 ? Long.MIN_VALUE : Swar.parsePriceCents(store, s, valueEnd(tag));
+    }
+
+    /** First byte of the value of {@code tag}, or 0 if absent or empty. */
+    public char getChar(int tag) {
+        long s = valueStart(tag);
+        return s < 0 || valueEnd(tag) == s ? 0 : (char) store.readUnsignedByte(s);
+    }
+
+    /** True if {@code tag} is present and its value is exactly the ASCII bytes {@code expected}. */
+    public boolean valueEquals(int tag, byte[] expected) {
+        long s = valueStart(tag);
+        if (s < 0 || valueEnd(tag) - s != expected.length)
+            return false;
+        for (int i = 0; i < expected.length; i++) {
+            if (store.readByte(s + i) != expected[i])
+                return false;
+        }
+        return true;
+    }
+
+    /** Appends the value of {@code tag} as ASCII; appends nothing if absent. */
+    public StringBuilder appendValue(int tag, StringBuilder sb) {
+        long s = valueStart(tag);
+        if (s >= 0) {
+            long e = valueEnd(tag);
+            for (long i = s; i < e; i++)
+                sb.append((char) store.readUnsignedByte(i));
+        }
+        return sb;
+    }
+
+    private int findOverflow(int tag) {
+        int mask = overflowTag.length - 1;
+        for (int i = hash(tag, mask);; i = (i + 1) & mask) {
+            if (overflowSeen[i] != generation)
+                return -1;
+            if (overflowTag[i] == tag)
+                return i;
+        }
+    }
+
+    private void putOverflow(int tag, long start, long end, long gen) {
+        // Keep the load factor at or below 1/2 so probes stay short and always hit a free slot
+        if ((overflowSize + 1) * 2 > overflowTag.length)
+            growOverflow();
+        int mask = overflowTag.length - 1;
+        int i = hash(tag, mask);
+        while (overflowSeen[i] == gen) {
+            if (overflowTag[i] == tag)
+                return;
+            i = (i + 1) & mask;
+        }
+        overflowTag[i] = tag;
+        overflowStart[i] = start;
+        overflowEnd[i] = end;
+        overflowSeen[i] = gen;
+        overflowSize++;
+    }
+
+    private void growOverflow() {
+        int[] tags = overflowTag;
+        long[] starts = overflowStart;
+        long[] ends = overflowEnd;
+        long[] seen = overflowSeen;
+        allocateOverflow(tags.length * 2);
+        int size = overflowSize;
+        overflowSize = 0;
+        for (int i = 0; i < tags.length; i++) {
+            if (seen[i] == generation)
+                putOverflow(tags[i], starts[i], ends[i], generation);
+        }
+        if (overflowSize != size)
+            throw new IllegalStateException("Lost overflow tags while resizing");
+    }
+
+    private void allocateOverflow(int capacity) {
+        overflowTag = new int[capacity];
+        overflowStart = new long[capacity];
+        overflowEnd = new long[capacity];
+        overflowSeen = new long[capacity];
+        Arrays.fill(overflowSeen, -1);
+    }
+
+    private static int hash(int tag, int mask) {
+        return (tag * 0x9E3779B9 >>> 16) & mask;
+    }
+}
@@ -0,0 +1,174 @@
+package com.fix.performance.flyweight;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import com.fix.performance.fix.FixMessageBuilder;
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesStore;
+
+/**
+ * Base of the decoders generated from the FIX44 dictionary (see {@code src/codegen}). {@link #wrap}
+ * makes one pass over the message and records the value offsets of every field the message type
+ * declares; the typed getters of the generated subclass parse a value only when asked. Nothing is
+ * allocated per message and a decoder is reused for every message on one thread.
+ *
+ * <p>Tags map to slots through a table indexed by tag number, so dispatch is one bounds check and
+ * one array load regardless of how many fields the message type has. Tags outside the table are
+ * skipped, except tag 50001 (producer send time). Fields inside repeating groups are not in the
+ * table; only the NoXxx count is. A repeated tag keeps its last value.
+ */
+public abstract class FlyweightDecoder {
+    private static final byte SOH = 1;
+
+    private final byte[] msgType;
+    private final short[] slotByTag;
+    private final int sendTimeSlot;
+    private final long[] valueStart;
+    private final long[] valueEnd;
+    // Slot is present in the current message iff seenIn[slot] == generation; avoids a reset pass
+    private final long[] seenIn;
+    private long generation;
+    private BytesStore<?, ?> store;
+
+    protected FlyweightDecoder(String msgType, short[] slotByTag, int slotCount) {
+        this.msgType = msgType.getBytes(StandardCharsets.US_ASCII);
+        this.slotByTag = slotByTag;
+        this.sendTimeSlot = slotCount;
+        this.valueStart = new long[slotCount + 1];
+        this.valueEnd = new long[slotCount + 1];
+        this.seenIn = new long[slotCount + 1];
+        Arrays.fill(seenIn, -1);
+    }
+
+    /** Slot table for {@code tags}: entry {@code tags[i]} holds {@code i}, every other entry -1. */
+    protected static short[] slotTable(int[] tags) {
+        int max = 0;
+        for (int tag : tags)
+            max = Math.max(max, tag);
+        short[] table = new short[max + 1];
+        Arrays.fill(table, (short) -1);
+        for (int i = 0; i < tags.length; i++)
+            table[tags[i]] = (short) i;
+        return table;
+    }
+
+    /** Wraps the readable region of {@code bytes}; see {@link #wrap(BytesStore, long, long)}. */
+    public final boolean wrap(Bytes<?> bytes) {
+        long pos = bytes.readPosition();
+        return wrap(bytes.bytesStore(), pos, pos + bytes.readRemaining());
+    }
+
+    /**
+     * Indexes the fields in [start, limit). Returns true if MsgType(35) is this decoder's type;
+     * getters are valid either way until the next wrap or until {@code store} is released.
+     */
+    public final boolean wrap(BytesStore<?, ?> store, long start, long limit) {
+        begin(store);
+        boolean typeMatches = false;
+        long pos = start;
+        while (pos < limit) {
+            int tag = 0;
+            long eq = pos;
+            boolean valid = true;
+            for (; eq < limit; eq++) {
+                int b = store.readUnsignedByte(eq);
+                if (b == '=')
+                    break;
+                int d = b - '0';
+                if (d < 0 || d > 9) {
+                    valid = false;
+                    break;
+                }
+                tag = tag * 10 + d;
+            }
+            long soh = Swar.indexOf(store, eq, limit, SOH);
+            if (valid && eq > pos && eq < limit) {
+                long vs = eq + 1;
+                if (tag == 35)
+                    typeMatches = typeEquals(store, vs, soh);
+                field(tag, vs, soh);
+            }
+            pos = soh + 1;
+        }
+        return typeMatches;
+    }
+
+    /**
+     * Starts a message in {@code store} whose fields the caller finds itself and passes to
+     * {@link #field}, e.g. from a scan that also does other work; the getters then answer for
+     * exactly those fields. {@link #wrap} is this plus its own scan.
+     */
+    public final void begin(BytesStore<?, ?> store) {
+        this.store = store;
+        generation++;
+    }
+
+    /** Records the value [valueStart, valueEnd) of {@code tag}; ignored if the type lacks it. */
+    public final void field(int tag, long valueStart, long valueEnd) {
+        int slot = tag >= 0 && tag < slotByTag.length ? slotByTag[tag]
+                : tag == FixMessageBuilder.SEND_EPOCH_NANOS_TAG ? sendTimeSlot : -1;
+        if (slot >= 0) {
+            this.valueStart[slot] = valueStart;
+            this.valueEnd[slot] = valueEnd;
+            seenIn[slot] = generation;
+        }
+    }
+
+    private boolean typeEquals(BytesStore<?, ?> store, long s, long e) {
+        if (e - s != msgType.length)
+            return false;
+        for (int i = 0; i < msgType.length; i++) {
+            if (store.readByte(s + i) != msgType[i])
+                return false;
+        }
+        return true;
+    }
+
+    /** Producer send time from tag 50001, or {@link FixMessageBuilder#NO_SEND_TIME}. */
+    public final long sendEpochNanos() {
+        return has(sendTimeSlot) ? longValue(sendTimeSlot) : FixMessageBuilder.NO_SEND_TIME;
+    }
+
+    protected final boolean has(int slot) {
+        return seenIn[slot] == generation;
+    }
+
+    protected final int intValue(int slot) {
+        return has(slot) ? Swar.parseInt(store, valueStart[slot], valueEnd[slot])
+                : Integer.MIN_VALUE;
+    }
+
+    protected final long longValue(int slot) {
+        return has(slot) ? Swar.parseLong(store, valueStart[slot], valueEnd[slot])
+                : Long.MIN_VALUE;
+    }
+
+    protected final long centsValue(int slot) {
+        return has(slot) ? Swar.parsePriceCents(store, valueStart[slot], valueEnd[slot])
+                : Long.MIN_VALUE;
+    }
+
+    /** Decimal value truncated to whole units, e.g. a QTY of "150.5" is 150. */
+    protected final long unitsValue(int slot) {
+        long cents = centsValue(slot);
+        return cents == Long.MIN_VALUE ? cents : cents / 100;
+    }
+
+    protected final char charValue(int slot) {
+        return has(slot) && valueEnd[slot] > valueStart[slot]
+                ? (char) store.readUnsignedByte(valueStart[slot])
+                : 0;
+    }
+
+    protected final boolean booleanValue(int slot) {
+        return charValue(slot) == 'Y';
+    }
+
+    protected final StringBuilder appendValue(int slot, StringBuilder sb) {
+        if (has(slot)) {
+            for (long i = valueStart[slot]; i < valueEnd[slot]; i++)
+                sb.append((char) store.readUnsignedByte(i));
+        }
+        return sb;
+    }
+}
@@ -0,0 +1,167 @@
+package com.fix.performance.flyweight;
+
+/**
+ * Primitive {@code long -> Order} hash index using open addressing with linear probing. Keys live
+ * in a {@code long[]} next to a parallel {@code Order[]} of slots, so lookups never box and inserts
+ * never allocate until the table has to grow. Removal uses backward-shift deletion, so there are no
+ * tombstones and probe sequences stay short under heavy NOS/cancel churn.
+ *
+ * <p>Not thread-safe: intended to be owned by a single consumer thread.
+ */
+public final class OpenAddressingOrderIndex implements OrderIndex {
+    private static final double LOAD_FACTOR = 0.6;
+    private static final int MIN_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final long PHI = 0x9E3779B97F4A7C15L;
+
+    private long[] keys;
+    private Order[] values;
+    private int mask;
+    private int shift;
+    private int size;
+    private int resizeThreshold;
+
+    public OpenAddressingOrderIndex() {
+        this(1 << 16);
+    }
+
+    public OpenAddressingOrderIndex(int expectedSize) {
+        if (expectedSize < 0)
+            throw new IllegalArgumentException("expectedSize must be >= 0");
+        allocate(capacityFor(expectedSize));
+    }
+
+    @Override
+    public Order get(long clOrdId) {
+        int i = slot(clOrdId);
+        Order v;
+        while ((v = values[i]) != null) {
+            if (keys[i] == clOrdId)
+                return v;
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    @Override
+    public Order put(long clOrdId, Order order) {
+        if (order == null)
+            throw new IllegalArgumentException("order must not be null");
+        int i = slot(clOrdId);
+        Order v;
+        while ((v = values[i]) != null) {
+            if (keys[i] == clOrdId) {
+                values[i] = order;
+                return v;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = clOrdId;
+        values[i] = order;
+        if (++size > resizeThreshold)
+            grow();
+        return null;
+    }
+
+    @Override
+    public Order remove(long clOrdId) {
+        int i = slot(clOrdId);
+        Order v;
+        while ((v = values[i]) != null) {
+            if (keys[i] == clOrdId) {
+                shiftBack(i);
+                size--;
+                return v;
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    @Override
+    public boolean containsKey(long clOrdId) {
+        return get(clOrdId) != null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        java.util.Arrays.fill(values, null);
+        size = 0;
+    }
+
+    @Override
+    public void forEach(Visitor visitor) {
+        long[] k = keys;
+        Order[] v = values;
+        for (int i = 0; i < v.length; i++) {
+            if (v[i] != null)
+                visitor.accept(k[i], v[i]);
+        }
+    }
+
+    /** Number of slots currently allocated (power of two). */
+    public int capacity() {
+        return values.length;
+    }
+
+    private int slot(long key) {
+        return (int) ((key * PHI) >>> shift);
+    }
+
+    /**
+     * Backward-shift deletion: pull later entries of the same cluster into the gap when their home
+     * slot does not lie cyclically between the gap and their current position.
+     */
+    private void shiftBack(int gap) {
+        int j = (gap + 1) & mask;
+        while (values[j] != null) {
+            int home = slot(keys[j]);
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+            j = (j + 1) & mask;
+        }
+        values[gap] = null;
+    }
+
+    private void grow() {
+        if (values.length >= MAX_CAPACITY)
+            throw new IllegalStateException("OrderIndex capacity exhausted at size " + size);
+        long[] oldKeys = keys;
+        Order[] oldValues = values;
+        allocate(values.length << 1);
+        for (int i = 0; i < oldValues.length; i++) {
+            Order v = oldValues[i];
+            if (v == null)
+                continue;
+            int j = slot(oldKeys[i]);
+            while (values[j] != null)
+                j = (j + 1) & mask;
+            keys[j] = oldKeys[i];
+            values[j] = v;
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Order[capacity];
+        mask = capacity - 1;
+        shift = 64 - Integer.numberOfTrailingZeros(capacity);
+        resizeThreshold = (int) Math.min(MAX_CAPACITY - 1L, (long) (capacity * LOAD_FACTOR));
+    }
+
+    private static int capacityFor(int expectedSize) {
+        long needed = (long) Math.ceil(expectedSize / LOAD_FACTOR) + 1;
+        if (needed > MAX_CAPACITY)
+            throw new IllegalArgumentException("expectedSize too large: " + expectedSize);
+        int cap = Integer.highestOneBit((int) Math.max(MIN_CAPACITY, needed) - 1) << 1;
+        return Math.max(MIN_CAPACITY, cap);
+    }
+}
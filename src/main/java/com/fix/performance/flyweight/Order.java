@@ -1,27 +1,61 @@
 package com.fix.performance.flyweight;
 
 /**
- * Minimal order view extracted from FIX without full object allocation.
+ * Minimal order view extracted from FIX without full object allocation. The flyweight path sets
+ * only {@link #symbolId}, resolved through its {@link SymbolTable} when the name is needed; the
+ * QuickFIX/J path, which has the String anyway, sets {@link #symbol}. Cancel/replace and fills
+ * change {@link #quantity}, {@link #priceCents} and {@link #cumQty} in place.
  */
 public final class Order {
+    public static final int NO_SYMBOL_ID = -1;
+    /** Side(54) values; {@link #side} is 0 when the message had none. */
+    public static final byte BUY = '1';
+    public static final byte SELL = '2';
+
     public String symbol;
+    public int symbolId = NO_SYMBOL_ID;
+    public byte side;
     public int quantity;
     public long priceCents;
+    /** Quantity filled so far (CumQty, tag 14). */
+    public int cumQty;
 
     public Order() {}
 
     public Order(String symbol, int quantity, long priceCents) {
-        this.symbol = symbol;
-        this.quantity = quantity;
-        this.priceCents = priceCents;
+        set(symbol, quantity, priceCents);
     }
 
     public void set(String symbol, int quantity, long priceCents) {
         this.symbol = symbol;
+        this.symbolId = NO_SYMBOL_ID;
+        this.side = 0;
         this.quantity = quantity;
         this.priceCents = priceCents;
+        this.cumQty = 0;
     }
-}
 
+    public void set(int symbolId, int quantity, long priceCents) {
+        set(symbolId, (byte) 0, quantity, priceCents);
+    }
 
+    public void set(int symbolId, byte side, int quantity, long priceCents) {
+        this.symbol = null;
+        this.symbolId = symbolId;
+        this.side = side;
+        this.quantity = quantity;
+        this.priceCents = priceCents;
+        this.cumQty = 0;
+    }
 
+    /** Applies a cancel/replace: new total quantity and price, fills so far kept. */
+    public void amend(int quantity, long priceCents) {
+        this.quantity = quantity;
+        this.priceCents = priceCents;
+    }
+
+    /** Quantity still open: {@link #quantity} less {@link #cumQty}, never below zero. */
+    public int leavesQty() {
+        return Math.max(0, quantity - cumQty);
+    }
+}
@@ -0,0 +1,29 @@
+package com.fix.performance.flyweight;
+
+/**
+ * Open-order index keyed by a primitive ClOrdID. Implementations must not box keys on the hot
+ * path; they are not required to be thread-safe unless stated otherwise.
+ */
+public interface OrderIndex {
+
+    Order get(long clOrdId);
+
+    /** Associates {@code order} with {@code clOrdId}, returning the previous order if any. */
+    Order put(long clOrdId, Order order);
+
+    /** Removes and returns the order for {@code clOrdId}, or {@code null} if absent. */
+    Order remove(long clOrdId);
+
+    boolean containsKey(long clOrdId);
+
+    int size();
+
+    void clear();
+
+    void forEach(Visitor visitor);
+
+    @FunctionalInterface
+    interface Visitor {
+        void accept(long clOrdId, Order order);
+    }
+}
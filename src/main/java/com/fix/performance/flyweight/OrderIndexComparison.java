@@ -0,0 +1,112 @@
+package com.fix.performance.flyweight;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.IntFunction;
+import com.fix.performance.metrics.GcTracker;
+
+/**
+ * Compares {@link ConcurrentMapOrderIndex} (boxed baseline) with {@link OpenAddressingOrderIndex}
+ * at a given number of open orders: insert, lookup and remove cost per operation, retained heap
+ * and GC activity. All entries share one {@link Order} instance so only the index is measured.
+ */
+public final class OrderIndexComparison {
+    private static final int WARMUP_SIZE = 200_000;
+    private static final int WARMUP_ROUNDS = 5;
+
+    private OrderIndexComparison() {}
+
+    public static void run(int[] sizes, Path out) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("OrderIndex comparison (ns/op, heap bytes)\n");
+        warmup("ConcurrentHashMap", ConcurrentMapOrderIndex::new);
+        warmup("OpenAddressing", OpenAddressingOrderIndex::new);
+        for (int size : sizes) {
+            measure(sb, "ConcurrentHashMap", size, ConcurrentMapOrderIndex::new);
+            measure(sb, "OpenAddressing", size, OpenAddressingOrderIndex::new);
+        }
+        System.out.print(sb);
+        try {
+            if (out.getParent() != null)
+                Files.createDirectories(out.getParent());
+            Files.writeString(out, sb.toString());
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to write comparison to " + out, e);
+        }
+    }
+
+    private static void warmup(String label, IntFunction<OrderIndex> factory) {
+        Order shared = new Order("WARM", 1, 1);
+        for (int r = 0; r < WARMUP_ROUNDS; r++) {
+            OrderIndex idx = factory.apply(WARMUP_SIZE);
+            long sink = 0;
+            for (long k = 1; k <= WARMUP_SIZE; k++)
+                idx.put(k, shared);
+            for (long k = 1; k <= WARMUP_SIZE; k++)
+                sink += idx.get(k) != null ? 1 : 0;
+            for (long k = 1; k <= WARMUP_SIZE; k++)
+                idx.remove(k);
+            if (sink != WARMUP_SIZE)
+                throw new IllegalStateException(label + " warmup lost entries");
+        }
+    }
+
+    private static void measure(StringBuilder sb, String label, int size,
+            IntFunction<OrderIndex> factory) {
+        Order shared = new Order("AAPL", 100, 12345);
+        sb.append(label).append(" size=").append(size).append('\n');
+        System.gc();
+        long heapBefore = usedHeap();
+        try {
+            OrderIndex idx = factory.apply(size);
+
+            GcTracker putGc = new GcTracker().start();
+            long t0 = System.nanoTime();
+            for (long k = 1; k <= size; k++)
+                idx.put(k, shared);
+            long t1 = System.nanoTime();
+            GcTracker.Snapshot putSnap = putGc.stop();
+
+            System.gc();
+            long retained = usedHeap() - heapBefore;
+            // Let the notification for the explicit collection drain before tracking again
+            Thread.sleep(100);
+
+            GcTracker readGc = new GcTracker().start();
+            long hits = 0;
+            long t2 = System.nanoTime();
+            for (long k = 1; k <= size; k++)
+                if (idx.get(k) != null)
+                    hits++;
+            long t3 = System.nanoTime();
+
+            long t4 = System.nanoTime();
+            for (long k = 1; k <= size; k++)
+                idx.remove(k);
+            long t5 = System.nanoTime();
+            GcTracker.Snapshot readSnap = readGc.stop();
+
+            if (hits != size || idx.size() != 0)
+                throw new IllegalStateException(label + " lost entries at size " + size);
+
+            sb.append("  put_ns_op=").append((t1 - t0) / size).append('\n');
+            sb.append("  get_ns_op=").append((t3 - t2) / size).append('\n');
+            sb.append("  remove_ns_op=").append((t5 - t4) / size).append('\n');
+            sb.append("  retained_heap_bytes=").append(retained).append('\n');
+            sb.append("  bytes_per_entry=").append(retained / size).append('\n');
+            sb.append("  gc_count_put=").append(putSnap.count).append('\n');
+            sb.append("  gc_pause_ms_put=").append(putSnap.totalPauseMs).append('\n');
+            sb.append("  gc_count_get_remove=").append(readSnap.count).append('\n');
+            sb.append("  gc_pause_ms_get_remove=").append(readSnap.totalPauseMs).append('\n');
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (OutOfMemoryError oom) {
+            sb.append("  result=OutOfMemoryError\n");
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
@@ -0,0 +1,333 @@
+package com.fix.performance.flyweight;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Periodic snapshots of an {@link OrderIndex} to a memory-mapped file, each tagged with the queue
+ * index of the last message it reflects, so a restart loads the snapshot and replays only the
+ * messages after that index instead of the whole queue.
+ *
+ * <p>Double-buffered: on the processing thread a snapshot is only a copy of every open order's
+ * fields into one of two preallocated primitive buffers. A background thread then writes that
+ * buffer to a temporary file, forces it to disk and atomically renames it over the previous
+ * snapshot, so a crash mid-write leaves the last complete snapshot in place. When both buffers
+ * are still being written the snapshot is skipped and counted rather than waited for.
+ *
+ * <p>The copy is O(open orders) and stops the processing thread for its whole length, so every
+ * {@code everyMessages} one message waits that long: this is the tail-latency price of
+ * snapshots, and it grows with the book. It is not spread over several messages because the
+ * index moves entries when orders are removed, so a copy made in pieces could miss orders. A
+ * capture longer than the budget is instead counted and logged, and a new longest one is warned
+ * about, so a book that has outgrown its snapshot interval shows up in the metrics.
+ *
+ * <p>Symbol ids are per process, so the file carries the symbol names and {@link #load} re-interns
+ * them. {@link #capture} and {@link #onProcessed} are for the one processing thread.
+ */
+public final class OrderSnapshotter implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(OrderSnapshotter.class);
+    /** Returned by {@link #load} when there is no snapshot to start from. */
+    public static final long NO_SNAPSHOT = -1;
+    /** Capture pause above which a snapshot is counted as over budget, by default. */
+    public static final long DEFAULT_CAPTURE_BUDGET_NS = 1_000_000;
+    /** "ORDSNAP3"; files with any other magic are refused */
+    private static final long MAGIC = 0x4F5244534E415033L;
+    private static final int HEADER_BYTES = 8 + 8 + 4 + 4;
+    private static final int ORDER_BYTES = 8 + 4 + 4 + 8 + 4 + 1;
+    private static final int INITIAL_ORDERS = 1 << 16;
+
+    private final Path file;
+    private final long everyMessages;
+    private final long captureBudgetNs;
+    private final BlockingQueue<Buffer> free = new ArrayBlockingQueue<>(2);
+    private final BlockingQueue<Buffer> pending = new ArrayBlockingQueue<>(2);
+    private final Thread writer;
+    private long sinceLast;
+    // Processing-thread stats
+    private long skipped;
+    private long maxCaptureNs;
+    private long capturesOverBudget;
+    // Writer-thread stats
+    private volatile long written;
+    private volatile long maxWriteNs;
+    private volatile long lastWrittenIndex = NO_SNAPSHOT;
+    private volatile Throwable failure;
+
+    /**
+     * @param file snapshot file; written via a sibling {@code .tmp} file
+     * @param everyMessages messages between snapshots for {@link #onProcessed}
+     */
+    public OrderSnapshotter(Path file, long everyMessages) {
+        this(file, everyMessages, DEFAULT_CAPTURE_BUDGET_NS);
+    }
+
+    /** @param captureBudgetNs longest acceptable capture pause; longer ones are counted */
+    public OrderSnapshotter(Path file, long everyMessages, long captureBudgetNs) {
+        if (everyMessages <= 0)
+            throw new IllegalArgumentException("everyMessages must be > 0");
+        if (captureBudgetNs <= 0)
+            throw new IllegalArgumentException("captureBudgetNs must be > 0");
+        this.file = file;
+        this.everyMessages = everyMessages;
+        this.captureBudgetNs = captureBudgetNs;
+        free.add(new Buffer());
+        free.add(new Buffer());
+        this.writer = new Thread(this::writeLoop, "order-snapshot");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Loads the snapshot at {@code file} into {@code into}, interning its symbols in
+     * {@code symbols}. Returns the queue index it covers, or {@link #NO_SNAPSHOT} if there is no
+     * file.
+     */
+    public static long load(Path file, OrderIndex into, SymbolTable symbols) {
+        if (!Files.exists(file))
+            return NO_SNAPSHOT;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+            long magic = ch.size() < HEADER_BYTES ? 0 : buf.getLong();
+            if (magic != MAGIC)
+                throw new IllegalStateException("Not an order snapshot: " + file);
+            long queueIndex = buf.getLong();
+            int symbolCount = buf.getInt();
+            int orderCount = buf.getInt();
+            int[] idMap = new int[symbolCount];
+            for (int i = 0; i < symbolCount; i++) {
+                byte[] name = new byte[buf.getShort() & 0xFFFF];
+                buf.get(name);
+                idMap[i] = symbols.idOf(new String(name, StandardCharsets.US_ASCII));
+            }
+            for (int i = 0; i < orderCount; i++) {
+                long clOrdId = buf.getLong();
+                int symbolId = buf.getInt();
+                int quantity = buf.getInt();
+                long priceCents = buf.getLong();
+                int cumQty = buf.getInt();
+                byte side = buf.get();
+                Order ord = new Order();
+                ord.set(symbolId >= 0 ? idMap[symbolId] : Order.NO_SYMBOL_ID, side, quantity,
+                        priceCents);
+                ord.cumQty = cumQty;
+                into.put(clOrdId, ord);
+            }
+            logger.info("Loaded {} open orders from {} at queue index {}", orderCount, file,
+                    queueIndex);
+            return queueIndex;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load order snapshot " + file, e);
+        }
+    }
+
+    /** Counts one processed message and captures a snapshot every {@code everyMessages}. */
+    public void onProcessed(OrderIndex index, SymbolTable symbols, long queueIndex) {
+        if (++sinceLast < everyMessages)
+            return;
+        sinceLast = 0;
+        capture(index, symbols, queueIndex, false);
+    }
+
+    /**
+     * Copies {@code index} into a free buffer and hands it to the writer thread. With
+     * {@code wait} false, returns false (and counts a skip) if both buffers are busy; with
+     * {@code wait} true, blocks for one, e.g. for the final snapshot before shutdown.
+     */
+    public boolean capture(OrderIndex index, SymbolTable symbols, long queueIndex, boolean wait) {
+        rethrowWriterFailure();
+        Buffer buf = free.poll();
+        if (buf == null) {
+            if (!wait) {
+                skipped++;
+                return false;
+            }
+            try {
+                buf = free.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        long startNs = System.nanoTime();
+        buf.fill(index, symbols, queueIndex);
+        long captureNs = System.nanoTime() - startNs;
+        if (captureNs > captureBudgetNs) {
+            capturesOverBudget++;
+            if (captureNs > maxCaptureNs)
+                logger.warn("Snapshot of {} open orders held the processing thread for {} us,"
+                        + " over the {} us budget", buf.count, captureNs / 1_000,
+                        captureBudgetNs / 1_000);
+        }
+        maxCaptureNs = Math.max(maxCaptureNs, captureNs);
+        pending.add(buf);
+        return true;
+    }
+
+    /** Waits until every captured snapshot is on disk. */
+    public void flush() {
+        try {
+            while (free.remainingCapacity() > 0 && failure == null)
+                Thread.sleep(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        rethrowWriterFailure();
+    }
+
+    public long written() {
+        return written;
+    }
+
+    public long skipped() {
+        return skipped;
+    }
+
+    /** Longest time a capture held the processing thread. */
+    public long maxCaptureNs() {
+        return maxCaptureNs;
+    }
+
+    public long captureBudgetNs() {
+        return captureBudgetNs;
+    }
+
+    /** Captures that held the processing thread longer than {@link #captureBudgetNs()}. */
+    public long capturesOverBudget() {
+        return capturesOverBudget;
+    }
+
+    /** Longest background write, including fsync and rename. */
+    public long maxWriteNs() {
+        return maxWriteNs;
+    }
+
+    /** Queue index covered by the newest snapshot on disk, or {@link #NO_SNAPSHOT}. */
+    public long lastWrittenIndex() {
+        return lastWrittenIndex;
+    }
+
+    @Override
+    public void close() {
+        flush();
+        writer.interrupt();
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void rethrowWriterFailure() {
+        if (failure != null)
+            throw new IllegalStateException("Order snapshot writer failed for " + file, failure);
+    }
+
+    private void writeLoop() {
+        try {
+            while (true) {
+                Buffer buf = pending.take();
+                long startNs = System.nanoTime();
+                try {
+                    write(buf);
+                } catch (IOException | RuntimeException e) {
+                    logger.error("Failed to write order snapshot {}", file, e);
+                    failure = e;
+                }
+                maxWriteNs = Math.max(maxWriteNs, System.nanoTime() - startNs);
+                free.add(buf);
+            }
+        } catch (InterruptedException e) {
+            // closed
+        }
+    }
+
+    private void write(Buffer buf) throws IOException {
+        byte[][] names = new byte[buf.symbolCount][];
+        long size = HEADER_BYTES + (long) buf.count * ORDER_BYTES;
+        for (int i = 0; i < names.length; i++) {
+            names[i] = buf.symbols.symbol(i).getBytes(StandardCharsets.US_ASCII);
+            size += 2 + names[i].length;
+        }
+        if (file.getParent() != null)
+            Files.createDirectories(file.getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            MappedByteBuffer out = ch.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            out.order(ByteOrder.LITTLE_ENDIAN);
+            out.putLong(MAGIC).putLong(buf.queueIndex).putInt(names.length).putInt(buf.count);
+            for (byte[] name : names)
+                out.putShort((short) name.length).put(name);
+            for (int i = 0; i < buf.count; i++) {
+                out.putLong(buf.clOrdIds[i]).putInt(buf.symbolIds[i]).putInt(buf.quantities[i])
+                        .putLong(buf.prices[i]).putInt(buf.cumQtys[i]).put(buf.sides[i]);
+            }
+            out.force();
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        written++;
+        lastWrittenIndex = buf.queueIndex;
+        logger.debug("Wrote {} open orders to {} at queue index {}", buf.count, file,
+                buf.queueIndex);
+    }
+
+    /** One open-order copy; grows only when the index outgrows it. */
+    private static final class Buffer implements OrderIndex.Visitor {
+        long[] clOrdIds = new long[INITIAL_ORDERS];
+        int[] symbolIds = new int[INITIAL_ORDERS];
+        int[] quantities = new int[INITIAL_ORDERS];
+        long[] prices = new long[INITIAL_ORDERS];
+        int[] cumQtys = new int[INITIAL_ORDERS];
+        byte[] sides = new byte[INITIAL_ORDERS];
+        int count;
+        long queueIndex;
+        SymbolTable symbols;
+        int symbolCount;
+
+        void fill(OrderIndex index, SymbolTable symbols, long queueIndex) {
+            int n = index.size();
+            if (n > clOrdIds.length) {
+                int capacity = Math.max(n, clOrdIds.length + (clOrdIds.length >> 1));
+                clOrdIds = Arrays.copyOf(clOrdIds, capacity);
+                symbolIds = Arrays.copyOf(symbolIds, capacity);
+                quantities = Arrays.copyOf(quantities, capacity);
+                prices = Arrays.copyOf(prices, capacity);
+                cumQtys = Arrays.copyOf(cumQtys, capacity);
+                sides = Arrays.copyOf(sides, capacity);
+            }
+            count = 0;
+            this.queueIndex = queueIndex;
+            this.symbols = symbols;
+            // Every id an order holds was assigned before this point
+            this.symbolCount = symbols.size();
+            index.forEach(this);
+        }
+
+        @Override
+        public void accept(long clOrdId, Order order) {
+            clOrdIds[count] = clOrdId;
+            symbolIds[count] = order.symbolId;
+            quantities[count] = order.quantity;
+            prices[count] = order.priceCents;
+            cumQtys[count] = order.cumQty;
+            sides[count] = order.side;
+            count++;
+        }
+    }
+}
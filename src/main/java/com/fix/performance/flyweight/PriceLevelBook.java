@@ -0,0 +1,308 @@
+package com.fix.performance.flyweight;
+
+import java.util.Arrays;
+
+/**
+ * Aggregated depth per symbol and side, maintained incrementally from open-order events instead
+ * of by scanning the order index: each price level holds the total open quantity and the number
+ * of orders resting there. Symbols are {@link SymbolTable} ids, so the per-symbol books live in
+ * plain arrays indexed by id.
+ *
+ * <p>Each side is a treap (a binary search tree balanced by random priorities) kept in parallel
+ * primitive arrays, so finding, adding and removing a level are O(log levels) expected however
+ * wide the book is, and emptied slots are reused. The best level is cached, so the best-price
+ * getters are O(1) and {@link #topLevels} costs O(log levels + n). Nothing is allocated except
+ * when a side first outgrows its arrays. Not thread-safe: update and read from the thread that
+ * owns the order index.
+ */
+public final class PriceLevelBook {
+    /** Returned by the best-price getters when the side is empty. */
+    public static final long NO_PRICE = Long.MIN_VALUE;
+    private static final int INITIAL_SYMBOLS = 64;
+    private static final int INITIAL_LEVELS = 16;
+
+    private Levels[] bids = new Levels[INITIAL_SYMBOLS];
+    private Levels[] asks = new Levels[INITIAL_SYMBOLS];
+
+    /** Adds {@code order}'s open quantity ({@link Order#leavesQty()}) at its price. */
+    public void add(Order order) {
+        add(order.symbolId, order.side, order.priceCents, order.leavesQty());
+    }
+
+    /**
+     * Removes what {@link #add(Order)} added for {@code order}; call before changing its price or
+     * quantities.
+     */
+    public void remove(Order order) {
+        remove(order.symbolId, order.side, order.priceCents, order.leavesQty());
+    }
+
+    /** Adds one order of {@code quantity} at {@code priceCents}. Ignores an unknown side. */
+    public void add(int symbolId, byte side, long priceCents, long quantity) {
+        Levels levels = levels(symbolId, side, true);
+        if (levels != null)
+            levels.add(key(side, priceCents), quantity);
+    }
+
+    /** Removes one order of {@code quantity} at {@code priceCents}, dropping an emptied level. */
+    public void remove(int symbolId, byte side, long priceCents, long quantity) {
+        Levels levels = levels(symbolId, side, false);
+        if (levels != null)
+            levels.remove(key(side, priceCents), quantity);
+    }
+
+    /** Highest bid price, or {@link #NO_PRICE}. */
+    public long bestBid(int symbolId) {
+        return bestPrice(symbolId, Order.BUY);
+    }
+
+    /** Lowest ask price, or {@link #NO_PRICE}. */
+    public long bestAsk(int symbolId) {
+        return bestPrice(symbolId, Order.SELL);
+    }
+
+    /** Open quantity at the best price on {@code side}, or 0 if the side is empty. */
+    public long bestQuantity(int symbolId, byte side) {
+        Levels levels = levels(symbolId, side, false);
+        return levels == null || levels.best == Levels.NIL ? 0 : levels.quantities[levels.best];
+    }
+
+    /** Number of price levels on {@code side}. */
+    public int depth(int symbolId, byte side) {
+        Levels levels = levels(symbolId, side, false);
+        return levels == null ? 0 : levels.size;
+    }
+
+    /**
+     * Copies up to {@code n} levels of {@code side}, best first, into the caller's arrays (any of
+     * which may be {@code null} if not wanted) and returns how many were copied.
+     */
+    public int topLevels(int symbolId, byte side, int n, long[] prices, long[] quantities,
+            int[] orderCounts) {
+        Levels levels = levels(symbolId, side, false);
+        return levels == null ? 0 : levels.top(side, n, prices, quantities, orderCounts);
+    }
+
+    /** Rebuilds the book from every order in {@code index}, e.g. after loading a snapshot. */
+    public void rebuild(OrderIndex index) {
+        clear();
+        index.forEach((clOrdId, order) -> add(order));
+    }
+
+    public void clear() {
+        for (Levels l : bids)
+            if (l != null)
+                l.clear();
+        for (Levels l : asks)
+            if (l != null)
+                l.clear();
+    }
+
+    private long bestPrice(int symbolId, byte side) {
+        Levels levels = levels(symbolId, side, false);
+        return levels == null || levels.best == Levels.NIL ? NO_PRICE
+                : key(side, levels.keys[levels.best]);
+    }
+
+    /** Sort key with the best price largest: the price for bids, its negation for asks. */
+    private static long key(byte side, long price) {
+        return side == Order.BUY ? price : -price;
+    }
+
+    private Levels levels(int symbolId, byte side, boolean create) {
+        if (symbolId < 0 || (side != Order.BUY && side != Order.SELL))
+            return null;
+        Levels[] bySymbol = side == Order.BUY ? bids : asks;
+        if (symbolId >= bySymbol.length) {
+            if (!create)
+                return null;
+            int capacity = Math.max(symbolId + 1, bySymbol.length * 2);
+            bids = Arrays.copyOf(bids, capacity);
+            asks = Arrays.copyOf(asks, capacity);
+            bySymbol = side == Order.BUY ? bids : asks;
+        }
+        Levels levels = bySymbol[symbolId];
+        if (levels == null && create)
+            levels = bySymbol[symbolId] = new Levels();
+        return levels;
+    }
+
+    /**
+     * One side of one symbol: a treap ordered by key, the best level being the largest key. Node
+     * i is {@code keys[i]}, {@code quantities[i]}, ...; free nodes are chained through
+     * {@code left}.
+     */
+    private static final class Levels {
+        static final int NIL = -1;
+
+        long[] keys = new long[INITIAL_LEVELS];
+        long[] quantities = new long[INITIAL_LEVELS];
+        int[] orders = new int[INITIAL_LEVELS];
+        int[] left = new int[INITIAL_LEVELS];
+        int[] right = new int[INITIAL_LEVELS];
+        int[] priorities = new int[INITIAL_LEVELS];
+        // Traversal stack for top(); the tree is never deeper than it has nodes
+        int[] stack = new int[INITIAL_LEVELS];
+        int root = NIL;
+        int best = NIL;
+        int size;
+        // Nodes [0, used) have been handed out at least once; freed ones are on the free list
+        int used;
+        int free = NIL;
+        int seed = 0x2545F491;
+        // Results of split()
+        int splitLeft;
+        int splitRight;
+
+        void add(long key, long quantity) {
+            int node = find(key);
+            if (node == NIL)
+                node = insert(key);
+            quantities[node] += quantity;
+            orders[node]++;
+        }
+
+        void remove(long key, long quantity) {
+            int node = find(key);
+            if (node == NIL)
+                return;
+            quantities[node] -= quantity;
+            if (--orders[node] > 0)
+                return;
+            root = erase(root, key);
+            left[node] = free;
+            free = node;
+            size--;
+            if (node == best)
+                best = max();
+        }
+
+        /** Copies up to {@code n} levels, best first, as {@link PriceLevelBook#topLevels}. */
+        int top(byte side, int n, long[] prices, long[] quantities, int[] orderCounts) {
+            int count = 0;
+            int depth = 0;
+            int node = root;
+            // Reverse in-order walk: largest key first
+            while (count < n && (node != NIL || depth > 0)) {
+                while (node != NIL) {
+                    stack[depth++] = node;
+                    node = right[node];
+                }
+                node = stack[--depth];
+                if (prices != null)
+                    prices[count] = key(side, keys[node]);
+                if (quantities != null)
+                    quantities[count] = this.quantities[node];
+                if (orderCounts != null)
+                    orderCounts[count] = orders[node];
+                count++;
+                node = left[node];
+            }
+            return count;
+        }
+
+        void clear() {
+            root = NIL;
+            best = NIL;
+            size = 0;
+            used = 0;
+            free = NIL;
+        }
+
+        private int find(long key) {
+            int node = root;
+            while (node != NIL && keys[node] != key)
+                node = key < keys[node] ? left[node] : right[node];
+            return node;
+        }
+
+        private int insert(long key) {
+            int node = allocate();
+            keys[node] = key;
+            quantities[node] = 0;
+            orders[node] = 0;
+            left[node] = NIL;
+            right[node] = NIL;
+            // xorshift: priorities only need to be unpredictable to the key order
+            seed ^= seed << 13;
+            seed ^= seed >>> 17;
+            seed ^= seed << 5;
+            priorities[node] = seed;
+            split(root, key);
+            root = merge(merge(splitLeft, node), splitRight);
+            size++;
+            if (best == NIL || key > keys[best])
+                best = node;
+            return node;
+        }
+
+        /** Splits {@code node}'s subtree into keys below {@code key} and the rest. */
+        private void split(int node, long key) {
+            if (node == NIL) {
+                splitLeft = NIL;
+                splitRight = NIL;
+            } else if (keys[node] < key) {
+                split(right[node], key);
+                right[node] = splitLeft;
+                splitLeft = node;
+            } else {
+                split(left[node], key);
+                left[node] = splitRight;
+                splitRight = node;
+            }
+        }
+
+        /** Joins two treaps where every key in {@code a} is below every key in {@code b}. */
+        private int merge(int a, int b) {
+            if (a == NIL)
+                return b;
+            if (b == NIL)
+                return a;
+            if (priorities[a] > priorities[b]) {
+                right[a] = merge(right[a], b);
+                return a;
+            }
+            left[b] = merge(a, left[b]);
+            return b;
+        }
+
+        /** Unlinks {@code key}, which is in {@code node}'s subtree; returns the new subtree. */
+        private int erase(int node, long key) {
+            if (keys[node] == key)
+                return merge(left[node], right[node]);
+            if (key < keys[node])
+                left[node] = erase(left[node], key);
+            else
+                right[node] = erase(right[node], key);
+            return node;
+        }
+
+        private int max() {
+            int node = root;
+            if (node == NIL)
+                return NIL;
+            while (right[node] != NIL)
+                node = right[node];
+            return node;
+        }
+
+        private int allocate() {
+            if (free != NIL) {
+                int node = free;
+                free = left[node];
+                return node;
+            }
+            if (used == keys.length) {
+                int capacity = used * 2;
+                keys = Arrays.copyOf(keys, capacity);
+                quantities = Arrays.copyOf(quantities, capacity);
+                orders = Arrays.copyOf(orders, capacity);
+                left = Arrays.copyOf(left, capacity);
+                right = Arrays.copyOf(right, capacity);
+                priorities = Arrays.copyOf(priorities, capacity);
+                stack = Arrays.copyOf(stack, capacity);
+            }
+            return used++;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.fix.performance.flyweight;
+
+import java.nio.ByteOrder;
+import net.openhft.chronicle.bytes.BytesStore;
+
+/**
+ * SWAR (SIMD within a register) helpers for the flyweight parser: delimiter search, ASCII digit
+ * conversion and checksum byte sums eight bytes per {@code readLong}. Each method has a
+ * byte-at-a-time {@code *Scalar} twin with identical results, used for the tail under eight
+ * bytes, for blocks that aren't pure digits, and on big-endian platforms. Numeric semantics are
+ * those of the original parser: non-digit bytes are skipped, a '-' anywhere makes the value
+ * negative, overflow wraps.
+ */
+public final class Swar {
+    private static final boolean LITTLE_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGHS = 0x8080808080808080L;
+    private static final long ZEROS = 0x3030303030303030L;
+
+    private Swar() {}
+
+    /** Offset of the first {@code target} byte in [from, limit), or {@code limit} if absent. */
+    public static long indexOf(BytesStore<?, ?> store, long from, long limit, byte target) {
+        long pos = from;
+        if (LITTLE_ENDIAN) {
+            long pattern = ONES * (target & 0xFF);
+            for (; pos + 8 <= limit; pos += 8) {
+                long x = store.readLong(pos) ^ pattern;
+                // High bit set in each zero byte; borrows can only mark bytes above the first hit
+                long found = (x - ONES) & ~x & HIGHS;
+                if (found != 0)
+                    return pos + (Long.numberOfTrailingZeros(found) >>> 3);
+            }
+        }
+        for (; pos < limit; pos++) {
+            if (store.readByte(pos) == target)
+                return pos;
+        }
+        return limit;
+    }
+
+    /**
+     * Sum of the unsigned bytes in [from, to), as the FIX CheckSum adds them. Whole words are
+     * added in 16-bit lanes and folded with one multiply; byte order doesn't change a sum, so
+     * this needs no endianness check.
+     */
+    public static long byteSum(BytesStore<?, ?> store, long from, long to) {
+        long sum = 0;
+        long pos = from;
+        for (; pos + 8 <= to; pos += 8) {
+            long word = store.readLong(pos);
+            // Four lanes of at most 2 * 255; the multiply gathers their total in the top lane
+            long pairs = (word & 0x00FF00FF00FF00FFL) + ((word >>> 8) & 0x00FF00FF00FF00FFL);
+            sum += (pairs * 0x0001000100010001L) >>> 48;
+        }
+        for (; pos < to; pos++)
+            sum += store.readUnsignedByte(pos);
+        return sum;
+    }
+
+    /** True if all eight bytes of a little-endian word are ASCII '0'..'9'. */
+    static boolean isEightDigits(long word) {
+        // Low nibble > 9 carries into the high nibble once 6 is added
+        return ((word & 0xF0F0F0F0F0F0F0F0L)
+                | (((word + 0x0606060606060606L) & 0xF0F0F0F0F0F0F0F0L) >>> 4))
+                == 0x3333333333333333L;
+    }
+
+    /** Value of eight ASCII digits, first digit in the lowest byte. */
+    static long parseEightDigits(long word) {
+        long v = word - ZEROS;
+        v = (v * 10) + (v >>> 8);
+        return (((v & 0x000000FF000000FFL) * (100 + (1_000_000L << 32)))
+                + (((v >>> 16) & 0x000000FF000000FFL) * (1 + (10_000L << 32)))) >>> 32;
+    }
+
+    public static long parseLong(BytesStore<?, ?> store, long s, long e) {
+        if (!LITTLE_ENDIAN)
+            return parseLongScalar(store, s, e);
+        long v = digits(store, s, e);
+        return indexOf(store, s, e, (byte) '-') < e ? -v : v;
+    }
+
+    public static int parseInt(BytesStore<?, ?> store, long s, long e) {
+        if (!LITTLE_ENDIAN)
+            return parseIntScalar(store, s, e);
+        // Truncation keeps the low 32 bits, which is exactly what int accumulation wraps to
+        return (int) digits(store, s, e);
+    }
+
+    public static long parsePriceCents(BytesStore<?, ?> store, long s, long e) {
+        if (!LITTLE_ENDIAN)
+            return parsePriceCentsScalar(store, s, e);
+        long dot = indexOf(store, s, e, (byte) '.');
+        long dollars = digits(store, s, dot);
+        long cents = 0;
+        int fracDigits = 0;
+        for (long i = dot + 1; i < e && fracDigits < 2; i++) {
+            int d = store.readUnsignedByte(i) - '0';
+            if (d >= 0 && d <= 9) {
+                cents = cents * 10 + d;
+                fracDigits++;
+            }
+        }
+        while (fracDigits < 2) {
+            cents *= 10;
+            fracDigits++;
+        }
+        long total = dollars * 100 + cents;
+        return indexOf(store, s, e, (byte) '-') < e ? -total : total;
+    }
+
+    /**
+     * Decimal value of the ASCII digits in [s, e), skipping any other byte. Pure-digit words are
+     * converted in one step; {@code v * 10^8 + x} wraps exactly like eight {@code v * 10 + d}.
+     */
+    private static long digits(BytesStore<?, ?> store, long s, long e) {
+        long v = 0;
+        long i = s;
+        for (; i + 8 <= e; i += 8) {
+            long word = store.readLong(i);
+            if (isEightDigits(word)) {
+                v = v * 100_000_000L + parseEightDigits(word);
+                continue;
+            }
+            for (long j = i; j < i + 8; j++) {
+                int d = store.readUnsignedByte(j) - '0';
+                if (d >= 0 && d <= 9)
+                    v = v * 10 + d;
+            }
+        }
+        for (; i < e; i++) {
+            int d = store.readUnsignedByte(i) - '0';
+            if (d >= 0 && d <= 9)
+                v = v * 10 + d;
+        }
+        return v;
+    }
+
+    public static long byteSumScalar(BytesStore<?, ?> store, long from, long to) {
+        long sum = 0;
+        for (long i = from; i < to; i++)
+            sum += store.readUnsignedByte(i);
+        return sum;
+    }
+
+    public static long parseLongScalar(BytesStore<?, ?> store, long s, long e) {
+        long v = 0;
+        boolean neg = false;
+        for (long i = s; i < e; i++) {
+            int b = store.readUnsignedByte(i);
+            if (b == '-') {
+                neg = true;
+                continue;
+            }
+            int d = b - '0';
+            if (d >= 0 && d <= 9)
+                v = v * 10 + d;
+        }
+        return neg ? -v : v;
+    }
+
+    public static int parseIntScalar(BytesStore<?, ?> store, long s, long e) {
+        int val = 0;
+        for (long i = s; i < e; i++) {
+            int d = store.readUnsignedByte(i) - '0';
+            if (d >= 0 && d <= 9)
+                val = val * 10 + d;
+        }
+        return val;
+    }
+
+    public static long parsePriceCentsScalar(BytesStore<?, ?> store, long s, long e) {
+        long dollars = 0;
+        long cents = 0;
+        boolean frac = false;
+        int fracDigits = 0;
+        boolean neg = false;
+        for (long i = s; i < e; i++) {
+            int b = store.readUnsignedByte(i);
+            if (b == '-') {
+                neg = true;
+                continue;
+            }
+            if (b == '.') {
+                frac = true;
+                continue;
+            }
+            int d = b - '0';
+            if (d < 0 || d > 9)
+                continue;
+            if (!frac)
+                dollars = dollars * 10 + d;
+            else if (fracDigits < 2) {
+                cents = cents * 10 + d;
+                fracDigits++;
+            }
+        }
+        while (fracDigits < 2) {
+            cents *= 10;
+            fracDigits++;
+        }
+        long total = dollars * 100 + cents;
+        return neg ? -total : total;
+    }
+}
@@ -0,0 +1,182 @@
+package com.fix.performance.flyweight;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import net.openhft.chronicle.bytes.BytesStore;
+
+/**
+ * Interns Symbol(55) values as dense {@code int} ids, keyed by the raw ASCII bytes. A lookup
+ * hashes the slice in place and compares it against the stored key, so a known symbol costs no
+ * allocation and no lock; only the first sighting of a symbol allocates its key and name and takes
+ * the lock. Ids start at 0 and are never reused, so they can index plain arrays, and
+ * {@link #symbol(int)} resolves one back to its String when it is needed for output.
+ *
+ * <p>Safe for any number of threads: lookups read the published table without locking, inserts
+ * are serialized. Sized for a universe of around 10k symbols; the table doubles past half load.
+ */
+public final class SymbolTable {
+    private static final int DEFAULT_CAPACITY = 16_384;
+
+    private volatile Table table;
+    private int size;
+
+    public SymbolTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /** @param expectedSymbols symbols to hold before the first resize */
+    public SymbolTable(int expectedSymbols) {
+        if (expectedSymbols <= 0)
+            throw new IllegalArgumentException("expectedSymbols must be > 0");
+        this.table = new Table(Integer.highestOneBit(expectedSymbols * 2 - 1) << 1,
+                expectedSymbols);
+    }
+
+    /** Id of the ASCII symbol in [start, end), assigning the next id if it is new. */
+    public int idOf(BytesStore<?, ?> store, long start, long end) {
+        int hash = hash(store, start, end);
+        int id = table.find(store, start, end, hash);
+        return id >= 0 ? id : insert(slice(store, start, end), hash);
+    }
+
+    /** Id of {@code symbol}, assigning one if it is new. Allocates; not for the hot path. */
+    public int idOf(String symbol) {
+        byte[] key = symbol.getBytes(StandardCharsets.US_ASCII);
+        int hash = hash(key);
+        int id = table.find(key, hash);
+        return id >= 0 ? id : insert(key, hash);
+    }
+
+    /** The symbol with id {@code id}; ids come from {@link #idOf}. */
+    public String symbol(int id) {
+        Table t = table;
+        if (id < 0 || id >= t.names.length || t.names[id] == null)
+            throw new IllegalArgumentException("Unknown symbol id " + id);
+        return t.names[id];
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private synchronized int insert(byte[] key, int hash) {
+        // Another thread may have added it since the lock-free miss
+        int id = table.find(key, hash);
+        if (id >= 0)
+            return id;
+        id = size;
+        Table t = table;
+        if ((size + 1) * 2 > t.capacity() || id >= t.names.length)
+            t = t.grow(size);
+        t.keys[id] = key;
+        t.names[id] = new String(key, StandardCharsets.US_ASCII);
+        t.hashes[id] = hash;
+        t.place(id);
+        size++;
+        // Publishes the (possibly new) table after its entries are complete
+        table = t;
+        return id;
+    }
+
+    private static byte[] slice(BytesStore<?, ?> store, long start, long end) {
+        byte[] key = new byte[(int) (end - start)];
+        for (int i = 0; i < key.length; i++)
+            key[i] = store.readByte(start + i);
+        return key;
+    }
+
+    private static int hash(BytesStore<?, ?> store, long start, long end) {
+        int h = 0;
+        for (long i = start; i < end; i++)
+            h = 31 * h + store.readUnsignedByte(i);
+        return mix(h);
+    }
+
+    private static int hash(byte[] key) {
+        int h = 0;
+        for (byte b : key)
+            h = 31 * h + (b & 0xFF);
+        return mix(h);
+    }
+
+    private static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Slots hold {@code id + 1} (0 is empty). Keys, names and hashes are indexed by id and written
+     * before the slot, whose volatile write publishes them to lock-free readers.
+     */
+    private static final class Table {
+        final AtomicIntegerArray slots;
+        final int mask;
+        final byte[][] keys;
+        final String[] names;
+        final int[] hashes;
+
+        Table(int capacity, int ids) {
+            this.slots = new AtomicIntegerArray(capacity);
+            this.mask = capacity - 1;
+            this.keys = new byte[ids][];
+            this.names = new String[ids];
+            this.hashes = new int[ids];
+        }
+
+        int capacity() {
+            return mask + 1;
+        }
+
+        int find(BytesStore<?, ?> store, long start, long end, int hash) {
+            int len = (int) (end - start);
+            for (int i = hash & mask;; i = (i + 1) & mask) {
+                int slot = slots.get(i);
+                if (slot == 0)
+                    return -1;
+                int id = slot - 1;
+                if (hashes[id] == hash && equals(keys[id], store, start, len))
+                    return id;
+            }
+        }
+
+        int find(byte[] key, int hash) {
+            for (int i = hash & mask;; i = (i + 1) & mask) {
+                int slot = slots.get(i);
+                if (slot == 0)
+                    return -1;
+                int id = slot - 1;
+                if (hashes[id] == hash && Arrays.equals(keys[id], key))
+                    return id;
+            }
+        }
+
+        void place(int id) {
+            int i = hashes[id] & mask;
+            while (slots.get(i) != 0)
+                i = (i + 1) & mask;
+            slots.set(i, id + 1);
+        }
+
+        /** Copy of the first {@code ids} entries with twice the slots and id space. */
+        Table grow(int ids) {
+            Table t = new Table(capacity() * 2, names.length * 2);
+            System.arraycopy(keys, 0, t.keys, 0, ids);
+            System.arraycopy(names, 0, t.names, 0, ids);
+            System.arraycopy(hashes, 0, t.hashes, 0, ids);
+            for (int id = 0; id < ids; id++)
+                t.place(id);
+            return t;
+        }
+
+        private static boolean equals(byte[] key, BytesStore<?, ?> store, long start, int len) {
+            if (key.length != len)
+                return false;
+            for (int i = 0; i < len; i++) {
+                if (key[i] != store.readByte(start + i))
+                    return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.fix.performance.flyweight;
+
+/**
+ * Whether the flyweight parser checks BodyLength (9) and CheckSum (10), and what it does with a
+ * message that fails.
+ */
+public enum Validation {
+    /** Trust the input: no checks, and the scan stops once the needed fields are read. */
+    OFF,
+    /** Check every message, count failures, and apply them anyway. */
+    COUNT,
+    /** Check every message; count failures and drop them without touching the order index. */
+    REJECT;
+
+    public static Validation parse(String s) {
+        try {
+            return valueOf(s.trim().toUpperCase(java.util.Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(
+                    "Unknown validation '" + s + "' (off|count|reject)", e);
+        }
+    }
+}
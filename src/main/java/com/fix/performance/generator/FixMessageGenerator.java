@@ -7,29 +7,70 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.PriorityQueue;
 import java.util.Random;
-import com.fix.performance.fix.FixMessageBuilder;
+import java.util.function.LongSupplier;
+import com.fix.performance.fix.FixMessageEncoder;
+import com.fix.performance.metrics.EpochNanoClock;
 import com.fix.performance.queue.ChronicleQueueService;
+import com.fix.performance.queue.QueueFormat;
 
 /**
  * Generates FIX 4.4 messages (NewOrderSingle + OrderCancelRequest) and writes them to Chronicle
  * Queue. Cancels are scheduled to occur within the next 100 messages relative to the originating
- * NOS when possible. After reaching the requested message budget, remaining outstanding cancels are
- * flushed.
+ * NOS when possible. With a {@link MessageMix} some of those events are cancel/replaces or fills
+ * (ExecutionReport) instead, and the order gets a further event unless it was completely filled.
+ * After reaching the requested message budget, remaining outstanding cancels are flushed. Messages
+ * are encoded with {@link FixMessageEncoder} and appended without intermediate Strings; each
+ * carries its append time in tag 50001 ({@link EpochNanoClock}) so consumers can measure
+ * end-to-end latency. With a {@link SendPacer} messages go out open-loop at a fixed rate and carry
+ * their intended send time instead.
  */
 public final class FixMessageGenerator {
-    private static final String[] SYMBOLS = {"AAPL", "MSFT", "GOOGL", "AMZN", "META"};
+    static final String[] SYMBOLS = {"AAPL", "MSFT", "GOOGL", "AMZN", "META"};
 
     public GenerationResult generate(Path queuePath, long requestedMessages, long randomSeed,
             String senderCompId, String targetCompId) {
+        return generate(queuePath, requestedMessages, randomSeed, senderCompId, targetCompId, null);
+    }
+
+    /**
+     * @param format queue layout to write; {@code null} keeps the queue's recorded format (WIRE for
+     *        a new queue)
+     */
+    public GenerationResult generate(Path queuePath, long requestedMessages, long randomSeed,
+            String senderCompId, String targetCompId, QueueFormat format) {
+        return generate(queuePath, requestedMessages, randomSeed, senderCompId, targetCompId,
+                format, null);
+    }
+
+    /**
+     * @param pacer when non-null, each message is sent when {@link SendPacer#awaitNext()} says it
+     *        is due and stamped (tag 50001) with that intended time rather than the actual one;
+     *        {@code null} writes as fast as possible
+     */
+    public GenerationResult generate(Path queuePath, long requestedMessages, long randomSeed,
+            String senderCompId, String targetCompId, QueueFormat format, SendPacer pacer) {
+        return generate(queuePath, requestedMessages, randomSeed, senderCompId, targetCompId,
+                format, pacer, MessageMix.CANCELS_ONLY);
+    }
+
+    /** @param mix what each scheduled order event is; {@link MessageMix#CANCELS_ONLY} by default */
+    public GenerationResult generate(Path queuePath, long requestedMessages, long randomSeed,
+            String senderCompId, String targetCompId, QueueFormat format, SendPacer pacer,
+            MessageMix mix) {
         Objects.requireNonNull(queuePath, "queuePath");
+        Objects.requireNonNull(mix, "mix");
+        LongSupplier sendTime = pacer != null ? pacer::awaitNext : EpochNanoClock::now;
         if (requestedMessages <= 0)
             throw new IllegalArgumentException("requestedMessages must be > 0");
 
-        FixMessageBuilder builder = new FixMessageBuilder(senderCompId, targetCompId);
         Random random = new Random(randomSeed);
-        Map<String, OrderInfo> outstanding = new HashMap<>();
+        Map<Long, OrderInfo> outstanding = new HashMap<>();
         long nosCount = 0;
         long cancelCount = 0;
+        long replaceCount = 0;
+        long execReportCount = 0;
+        // NewOrderSingle and cancel/replace ClOrdIDs share one sequence
+        long nextClOrdId = 1;
 
         // Base price per symbol, within pennies
         Map<String, Long> basePriceCents = new HashMap<>();
@@ -39,27 +80,64 @@ public final class FixMessageGenerator {
             basePriceCents.put(s, dollars * 100 + cents);
         }
 
-        // Min-heap of scheduled cancels by dueIndex
-        PriorityQueue<ScheduledCancel> dueCancels =
+        // Min-heap of scheduled order events by dueIndex; entries for a replaced ClOrdID go stale
+        PriorityQueue<ScheduledEvent> dueEvents =
                 new PriorityQueue<>(Comparator.comparingLong(sc -> sc.dueIndex));
 
         long index = 0;
         long produced = 0;
 
-        try (ChronicleQueueService queue = new ChronicleQueueService(queuePath)) {
+        try (FixMessageEncoder encoder = new FixMessageEncoder(senderCompId, targetCompId);
+                ChronicleQueueService queue = new ChronicleQueueService(queuePath, format)) {
             while (produced < requestedMessages) {
-                // Emit all due cancels first if any are due at or before current index
-                while (produced < requestedMessages && !dueCancels.isEmpty()
-                        && dueCancels.peek().dueIndex <= index) {
-                    ScheduledCancel sc = dueCancels.poll();
+                // Emit all due order events first if any are due at or before current index
+                while (produced < requestedMessages && !dueEvents.isEmpty()
+                        && dueEvents.peek().dueIndex <= index) {
+                    ScheduledEvent sc = dueEvents.poll();
                     OrderInfo info = outstanding.remove(sc.clOrdId);
                     if (info == null) {
                         continue;
                     }
-                    String oc = builder.buildOrderCancelRequest(nextClOrdId(cancelCount + 1),
-                            info.clOrdId, info.symbol, info.side, System.nanoTime());
-                    queue.writeFix(oc);
-                    cancelCount++;
+                    int roll = mix.cancelsOnly() ? 100 : random.nextInt(100);
+                    if (roll < mix.replacePercent()) {
+                        long newClOrdId = nextClOrdId++;
+                        // Never at or below what is already filled, so the order stays open
+                        int qty = Math.max((random.nextInt(10) + 1) * 100, info.cumQty + 100);
+                        long priceCents = basePriceCents.get(info.symbol) + random.nextInt(21)
+                                - 10;
+                        queue.writeFixBytes(encoder.encodeOrderCancelReplaceRequest(newClOrdId,
+                                info.clOrdId, info.symbol, info.side, qty, priceCents,
+                                System.nanoTime(), sendTime.getAsLong()));
+                        info.clOrdId = newClOrdId;
+                        info.quantity = qty;
+                        info.priceCents = priceCents;
+                        outstanding.put(newClOrdId, info);
+                        dueEvents.add(new ScheduledEvent(newClOrdId,
+                                index + 1 + random.nextInt(100)));
+                        replaceCount++;
+                    } else if (roll < mix.replacePercent() + mix.fillPercent()) {
+                        int leaves = info.quantity - info.cumQty;
+                        // Half the fills take the rest, the others part of it in round lots
+                        int lastQty = leaves < 200 || random.nextBoolean() ? leaves
+                                : (random.nextInt(leaves / 100 - 1) + 1) * 100;
+                        info.cumQty += lastQty;
+                        boolean filled = info.cumQty >= info.quantity;
+                        queue.writeFixBytes(encoder.encodeExecutionReport(info.clOrdId,
+                                execReportCount + 1, 'F', filled ? '2' : '1', info.symbol,
+                                info.side, info.quantity, lastQty, info.priceCents, info.cumQty,
+                                info.priceCents, System.nanoTime(), sendTime.getAsLong()));
+                        if (!filled) {
+                            outstanding.put(info.clOrdId, info);
+                            dueEvents.add(new ScheduledEvent(info.clOrdId,
+                                    index + 1 + random.nextInt(100)));
+                        }
+                        execReportCount++;
+                    } else {
+                        queue.writeFixBytes(encoder.encodeOrderCancelRequest(cancelCount + 1,
+                                info.clOrdId, info.symbol, info.side, System.nanoTime(),
+                                sendTime.getAsLong()));
+                        cancelCount++;
+                    }
                     produced++;
                     index++;
                 }
@@ -71,12 +149,12 @@ public final class FixMessageGenerator {
                 // In the last 100 messages, prioritize emitting cancels so that all first-phase
                 // NOS receive their cancel within 100 messages
                 if (remaining <= 100 && !outstanding.isEmpty()) {
-                    Map.Entry<String, OrderInfo> e = outstanding.entrySet().iterator().next();
+                    Map.Entry<Long, OrderInfo> e = outstanding.entrySet().iterator().next();
                     OrderInfo info = e.getValue();
                     outstanding.remove(info.clOrdId);
-                    String oc = builder.buildOrderCancelRequest(nextClOrdId(cancelCount + 1),
-                            info.clOrdId, info.symbol, info.side, System.nanoTime());
-                    queue.writeFix(oc);
+                    queue.writeFixBytes(encoder.encodeOrderCancelRequest(cancelCount + 1,
+                            info.clOrdId, info.symbol, info.side, System.nanoTime(),
+                            sendTime.getAsLong()));
                     cancelCount++;
                     produced++;
                     index++;
@@ -92,17 +170,16 @@ public final class FixMessageGenerator {
                 int offset = random.nextInt(21) - 10; // -10..+10 cents around base
                 long priceCents = base + offset;
 
-                String clOrdId = nextClOrdId(nosCount + 1);
-                String nos = builder.buildNewOrderSingle(clOrdId, symbol, side, qty, priceCents,
-                        System.nanoTime());
-                queue.writeFix(nos);
+                long clOrdId = nextClOrdId++;
+                queue.writeFixBytes(encoder.encodeNewOrderSingle(clOrdId, symbol, side, qty,
+                        priceCents, System.nanoTime(), sendTime.getAsLong()));
                 nosCount++;
                 produced++;
 
                 // Track outstanding and schedule cancel within next 100 messages
-                outstanding.put(clOrdId, new OrderInfo(clOrdId, symbol, side));
+                outstanding.put(clOrdId, new OrderInfo(clOrdId, symbol, side, qty, priceCents));
                 long due = index + 1 + random.nextInt(100); // within next 100 messages
-                dueCancels.add(new ScheduledCancel(clOrdId, due));
+                dueEvents.add(new ScheduledEvent(clOrdId, due));
 
                 index++;
             }
@@ -111,29 +188,41 @@ public final class FixMessageGenerator {
 
             // Flush remaining cancels for outstanding NOS
             while (!outstanding.isEmpty()) {
-                Map.Entry<String, OrderInfo> e = outstanding.entrySet().iterator().next();
+                Map.Entry<Long, OrderInfo> e = outstanding.entrySet().iterator().next();
                 OrderInfo info = e.getValue();
                 outstanding.remove(info.clOrdId);
 
-                String oc = builder.buildOrderCancelRequest(nextClOrdId(cancelCount + 1),
-                        info.clOrdId, info.symbol, info.side, System.nanoTime());
-                queue.writeFix(oc);
+                queue.writeFixBytes(encoder.encodeOrderCancelRequest(cancelCount + 1,
+                        info.clOrdId, info.symbol, info.side, System.nanoTime(),
+                        sendTime.getAsLong()));
                 cancelCount++;
                 produced++;
             }
 
-            return new GenerationResult(produced, nosCount, cancelCount, firstPhaseMessages);
+            return new GenerationResult(produced, nosCount, cancelCount, firstPhaseMessages,
+                    replaceCount, execReportCount);
         }
     }
 
-    private static String nextClOrdId(long id) {
-        return Long.toString(id);
-    }
-
-    private record OrderInfo(String clOrdId, String symbol, char side) {
+    /** An open order as the generator last described it; replaces change its ClOrdID. */
+    private static final class OrderInfo {
+        long clOrdId;
+        final String symbol;
+        final char side;
+        int quantity;
+        long priceCents;
+        int cumQty;
+
+        OrderInfo(long clOrdId, String symbol, char side, int quantity, long priceCents) {
+            this.clOrdId = clOrdId;
+            this.symbol = symbol;
+            this.side = side;
+            this.quantity = quantity;
+            this.priceCents = priceCents;
+        }
     }
 
-    private record ScheduledCancel(String clOrdId, long dueIndex) {
+    private record ScheduledEvent(long clOrdId, long dueIndex) {
     }
 }
 
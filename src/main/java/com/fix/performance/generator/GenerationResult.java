@@ -2,7 +2,11 @@ package com.fix.performance.generator;
 
 /** Result of FIX message generation. */
 public record GenerationResult(long totalMessages, long nosCount, long cancelCount,
-        long firstPhaseMessages) {
-}
-
+        long firstPhaseMessages, long replaceCount, long execReportCount) {
 
+    /** Result of a run that sent only NewOrderSingles and cancels. */
+    public GenerationResult(long totalMessages, long nosCount, long cancelCount,
+            long firstPhaseMessages) {
+        this(totalMessages, nosCount, cancelCount, firstPhaseMessages, 0, 0);
+    }
+}
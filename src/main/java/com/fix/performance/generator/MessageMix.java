@@ -0,0 +1,26 @@
+package com.fix.performance.generator;
+
+/**
+ * What happens to an open order when its next event comes due: a cancel/replace (35=G) with a new
+ * ClOrdID, quantity and price, a fill reported by an ExecutionReport (35=8), or otherwise the
+ * OrderCancelRequest (35=F) the generator always sent. An order that is replaced or only partly
+ * filled gets another event within the next 100 messages.
+ *
+ * @param replacePercent chance, out of 100, that an event is a cancel/replace
+ * @param fillPercent chance, out of 100, that an event is a fill; half of the fills complete the
+ *        order
+ */
+public record MessageMix(int replacePercent, int fillPercent) {
+    /** Every order is cancelled, as before this mix existed. */
+    public static final MessageMix CANCELS_ONLY = new MessageMix(0, 0);
+
+    public MessageMix {
+        if (replacePercent < 0 || fillPercent < 0 || replacePercent + fillPercent > 100)
+            throw new IllegalArgumentException(
+                    "Percentages must be >= 0 and add up to at most 100");
+    }
+
+    boolean cancelsOnly() {
+        return replacePercent == 0 && fillPercent == 0;
+    }
+}
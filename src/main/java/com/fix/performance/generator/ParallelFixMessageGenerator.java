@@ -0,0 +1,303 @@
+package com.fix.performance.generator;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import com.fix.performance.fix.FixMessageEncoder;
+import com.fix.performance.queue.ChronicleQueueService;
+import com.fix.performance.queue.QueueFormat;
+import net.openhft.chronicle.bytes.Bytes;
+
+/**
+ * Multi-threaded generator for very large queues. The message stream is cut into fixed-size chunks
+ * and each chunk is a pure function of (seed, chunk index): it has its own {@link Random}, and every
+ * NewOrderSingle in it is cancelled inside the same chunk within 100 messages. Worker threads encode
+ * chunks into reusable off-heap buffers in parallel while the calling thread appends them in chunk
+ * order, so the queue content (apart from time fields) depends only on the seed and chunk size,
+ * never on the thread count; {@code threads == 1} encodes inline.
+ *
+ * <p>ClOrdID(11) of every message is its 1-based position in the stream and OrigClOrdID(41) of a
+ * cancel is its order's position. Messages are encoded ahead of appending, so tag 50001 is left out;
+ * use {@link FixMessageGenerator} when end-to-end latency is being measured.
+ */
+public final class ParallelFixMessageGenerator {
+    private static final Logger logger = LogManager.getLogger(ParallelFixMessageGenerator.class);
+
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 16;
+    private static final int CANCEL_WINDOW = 100;
+    private static final int NO_ORDER = -1;
+
+    private final int chunkSize;
+
+    public ParallelFixMessageGenerator() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    /** @param chunkSize messages per chunk; even, since each order comes with its cancel */
+    public ParallelFixMessageGenerator(int chunkSize) {
+        if (chunkSize < 2 || (chunkSize & 1) != 0)
+            throw new IllegalArgumentException("chunkSize must be even and >= 2: " + chunkSize);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Generates {@code requestedMessages}, rounded up to an even count, with {@code threads}
+     * encoder threads.
+     *
+     * @param format queue layout to write; {@code null} keeps the queue's recorded format
+     */
+    public GenerationResult generate(Path queuePath, long requestedMessages, long randomSeed,
+            String senderCompId, String targetCompId, QueueFormat format, int threads) {
+        Objects.requireNonNull(queuePath, "queuePath");
+        if (requestedMessages <= 0)
+            throw new IllegalArgumentException("requestedMessages must be > 0");
+        if (threads <= 0)
+            throw new IllegalArgumentException("threads must be > 0");
+
+        long total = requestedMessages + (requestedMessages & 1);
+        long chunkCount = (total + chunkSize - 1) / chunkSize;
+        long[] basePriceCents = basePrices(randomSeed);
+        Plan plan = new Plan(total, randomSeed, basePriceCents, senderCompId, targetCompId);
+
+        long nos = 0;
+        long cancels = 0;
+        long startNs = System.nanoTime();
+        try (ChronicleQueueService queue = new ChronicleQueueService(queuePath, format)) {
+            if (threads == 1) {
+                try (FixMessageEncoder encoder = new FixMessageEncoder(senderCompId, targetCompId)) {
+                    EncodedChunk chunk = new EncodedChunk(chunkSize);
+                    try {
+                        for (long k = 0; k < chunkCount; k++) {
+                            encodeChunk(plan, k, chunk, encoder);
+                            append(queue, chunk);
+                            nos += chunk.nos;
+                            cancels += chunk.cancels;
+                        }
+                    } finally {
+                        chunk.release();
+                    }
+                }
+            } else {
+                long[] counts = appendParallel(queue, plan, chunkCount, threads);
+                nos = counts[0];
+                cancels = counts[1];
+            }
+        }
+        long elapsedMs = (System.nanoTime() - startNs) / 1_000_000;
+        logger.info("Generated {} messages in {} chunks of {} with {} threads in {} ms (seed={})",
+                total, chunkCount, chunkSize, threads, elapsedMs, randomSeed);
+        return new GenerationResult(nos + cancels, nos, cancels, nos + cancels);
+    }
+
+    private long[] appendParallel(ChronicleQueueService queue, Plan plan, long chunkCount,
+            int threads) {
+        AtomicInteger workerIds = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "generator-worker-" + workerIds.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+        List<FixMessageEncoder> encoders = new ArrayList<>();
+        ThreadLocal<FixMessageEncoder> encoder = ThreadLocal.withInitial(() -> {
+            FixMessageEncoder e = new FixMessageEncoder(plan.senderCompId, plan.targetCompId);
+            synchronized (encoders) {
+                encoders.add(e);
+            }
+            return e;
+        });
+        List<EncodedChunk> allChunks = new ArrayList<>();
+        ConcurrentLinkedQueue<EncodedChunk> free = new ConcurrentLinkedQueue<>();
+        // Two chunks per worker in flight keeps workers busy while bounding off-heap use
+        int window = threads * 2;
+        for (int i = 0; i < window; i++) {
+            EncodedChunk c = new EncodedChunk(chunkSize);
+            allChunks.add(c);
+            free.add(c);
+        }
+
+        long nos = 0;
+        long cancels = 0;
+        ArrayDeque<Future<EncodedChunk>> inFlight = new ArrayDeque<>(window);
+        long next = 0;
+        try {
+            for (; next < chunkCount && next < window; next++)
+                inFlight.add(submit(workers, plan, next, free, encoder));
+            for (long k = 0; !inFlight.isEmpty(); k++) {
+                EncodedChunk chunk;
+                try {
+                    chunk = inFlight.poll().get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Failed to encode chunk " + k, e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while generating chunk " + k, e);
+                }
+                append(queue, chunk);
+                nos += chunk.nos;
+                cancels += chunk.cancels;
+                free.add(chunk);
+                if (next < chunkCount)
+                    inFlight.add(submit(workers, plan, next++, free, encoder));
+            }
+        } finally {
+            workers.shutdownNow();
+            try {
+                workers.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (encoders) {
+                for (FixMessageEncoder e : encoders)
+                    e.close();
+            }
+            for (EncodedChunk c : allChunks)
+                c.release();
+        }
+        return new long[] {nos, cancels};
+    }
+
+    private Future<EncodedChunk> submit(ExecutorService workers, Plan plan, long k,
+            ConcurrentLinkedQueue<EncodedChunk> free, ThreadLocal<FixMessageEncoder> encoder) {
+        // The appender recycles a chunk before submitting, so one is always free here
+        EncodedChunk chunk = free.poll();
+        return workers.submit(() -> {
+            encodeChunk(plan, k, chunk, encoder.get());
+            return chunk;
+        });
+    }
+
+    private static void append(ChronicleQueueService queue, EncodedChunk chunk) {
+        Bytes<?> bytes = chunk.bytes;
+        long start = 0;
+        for (int i = 0; i < chunk.count; i++) {
+            long end = chunk.ends[i];
+            bytes.readPositionRemaining(start, end - start);
+            queue.writeFixBytes(bytes);
+            start = end;
+        }
+    }
+
+    /**
+     * Lays out and encodes chunk {@code k}. Each order reserves a free slot within the next 100 for
+     * its cancel; with at most 99 orders open over any 100 slots one always exists, except near
+     * the chunk end, where an open order's cancel is brought forward instead. The even chunk size
+     * guarantees every order is cancelled by the last slot.
+     */
+    private void encodeChunk(Plan plan, long k, EncodedChunk out, FixMessageEncoder encoder) {
+        long first = k * chunkSize;
+        int n = (int) Math.min(chunkSize, plan.total - first);
+        Random random = new Random(chunkSeed(plan.seed, k));
+        int[] cancelAt = out.cancelAt;
+        Arrays.fill(cancelAt, 0, n, NO_ORDER);
+        out.bytes.clear();
+        out.count = n;
+        out.nos = 0;
+        out.cancels = 0;
+
+        for (int i = 0; i < n; i++) {
+            int order = cancelAt[i];
+            if (order == NO_ORDER) {
+                int last = Math.min(i + CANCEL_WINDOW, n - 1);
+                int window = last - i;
+                int due = -1;
+                if (window > 0) {
+                    int offset = random.nextInt(window);
+                    for (int p = 0; p < window && due < 0; p++) {
+                        int slot = i + 1 + (offset + p) % window;
+                        if (cancelAt[slot] == NO_ORDER)
+                            due = slot;
+                    }
+                }
+                if (due >= 0) {
+                    int symbol = random.nextInt(FixMessageGenerator.SYMBOLS.length);
+                    char side = random.nextBoolean() ? '1' : '2';
+                    int qty = (random.nextInt(10) + 1) * 100;
+                    long priceCents = plan.basePriceCents[symbol] + random.nextInt(21) - 10;
+                    out.symbolOf[i] = (byte) symbol;
+                    out.sideOf[i] = (byte) side;
+                    cancelAt[due] = i;
+                    out.bytes.write(encoder.encodeNewOrderSingle(first + i + 1,
+                            FixMessageGenerator.SYMBOLS[symbol], side, qty, priceCents,
+                            System.nanoTime()));
+                    out.ends[i] = (int) out.bytes.writePosition();
+                    out.nos++;
+                    continue;
+                }
+                // Every later slot is taken by a cancel: emit the earliest one now
+                for (int slot = i + 1; slot <= last && order == NO_ORDER; slot++) {
+                    order = cancelAt[slot];
+                    cancelAt[slot] = NO_ORDER;
+                }
+                if (order == NO_ORDER)
+                    throw new IllegalStateException("No open order to fill slot " + i + " of chunk "
+                            + k + " (" + n + " messages)");
+            }
+            out.bytes.write(encoder.encodeOrderCancelRequest(first + i + 1, first + order + 1,
+                    FixMessageGenerator.SYMBOLS[out.symbolOf[order]], (char) out.sideOf[order],
+                    System.nanoTime()));
+            out.ends[i] = (int) out.bytes.writePosition();
+            out.cancels++;
+        }
+    }
+
+    /** Same base price draw as {@link FixMessageGenerator}, shared by all chunks. */
+    private static long[] basePrices(long seed) {
+        Random random = new Random(seed);
+        long[] prices = new long[FixMessageGenerator.SYMBOLS.length];
+        for (int s = 0; s < prices.length; s++) {
+            long dollars = 100 + random.nextInt(200);
+            long cents = random.nextInt(100);
+            prices[s] = dollars * 100 + cents;
+        }
+        return prices;
+    }
+
+    /** SplitMix64 finalizer, so neighbouring chunks get unrelated streams. */
+    static long chunkSeed(long seed, long chunk) {
+        long z = seed + (chunk + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private record Plan(long total, long seed, long[] basePriceCents, String senderCompId,
+            String targetCompId) {
+    }
+
+    /** One chunk's encoded messages plus the layout scratch used to build it; reused. */
+    static final class EncodedChunk {
+        final Bytes<?> bytes;
+        final int[] ends;
+        final int[] cancelAt;
+        final byte[] symbolOf;
+        final byte[] sideOf;
+        int count;
+        long nos;
+        long cancels;
+
+        EncodedChunk(int chunkSize) {
+            this.bytes = Bytes.allocateElasticDirect(chunkSize * 160L);
+            this.ends = new int[chunkSize];
+            this.cancelAt = new int[chunkSize];
+            this.symbolOf = new byte[chunkSize];
+            this.sideOf = new byte[chunkSize];
+        }
+
+        void release() {
+            bytes.releaseLast();
+        }
+    }
+}
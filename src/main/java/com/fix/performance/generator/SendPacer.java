@@ -0,0 +1,95 @@
+package com.fix.performance.generator;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import com.fix.performance.metrics.EpochNanoClock;
+
+/**
+ * Open-loop send schedule at a fixed rate: message {@code i} is due at {@code start + i / rate},
+ * or, with bursts, groups of {@code burstSize} messages are all due together every
+ * {@code burstSize / rate}. {@link #awaitNext()} waits for the next due time and returns it, and
+ * that <em>intended</em> time is what gets stamped in tag 50001. When the sender falls behind it
+ * keeps sending immediately rather than re-basing the schedule, so queueing delay shows up in the
+ * consumers' end-to-end latency instead of being hidden (no coordinated omission).
+ *
+ * <p>Not thread-safe; one pacer per sending thread.
+ */
+public final class SendPacer {
+    // Park while further than this from the due time, spin for the rest
+    private static final long SPIN_THRESHOLD_NS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final long messagesPerSecond;
+    private final int burstSize;
+    private final double burstPeriodNs;
+    private long startNanoTime;
+    private long sent;
+    private long lateSends;
+    private long maxLagNs;
+
+    public SendPacer(long messagesPerSecond) {
+        this(messagesPerSecond, 1);
+    }
+
+    public SendPacer(long messagesPerSecond, int burstSize) {
+        if (messagesPerSecond <= 0)
+            throw new IllegalArgumentException("messagesPerSecond must be > 0");
+        if (burstSize <= 0)
+            throw new IllegalArgumentException("burstSize must be > 0");
+        this.messagesPerSecond = messagesPerSecond;
+        this.burstSize = burstSize;
+        this.burstPeriodNs = burstSize * 1_000_000_000.0 / messagesPerSecond;
+    }
+
+    /**
+     * Blocks until the next message is due and returns its intended send time in epoch nanoseconds.
+     * The schedule starts at the first call.
+     */
+    public long awaitNext() {
+        if (sent == 0)
+            startNanoTime = System.nanoTime();
+        long dueNanoTime = startNanoTime + (long) ((sent / burstSize) * burstPeriodNs);
+        sent++;
+        long now;
+        while ((now = System.nanoTime()) < dueNanoTime) {
+            long remaining = dueNanoTime - now;
+            if (remaining > SPIN_THRESHOLD_NS)
+                LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NS);
+            else
+                Thread.onSpinWait();
+        }
+        long lag = now - dueNanoTime;
+        // Scheduler wake-up jitter under a microsecond doesn't count as falling behind
+        if (lag > 1_000)
+            lateSends++;
+        if (lag > maxLagNs)
+            maxLagNs = lag;
+        return EpochNanoClock.fromNanoTime(dueNanoTime);
+    }
+
+    public long messagesPerSecond() {
+        return messagesPerSecond;
+    }
+
+    public int burstSize() {
+        return burstSize;
+    }
+
+    public long sent() {
+        return sent;
+    }
+
+    /** Sends that went out more than 1 µs after their due time. */
+    public long lateSends() {
+        return lateSends;
+    }
+
+    public long maxLagNs() {
+        return maxLagNs;
+    }
+
+    /** Achieved rate from the first due time until now. */
+    public long achievedMessagesPerSecond() {
+        long elapsed = System.nanoTime() - startNanoTime;
+        return sent == 0 || elapsed <= 0 ? 0 : (long) (sent * 1_000_000_000.0 / elapsed);
+    }
+}
@@ -0,0 +1,55 @@
+package com.fix.performance.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * CPU time spent over a measured interval, both by the thread that started the timer and by the
+ * whole process (worker threads, GC and JIT included). Start and report from the same thread.
+ */
+public final class CpuTimer {
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final long threadStartNs;
+    private final long processStartNs;
+
+    private CpuTimer() {
+        this.threadStartNs = threadCpuNs();
+        this.processStartNs = processCpuNs();
+    }
+
+    public static CpuTimer start() {
+        return new CpuTimer();
+    }
+
+    /** Metrics lines (key=value) for CPU used since {@link #start()}; -1 where unsupported. */
+    public String report(long elapsedNs, long messages) {
+        long thread = threadCpuNs() < 0 ? -1 : threadCpuNs() - threadStartNs;
+        long process = processCpuNs() < 0 ? -1 : processCpuNs() - processStartNs;
+        StringBuilder sb = new StringBuilder();
+        sb.append("thread_cpu_ms=").append(thread < 0 ? -1 : thread / 1_000_000).append('\n');
+        sb.append("process_cpu_ms=").append(process < 0 ? -1 : process / 1_000_000).append('\n');
+        if (elapsedNs > 0) {
+            sb.append("thread_cpu_util=").append(ratio(thread, elapsedNs)).append('\n');
+            sb.append("process_cpu_cores=").append(ratio(process, elapsedNs)).append('\n');
+        }
+        if (messages > 0 && process >= 0)
+            sb.append("process_cpu_ns_per_msg=").append(process / messages).append('\n');
+        return sb.toString();
+    }
+
+    private static String ratio(long cpuNs, long elapsedNs) {
+        return cpuNs < 0 ? "-1" : String.format("%.3f", (double) cpuNs / elapsedNs);
+    }
+
+    private static long threadCpuNs() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : -1;
+    }
+
+    private static long processCpuNs() {
+        if (ManagementFactory.getOperatingSystemMXBean()
+                instanceof com.sun.management.OperatingSystemMXBean os)
+            return os.getProcessCpuTime();
+        return -1;
+    }
+}
@@ -0,0 +1,34 @@
+package com.fix.performance.metrics;
+
+import java.time.Instant;
+
+/**
+ * Allocation-free wall clock in nanoseconds since the epoch, for latencies measured across
+ * processes (producer stamps, consumer subtracts). The epoch is anchored once per JVM from
+ * {@link Instant#now()} and advanced with {@link System#nanoTime()}, so readings are monotonic
+ * within a process and comparable between processes on the same host to within the anchoring error
+ * (typically a few microseconds) plus any NTP slew since start-up.
+ */
+public final class EpochNanoClock {
+    private static final long ANCHOR_EPOCH_NANOS;
+    private static final long ANCHOR_NANO_TIME;
+
+    static {
+        long before = System.nanoTime();
+        Instant now = Instant.now();
+        long after = System.nanoTime();
+        ANCHOR_EPOCH_NANOS = now.getEpochSecond() * 1_000_000_000L + now.getNano();
+        ANCHOR_NANO_TIME = before + (after - before) / 2;
+    }
+
+    private EpochNanoClock() {}
+
+    public static long now() {
+        return fromNanoTime(System.nanoTime());
+    }
+
+    /** Converts a {@link System#nanoTime()} reading from this JVM to epoch nanoseconds. */
+    public static long fromNanoTime(long nanoTime) {
+        return ANCHOR_EPOCH_NANOS + (nanoTime - ANCHOR_NANO_TIME);
+    }
+}
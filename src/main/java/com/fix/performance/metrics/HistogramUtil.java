@@ -2,6 +2,7 @@ package com.fix.performance.metrics;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import org.HdrHistogram.Histogram;
 import org.HdrHistogram.Recorder;
 
@@ -9,22 +10,71 @@ public final class HistogramUtil {
     private HistogramUtil() {}
 
     public static void writeHistogram(Path out, Recorder recorder, String label) {
+        writeHistogram(out, recorder, label, 0, 0);
+    }
+
+    /**
+     * Same as {@link #writeHistogram(Path, Recorder, String)} plus end-to-end throughput, when
+     * {@code elapsedNs > 0}, over {@code messages} processed.
+     */
+    public static void writeHistogram(Path out, Recorder recorder, String label, long messages,
+            long elapsedNs) {
+        if (out != null)
+            writeHistogram(out, recorder.getIntervalHistogram(), label, messages, elapsedNs);
+    }
+
+    /** Same, from an already sampled histogram (e.g. {@link IntervalReporter#total}). */
+    public static void writeHistogram(Path out, Histogram h, String label, long messages,
+            long elapsedNs) {
         try {
             if (out == null)
                 return;
             if (out.getParent() != null)
                 Files.createDirectories(out.getParent());
-            Histogram h = recorder.getIntervalHistogram();
             long count = h.getTotalCount();
             String content = label + " latency (ns)\n" + "count=" + count + "\n" + "p50="
                     + h.getValueAtPercentile(50) + "\n" + "p90=" + h.getValueAtPercentile(90) + "\n"
                     + "p99=" + h.getValueAtPercentile(99) + "\n" + "p99.9="
                     + h.getValueAtPercentile(99.9) + "\n" + "max=" + h.getMaxValue() + "\n"
                     + "mean=" + (long) h.getMean() + "\n";
+            if (elapsedNs > 0) {
+                content += "messages=" + messages + "\n" + "elapsed_ms=" + elapsedNs / 1_000_000
+                        + "\n" + "throughput_msgs_per_sec="
+                        + (long) (messages * 1_000_000_000.0 / elapsedNs) + "\n";
+            }
             Files.writeString(out, content);
         } catch (Exception ignored) {
         }
     }
-}
 
+    /**
+     * Appends a second histogram to a metrics file, with keys prefixed by {@code keyPrefix} (e.g.
+     * {@code e2e_p99=}) so they don't collide with the primary histogram's.
+     */
+    public static void appendHistogram(Path out, Recorder recorder, String label,
+            String keyPrefix) {
+        if (out != null)
+            appendHistogram(out, recorder.getIntervalHistogram(), label, keyPrefix);
+    }
+
+    public static void appendHistogram(Path out, Histogram h, String label, String keyPrefix) {
+        appendMetrics(out, label + " latency (ns)\n" + keyPrefix + "count=" + h.getTotalCount()
+                + "\n" + keyPrefix + "p50=" + h.getValueAtPercentile(50) + "\n" + keyPrefix
+                + "p90=" + h.getValueAtPercentile(90) + "\n" + keyPrefix + "p99="
+                + h.getValueAtPercentile(99) + "\n" + keyPrefix + "p99.9="
+                + h.getValueAtPercentile(99.9) + "\n" + keyPrefix + "max=" + h.getMaxValue()
+                + "\n" + keyPrefix + "mean=" + (long) h.getMean() + "\n");
+    }
 
+    /** Appends extra {@code key=value} lines to a metrics file written by {@link #writeHistogram}. */
+    public static void appendMetrics(Path out, String lines) {
+        try {
+            if (out == null)
+                return;
+            if (out.getParent() != null)
+                Files.createDirectories(out.getParent());
+            Files.writeString(out, lines, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (Exception ignored) {
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.fix.performance.metrics;
+
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Samples a set of {@link Recorder}s every interval on a background thread. Each interval
+ * histogram is written, tagged with its series name, to an HdrHistogram log ({@code .hlog}, readable
+ * with HistogramLogProcessor/HdrHistogramVisualizer), and a CSV row is written with the messages/s
+ * over the interval plus per-series percentiles. Intervals are also accumulated so the whole-run
+ * summary is still available from {@link #total(String)} once closed.
+ *
+ * <p>Recorders drained by this reporter must not be drained by anyone else in the meantime.
+ */
+public final class IntervalReporter implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(IntervalReporter.class);
+
+    private final Path hlogOut;
+    private final Path csvOut;
+    private final long intervalNs;
+    private final LongSupplier messages;
+    private final List<Series> series = new ArrayList<>();
+    private HistogramLogWriter hlog;
+    private PrintStream csv;
+    private Thread thread;
+    private volatile boolean running;
+    private long startMs;
+    private long lastMessages;
+    private long lastTickNs;
+
+    public IntervalReporter(Path hlogOut, Path csvOut, long intervalMs, LongSupplier messages) {
+        if (intervalMs <= 0)
+            throw new IllegalArgumentException("intervalMs must be > 0");
+        this.hlogOut = Objects.requireNonNull(hlogOut, "hlogOut");
+        this.csvOut = Objects.requireNonNull(csvOut, "csvOut");
+        this.intervalNs = TimeUnit.MILLISECONDS.toNanos(intervalMs);
+        this.messages = Objects.requireNonNull(messages, "messages");
+    }
+
+    /** Files next to a metrics file: {@code fly.txt} gives {@code fly.hlog} and {@code fly.csv}. */
+    public static IntervalReporter beside(Path metricsOut, long intervalMs, LongSupplier messages) {
+        String name = metricsOut.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String stem = dot > 0 ? name.substring(0, dot) : name;
+        return new IntervalReporter(metricsOut.resolveSibling(stem + ".hlog"),
+                metricsOut.resolveSibling(stem + ".csv"), intervalMs, messages);
+    }
+
+    /** Adds a series; call before {@link #start()}. */
+    public IntervalReporter add(String name, Recorder recorder) {
+        if (thread != null)
+            throw new IllegalStateException("already started");
+        series.add(new Series(name, recorder));
+        return this;
+    }
+
+    public IntervalReporter start() {
+        try {
+            if (hlogOut.getParent() != null)
+                Files.createDirectories(hlogOut.getParent());
+            if (csvOut.getParent() != null)
+                Files.createDirectories(csvOut.getParent());
+            hlog = new HistogramLogWriter(hlogOut.toFile());
+            csv = new PrintStream(Files.newOutputStream(csvOut), false, "US-ASCII");
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to open interval logs " + hlogOut + ", "
+                    + csvOut, e);
+        }
+        startMs = System.currentTimeMillis();
+        hlog.outputLogFormatVersion();
+        hlog.outputStartTime(startMs);
+        hlog.setBaseTime(startMs);
+        hlog.outputLegend();
+        StringBuilder header = new StringBuilder("elapsed_ms,messages,msgs_per_sec");
+        for (Series s : series) {
+            for (String col : new String[] {"count", "p50", "p90", "p99", "p99.9", "max"})
+                header.append(',').append(s.name).append('_').append(col);
+        }
+        csv.println(header);
+        lastMessages = messages.getAsLong();
+        lastTickNs = System.nanoTime();
+        running = true;
+        thread = new Thread(this::run, "interval-reporter");
+        thread.setDaemon(true);
+        thread.start();
+        return this;
+    }
+
+    private void run() {
+        long next = lastTickNs + intervalNs;
+        while (running) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+                continue;
+            }
+            tick();
+            next += intervalNs;
+        }
+    }
+
+    private void tick() {
+        long nowNs = System.nanoTime();
+        long count = messages.getAsLong();
+        long deltaNs = Math.max(1, nowNs - lastTickNs);
+        StringBuilder row = new StringBuilder(128);
+        row.append(System.currentTimeMillis() - startMs).append(',').append(count - lastMessages)
+                .append(',').append((long) ((count - lastMessages) * 1_000_000_000.0 / deltaNs));
+        for (Series s : series) {
+            s.interval = s.recorder.getIntervalHistogram(s.interval);
+            s.interval.setTag(s.name);
+            hlog.outputIntervalHistogram(s.interval);
+            s.total.add(s.interval);
+            Histogram h = s.interval;
+            row.append(',').append(h.getTotalCount()).append(',')
+                    .append(h.getValueAtPercentile(50)).append(',')
+                    .append(h.getValueAtPercentile(90)).append(',')
+                    .append(h.getValueAtPercentile(99)).append(',')
+                    .append(h.getValueAtPercentile(99.9)).append(',').append(h.getMaxValue());
+        }
+        csv.println(row);
+        csv.flush();
+        lastMessages = count;
+        lastTickNs = nowNs;
+    }
+
+    /** Everything recorded into the named series since {@link #start()}; complete once closed. */
+    public Histogram total(String name) {
+        for (Series s : series) {
+            if (s.name.equals(name))
+                return s.total;
+        }
+        throw new IllegalArgumentException("Unknown series " + name);
+    }
+
+    /** Stops sampling and logs the final, partial interval. */
+    @Override
+    public void close() {
+        if (thread == null)
+            return;
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        tick();
+        hlog.close();
+        csv.close();
+        thread = null;
+        logger.info("Interval logs written: {}, {}", hlogOut, csvOut);
+    }
+
+    private static final class Series {
+        final String name;
+        final Recorder recorder;
+        // Auto-resizing: the end-to-end series can exceed the service-time recorders' range
+        final Histogram total = new Histogram(3);
+        Histogram interval;
+
+        Series(String name, Recorder recorder) {
+            this.name = name;
+            this.recorder = recorder;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.fix.performance.net;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.function.Consumer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import com.fix.performance.fix.FixMessageBuilder;
+import com.fix.performance.metrics.EpochNanoClock;
+import com.fix.performance.metrics.HistogramUtil;
+import com.fix.performance.queue.ChronicleQueueService;
+import com.fix.performance.ring.WaitStrategy;
+import net.openhft.chronicle.bytes.Bytes;
+
+/**
+ * TCP ingress: accepts FIX sessions on one non-blocking thread and appends every inbound message,
+ * byte for byte, to a {@link ChronicleQueueService} journal that the consumers then read.
+ *
+ * <p>The thread polls a {@link Selector} with {@code selectNow} and runs {@link WaitStrategy}
+ * between empty polls, so {@code spin} busy-polls the sockets and {@code backoff} trades wake-up
+ * latency for an idle core. Each connection reads into the direct buffer of its own
+ * {@link FixFramer}, and framed messages are appended straight from that buffer, so the only copy
+ * is the one into the journal. Session-level FIX (logon, heartbeats, sequence numbers) is out of
+ * scope: this measures the socket-to-journal path, not a FIX engine.
+ *
+ * <p>Two latencies are recorded per message: from the {@code read} that completed it to the end
+ * of its append ("socket to journal"), and, when the sender stamped tag 50001, from that stamp to
+ * the end of the append ("send to journal"; see {@link FixLoadClient}). A connection that sends
+ * something that can't be framed is closed and counted.
+ */
+public final class FixAcceptor implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(FixAcceptor.class);
+    /** Per-connection receive buffer; a message longer than this closes the connection. */
+    static final int RECEIVE_BUFFER = FixFramer.DEFAULT_CAPACITY;
+
+    private final ChronicleQueueService journal;
+    private final WaitStrategy wait;
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final Consumer<SelectionKey> onReady = this::onReady;
+    private final org.HdrHistogram.Recorder socketToJournal = new org.HdrHistogram.Recorder(3);
+    private final org.HdrHistogram.Recorder sendToJournal = new org.HdrHistogram.Recorder(3);
+    private volatile boolean stopRequested;
+    // Written by the acceptor thread only
+    private volatile long messages;
+    private volatile long bytes;
+    private volatile long connections;
+    private volatile long framingErrors;
+    private long idlePolls;
+
+    /**
+     * Binds to {@code port} on all interfaces (0 picks a free one, see {@link #port()}); messages
+     * go to {@code journal}, which the caller keeps open until the acceptor is closed.
+     */
+    public FixAcceptor(ChronicleQueueService journal, int port, WaitStrategy wait) {
+        this.journal = Objects.requireNonNull(journal, "journal");
+        this.wait = Objects.requireNonNull(wait, "wait");
+        try {
+            this.selector = Selector.open();
+            this.server = ServerSocketChannel.open();
+            server.bind(new InetSocketAddress(port));
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            close();
+            throw new UncheckedIOException("Failed to listen on port " + port, e);
+        }
+    }
+
+    public int port() {
+        try {
+            return ((InetSocketAddress) server.getLocalAddress()).getPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Accepts and journals on the calling thread until {@link #stop()}. */
+    public void run() {
+        logger.info("FIX acceptor listening on port {} (wait={})", port(), wait);
+        int idle = 0;
+        try {
+            while (!stopRequested) {
+                if (selector.selectNow(onReady) > 0) {
+                    idle = 0;
+                } else {
+                    idlePolls++;
+                    wait.idle(++idle);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Acceptor selector failed", e);
+        }
+        logger.info("FIX acceptor stopped: connections={}, messages={}, bytes={},"
+                + " framingErrors={}", connections, messages, bytes, framingErrors);
+    }
+
+    /** Asks {@link #run()} to return; safe to call from any thread, including before. */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    public long messages() {
+        return messages;
+    }
+
+    public long bytes() {
+        return bytes;
+    }
+
+    public long connections() {
+        return connections;
+    }
+
+    /** Connections closed because their bytes could not be framed as FIX. */
+    public long framingErrors() {
+        return framingErrors;
+    }
+
+    /**
+     * Writes the socket-to-journal histogram with throughput over {@code elapsedNs}, then the
+     * send-to-journal histogram ({@code e2e_} keys) and the connection counters.
+     */
+    public void writeMetrics(Path metricsOut, long elapsedNs) {
+        HistogramUtil.writeHistogram(metricsOut, socketToJournal, "Socket to journal", messages,
+                elapsedNs);
+        HistogramUtil.appendHistogram(metricsOut, sendToJournal, "Send to journal", "e2e_");
+        HistogramUtil.appendMetrics(metricsOut, "connections=" + connections + "\nbytes=" + bytes
+                + "\nframing_errors=" + framingErrors + "\nidle_polls=" + idlePolls + "\n");
+    }
+
+    private void onReady(SelectionKey key) {
+        if (!key.isValid())
+            return;
+        if (key.isAcceptable())
+            accept();
+        else if (key.isReadable())
+            ((Connection) key.attachment()).onReadable(key);
+    }
+
+    private void accept() {
+        try {
+            SocketChannel ch;
+            while ((ch = server.accept()) != null) {
+                ch.configureBlocking(false);
+                ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                ch.register(selector, SelectionKey.OP_READ, new Connection(ch));
+                connections++;
+                logger.info("Accepted FIX connection from {}", ch.getRemoteAddress());
+            }
+        } catch (IOException e) {
+            logger.warn("Accept failed", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        stop();
+        if (selector != null) {
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof Connection c)
+                    c.close(key);
+            }
+            closeQuietly(selector);
+        }
+        if (server != null)
+            closeQuietly(server);
+    }
+
+    private static void closeQuietly(AutoCloseable c) {
+        try {
+            c.close();
+        } catch (Exception e) {
+            logger.debug("Close failed", e);
+        }
+    }
+
+    /** One session: its framer and the time of the read being framed. */
+    private final class Connection {
+        private final SocketChannel channel;
+        private final FixFramer framer = new FixFramer(RECEIVE_BUFFER);
+        private final Consumer<Bytes<?>> journalFrame = this::journal;
+        private long readNanoTime;
+        private boolean closed;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void onReadable(SelectionKey key) {
+            int n;
+            try {
+                n = framer.readFrom(channel);
+            } catch (IOException e) {
+                logger.info("Connection reset: {}", e.getMessage());
+                close(key);
+                return;
+            }
+            if (n < 0) {
+                if (framer.pending() > 0)
+                    logger.warn("Connection closed mid-message, {} bytes dropped",
+                            framer.pending());
+                close(key);
+                return;
+            }
+            readNanoTime = System.nanoTime();
+            bytes += n;
+            if (framer.drain(journalFrame) == FixFramer.MALFORMED) {
+                framingErrors++;
+                logger.warn("Closing connection: unframeable FIX at offset {}",
+                        framer.frameStart());
+                close(key);
+            }
+        }
+
+        private void journal(Bytes<?> frame) {
+            long start = frame.readPosition();
+            long end = frame.readLimit();
+            journal.writeFixBytes(frame);
+            long doneNanoTime = System.nanoTime();
+            socketToJournal.recordValue(doneNanoTime - readNanoTime);
+            long stamp = FixWire.sendEpochNanos(frame.bytesStore(), start, end);
+            if (stamp != FixMessageBuilder.NO_SEND_TIME)
+                sendToJournal.recordValue(
+                        Math.max(0, EpochNanoClock.fromNanoTime(doneNanoTime) - stamp));
+            messages++;
+        }
+
+        void close(SelectionKey key) {
+            if (closed)
+                return;
+            closed = true;
+            key.cancel();
+            closeQuietly(channel);
+            framer.close();
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.fix.performance.net;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.function.Consumer;
+import com.fix.performance.flyweight.Swar;
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesStore;
+
+/**
+ * Incremental FIX framing for byte streams that don't arrive one message at a time: socket reads,
+ * FIX log files, excerpts holding a batch of messages. A message ends where BeginString (8) and
+ * BodyLength (9) say it does, and must end in "10=nnn" and SOH.
+ *
+ * <p>Framing reads only the first two fields and the trailer of each message and jumps over the
+ * body by its length, so it touches fewer bytes than one {@code memchr} pass over the same data
+ * (see {@code FixFramerBenchmark}). Complete messages are handed on as a {@link Bytes} whose read
+ * window is narrowed to just that message, e.g. straight into the flyweight parser; the view is
+ * valid only during the call.
+ *
+ * <p>{@link #frameAll} frames a region that is already in memory. An instance adds a direct
+ * receive buffer for streams: {@link #readFrom} appends to it and {@link #drain} frames what is
+ * complete. A message cut off at the end of a read stays in place and is completed by later
+ * reads; only when the buffer is full is that partial tail, never a whole buffer, moved to the
+ * front. Not thread-safe.
+ */
+public final class FixFramer implements AutoCloseable {
+    /** Default receive buffer; also the longest message a framer instance accepts. */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    /** Returned by {@link #frameAll} and {@link #drain} when the bytes can't be FIX. */
+    public static final int MALFORMED = -1;
+    /** {@link #frameLength}: the header isn't all there yet. */
+    static final long INCOMPLETE_HEADER = -1;
+    /** {@link #frameLength}: the bytes can't be the start of a FIX message. */
+    static final long MALFORMED_HEADER = -2;
+    /** "10=nnn" plus its SOH */
+    static final int TRAILER_BYTES = 7;
+    private static final byte SOH = 1;
+    // Longest "8=FIX.4.4"-style BeginString field and BodyLength value we wait for
+    private static final int MAX_BEGIN_STRING = 16;
+    private static final int MAX_BODY_LENGTH_DIGITS = 9;
+
+    private final ByteBuffer buffer;
+    // The read window of this view is moved over buffer, never copied
+    private final Bytes<ByteBuffer> view;
+    private int frameStart;
+    private boolean malformed;
+
+    public FixFramer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public FixFramer(int capacity) {
+        this.buffer = ByteBuffer.allocateDirect(capacity);
+        this.view = Bytes.wrapForRead(buffer);
+    }
+
+    /** Reads once from {@code in} into the buffer; returns the bytes read, or -1 at its end. */
+    public int readFrom(ReadableByteChannel in) throws IOException {
+        return in.read(buffer);
+    }
+
+    /**
+     * Hands every complete message received so far to {@code onFrame} and returns how many there
+     * were, or {@link #MALFORMED} if the stream can't be framed (including a message longer than
+     * the buffer), after which the framer hands on nothing more.
+     */
+    public int drain(Consumer<Bytes<?>> onFrame) {
+        if (malformed)
+            return MALFORMED;
+        int filled = buffer.position();
+        view.readPositionRemaining(frameStart, filled - frameStart);
+        int frames = frameAll(view, onFrame);
+        frameStart = (int) view.readPosition();
+        if (frames == MALFORMED) {
+            malformed = true;
+            return MALFORMED;
+        }
+        if (frameStart == filled) {
+            buffer.clear();
+            frameStart = 0;
+        } else if (!buffer.hasRemaining()) {
+            if (frameStart == 0) {
+                malformed = true;
+                return MALFORMED;
+            }
+            // Only the partial message moves, at most once per buffer's worth of reads
+            buffer.flip().position(frameStart);
+            buffer.compact();
+            frameStart = 0;
+        }
+        return frames;
+    }
+
+    /** Bytes held of a message not yet complete. */
+    public int pending() {
+        return buffer.position() - frameStart;
+    }
+
+    /** Buffer offset of the first byte not yet framed, e.g. where a malformed message starts. */
+    public int frameStart() {
+        return frameStart;
+    }
+
+    /**
+     * Frames the readable bytes of {@code bytes}, calling {@code onFrame} with {@code bytes}
+     * itself, its read window narrowed to one message at a time. Afterwards the read limit is as
+     * before and the read position is just past the last complete message, so what remains
+     * readable is a partial message or nothing. Returns the number of messages, or
+     * {@link #MALFORMED} with the read position at the bad message.
+     */
+    public static int frameAll(Bytes<?> bytes, Consumer<Bytes<?>> onFrame) {
+        BytesStore<?, ?> store = bytes.bytesStore();
+        long pos = bytes.readPosition();
+        long end = bytes.readLimit();
+        int frames = 0;
+        try {
+            while (true) {
+                long length = frameLength(store, pos, end);
+                if (length == INCOMPLETE_HEADER)
+                    return frames;
+                if (length == MALFORMED_HEADER)
+                    return MALFORMED;
+                if (pos + length > end)
+                    return frames;
+                if (!hasTrailer(store, pos + length))
+                    return MALFORMED;
+                bytes.readPositionRemaining(pos, length);
+                onFrame.accept(bytes);
+                pos += length;
+                frames++;
+            }
+        } finally {
+            bytes.readLimit(end);
+            bytes.readPosition(pos);
+        }
+    }
+
+    /**
+     * Total length of the message starting at {@code start}, from "8=" through the checksum's SOH,
+     * once both header fields are in [start, end); {@link #INCOMPLETE_HEADER} before that, or
+     * {@link #MALFORMED_HEADER}. The message itself may extend past {@code end}.
+     */
+    static long frameLength(BytesStore<?, ?> store, long start, long end) {
+        if (end - start < 2)
+            return INCOMPLETE_HEADER;
+        if (store.readByte(start) != '8' || store.readByte(start + 1) != '=')
+            return MALFORMED_HEADER;
+        long beginLimit = Math.min(end, start + MAX_BEGIN_STRING);
+        long beginEnd = Swar.indexOf(store, start + 2, beginLimit, SOH);
+        if (beginEnd == beginLimit)
+            return end - start < MAX_BEGIN_STRING ? INCOMPLETE_HEADER : MALFORMED_HEADER;
+        long lengthStart = beginEnd + 3;
+        if (lengthStart > end)
+            return INCOMPLETE_HEADER;
+        if (store.readByte(beginEnd + 1) != '9' || store.readByte(beginEnd + 2) != '=')
+            return MALFORMED_HEADER;
+        long lengthLimit = Math.min(end, lengthStart + MAX_BODY_LENGTH_DIGITS + 1);
+        long lengthEnd = Swar.indexOf(store, lengthStart, lengthLimit, SOH);
+        if (lengthEnd == lengthLimit)
+            return end < lengthStart + MAX_BODY_LENGTH_DIGITS + 1 ? INCOMPLETE_HEADER
+                    : MALFORMED_HEADER;
+        if (lengthEnd == lengthStart)
+            return MALFORMED_HEADER;
+        int bodyLength = 0;
+        for (long i = lengthStart; i < lengthEnd; i++) {
+            int d = store.readUnsignedByte(i) - '0';
+            if (d < 0 || d > 9)
+                return MALFORMED_HEADER;
+            bodyLength = bodyLength * 10 + d;
+        }
+        return lengthEnd + 1 - start + bodyLength + TRAILER_BYTES;
+    }
+
+    /** True if the message ending at {@code frameEnd} (exclusive) ends in "10=nnn" and SOH. */
+    static boolean hasTrailer(BytesStore<?, ?> store, long frameEnd) {
+        long t = frameEnd - TRAILER_BYTES;
+        return store.readByte(t) == '1' && store.readByte(t + 1) == '0'
+                && store.readByte(t + 2) == '=' && store.readByte(frameEnd - 1) == SOH;
+    }
+
+    @Override
+    public void close() {
+        view.releaseLast();
+    }
+}
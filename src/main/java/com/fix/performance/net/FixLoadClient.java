@@ -0,0 +1,101 @@
+package com.fix.performance.net;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.Objects;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import com.fix.performance.generator.SendPacer;
+import com.fix.performance.metrics.EpochNanoClock;
+import com.fix.performance.queue.ChronicleQueueService;
+import net.openhft.chronicle.bytes.Bytes;
+
+/**
+ * Loopback load for {@link FixAcceptor}: replays every message of a queue (e.g. one written by
+ * {@code generate}) over one TCP connection, in order.
+ *
+ * <p>Messages that carry a send stamp (tag 50001) are re-stamped as they are sent, in place and
+ * with the CheckSum patched to match, so the acceptor's send-to-journal latency covers this
+ * socket hop and nothing before it. Without a pacer messages are batched into the send buffer
+ * and stamped when copied there, so that latency then includes the wait for the batch to fill;
+ * with a {@link SendPacer} each message is written on its own at its due time and stamped with
+ * that intended time, so falling behind shows up as latency instead of being hidden.
+ */
+public final class FixLoadClient {
+    private static final Logger logger = LogManager.getLogger(FixLoadClient.class);
+    private static final int SEND_BUFFER = 1 << 16;
+
+    private final InetSocketAddress target;
+    private final SendPacer pacer;
+    private long messages;
+    private long bytes;
+    private long restamped;
+
+    /** @param pacer send schedule, or {@code null} to send as fast as the socket takes it */
+    public FixLoadClient(InetSocketAddress target, SendPacer pacer) {
+        this.target = Objects.requireNonNull(target, "target");
+        this.pacer = pacer;
+    }
+
+    /** Sends the whole queue at {@code queuePath} and returns the number of messages sent. */
+    public long replay(Path queuePath) {
+        Bytes<ByteBuffer> out = Bytes.elasticByteBuffer(SEND_BUFFER);
+        try (ChronicleQueueService source = new ChronicleQueueService(queuePath);
+                SocketChannel ch = SocketChannel.open(target)) {
+            ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            logger.info("Replaying {} to {} (pacer={})", queuePath, target,
+                    pacer == null ? "none" : pacer.messagesPerSecond() + "/s");
+            source.forEachBytes(msg -> {
+                long length = msg.readRemaining();
+                if (out.writePosition() + length > SEND_BUFFER)
+                    flush(ch, out);
+                long start = out.writePosition();
+                out.write(msg);
+                long stamp = pacer != null ? pacer.awaitNext() : EpochNanoClock.now();
+                if (FixWire.restamp(out.bytesStore(), start, start + length, stamp))
+                    restamped++;
+                messages++;
+                if (pacer != null)
+                    flush(ch, out);
+            });
+            flush(ch, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to replay " + queuePath + " to " + target, e);
+        } finally {
+            out.releaseLast();
+        }
+        logger.info("Replay done: messages={}, bytes={}, restamped={}", messages, bytes,
+                restamped);
+        return messages;
+    }
+
+    public long messages() {
+        return messages;
+    }
+
+    public long bytes() {
+        return bytes;
+    }
+
+    /** Messages whose tag 50001 was rewritten with the send time. */
+    public long restamped() {
+        return restamped;
+    }
+
+    private void flush(SocketChannel ch, Bytes<ByteBuffer> out) {
+        ByteBuffer buf = out.underlyingObject();
+        buf.limit((int) out.writePosition()).position((int) out.readPosition());
+        try {
+            while (buf.hasRemaining())
+                bytes += ch.write(buf);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Send to " + target + " failed", e);
+        }
+        out.clear();
+    }
+}
@@ -0,0 +1,96 @@
+package com.fix.performance.net;
+
+import java.nio.charset.StandardCharsets;
+import com.fix.performance.fix.FixMessageBuilder;
+import com.fix.performance.flyweight.Swar;
+import net.openhft.chronicle.bytes.BytesStore;
+
+/**
+ * Finding and rewriting the send stamp (tag 50001) of a framed FIX message in place. All offsets
+ * are absolute offsets into the store.
+ */
+final class FixWire {
+    private static final byte SOH = 1;
+    private static final byte[] SEND_TIME_TAG =
+            Integer.toString(FixMessageBuilder.SEND_EPOCH_NANOS_TAG)
+                    .getBytes(StandardCharsets.US_ASCII);
+
+    private FixWire() {}
+
+    /**
+     * Offset of the value of tag 50001 in the message [start, end), or -1. Everything this project
+     * writes puts the stamp right after SendingTime (52), so the search gives up at the field
+     * following 52 instead of scanning the whole body of an unstamped message.
+     */
+    static long sendTimeValue(BytesStore<?, ?> store, long start, long end) {
+        boolean afterSendingTime = false;
+        long pos = start;
+        while (pos < end) {
+            long eq = Swar.indexOf(store, pos, end, (byte) '=');
+            if (eq == end)
+                return -1;
+            if (isSendTimeTag(store, pos, eq))
+                return eq + 1;
+            if (afterSendingTime)
+                return -1;
+            afterSendingTime = eq - pos == 2 && store.readByte(pos) == '5'
+                    && store.readByte(pos + 1) == '2';
+            pos = Swar.indexOf(store, eq + 1, end, SOH) + 1;
+        }
+        return -1;
+    }
+
+    /** The stamp's value, or {@link FixMessageBuilder#NO_SEND_TIME} if there is none. */
+    static long sendEpochNanos(BytesStore<?, ?> store, long start, long end) {
+        long value = sendTimeValue(store, start, end);
+        if (value < 0)
+            return FixMessageBuilder.NO_SEND_TIME;
+        return Swar.parseLong(store, value, Swar.indexOf(store, value, end, SOH));
+    }
+
+    /**
+     * Overwrites the stamp of the message [start, end) with {@code epochNanos} and adjusts its
+     * CheckSum to match, without moving any byte. Returns false, leaving the message as it was,
+     * if there is no stamp or the new value has a different number of digits.
+     */
+    static boolean restamp(BytesStore<?, ?> store, long start, long end, long epochNanos) {
+        long value = sendTimeValue(store, start, end);
+        if (value < 0 || epochNanos < 0 || !FixFramer.hasTrailer(store, end))
+            return false;
+        long valueEnd = Swar.indexOf(store, value, end, SOH);
+        if (valueEnd - value != digitCount(epochNanos))
+            return false;
+        long delta = -Swar.byteSum(store, value, valueEnd);
+        long v = epochNanos;
+        for (long i = valueEnd - 1; i >= value; i--) {
+            store.writeByte(i, (byte) ('0' + v % 10));
+            v /= 10;
+        }
+        delta += Swar.byteSum(store, value, valueEnd);
+        long digits = end - 4;
+        int checksum = Math.floorMod(Swar.parseInt(store, digits, digits + 3) + (int) delta, 256);
+        store.writeByte(digits, (byte) ('0' + checksum / 100));
+        store.writeByte(digits + 1, (byte) ('0' + checksum / 10 % 10));
+        store.writeByte(digits + 2, (byte) ('0' + checksum % 10));
+        return true;
+    }
+
+    private static boolean isSendTimeTag(BytesStore<?, ?> store, long from, long to) {
+        if (to - from != SEND_TIME_TAG.length)
+            return false;
+        for (int i = 0; i < SEND_TIME_TAG.length; i++) {
+            if (store.readByte(from + i) != SEND_TIME_TAG[i])
+                return false;
+        }
+        return true;
+    }
+
+    private static int digitCount(long v) {
+        int n = 1;
+        while (v >= 10) {
+            v /= 10;
+            n++;
+        }
+        return n;
+    }
+}
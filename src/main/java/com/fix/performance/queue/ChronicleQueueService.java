@@ -1,11 +1,16 @@
 package com.fix.performance.queue;
 
 import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
+import com.fix.performance.ring.WaitStrategy;
 import net.openhft.chronicle.bytes.Bytes;
 import net.openhft.chronicle.bytes.BytesStore;
 import net.openhft.chronicle.queue.ChronicleQueue;
@@ -15,26 +20,64 @@ import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
 import net.openhft.chronicle.wire.DocumentContext;
 
 /**
- * Minimal Chronicle Queue wrapper for writing/reading FIX messages. Messages are stored as
- * documents with a single text field "fix".
+ * Minimal Chronicle Queue wrapper for writing/reading FIX messages. By default messages are stored
+ * as documents with a single text field "fix" ({@link QueueFormat#WIRE}); a queue can instead be
+ * created in {@link QueueFormat#RAW} mode where each excerpt is exactly the FIX bytes. The format is
+ * recorded in a marker file inside the queue directory and picked up automatically by readers.
+ * Readers go through the whole queue unless given a {@link ReadRange}, which can bound the read by
+ * index and name a tailer whose position survives restarts.
  */
 public final class ChronicleQueueService implements Closeable {
+    static final String FORMAT_FILE = "queue-format";
+
     private final ChronicleQueue queue;
     private final ExcerptAppender appender;
+    private final QueueFormat format;
 
+    /** Opens a queue using its recorded format, or {@link QueueFormat#WIRE} for a new queue. */
     public ChronicleQueueService(Path path) {
+        this(path, null);
+    }
+
+    /**
+     * Opens a queue in the given format. Fails if the queue already records a different format.
+     * A {@code null} format means "use whatever is recorded, WIRE if nothing is".
+     */
+    public ChronicleQueueService(Path path, QueueFormat format) {
+        this.format = resolveFormat(path, format);
         this.queue = SingleChronicleQueueBuilder.binary(path.toString()).build();
         // Use createAppender() for compatibility across Chronicle Queue versions
         this.appender = this.queue.createAppender();
     }
 
+    public QueueFormat format() {
+        return format;
+    }
+
     public void writeFix(String fixMessage) {
-        byte[] ascii = fixMessage.getBytes(StandardCharsets.US_ASCII);
-        appender.writeDocument(w -> w.write("fix").bytes(ascii));
+        writeFixBytes(fixMessage.getBytes(StandardCharsets.US_ASCII));
     }
 
     public void writeFixBytes(byte[] rawFix) {
-        appender.writeDocument(w -> w.write("fix").bytes(rawFix));
+        try (DocumentContext dc = appender.writingDocument()) {
+            if (format == QueueFormat.RAW)
+                dc.wire().bytes().write(rawFix);
+            else
+                dc.wire().write("fix").bytes(rawFix);
+        }
+    }
+
+    /**
+     * Append the readable region of {@code rawFix} (readPosition to readLimit) without an
+     * intermediate heap copy, e.g. the buffer returned by {@code FixMessageEncoder}.
+     */
+    public void writeFixBytes(BytesStore<?, ?> rawFix) {
+        try (DocumentContext dc = appender.writingDocument()) {
+            if (format == QueueFormat.RAW)
+                dc.wire().bytes().write(rawFix);
+            else
+                dc.wire().write("fix").bytes(rawFix);
+        }
     }
 
     public List<String> readAll() {
@@ -44,7 +87,7 @@ public final class ChronicleQueueService implements Closeable {
             try (DocumentContext dc = tailer.readingDocument()) {
                 if (!dc.isPresent())
                     break;
-                BytesStore<?, ?> store = dc.wire().read("fix").bytesStore();
+                BytesStore<?, ?> store = payload(dc);
                 if (store == null)
                     break;
                 messages.add(asciiFrom(store));
@@ -59,7 +102,7 @@ public final class ChronicleQueueService implements Closeable {
             try (DocumentContext dc = tailer.readingDocument()) {
                 if (!dc.isPresent())
                     break;
-                BytesStore<?, ?> store = dc.wire().read("fix").bytesStore();
+                BytesStore<?, ?> store = payload(dc);
                 if (store == null)
                     break;
                 consumer.accept(asciiFrom(store));
@@ -72,17 +115,117 @@ public final class ChronicleQueueService implements Closeable {
      * the consumer callback scope.
      */
     public void forEachBytes(java.util.function.Consumer<Bytes<?>> consumer) {
-        ExcerptTailer tailer = queue.createTailer();
-        while (true) {
-            try (DocumentContext dc = tailer.readingDocument()) {
-                if (!dc.isPresent())
-                    break;
-                BytesStore<?, ?> store = dc.wire().read("fix").bytesStore();
-                if (store == null)
-                    break;
-                consumer.accept(store.bytesForRead());
+        try (FixTailer tailer = createTailer()) {
+            while (tailer.readBytes(consumer)) {}
+        }
+    }
+
+    /**
+     * {@link #forEachBytes} over {@code range}: stops at its end index or at the end of the queue,
+     * whichever comes first.
+     *
+     * @return index of the last excerpt delivered, or {@link FixTailer#NO_INDEX} if none was
+     */
+    public long forEachBytes(ReadRange range, Consumer<Bytes<?>> consumer) {
+        try (FixTailer tailer = createTailer(range)) {
+            while (tailer.readBytes(consumer)) {}
+            return tailer.lastIndex();
+        }
+    }
+
+    /**
+     * Live counterpart of {@link #forEachBytes}: delivers every excerpt from the start of the queue
+     * and keeps polling for new ones while a writer is still appending, idling with {@code wait}
+     * between empty polls, until {@code running} returns false. Excerpts appended after the stop
+     * signal may be left unread.
+     */
+    public TailStats tailBytes(Consumer<Bytes<?>> consumer, WaitStrategy wait,
+            BooleanSupplier running) {
+        try (FixTailer tailer = createTailer()) {
+            return tail(tailer, consumer, wait, running);
+        }
+    }
+
+    /**
+     * {@link #tailBytes} over {@code range}; also returns once the tailer passes the range's end
+     * index.
+     */
+    public TailStats tailBytes(ReadRange range, Consumer<Bytes<?>> consumer, WaitStrategy wait,
+            BooleanSupplier running) {
+        try (FixTailer tailer = createTailer(range)) {
+            return tail(tailer, consumer, wait, running);
+        }
+    }
+
+    /** String variant of {@link #tailBytes} for consumers that parse text. */
+    public TailStats tail(Consumer<String> consumer, WaitStrategy wait, BooleanSupplier running) {
+        return tailBytes(bytes -> consumer.accept(asciiFrom(bytes)), wait, running);
+    }
+
+    /**
+     * {@link #tailBytes} on a tailer the caller positioned and owns, e.g. one from
+     * {@link #createTailerAfter}.
+     */
+    public static TailStats tail(FixTailer tailer, Consumer<Bytes<?>> consumer, WaitStrategy wait,
+            BooleanSupplier running) {
+        long messages = 0;
+        long idlePolls = 0;
+        int idle = 0;
+        while (running.getAsBoolean() && !tailer.isPastEnd()) {
+            if (tailer.readBytes(consumer)) {
+                messages++;
+                idle = 0;
+            } else {
+                idlePolls++;
+                wait.idle(++idle);
             }
         }
+        return new TailStats(messages, idlePolls);
+    }
+
+    /** Creates a tailer positioned at the start of the queue. */
+    public FixTailer createTailer() {
+        return new FixTailer(queue.createTailer(), format, null);
+    }
+
+    /**
+     * Creates a tailer for {@code range}. A named tailer starts where the last tailer of that name
+     * stopped (the start of the queue the first time) and Chronicle persists its position in the
+     * queue's metadata on every read, so the checkpoint is the last excerpt read, not the last one
+     * a consumer finished with. An explicit {@code fromIndex} overrides the saved position and
+     * fails if the queue no longer holds that excerpt.
+     */
+    public FixTailer createTailer(ReadRange range) {
+        FixTailer tailer = range.tailerName() == null ? createTailer()
+                : new FixTailer(queue.createTailer(range.tailerName()), format,
+                        range.tailerName());
+        try {
+            if (range.fromIndex() != ReadRange.UNBOUNDED)
+                tailer.moveTo(range.fromIndex());
+            tailer.endAt(range.toIndex());
+        } catch (RuntimeException e) {
+            tailer.close();
+            throw e;
+        }
+        return tailer;
+    }
+
+    /**
+     * Creates a tailer that resumes after the excerpt at {@code index}, e.g. the index a snapshot
+     * covers, or at the start for {@link FixTailer#NO_INDEX}. Fails if the queue no longer holds
+     * that excerpt, since resuming elsewhere would silently skip or repeat messages.
+     */
+    public FixTailer createTailerAfter(long index) {
+        FixTailer tailer = createTailer();
+        if (index != FixTailer.NO_INDEX) {
+            try {
+                tailer.skipThrough(index);
+            } catch (RuntimeException e) {
+                tailer.close();
+                throw e;
+            }
+        }
+        return tailer;
     }
 
     /**
@@ -94,7 +237,7 @@ public final class ChronicleQueueService implements Closeable {
             try (DocumentContext dc = tailer.readingDocument()) {
                 if (!dc.isPresent())
                     break;
-                BytesStore<?, ?> store = dc.wire().read("fix").bytesStore();
+                BytesStore<?, ?> store = payload(dc);
                 if (store == null)
                     continue;
                 consumer.accept(store);
@@ -102,6 +245,40 @@ public final class ChronicleQueueService implements Closeable {
         }
     }
 
+    private BytesStore<?, ?> payload(DocumentContext dc) {
+        if (format == QueueFormat.RAW)
+            return dc.wire().bytes();
+        return dc.wire().read("fix").bytesStore();
+    }
+
+    private static QueueFormat resolveFormat(Path path, QueueFormat requested) {
+        Path marker = path.resolve(FORMAT_FILE);
+        try {
+            if (Files.exists(marker)) {
+                QueueFormat recorded = QueueFormat.parse(Files.readString(marker));
+                if (requested != null && requested != recorded)
+                    throw new IllegalStateException("Queue " + path + " is " + recorded
+                            + ", cannot open it as " + requested);
+                return recorded;
+            }
+            if (requested == null || requested == QueueFormat.WIRE)
+                return QueueFormat.WIRE;
+            // Queues without a marker predate it and are WIRE; refuse to mix RAW into them
+            if (Files.isDirectory(path)) {
+                try (var files = Files.list(path)) {
+                    if (files.anyMatch(p -> p.getFileName().toString().endsWith(".cq4")))
+                        throw new IllegalStateException(
+                                "Queue " + path + " already holds WIRE data, cannot append RAW");
+                }
+            }
+            Files.createDirectories(path);
+            Files.writeString(marker, requested.name());
+            return requested;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to resolve queue format for " + path, e);
+        }
+    }
+
     private static String asciiFrom(BytesStore<?, ?> store) {
         long start = store.readPosition();
         long end = store.readLimit();
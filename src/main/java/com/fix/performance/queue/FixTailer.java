@@ -0,0 +1,114 @@
+package com.fix.performance.queue;
+
+import java.util.function.Consumer;
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.wire.DocumentContext;
+
+/**
+ * Reads FIX excerpts one at a time in the queue's {@link QueueFormat}. Unlike the
+ * {@code ChronicleQueueService.forEach*} methods it does not stop at the end of the queue, so
+ * callers can poll it. A tailer from {@link ChronicleQueueService#createTailer(ReadRange)} may be
+ * named, in which case Chronicle persists its position as it reads, and may have an end index past
+ * which it reads nothing. Not thread-safe.
+ */
+public final class FixTailer implements AutoCloseable {
+    /** {@link #lastIndex()} before the first excerpt has been read. */
+    public static final long NO_INDEX = -1;
+
+    private final ExcerptTailer tailer;
+    private final QueueFormat format;
+    private final String name;
+    private long lastIndex = NO_INDEX;
+    private long endIndex = ReadRange.UNBOUNDED;
+    private boolean pastEnd;
+
+    FixTailer(ExcerptTailer tailer, QueueFormat format, String name) {
+        this.tailer = tailer;
+        this.format = format;
+        this.name = name;
+    }
+
+    /**
+     * Passes the next excerpt's FIX bytes to {@code consumer}. The Bytes are valid only within the
+     * callback.
+     *
+     * @return {@code false} if no excerpt is currently available, or the tailer is past its end
+     *         index
+     */
+    public boolean readBytes(Consumer<Bytes<?>> consumer) {
+        if (pastEnd)
+            return false;
+        try (DocumentContext dc = tailer.readingDocument()) {
+            if (!dc.isPresent())
+                return false;
+            if (endIndex != ReadRange.UNBOUNDED && dc.index() > endIndex) {
+                // Leave it unread, so a named tailer resumes at the first excerpt past the range
+                dc.rollbackOnClose();
+                pastEnd = true;
+                return false;
+            }
+            lastIndex = dc.index();
+            // The end index may be the last excerpt written, so stop on it rather than waiting
+            // for one past it that may never come
+            pastEnd = lastIndex == endIndex;
+            if (format == QueueFormat.RAW) {
+                consumer.accept(dc.wire().bytes());
+                return true;
+            }
+            BytesStore<?, ?> store = dc.wire().read("fix").bytesStore();
+            if (store != null)
+                consumer.accept(store.bytesForRead());
+            return true;
+        }
+    }
+
+    /**
+     * Queue index of the excerpt most recently passed to a {@link #readBytes} callback, or
+     * {@link #NO_INDEX}. Already set during the callback.
+     */
+    public long lastIndex() {
+        return lastIndex;
+    }
+
+    /**
+     * {@code true} once the tailer has read the excerpt at its end index, or seen one past it; it
+     * will read nothing more. Always {@code false} without an end index.
+     */
+    public boolean isPastEnd() {
+        return pastEnd;
+    }
+
+    /** Name the tailer's position is persisted under, or {@code null} for an anonymous tailer. */
+    public String name() {
+        return name;
+    }
+
+    /** Stops reading after the excerpt at {@code index}; {@link ReadRange#UNBOUNDED} for none. */
+    void endAt(long index) {
+        this.endIndex = index;
+    }
+
+    /** Positions the tailer so the next read returns the excerpt at {@code index}. */
+    void moveTo(long index) {
+        if (!tailer.moveToIndex(index))
+            throw new IllegalStateException("Queue has no excerpt at index " + index);
+    }
+
+    /** Positions the tailer so the next read returns the excerpt after {@code index}. */
+    void skipThrough(long index) {
+        if (!tailer.moveToIndex(index))
+            throw new IllegalStateException("Queue has no excerpt at index " + index);
+        try (DocumentContext dc = tailer.readingDocument()) {
+            if (!dc.isPresent())
+                throw new IllegalStateException("Queue has no excerpt at index " + index);
+            lastIndex = dc.index();
+        }
+    }
+
+    @Override
+    public void close() {
+        tailer.close();
+    }
+}
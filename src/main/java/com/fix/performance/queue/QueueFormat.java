@@ -0,0 +1,20 @@
+package com.fix.performance.queue;
+
+/**
+ * Layout of FIX excerpts in a queue. The format is recorded next to the queue files so readers
+ * pick the matching decoder without being told.
+ */
+public enum QueueFormat {
+    /** Self-describing wire document with a single bytes field {@code "fix"} (original layout). */
+    WIRE,
+    /** The excerpt payload is exactly the FIX message bytes, with no field name or length prefix. */
+    RAW;
+
+    public static QueueFormat parse(String s) {
+        try {
+            return valueOf(s.trim().toUpperCase(java.util.Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown queue format '" + s + "' (wire|raw)", e);
+        }
+    }
+}
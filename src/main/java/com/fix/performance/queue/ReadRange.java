@@ -0,0 +1,45 @@
+package com.fix.performance.queue;
+
+/**
+ * Which excerpts a consumer reads: from {@code fromIndex} through {@code toIndex} (both inclusive,
+ * Chronicle queue indexes), and optionally through a named tailer whose read position is persisted
+ * in the queue's metadata so the next run with the same name resumes where this one stopped.
+ *
+ * @param tailerName persisted tailer to read with, or {@code null} for an anonymous one
+ * @param fromIndex first excerpt to read, or {@link #UNBOUNDED} for the tailer's position (the
+ *        start of the queue, or the saved position of a named tailer)
+ * @param toIndex last excerpt to read, or {@link #UNBOUNDED} to read (or tail) past the end
+ */
+public record ReadRange(String tailerName, long fromIndex, long toIndex) {
+    public static final long UNBOUNDED = -1;
+    /** Every excerpt, from the start, through an anonymous tailer. */
+    public static final ReadRange ALL = new ReadRange(null, UNBOUNDED, UNBOUNDED);
+
+    public ReadRange {
+        if (tailerName != null && tailerName.isBlank())
+            throw new IllegalArgumentException("tailerName must not be blank");
+        if (fromIndex < UNBOUNDED || toIndex < UNBOUNDED)
+            throw new IllegalArgumentException("Negative queue index");
+        if (fromIndex != UNBOUNDED && toIndex != UNBOUNDED && toIndex < fromIndex)
+            throw new IllegalArgumentException(
+                    "toIndex " + toIndex + " is before fromIndex " + fromIndex);
+    }
+
+    /** Resumes the persisted tailer {@code name} and reads on from there. */
+    public static ReadRange named(String name) {
+        return new ReadRange(name, UNBOUNDED, UNBOUNDED);
+    }
+
+    /** {@code true} if this range starts at the beginning and has no name or end. */
+    public boolean isAll() {
+        return tailerName == null && fromIndex == UNBOUNDED && toIndex == UNBOUNDED;
+    }
+
+    /** Parses a queue index as decimal or {@code 0x}-prefixed hex (cycle and sequence number). */
+    public static long parseIndex(String s) {
+        String t = s.trim();
+        if (t.startsWith("0x") || t.startsWith("0X"))
+            return Long.parseUnsignedLong(t.substring(2), 16);
+        return Long.parseLong(t);
+    }
+}
@@ -0,0 +1,5 @@
+package com.fix.performance.queue;
+
+/** Outcome of a tailing run: excerpts delivered and polls that found nothing. */
+public record TailStats(long messages, long idlePolls) {
+}
@@ -0,0 +1,22 @@
+package com.fix.performance.ring;
+
+/**
+ * What a producer does when the bounded ring it hands work to is full.
+ */
+public enum Backpressure {
+    /** Wait for a free slot: spin briefly, then park (see {@link WaitStrategy#backoff()}). */
+    BLOCK,
+    /** Busy-spin until a slot frees up; lowest hand-off latency, burns the producer's core. */
+    SPIN,
+    /** Discard the message and count it; the producer never waits. */
+    DROP;
+
+    public static Backpressure parse(String s) {
+        try {
+            return valueOf(s.trim().toUpperCase(java.util.Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(
+                    "Unknown backpressure '" + s + "' (block|spin|drop)", e);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.fix.performance.ring;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Bounded single-producer/single-consumer ring of preallocated, reusable slots. The producer
+ * {@link #claim() claims} the next free slot, fills it in place and {@link #publish() publishes}
+ * it; the consumer {@link #peek() peeks} the oldest published slot, processes it and
+ * {@link #release() releases} it. Nothing is allocated after construction and no locks are taken.
+ *
+ * <p>Sequences live in one {@link AtomicLongArray}, at indices 128 bytes apart, so the producer's
+ * and consumer's cache lines never false-share. Each side keeps a plain cached copy of the other
+ * side's sequence and only re-reads it (acquire) when the cache says the ring looks full or empty.
+ */
+public final class SpscRing<E> {
+    // Producer block
+    private static final int TAIL = 16;
+    private static final int CACHED_HEAD = 17;
+    // Consumer block
+    private static final int HEAD = 32;
+    private static final int CACHED_TAIL = 33;
+    private static final int SEQUENCES_LENGTH = 48;
+
+    private final E[] slots;
+    private final int mask;
+    private final AtomicLongArray seq = new AtomicLongArray(SEQUENCES_LENGTH);
+
+    @SuppressWarnings("unchecked")
+    public SpscRing(int capacity, Supplier<E> slotFactory) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException("capacity must be a positive power of two");
+        this.slots = (E[]) new Object[capacity];
+        for (int i = 0; i < capacity; i++)
+            slots[i] = slotFactory.get();
+        this.mask = capacity - 1;
+    }
+
+    /** Producer: returns the next free slot to fill, or {@code null} if the ring is full. */
+    public E claim() {
+        long tail = seq.getPlain(TAIL);
+        if (tail - seq.getPlain(CACHED_HEAD) >= slots.length) {
+            long head = seq.getAcquire(HEAD);
+            seq.setPlain(CACHED_HEAD, head);
+            if (tail - head >= slots.length)
+                return null;
+        }
+        return slots[(int) tail & mask];
+    }
+
+    /** Producer: makes the slot returned by the last {@link #claim()} visible to the consumer. */
+    public void publish() {
+        seq.setRelease(TAIL, seq.getPlain(TAIL) + 1);
+    }
+
+    /** Consumer: returns the oldest published slot, or {@code null} if the ring is empty. */
+    public E peek() {
+        long head = seq.getPlain(HEAD);
+        if (head >= seq.getPlain(CACHED_TAIL)) {
+            long tail = seq.getAcquire(TAIL);
+            seq.setPlain(CACHED_TAIL, tail);
+            if (head >= tail)
+                return null;
+        }
+        return slots[(int) head & mask];
+    }
+
+    /** Consumer: hands the slot returned by the last {@link #peek()} back to the producer. */
+    public void release() {
+        seq.setRelease(HEAD, seq.getPlain(HEAD) + 1);
+    }
+
+    /** Approximate number of published, unreleased slots; safe to call from any thread. */
+    public int size() {
+        long head = seq.getAcquire(HEAD);
+        long tail = seq.getAcquire(TAIL);
+        return (int) Math.max(0, tail - head);
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+}
@@ -0,0 +1,122 @@
+package com.fix.performance.ring;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Per-key serial execution on virtual threads. Work is hashed onto a fixed set of lanes; a lane
+ * with pending work has exactly one virtual thread draining it in submission order, started on
+ * the first item and exiting once the lane is empty. Items with the same key therefore run in
+ * order while idle lanes cost no thread at all, which suits many small, bursty sessions.
+ *
+ * <p>At most {@code maxInFlight} items are queued or running; {@link #submit} blocks the caller
+ * beyond that, so a fast producer cannot grow the heap without bound.
+ */
+public final class VirtualThreadLanes<T> {
+    private static final Logger logger = LogManager.getLogger(VirtualThreadLanes.class);
+
+    private final Lane[] lanes;
+    private final Consumer<T> work;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final ThreadFactory threads = Thread.ofVirtual().name("lane-", 0).factory();
+    private final AtomicLong threadsStarted = new AtomicLong();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger peakRunning = new AtomicInteger();
+    private long submitStalls;
+
+    @SuppressWarnings("unchecked")
+    public VirtualThreadLanes(int laneCount, int maxInFlight, Consumer<T> work) {
+        if (laneCount <= 0)
+            throw new IllegalArgumentException("laneCount must be > 0");
+        if (maxInFlight <= 0)
+            throw new IllegalArgumentException("maxInFlight must be > 0");
+        // Lane is an inner class of a generic type, so the array has to be created raw
+        this.lanes = new VirtualThreadLanes.Lane[laneCount];
+        for (int i = 0; i < laneCount; i++)
+            lanes[i] = new Lane();
+        this.work = work;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    /** Queues {@code item} on the lane for {@code keyHash}; single producer. */
+    public void submit(int keyHash, T item) {
+        if (!inFlight.tryAcquire()) {
+            submitStalls++;
+            inFlight.acquireUninterruptibly();
+        }
+        lanes[Math.floorMod(keyHash, lanes.length)].offer(item);
+    }
+
+    /** Blocks until every submitted item has run. */
+    public void awaitIdle() {
+        inFlight.acquireUninterruptibly(maxInFlight);
+        inFlight.release(maxInFlight);
+    }
+
+    public int laneCount() {
+        return lanes.length;
+    }
+
+    /** Virtual threads started so far; one per burst of work on a lane. */
+    public long threadsStarted() {
+        return threadsStarted.get();
+    }
+
+    /** Most virtual threads draining lanes at the same time. */
+    public int peakThreads() {
+        return peakRunning.get();
+    }
+
+    /** Submits that found {@code maxInFlight} items outstanding and had to wait. */
+    public long submitStalls() {
+        return submitStalls;
+    }
+
+    private final class Lane implements Runnable {
+        final ConcurrentLinkedQueue<T> queue = new ConcurrentLinkedQueue<>();
+        final AtomicBoolean scheduled = new AtomicBoolean();
+
+        void offer(T item) {
+            queue.offer(item);
+            if (scheduled.compareAndSet(false, true)) {
+                threadsStarted.incrementAndGet();
+                threads.newThread(this).start();
+            }
+        }
+
+        @Override
+        public void run() {
+            peakRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                while (true) {
+                    T item;
+                    while ((item = queue.poll()) != null) {
+                        try {
+                            work.accept(item);
+                        } catch (RuntimeException e) {
+                            logger.error("Lane work failed", e);
+                        } finally {
+                            inFlight.release();
+                        }
+                    }
+                    scheduled.set(false);
+                    // An offer between the last poll and the reset saw scheduled == true and did
+                    // not start a thread; take the lane back unless another thread already has
+                    if (queue.isEmpty() || !scheduled.compareAndSet(false, true))
+                        return;
+                }
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.fix.performance.ring;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * What a polling thread does when a poll finds no work. Implementations trade wake-up latency
+ * against CPU burned while idle: {@link #busySpin()} never leaves the core, {@link #yielding()}
+ * lets other runnable threads in, {@link #backoff()} spins, then yields, then parks with an
+ * exponentially growing timeout.
+ */
+public interface WaitStrategy {
+
+    /**
+     * Called after an empty poll.
+     *
+     * @param idleCount consecutive empty polls so far, starting at 1; reset by the caller once
+     *        work is found
+     */
+    void idle(int idleCount);
+
+    static WaitStrategy busySpin() {
+        return new BusySpin();
+    }
+
+    static WaitStrategy yielding() {
+        return new Yielding();
+    }
+
+    /** Spin 100 times, yield 50 times, then park from 1 µs doubling up to 1 ms. */
+    static WaitStrategy backoff() {
+        return new Backoff(100, 50, TimeUnit.MICROSECONDS.toNanos(1),
+                TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    /** Parses {@code spin}, {@code yield} or {@code backoff}. */
+    static WaitStrategy parse(String name) {
+        return switch (name.trim().toLowerCase(Locale.ROOT)) {
+            case "spin", "busy-spin", "busyspin" -> busySpin();
+            case "yield", "yielding" -> yielding();
+            case "backoff", "park" -> backoff();
+            default -> throw new IllegalArgumentException(
+                    "Unknown wait strategy '" + name + "' (spin|yield|backoff)");
+        };
+    }
+
+    final class BusySpin implements WaitStrategy {
+        @Override
+        public void idle(int idleCount) {
+            Thread.onSpinWait();
+        }
+
+        @Override
+        public String toString() {
+            return "spin";
+        }
+    }
+
+    final class Yielding implements WaitStrategy {
+        @Override
+        public void idle(int idleCount) {
+            Thread.yield();
+        }
+
+        @Override
+        public String toString() {
+            return "yield";
+        }
+    }
+
+    final class Backoff implements WaitStrategy {
+        private final int spins;
+        private final int yields;
+        private final long minParkNs;
+        private final long maxParkNs;
+
+        public Backoff(int spins, int yields, long minParkNs, long maxParkNs) {
+            if (spins < 0 || yields < 0 || minParkNs <= 0 || maxParkNs < minParkNs)
+                throw new IllegalArgumentException("invalid backoff parameters");
+            this.spins = spins;
+            this.yields = yields;
+            this.minParkNs = minParkNs;
+            this.maxParkNs = maxParkNs;
+        }
+
+        @Override
+        public void idle(int idleCount) {
+            if (idleCount <= spins) {
+                Thread.onSpinWait();
+            } else if (idleCount <= spins + yields) {
+                Thread.yield();
+            } else {
+                int doublings = Math.min(idleCount - spins - yields - 1, 62);
+                long parkNs = minParkNs << doublings;
+                LockSupport.parkNanos(parkNs > 0 && parkNs < maxParkNs ? parkNs : maxParkNs);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "backoff";
+        }
+    }
+}
@@ -9,8 +9,14 @@ import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import com.fix.performance.fix.FixMessageBuilder;
+import com.fix.performance.flyweight.FixView;
 import com.fix.performance.flyweight.Order;
+import com.fix.performance.flyweight.PriceLevelBook;
+import com.fix.performance.flyweight.Validation;
+import com.fix.performance.metrics.EpochNanoClock;
 import com.fix.performance.queue.ChronicleQueueService;
+import com.fix.performance.queue.QueueFormat;
+import net.openhft.chronicle.bytes.Bytes;
 
 public class FlyweightConsumerTest {
     private Path tempDir;
@@ -72,7 +78,7 @@ public class FlyweightConsumerTest {
             assertTrue(map.containsKey(2L));
             assertEquals(1, map.size());
             Order ord = map.get(2L);
-            assertEquals("MSFT", ord.symbol);
+            assertEquals("MSFT", consumer.symbols().symbol(ord.symbolId));
             assertEquals(200, ord.quantity);
             assertEquals(23456, ord.priceCents);
         }
@@ -108,6 +114,274 @@ public class FlyweightConsumerTest {
             assertEquals(1, map.size());
         }
     }
-}
 
+    @Test
+    void replaceRekeysAndExecutionReportsFillInPlace() throws Exception {
+        tempDir = java.nio.file.Path.of("data", "test-" + System.nanoTime());
+        Files.createDirectories(tempDir);
+        Path queuePath = tempDir.resolve("fix.q");
+
+        FixMessageBuilder b = new FixMessageBuilder("SND", "TGT");
+        try (ChronicleQueueService svc = new ChronicleQueueService(queuePath)) {
+            svc.writeFix(b.buildNewOrderSingle("1", "AAPL", '1', 100, 12345, 0L));
+            svc.writeFix(b.buildNewOrderSingle("2", "MSFT", '2', 500, 23456, 0L));
+            svc.writeFix(b.buildOrderCancelReplaceRequest("3", "1", "AAPL", '1', 300, 12400, 0L));
+            svc.writeFix(b.buildExecutionReport("3", "1", 'F', '1', "AAPL", '1', 300, 100, 12400,
+                    100, 12400, 0L));
+            svc.writeFix(b.buildExecutionReport("2", "2", 'F', '1', "MSFT", '2', 500, 200, 23456,
+                    200, 23456, 0L));
+            svc.writeFix(b.buildExecutionReport("2", "3", 'F', '2', "MSFT", '2', 500, 300, 23456,
+                    500, 23456, 0L));
+        }
+
+        try (FlyweightConsumer consumer = new FlyweightConsumer()) {
+            consumer.consume(queuePath);
+            var map = consumer.getOpenOrdersMap();
+            assertFalse(map.containsKey(1L));
+            assertFalse(map.containsKey(2L), "fully filled order is removed");
+            assertEquals(1, map.size());
+            Order ord = map.get(3L);
+            assertEquals("AAPL", consumer.symbols().symbol(ord.symbolId));
+            assertEquals(300, ord.quantity);
+            assertEquals(12400, ord.priceCents);
+            assertEquals(100, ord.cumQty);
+            assertEquals(200, ord.leavesQty());
+        }
+    }
+
+    @Test
+    void orderBookFollowsNewCancelReplaceAndFill() throws Exception {
+        tempDir = java.nio.file.Path.of("data", "test-" + System.nanoTime());
+        Files.createDirectories(tempDir);
+        Path queuePath = tempDir.resolve("fix.q");
+
+        FixMessageBuilder b = new FixMessageBuilder("SND", "TGT");
+        try (ChronicleQueueService svc = new ChronicleQueueService(queuePath)) {
+            svc.writeFix(b.buildNewOrderSingle("1", "AAPL", '1', 100, 12300, 0L));
+            svc.writeFix(b.buildNewOrderSingle("2", "AAPL", '1', 200, 12300, 0L));
+            svc.writeFix(b.buildNewOrderSingle("3", "AAPL", '1', 300, 12200, 0L));
+            svc.writeFix(b.buildNewOrderSingle("4", "AAPL", '2', 400, 12500, 0L));
+            svc.writeFix(b.buildNewOrderSingle("5", "AAPL", '2', 500, 12400, 0L));
+            svc.writeFix(b.buildOrderCancelRequest("6", "1", "AAPL", '1', 0L));
+            svc.writeFix(b.buildOrderCancelReplaceRequest("7", "3", "AAPL", '1', 300, 12350, 0L));
+            svc.writeFix(b.buildExecutionReport("5", "1", 'F', '1', "AAPL", '2', 500, 200, 12400,
+                    200, 12400, 0L));
+        }
+
+        try (FlyweightConsumer consumer = new FlyweightConsumer()) {
+            PriceLevelBook book = consumer.enableOrderBook();
+            consumer.consume(queuePath);
+            int aapl = consumer.symbols().idOf("AAPL");
+            assertEquals(12350, book.bestBid(aapl));
+            assertEquals(12400, book.bestAsk(aapl));
+            long[] prices = new long[4];
+            long[] qty = new long[4];
+            int[] orders = new int[4];
+            assertEquals(2, book.topLevels(aapl, Order.BUY, 4, prices, qty, orders));
+            assertEquals(12350, prices[0]);
+            assertEquals(300, qty[0]);
+            assertEquals(12300, prices[1]);
+            assertEquals(200, qty[1], "cancelled order left the level");
+            assertEquals(1, orders[1]);
+            assertEquals(300, book.bestQuantity(aapl, Order.SELL), "leaves quantity after fill");
+            assertEquals(2, book.depth(aapl, Order.SELL));
+        }
+    }
+
+    @Test
+    void processesRawFormatQueue() throws Exception {
+        tempDir = java.nio.file.Path.of("data", "test-" + System.nanoTime());
+        Files.createDirectories(tempDir);
+        Path queuePath = tempDir.resolve("fix.q");
+
+        FixMessageBuilder b = new FixMessageBuilder("SND", "TGT");
+        try (ChronicleQueueService svc = new ChronicleQueueService(queuePath, QueueFormat.RAW)) {
+            svc.writeFix(b.buildNewOrderSingle("1", "AAPL", '1', 100, 12345, System.nanoTime()));
+            svc.writeFix(b.buildNewOrderSingle("2", "MSFT", '2', 200, 23456, System.nanoTime()));
+            svc.writeFix(b.buildOrderCancelRequest("3", "1", "AAPL", '1', System.nanoTime()));
+        }
+
+        try (FlyweightConsumer consumer = new FlyweightConsumer()) {
+            consumer.consume(queuePath);
+            var map = consumer.getOpenOrdersMap();
+            assertEquals(1, map.size());
+            assertEquals(200, map.get(2L).quantity);
+        }
+    }
+
+    @Test
+    void readsSendTimestampAndRecordsEndToEndLatency() throws Exception {
+        tempDir = java.nio.file.Path.of("data", "test-" + System.nanoTime());
+        Files.createDirectories(tempDir);
+        Path queuePath = tempDir.resolve("fix.q");
+        Path metrics = tempDir.resolve("fly.txt");
+
+        FixMessageBuilder b = new FixMessageBuilder("SND", "TGT");
+        long stamp = EpochNanoClock.now();
+        try (FlyweightConsumer consumer = new FlyweightConsumer()) {
+            consumer.processBytes(
+                    Bytes.from(b.buildNewOrderSingle("1", "AAPL", '1', 100, 12345, 0L, stamp)));
+            assertEquals(stamp, consumer.lastSendEpochNanos());
+            assertTrue(consumer.getOpenOrdersMap().containsKey(1L));
+            consumer.processBytes(Bytes.from(b.buildOrderCancelRequest("2", "1", "AAPL", '1', 0L)));
+            assertEquals(FixMessageBuilder.NO_SEND_TIME, consumer.lastSendEpochNanos());
+        }
+
+        // Past the warm-up skip so end-to-end samples are recorded
+        try (ChronicleQueueService svc = new ChronicleQueueService(queuePath)) {
+            for (int i = 1; i <= 150; i++)
+                svc.writeFix(b.buildNewOrderSingle(Integer.toString(i), "AAPL", '1', 100, 12345,
+                        0L, EpochNanoClock.now()));
+        }
+        try (FlyweightConsumer consumer = new FlyweightConsumer()) {
+            consumer.consume(queuePath, metrics);
+        }
+        String content = Files.readString(metrics);
+        assertTrue(content.contains("e2e_count=50\n"), content);
+    }
+
+    @Test
+    void viewHandlersShareOneIndexedMessage() {
+        FixMessageBuilder b = new FixMessageBuilder("SND", "TGT");
+        StringBuilder seen = new StringBuilder();
+        try (FlyweightConsumer consumer = new FlyweightConsumer()) {
+            consumer.addViewHandler(v -> seen.append(v.getChar(35)).append(':'));
+            consumer.addViewHandler(v -> v.appendValue(55, seen).append(';'));
+            consumer.processBytes(Bytes.from(b.buildNewOrderSingle("1", "AAPL", '1', 1, 1, 0L)));
+            consumer.processBytes(
+                    Bytes.from(b.buildOrderCancelRequest("2", "1", "MSFT", '1', 0L)));
+            assertFalse(consumer.getOpenOrdersMap().containsKey(1L));
+        }
+        assertEquals("D:AAPL;F:MSFT;", seen.toString());
+    }
 
+    @Test
+    void viewComesFromTheOrderScanAndABadTokenSkipsOnlyItself() {
+        FixMessageBuilder b = new FixMessageBuilder("SND", "TGT");
+        String nos = b.buildNewOrderSingle("1", "AAPL", '1', 100, 12345, 0L, 42L);
+        // A token that is not digits=value and an empty one, right before ClOrdID
+        String withJunk = nos.replace("\u000111=", "\u0001X1=junk\u0001\u000111=");
+        Bytes<?> bytes = Bytes.from(withJunk);
+        FixView expected = new FixView().wrap(Bytes.from(withJunk));
+        int[] calls = new int[1];
+        try (FlyweightConsumer consumer = new FlyweightConsumer()) {
+            consumer.addViewHandler(v -> {
+                calls[0]++;
+                assertEquals(expected.fieldCount(), v.fieldCount());
+                for (int tag : new int[] {8, 9, 35, 11, 55, 54, 38, 44, 10, 50001}) {
+                    // Same bytes from offset 0 in both stores
+                    assertEquals(expected.valueStart(tag), v.valueStart(tag), "tag " + tag);
+                    assertEquals(expected.valueLength(tag), v.valueLength(tag), "tag " + tag);
+                }
+                assertEquals(42L, v.getLong(50001));
+            });
+            consumer.processBytes(bytes);
+            assertEquals(1, calls[0]);
+            assertTrue(consumer.getOpenOrdersMap().containsKey(1L));
+            assertEquals(100, consumer.getOpenOrdersMap().get(1L).quantity);
+        }
+    }
+
+    @Test
+    void validationCountsOrRejectsBadBodyLengthAndCheckSum() {
+        FixMessageBuilder b = new FixMessageBuilder("SND", "TGT");
+        String good = b.buildNewOrderSingle("1", "AAPL", '1', 100, 12345, 0L);
+        // Same length, one byte changed: only the checksum catches it
+        String badSum = b.buildNewOrderSingle("2", "AAPL", '1', 100, 12345, 0L)
+                .replace("55=AAPL", "55=AAPM");
+        // One byte dropped from the body: BodyLength no longer matches
+        String badLength = b.buildNewOrderSingle("3", "AAPL", '1', 100, 12345, 0L)
+                .replace("55=AAPL", "55=AAP");
+        String noTrailer = b.buildNewOrderSingle("4", "AAPL", '1', 100, 12345, 0L);
+        noTrailer = noTrailer.substring(0, noTrailer.lastIndexOf("10="));
+
+        for (Validation mode : Validation.values()) {
+            try (FlyweightConsumer consumer = new FlyweightConsumer()) {
+                consumer.setValidation(mode);
+                for (String msg : new String[] {good, badSum, badLength, noTrailer})
+                    consumer.processBytes(Bytes.from(msg));
+                var map = consumer.getOpenOrdersMap();
+                assertTrue(map.containsKey(1L), mode.toString());
+                assertEquals(mode == Validation.OFF ? 0 : 3, consumer.invalidMessages(),
+                        mode.toString());
+                assertEquals(mode == Validation.REJECT ? 1 : 4, map.size(), mode.toString());
+            }
+        }
+    }
+
+    @Test
+    void consumesAFixLogLongerThanTheFramerBuffer() throws Exception {
+        tempDir = java.nio.file.Path.of("data", "test-" + System.nanoTime());
+        Files.createDirectories(tempDir);
+        Path log = tempDir.resolve("fix.log");
+        FixMessageBuilder b = new FixMessageBuilder("SND", "TGT");
+        StringBuilder stream = new StringBuilder();
+        // Several buffers' worth, so messages are cut at read boundaries
+        for (int i = 1; i <= 2_000; i++) {
+            stream.append(b.buildNewOrderSingle(Integer.toString(i), "AAPL", '1', i, 10_000 + i,
+                    0L));
+            if (i % 2 == 0)
+                stream.append(b.buildOrderCancelRequest(Integer.toString(100_000 + i),
+                        Integer.toString(i), "AAPL", '1', 0L));
+        }
+        Files.writeString(log, stream, java.nio.charset.StandardCharsets.US_ASCII);
+
+        try (FlyweightConsumer consumer = new FlyweightConsumer();
+                java.nio.channels.FileChannel in = java.nio.channels.FileChannel.open(log)) {
+            consumer.setValidation(Validation.REJECT);
+            consumer.consumeStream(in, tempDir.resolve("metrics.txt"));
+            var map = consumer.getOpenOrdersMap();
+            assertEquals(1_000, map.size());
+            assertEquals(0, consumer.invalidMessages());
+            assertEquals(1_999, map.get(1_999L).quantity);
+            assertFalse(map.containsKey(2_000L));
+        }
+    }
+
+    @Test
+    void restartLoadsSnapshotAndReplaysOnlyTheTail() throws Exception {
+        tempDir = java.nio.file.Path.of("data", "test-" + System.nanoTime());
+        Files.createDirectories(tempDir);
+        Path queuePath = tempDir.resolve("fix.q");
+        Path snapshot = tempDir.resolve("orders.snap");
+        FixMessageBuilder b = new FixMessageBuilder("SND", "TGT");
+        String[] symbols = {"AAPL", "MSFT", "GOOGL"};
+        try (ChronicleQueueService svc = new ChronicleQueueService(queuePath)) {
+            for (int i = 1; i <= 300; i++)
+                svc.writeFix(b.buildNewOrderSingle(Integer.toString(i), symbols[i % 3], '1', i,
+                        100L * i, 0L));
+        }
+        try (FlyweightConsumer first = new FlyweightConsumer()) {
+            first.enableSnapshots(snapshot, 64);
+            first.consume(queuePath, tempDir.resolve("first.txt"));
+            assertEquals(300, first.getOpenOrdersMap().size());
+        }
+        String firstRun = Files.readString(tempDir.resolve("first.txt"));
+        assertTrue(firstRun.contains("replayed_messages=300\n"), firstRun);
+
+        // More traffic after the "crash": cancel the first 100 orders, add one new order
+        try (ChronicleQueueService svc = new ChronicleQueueService(queuePath)) {
+            for (int i = 1; i <= 100; i++)
+                svc.writeFix(b.buildOrderCancelRequest("C" + i, Integer.toString(i), "AAPL", '1',
+                        0L));
+            svc.writeFix(b.buildNewOrderSingle("301", "TSLA", '2', 7, 70_000, 0L));
+        }
+        Path metrics = tempDir.resolve("second.txt");
+        try (FlyweightConsumer second = new FlyweightConsumer()) {
+            second.enableSnapshots(snapshot, 1_000);
+            second.consume(queuePath, metrics);
+            var map = second.getOpenOrdersMap();
+            assertEquals(201, map.size());
+            assertFalse(map.containsKey(100L));
+            Order ord = map.get(200L);
+            assertEquals(200, ord.quantity);
+            assertEquals(20_000, ord.priceCents);
+            assertEquals("GOOGL", second.symbols().symbol(ord.symbolId));
+            assertEquals("TSLA", second.symbols().symbol(map.get(301L).symbolId));
+        }
+        String content = Files.readString(metrics);
+        assertTrue(content.contains("recovered_orders=300\n"), content);
+        assertTrue(content.contains("replayed_messages=101\n"), content);
+        assertTrue(content.contains("startup_ms="), content);
+    }
+}
@@ -10,6 +10,8 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import com.fix.performance.fix.FixMessageBuilder;
 import com.fix.performance.queue.ChronicleQueueService;
+import com.fix.performance.ring.Backpressure;
+import net.openhft.chronicle.bytes.Bytes;
 
 public class QuickFIXJConsumerTest {
     private Path tempDir;
@@ -107,6 +109,134 @@ public class QuickFIXJConsumerTest {
             assertEquals(1, map.size());
         }
     }
-}
 
+    @Test
+    void tinyBlockingRingsStillDeliverEverything() throws Exception {
+        tempDir = java.nio.file.Path.of("data", "test-" + System.nanoTime());
+        Files.createDirectories(tempDir);
+        Path queuePath = tempDir.resolve("fix.q");
+        Path metrics = tempDir.resolve("qfj.txt");
+        writeOrders(queuePath, 2_000);
+
+        try (QuickFIXJConsumer consumer = new QuickFIXJConsumer(2, 2, Backpressure.BLOCK)) {
+            consumer.consume(queuePath, metrics);
+            assertEquals(2_000, consumer.getOpenOrdersMap().size());
+            long processed = 0;
+            for (QuickFIXJConsumer.StripeStats s : consumer.stripeStats()) {
+                processed += s.processed();
+                assertEquals(0, s.dropped());
+                assertTrue(s.maxDepth() <= 2);
+            }
+            assertEquals(2_000, processed);
+        }
+        String content = Files.readString(metrics);
+        assertTrue(content.contains("backpressure=BLOCK\n"), content);
+        assertTrue(content.contains("ring_capacity=2\n"), content);
+        assertTrue(content.contains("stripe1: processed="), content);
+    }
+
+    @Test
+    void droppingRingsAccountForEveryMessage() throws Exception {
+        tempDir = java.nio.file.Path.of("data", "test-" + System.nanoTime());
+        Files.createDirectories(tempDir);
+        Path queuePath = tempDir.resolve("fix.q");
+        writeOrders(queuePath, 5_000);
+
+        try (QuickFIXJConsumer consumer = new QuickFIXJConsumer(1, 1, Backpressure.DROP)) {
+            consumer.consume(queuePath, tempDir.resolve("qfj.txt"));
+            QuickFIXJConsumer.StripeStats s = consumer.stripeStats().get(0);
+            assertEquals(5_000, s.processed() + s.dropped());
+            assertEquals(0, s.stalls());
+            assertEquals(s.processed(), consumer.getOpenOrdersMap().size());
+        }
+    }
+
+    @Test
+    void virtualLanesKeepPerOrderOrdering() throws Exception {
+        tempDir = java.nio.file.Path.of("data", "test-" + System.nanoTime());
+        Files.createDirectories(tempDir);
+        Path queuePath = tempDir.resolve("fix.q");
+        Path metrics = tempDir.resolve("qfj-vt.txt");
+        FixMessageBuilder b = new FixMessageBuilder("SND", "TGT");
+        try (ChronicleQueueService svc = new ChronicleQueueService(queuePath)) {
+            // Each cancel directly follows its order, so it only lands if the lane kept order
+            for (int i = 1; i <= 2_000; i++) {
+                String id = Integer.toString(i);
+                svc.writeFix(b.buildNewOrderSingle(id, "AAPL", '1', 100, 12345, 0L));
+                if (i % 2 == 0)
+                    svc.writeFix(b.buildOrderCancelRequest("C" + id, id, "AAPL", '1', 0L));
+            }
+        }
+
+        try (QuickFIXJConsumer consumer = QuickFIXJConsumer.withVirtualThreads(64)) {
+            consumer.consume(queuePath, metrics);
+            var map = consumer.getOpenOrdersMap();
+            assertEquals(1_000, map.size());
+            assertTrue(map.containsKey("1"));
+            assertFalse(map.containsKey("2"));
+        }
+        String content = Files.readString(metrics);
+        assertTrue(content.contains("mode=virtual\n"), content);
+        assertTrue(content.contains("lanes=64\n"), content);
+        assertTrue(content.contains("virtual_threads_started="), content);
+    }
+
+    @Test
+    void pooledStripesRecycleCancelledOrders() throws Exception {
+        tempDir = java.nio.file.Path.of("data", "test-" + System.nanoTime());
+        Files.createDirectories(tempDir);
+        Path queuePath = tempDir.resolve("fix.q");
+        Path metrics = tempDir.resolve("qfj-pooled.txt");
+        FixMessageBuilder b = new FixMessageBuilder("SND", "TGT");
+        try (ChronicleQueueService svc = new ChronicleQueueService(queuePath)) {
+            // Each even order reuses the odd one cancelled just before it
+            for (int i = 1; i <= 1_000; i++) {
+                String id = Integer.toString(i);
+                svc.writeFix(b.buildNewOrderSingle(id, "AAPL", '1', i, 12345, 0L));
+                if (i % 2 == 1)
+                    svc.writeFix(b.buildOrderCancelRequest("C" + id, id, "AAPL", '1', 0L));
+            }
+        }
 
+        try (QuickFIXJConsumer consumer =
+                QuickFIXJConsumer.pooled(1, 1 << 10, Backpressure.BLOCK)) {
+            consumer.consume(queuePath, metrics);
+            var map = consumer.getOpenOrdersMap();
+            assertEquals(500, map.size());
+            assertFalse(map.containsKey("1"));
+            assertEquals(1_000, map.get("1000").quantity);
+            assertEquals(12345, map.get("2").priceCents);
+        }
+        String content = Files.readString(metrics);
+        assertTrue(content.contains("pooled=true\n"), content);
+        assertTrue(content.contains("pooled_fallback_parses=0\n"), content);
+        assertTrue(content.contains("orders_reused=500\n"), content);
+    }
+
+    @Test
+    void routingHashMatchesParsedKeyHash() {
+        FixMessageBuilder b = new FixMessageBuilder("SND", "TGT");
+        Bytes<?> nos = Bytes.from(b.buildNewOrderSingle("ORD-12345", "AAPL", '1', 1, 1, 0L));
+        Bytes<?> cancel =
+                Bytes.from(b.buildOrderCancelRequest("C-9", "ORD-12345", "AAPL", '1', 0L));
+        Bytes<?> other = Bytes.from("8=FIX.4.4\u00019=5\u000135=8\u000111=1\u0001");
+
+        assertEquals("ORD-12345".hashCode(), routingHash(nos));
+        assertEquals("ORD-12345".hashCode(), routingHash(cancel));
+        assertEquals(Long.MIN_VALUE, routingHash(other));
+    }
+
+    private static long routingHash(Bytes<?> bytes) {
+        return QuickFIXJConsumer.routingHash(bytes.bytesStore(), bytes.readPosition(),
+                bytes.readLimit());
+    }
+
+    private static void writeOrders(Path queuePath, int count) {
+        FixMessageBuilder b = new FixMessageBuilder("SND", "TGT");
+        try (ChronicleQueueService svc = new ChronicleQueueService(queuePath)) {
+            for (int i = 1; i <= count; i++)
+                svc.writeFix(b.buildNewOrderSingle(Integer.toString(i), "AAPL", '1', 100, 12345,
+                        0L));
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.fix.performance;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import com.fix.performance.fix.FixMessageBuilder;
+import com.fix.performance.queue.ChronicleQueueService;
+import net.openhft.chronicle.bytes.Bytes;
+
+public class ShardedFlyweightConsumerTest {
+    private Path tempDir;
+
+    @AfterEach
+    void cleanup() throws Exception {
+        if (tempDir != null) {
+            Files.walk(tempDir).sorted((a, b) -> b.getNameCount() - a.getNameCount()).forEach(p -> {
+                try {
+                    Files.deleteIfExists(p);
+                } catch (Exception ignored) {
+                }
+            });
+        }
+    }
+
+    @AfterAll
+    static void cleanupAll() throws Exception {
+        Path dataDir = java.nio.file.Path.of("data");
+        if (!java.nio.file.Files.exists(dataDir))
+            return;
+        try (java.util.stream.Stream<Path> stream = java.nio.file.Files.list(dataDir)) {
+            stream.filter(p -> p.getFileName().toString().startsWith("test-")).forEach(p -> {
+                try {
+                    java.nio.file.Files.walk(p)
+                            .sorted((a, b) -> b.getNameCount() - a.getNameCount()).forEach(q -> {
+                                try {
+                                    java.nio.file.Files.deleteIfExists(q);
+                                } catch (Exception ignored) {
+                                }
+                            });
+                } catch (Exception ignored) {
+                }
+            });
+        }
+    }
+
+    @Test
+    void partitionsOrdersAndKeepsPerKeyOrder() throws Exception {
+        tempDir = java.nio.file.Path.of("data", "test-" + System.nanoTime());
+        Files.createDirectories(tempDir);
+        Path queuePath = tempDir.resolve("fix.q");
+
+        FixMessageBuilder b = new FixMessageBuilder("SND", "TGT");
+        try (ChronicleQueueService svc = new ChronicleQueueService(queuePath)) {
+            // Every odd order is cancelled right after it is placed
+            for (int i = 1; i <= 1_000; i++) {
+                svc.writeFix(b.buildNewOrderSingle(Integer.toString(i), "AAPL", '1', i, 100 + i,
+                        System.nanoTime()));
+                if (i % 2 == 1)
+                    svc.writeFix(b.buildOrderCancelRequest(Integer.toString(100_000 + i),
+                            Integer.toString(i), "AAPL", '1', System.nanoTime()));
+            }
+        }
+
+        // Tiny rings force the reader to stall on full shards
+        try (ShardedFlyweightConsumer consumer = new ShardedFlyweightConsumer(4, 8)) {
+            Path metrics = tempDir.resolve("sharded.txt");
+            consumer.consume(queuePath, metrics);
+            assertEquals(500, consumer.openOrderCount());
+            for (int i = 1; i <= 1_000; i++) {
+                if (i % 2 == 1) {
+                    assertNull(consumer.openOrder(i), "order " + i + " should be cancelled");
+                } else {
+                    assertNotNull(consumer.openOrder(i), "order " + i + " should be open");
+                    assertEquals(i, consumer.openOrder(i).quantity);
+                    assertEquals("AAPL", consumer.symbols().symbol(consumer.openOrder(i).symbolId));
+                }
+            }
+            for (int s = 0; s < consumer.shardCount(); s++)
+                assertTrue(consumer.shardIndex(s).size() > 0, "shard " + s + " received no orders");
+            String report = Files.readString(metrics);
+            assertTrue(report.contains("messages=1500"), report);
+            assertTrue(report.contains("shard3:"), report);
+        }
+    }
+
+    @Test
+    void malformedTokenDoesNotHideTheFieldAfterIt() {
+        FixMessageBuilder b = new FixMessageBuilder("SND", "TGT");
+        String nos = b.buildNewOrderSingle("77", "AAPL", '1', 100, 12345, 0L);
+        String cancel = b.buildOrderCancelRequest("78", "77", "AAPL", '1', 0L);
+        // Junk right before MsgType and the key, an empty token, and a tag with no digits
+        for (String junk : new String[] {"X1=junk\u0001", "\u0001", "=v\u0001"}) {
+            String badNos = nos.replace("\u000135=", "\u0001" + junk + "35=")
+                    .replace("\u000111=", "\u0001" + junk + "11=");
+            assertEquals(77L, ShardedFlyweightConsumer.routingKey(Bytes.from(badNos)));
+            assertEquals(77L, ShardedFlyweightConsumer.routingKey(
+                    Bytes.from(cancel.replace("\u000141=", "\u0001" + junk + "41="))));
+        }
+    }
+
+    @Test
+    void refusesMessagesThatCanMoveAnOrderBetweenShards() {
+        FixMessageBuilder b = new FixMessageBuilder("SND", "TGT");
+        String replace = b.buildOrderCancelReplaceRequest("78", "77", "AAPL", '1', 200, 12345, 0L);
+        String fill = b.buildExecutionReport("77", "E1", 'F', '2', "AAPL", '1', 100, 100, 12345,
+                100, 12345, 0L);
+        assertThrows(IllegalStateException.class,
+                () -> ShardedFlyweightConsumer.routingKey(Bytes.from(replace)));
+        assertThrows(IllegalStateException.class,
+                () -> ShardedFlyweightConsumer.routingKey(Bytes.from(fill)));
+    }
+}
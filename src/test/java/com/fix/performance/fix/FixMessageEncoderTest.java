@@ -0,0 +1,171 @@
+package com.fix.performance.fix;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import org.junit.jupiter.api.Test;
+import net.openhft.chronicle.bytes.Bytes;
+
+public class FixMessageEncoderTest {
+    private static final DateTimeFormatter SENDING_TIME_FMT =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HH:mm:ss.SSS").withZone(ZoneOffset.UTC);
+
+    @Test
+    void newOrderSingleMatchesBuilderApartFromSendingTime() {
+        FixMessageBuilder builder = new FixMessageBuilder("SND", "TGT");
+        try (FixMessageEncoder encoder = new FixMessageEncoder("SND", "TGT")) {
+            String expected = builder.buildNewOrderSingle("42", "AAPL", '1', 300, 12345, 987654321L);
+            String actual = ascii(encoder.encodeNewOrderSingle(42, "AAPL", '1', 300, 12345,
+                    987654321L));
+            assertValidFraming(actual);
+            assertEquals(withoutVolatileFields(expected), withoutVolatileFields(actual));
+        }
+    }
+
+    @Test
+    void cancelMatchesBuilderApartFromSendingTime() {
+        FixMessageBuilder builder = new FixMessageBuilder("SND", "TGT");
+        try (FixMessageEncoder encoder = new FixMessageEncoder("SND", "TGT")) {
+            String expected = builder.buildOrderCancelRequest("7", "3", "MSFT", '2', 5L);
+            String actual = ascii(encoder.encodeOrderCancelRequest(7, 3, "MSFT", '2', 5L));
+            assertValidFraming(actual);
+            assertEquals(withoutVolatileFields(expected), withoutVolatileFields(actual));
+        }
+    }
+
+    @Test
+    void replaceAndExecutionReportMatchBuilderApartFromSendingTime() {
+        FixMessageBuilder builder = new FixMessageBuilder("SND", "TGT");
+        try (FixMessageEncoder encoder = new FixMessageEncoder("SND", "TGT")) {
+            String replace = ascii(encoder.encodeOrderCancelReplaceRequest(9, 3, "MSFT", '2', 400,
+                    10_050, 5L));
+            assertValidFraming(replace);
+            assertEquals(withoutVolatileFields(builder.buildOrderCancelReplaceRequest("9", "3",
+                    "MSFT", '2', 400, 10_050, 5L)), withoutVolatileFields(replace));
+
+            String fill = ascii(encoder.encodeExecutionReport(9, 17, 'F', '1', "MSFT", '2', 400,
+                    100, 10_050, 300, 10_025, 6L, FixMessageBuilder.NO_SEND_TIME));
+            assertValidFraming(fill);
+            assertEquals(withoutVolatileFields(builder.buildExecutionReport("9", "17", 'F', '1',
+                    "MSFT", '2', 400, 100, 10_050, 300, 10_025, 6L)),
+                    withoutVolatileFields(fill));
+            assertEquals("100", field(fill, "151"));
+        }
+    }
+
+    @Test
+    void negativeAndLargeValuesEncodeLikeBuilder() {
+        FixMessageBuilder builder = new FixMessageBuilder("S", "T");
+        try (FixMessageEncoder encoder = new FixMessageEncoder("S", "T")) {
+            String expected = builder.buildNewOrderSingle(Long.toString(Long.MAX_VALUE), "X", '2',
+                    Integer.MAX_VALUE, -5, Long.MIN_VALUE);
+            String actual = ascii(encoder.encodeNewOrderSingle(Long.MAX_VALUE, "X", '2',
+                    Integer.MAX_VALUE, -5, Long.MIN_VALUE));
+            assertValidFraming(actual);
+            assertEquals(withoutVolatileFields(expected), withoutVolatileFields(actual));
+        }
+    }
+
+    @Test
+    void sendTimestampFollowsSendingTimeLikeBuilder() {
+        FixMessageBuilder builder = new FixMessageBuilder("SND", "TGT");
+        long stamp = 1_700_000_000_123_456_789L;
+        try (FixMessageEncoder encoder = new FixMessageEncoder("SND", "TGT")) {
+            String expected = builder.buildNewOrderSingle("42", "AAPL", '1', 300, 12345, 9L, stamp);
+            String actual =
+                    ascii(encoder.encodeNewOrderSingle(42, "AAPL", '1', 300, 12345, 9L, stamp));
+            assertValidFraming(actual);
+            assertEquals(withoutVolatileFields(expected), withoutVolatileFields(actual));
+            assertEquals(Long.toString(stamp), field(actual, "50001"));
+            assertTrue(actual.indexOf("\u000150001=") > actual.indexOf("\u000152="));
+            assertTrue(actual.indexOf("\u000150001=") < actual.indexOf("\u000111="));
+
+            String cancel = ascii(encoder.encodeOrderCancelRequest(7, 42, "AAPL", '1', 9L, stamp));
+            assertValidFraming(cancel);
+            assertEquals(withoutVolatileFields(
+                    builder.buildOrderCancelRequest("7", "42", "AAPL", '1', 9L, stamp)),
+                    withoutVolatileFields(cancel));
+        }
+    }
+
+    @Test
+    void sendingTimeFollowsClock() {
+        MutableClock clock = new MutableClock(Instant.parse("2024-02-29T23:59:59.998Z"));
+        try (FixMessageEncoder encoder = new FixMessageEncoder("S", "T", clock)) {
+            for (int i = 0; i < 5; i++) {
+                String msg = ascii(encoder.encodeOrderCancelRequest(i, 1, "X", '1', 0));
+                assertValidFraming(msg);
+                assertEquals(SENDING_TIME_FMT.format(clock.instant()), field(msg, "52"));
+                clock.now = clock.now.plusMillis(1);
+            }
+            clock.now = Instant.parse("1999-12-31T00:00:00.000Z");
+            String msg = ascii(encoder.encodeOrderCancelRequest(9, 1, "X", '1', 0));
+            assertEquals("19991231-00:00:00.000", field(msg, "52"));
+        }
+    }
+
+    private static void assertValidFraming(String msg) {
+        assertTrue(msg.startsWith("8=FIX.4.4\u00019="), "BeginString/BodyLength first");
+        int bodyStart = msg.indexOf('\u0001', 10) + 1;
+        int checksumStart = msg.lastIndexOf("10=");
+        assertEquals(Integer.parseInt(field(msg, "9")), checksumStart - bodyStart, "BodyLength");
+        byte[] prefix = msg.substring(0, checksumStart).getBytes(StandardCharsets.US_ASCII);
+        assertEquals(String.format("%03d", FixMessageBuilder.checksum(prefix)),
+                field(msg, "10"), "CheckSum");
+        assertTrue(msg.endsWith("\u0001"), "Trailing SOH");
+    }
+
+    /** Drops SendingTime and CheckSum, the only fields that depend on the wall clock. */
+    private static String withoutVolatileFields(String msg) {
+        StringBuilder sb = new StringBuilder();
+        for (String f : msg.split("\u0001")) {
+            if (f.startsWith("52=") || f.startsWith("10="))
+                continue;
+            sb.append(f).append('|');
+        }
+        return sb.toString();
+    }
+
+    private static String field(String msg, String tag) {
+        String needle = "\u0001" + tag + "=";
+        int i = msg.startsWith(tag + "=") ? -1 : msg.indexOf(needle);
+        int s = i + needle.length();
+        int e = msg.indexOf('\u0001', s);
+        return msg.substring(s, e);
+    }
+
+    private static String ascii(Bytes<?> bytes) {
+        StringBuilder sb = new StringBuilder();
+        for (long i = bytes.readPosition(); i < bytes.readLimit(); i++)
+            sb.append((char) bytes.readUnsignedByte(i));
+        return sb.toString();
+    }
+
+    private static final class MutableClock extends Clock {
+        Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
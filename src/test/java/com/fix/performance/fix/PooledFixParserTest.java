@@ -0,0 +1,61 @@
+package com.fix.performance.fix;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import quickfix.DataDictionary;
+import quickfix.InvalidMessage;
+import quickfix.Message;
+
+public class PooledFixParserTest {
+    private static final FixMessageBuilder BUILDER = new FixMessageBuilder("SND", "TGT");
+
+    @Test
+    void reusesOneMessageAndMatchesFromString() throws Exception {
+        DataDictionary dd = new DataDictionary("FIX44.xml");
+        PooledFixParser parser = new PooledFixParser(dd, "D", "F");
+        String nos = BUILDER.buildNewOrderSingle("42", "AAPL", '1', 300, 12345, 1L,
+                987654321L);
+
+        Message pooled = parser.parse(nos);
+        Message expected = new Message();
+        expected.fromString(nos, dd, false);
+        assertEquals(expected.getHeader().getString(35), pooled.getHeader().getString(35));
+        assertEquals(expected.getHeader().getString(49), pooled.getHeader().getString(49));
+        assertEquals(expected.getString(11), pooled.getString(11));
+        assertEquals(expected.getString(55), pooled.getString(55));
+        assertEquals(expected.getInt(38), pooled.getInt(38));
+        assertEquals(expected.getString(44), pooled.getString(44));
+        assertEquals(expected.getTrailer().getString(10), pooled.getTrailer().getString(10));
+        assertEquals("987654321", pooled.getString(FixMessageBuilder.SEND_EPOCH_NANOS_TAG));
+
+        // A cancel into the same instance must not keep the order's body fields
+        Message cancel = parser.parse(BUILDER.buildOrderCancelRequest("43", "42", "AAPL", '1', 5L));
+        assertSame(pooled, cancel);
+        assertEquals("F", cancel.getHeader().getString(35));
+        assertEquals("42", cancel.getString(41));
+        assertFalse(cancel.isSetField(44));
+        assertEquals(2, parser.parsed());
+        assertEquals(0, parser.fallbacks());
+    }
+
+    @Test
+    void unregisteredTypesFallBackToFromString() throws Exception {
+        PooledFixParser parser = new PooledFixParser(new DataDictionary("FIX44.xml"), "D");
+        Message msg = parser.parse(BUILDER.buildOrderCancelRequest("43", "42", "AAPL", '1', 5L));
+        assertEquals("42", msg.getString(41));
+        assertTrue(msg.getHeader().isSetField(49));
+        assertEquals(1, parser.fallbacks());
+    }
+
+    @Test
+    void rejectsMalformedFields() throws Exception {
+        PooledFixParser parser = new PooledFixParser(new DataDictionary("FIX44.xml"), "D");
+        assertThrows(InvalidMessage.class, () -> parser.parse("8=FIX.4.4\u0001x5=D\u0001"));
+        assertThrows(InvalidMessage.class, () -> parser.parse("8=FIX.4.4\u000111\u0001"));
+        assertThrows(InvalidMessage.class, () -> parser.parse("8=FIX.4.4\u000111=1\u0001"));
+    }
+}
@@ -0,0 +1,84 @@
+package com.fix.performance.flyweight;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import com.fix.performance.fix.FixMessageBuilder;
+import net.openhft.chronicle.bytes.Bytes;
+
+public class FixViewTest {
+
+    @Test
+    void looksUpAnyFieldAfterOneScan() {
+        FixMessageBuilder b = new FixMessageBuilder("SENDER", "TARGET");
+        FixView view = new FixView().wrap(
+                Bytes.from(b.buildNewOrderSingle("123456789", "AAPL", '2', 500, 18_725, 0L, 77L)));
+
+        assertEquals('D', view.getChar(35));
+        assertEquals(123456789L, view.getLong(11));
+        assertEquals(500, view.getInt(38));
+        assertEquals(18_725, view.getPriceCents(44));
+        assertEquals(77L, view.getLong(FixMessageBuilder.SEND_EPOCH_NANOS_TAG));
+        assertTrue(view.valueEquals(49, "SENDER".getBytes(StandardCharsets.US_ASCII)));
+        assertFalse(view.valueEquals(49, "SEND".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals("AAPL", view.appendValue(55, new StringBuilder()).toString());
+        assertEquals(4, view.valueLength(55));
+        assertFalse(view.has(41));
+        assertEquals(Integer.MIN_VALUE, view.getInt(41));
+        assertEquals(-1, view.valueStart(99_999));
+    }
+
+    @Test
+    void nothingMatchesBeforeTheFirstWrap() {
+        FixView view = new FixView();
+        assertFalse(view.has(0));
+        assertFalse(view.has(35));
+        assertFalse(view.has(50_001));
+    }
+
+    @Test
+    void rewrapForgetsPreviousFields() {
+        FixView view = new FixView();
+        view.wrap(Bytes.from(fix("35=D|44=1.5|50001=9|6000=x|")));
+        assertTrue(view.has(44));
+        assertTrue(view.has(6000));
+
+        view.wrap(Bytes.from(fix("35=F|41=3|")));
+        assertFalse(view.has(44));
+        assertFalse(view.has(50_001));
+        assertFalse(view.has(6000));
+        assertEquals(3L, view.getLong(41));
+        assertEquals(2, view.fieldCount());
+    }
+
+    @Test
+    void repeatedTagsResolveToFirstOccurrenceAndBadTokensAreSkipped() {
+        FixView view = new FixView(64);
+        view.wrap(Bytes.from(fix("35=8|453=2|448=A|448=B|junk|=5|7x=1|58=ok|")));
+        assertEquals("A", view.appendValue(448, new StringBuilder()).toString());
+        assertEquals(2, view.getInt(453));
+        assertEquals("ok", view.appendValue(58, new StringBuilder()).toString());
+        assertEquals(5, view.fieldCount());
+    }
+
+    @Test
+    void overflowTableGrowsForManyHighTags() {
+        StringBuilder msg = new StringBuilder("35=D|");
+        for (int tag = 5000; tag < 5100; tag++)
+            msg.append(tag).append('=').append(tag * 2).append('|');
+        FixView view = new FixView(64);
+        for (int round = 0; round < 3; round++) {
+            view.wrap(Bytes.from(fix(msg.toString())));
+            for (int tag = 5000; tag < 5100; tag++)
+                assertEquals(tag * 2, view.getInt(tag), "tag " + tag);
+            assertFalse(view.has(5100));
+            assertFalse(view.has(63));
+        }
+    }
+
+    private static String fix(String pipes) {
+        return pipes.replace('|', '\u0001');
+    }
+}
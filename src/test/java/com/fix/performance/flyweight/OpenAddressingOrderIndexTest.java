@@ -0,0 +1,71 @@
+package com.fix.performance.flyweight;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class OpenAddressingOrderIndexTest {
+
+    @Test
+    void putGetRemove() {
+        OpenAddressingOrderIndex idx = new OpenAddressingOrderIndex(4);
+        Order a = new Order("AAPL", 100, 12345);
+        Order b = new Order("MSFT", 200, 23456);
+
+        assertNull(idx.put(1L, a));
+        assertNull(idx.put(2L, b));
+        assertEquals(2, idx.size());
+        assertSame(a, idx.get(1L));
+        assertTrue(idx.containsKey(2L));
+        assertFalse(idx.containsKey(3L));
+
+        assertSame(a, idx.put(1L, b));
+        assertSame(b, idx.remove(1L));
+        assertNull(idx.remove(1L));
+        assertEquals(1, idx.size());
+    }
+
+    @Test
+    void growsAndKeepsEntries() {
+        OpenAddressingOrderIndex idx = new OpenAddressingOrderIndex(0);
+        Order o = new Order("AAPL", 1, 1);
+        for (long k = 1; k <= 10_000; k++)
+            idx.put(k, o);
+        assertEquals(10_000, idx.size());
+        assertTrue(idx.capacity() >= 10_000);
+        for (long k = 1; k <= 10_000; k++)
+            assertTrue(idx.containsKey(k), "missing key " + k);
+    }
+
+    @Test
+    void matchesHashMapUnderRandomChurn() {
+        OpenAddressingOrderIndex idx = new OpenAddressingOrderIndex(64);
+        Map<Long, Order> reference = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            // Small key space forces long probe clusters and many backward shifts
+            long key = random.nextInt(2_000) - 1_000L;
+            if (random.nextInt(3) == 0) {
+                assertSame(reference.remove(key), idx.remove(key));
+            } else {
+                Order o = new Order("S", i, i);
+                assertSame(reference.put(key, o), idx.put(key, o));
+            }
+        }
+        assertEquals(reference.size(), idx.size());
+        for (var e : reference.entrySet())
+            assertSame(e.getValue(), idx.get(e.getKey()));
+        int[] visited = {0};
+        idx.forEach((k, v) -> {
+            assertSame(reference.get(k), v);
+            visited[0]++;
+        });
+        assertEquals(reference.size(), visited[0]);
+    }
+}
@@ -0,0 +1,127 @@
+package com.fix.performance.flyweight;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class OrderSnapshotterTest {
+    private Path tempDir;
+
+    @AfterEach
+    void cleanup() throws Exception {
+        if (tempDir != null) {
+            Files.walk(tempDir).sorted((a, b) -> b.getNameCount() - a.getNameCount()).forEach(p -> {
+                try {
+                    Files.deleteIfExists(p);
+                } catch (Exception ignored) {
+                }
+            });
+        }
+    }
+
+    @Test
+    void roundTripsOrdersAndRemapsSymbolIds() throws Exception {
+        tempDir = Path.of("data", "test-" + System.nanoTime());
+        Path file = tempDir.resolve("orders.snap");
+        SymbolTable symbols = new SymbolTable();
+        OrderIndex index = new OpenAddressingOrderIndex();
+        int msft = symbols.idOf("MSFT");
+        int aapl = symbols.idOf("AAPL");
+        for (long id = 1; id <= 100_000; id++) {
+            Order ord = new Order();
+            ord.set(id % 2 == 0 ? msft : aapl, (int) id, id * 10);
+            index.put(id, ord);
+        }
+        try (OrderSnapshotter snapshots = new OrderSnapshotter(file, 1)) {
+            assertTrue(snapshots.capture(index, symbols, 42, true));
+            snapshots.flush();
+            assertEquals(1, snapshots.written());
+            assertEquals(42, snapshots.lastWrittenIndex());
+        }
+        assertFalse(Files.exists(tempDir.resolve("orders.snap.tmp")));
+
+        // A fresh process interns symbols in a different order
+        SymbolTable restoredSymbols = new SymbolTable();
+        restoredSymbols.idOf("TSLA");
+        OrderIndex restored = new OpenAddressingOrderIndex();
+        assertEquals(42, OrderSnapshotter.load(file, restored, restoredSymbols));
+        assertEquals(100_000, restored.size());
+        Order ord = restored.get(77_778);
+        assertEquals("MSFT", restoredSymbols.symbol(ord.symbolId));
+        assertEquals(77_778, ord.quantity);
+        assertEquals(777_780, ord.priceCents);
+        assertEquals("AAPL", restoredSymbols.symbol(restored.get(1).symbolId));
+    }
+
+    @Test
+    void capturesLongerThanTheBudgetAreCounted() throws Exception {
+        tempDir = Path.of("data", "test-" + System.nanoTime());
+        SymbolTable symbols = new SymbolTable();
+        OrderIndex index = new OpenAddressingOrderIndex();
+        for (long id = 1; id <= 10_000; id++) {
+            Order ord = new Order();
+            ord.set(symbols.idOf("AAPL"), 1, 1);
+            index.put(id, ord);
+        }
+        // No copy of 10k orders takes under a nanosecond, and none takes an hour
+        try (OrderSnapshotter tight = new OrderSnapshotter(tempDir.resolve("a.snap"), 1, 1);
+                OrderSnapshotter loose = new OrderSnapshotter(tempDir.resolve("b.snap"), 1,
+                        3_600_000_000_000L)) {
+            for (int i = 0; i < 2; i++) {
+                assertTrue(tight.capture(index, symbols, i, true));
+                assertTrue(loose.capture(index, symbols, i, true));
+            }
+            assertEquals(2, tight.capturesOverBudget());
+            assertEquals(0, loose.capturesOverBudget());
+            assertTrue(tight.maxCaptureNs() > tight.captureBudgetNs());
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> new OrderSnapshotter(tempDir.resolve("c.snap"), 1, 0));
+    }
+
+    @Test
+    void latestSnapshotReplacesThePreviousOne() throws Exception {
+        tempDir = Path.of("data", "test-" + System.nanoTime());
+        Path file = tempDir.resolve("orders.snap");
+        SymbolTable symbols = new SymbolTable();
+        OrderIndex index = new OpenAddressingOrderIndex();
+        try (OrderSnapshotter snapshots = new OrderSnapshotter(file, 2)) {
+            for (long id = 1; id <= 10; id++) {
+                Order ord = new Order();
+                ord.set(symbols.idOf("S" + id), 1, 1);
+                index.put(id, ord);
+                snapshots.onProcessed(index, symbols, id);
+                // Keep both buffers free so no periodic snapshot is skipped
+                snapshots.flush();
+            }
+            assertEquals(5, snapshots.written());
+            assertEquals(0, snapshots.skipped());
+        }
+        OrderIndex restored = new OpenAddressingOrderIndex();
+        assertEquals(10, OrderSnapshotter.load(file, restored, new SymbolTable()));
+        assertEquals(10, restored.size());
+    }
+
+    @Test
+    void missingFileMeansNoSnapshotAndGarbageFailsFast() throws Exception {
+        tempDir = Path.of("data", "test-" + System.nanoTime());
+        Files.createDirectories(tempDir);
+        Path file = tempDir.resolve("orders.snap");
+        assertEquals(OrderSnapshotter.NO_SNAPSHOT,
+                OrderSnapshotter.load(file, new OpenAddressingOrderIndex(), new SymbolTable()));
+        // Garbage, and an empty snapshot whose magic differs from ours in the last byte
+        byte[] otherMagic = java.nio.ByteBuffer.allocate(24)
+                .order(java.nio.ByteOrder.LITTLE_ENDIAN).putLong(0x4F5244534E415031L).array();
+        for (byte[] content : new byte[][] {"not a snapshot at all".getBytes(), otherMagic}) {
+            Files.write(file, content);
+            assertThrows(IllegalStateException.class,
+                    () -> OrderSnapshotter.load(file, new OpenAddressingOrderIndex(),
+                            new SymbolTable()));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.fix.performance.flyweight;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+
+public class PriceLevelBookTest {
+
+    @Test
+    void aggregatesLevelsBestFirstOnEachSide() {
+        PriceLevelBook book = new PriceLevelBook();
+        book.add(0, Order.BUY, 10_000, 100);
+        book.add(0, Order.BUY, 10_010, 200);
+        book.add(0, Order.BUY, 10_000, 300);
+        book.add(0, Order.SELL, 10_020, 50);
+        book.add(0, Order.SELL, 10_015, 70);
+
+        assertEquals(10_010, book.bestBid(0));
+        assertEquals(10_015, book.bestAsk(0));
+        assertEquals(200, book.bestQuantity(0, Order.BUY));
+        assertEquals(2, book.depth(0, Order.BUY));
+
+        long[] prices = new long[3];
+        long[] qty = new long[3];
+        int[] orders = new int[3];
+        assertEquals(2, book.topLevels(0, Order.BUY, 3, prices, qty, orders));
+        assertArrayEquals(new long[] {10_010, 10_000, 0}, prices);
+        assertArrayEquals(new long[] {200, 400, 0}, qty);
+        assertArrayEquals(new int[] {1, 2, 0}, orders);
+        assertEquals(1, book.topLevels(0, Order.SELL, 1, prices, qty, null));
+        assertEquals(10_015, prices[0]);
+        assertEquals(70, qty[0]);
+    }
+
+    @Test
+    void levelDisappearsWithItsLastOrder() {
+        PriceLevelBook book = new PriceLevelBook();
+        book.add(3, Order.SELL, 500, 10);
+        book.add(3, Order.SELL, 500, 20);
+        book.remove(3, Order.SELL, 500, 10);
+        assertEquals(1, book.depth(3, Order.SELL));
+        assertEquals(20, book.bestQuantity(3, Order.SELL));
+        book.remove(3, Order.SELL, 500, 20);
+        assertEquals(0, book.depth(3, Order.SELL));
+        assertEquals(PriceLevelBook.NO_PRICE, book.bestAsk(3));
+        assertEquals(PriceLevelBook.NO_PRICE, book.bestBid(99));
+    }
+
+    @Test
+    void matchesATreeMapUnderRandomAddsAndRemoves() {
+        PriceLevelBook book = new PriceLevelBook();
+        TreeMap<Long, Long> expected = new TreeMap<>();
+        Random random = new Random(5);
+        long[][] live = new long[2_000][];
+        int liveCount = 0;
+        for (int i = 0; i < 50_000; i++) {
+            if (liveCount > 0 && (liveCount == live.length || random.nextBoolean())) {
+                int k = random.nextInt(liveCount);
+                long[] o = live[k];
+                live[k] = live[--liveCount];
+                book.remove(1, Order.BUY, o[0], o[1]);
+                if (expected.merge(o[0], -o[1], Long::sum) == 0)
+                    expected.remove(o[0]);
+            } else {
+                long[] o = {9_900 + random.nextInt(200), 1 + random.nextInt(1_000)};
+                live[liveCount++] = o;
+                book.add(1, Order.BUY, o[0], o[1]);
+                expected.merge(o[0], o[1], Long::sum);
+            }
+        }
+        long[] prices = new long[expected.size()];
+        long[] qty = new long[expected.size()];
+        assertEquals(expected.size(), book.topLevels(1, Order.BUY, prices.length, prices, qty,
+                null));
+        int i = 0;
+        for (var e : expected.descendingMap().entrySet()) {
+            assertEquals(e.getKey(), prices[i]);
+            assertEquals(e.getValue(), qty[i]);
+            i++;
+        }
+    }
+
+    @Test
+    void wideAskSideStaysOrderedThroughLevelChurnAndClear() {
+        PriceLevelBook book = new PriceLevelBook();
+        for (int round = 0; round < 2; round++) {
+            TreeMap<Long, Long> expected = new TreeMap<>();
+            Random random = new Random(11 + round);
+            // Nearly every add opens a new level and nearly every remove empties one
+            for (int i = 0; i < 200_000; i++) {
+                if (!expected.isEmpty() && random.nextInt(3) == 0) {
+                    Long price = expected.ceilingKey((long) random.nextInt(1_000_000));
+                    if (price == null)
+                        price = expected.firstKey();
+                    book.remove(2, Order.SELL, price, expected.remove(price));
+                } else {
+                    long price = random.nextInt(1_000_000);
+                    if (expected.containsKey(price))
+                        continue;
+                    long qty = 1 + random.nextInt(1_000);
+                    book.add(2, Order.SELL, price, qty);
+                    expected.put(price, qty);
+                }
+                if (i % 1_000 == 0)
+                    assertEquals(expected.firstKey(), book.bestAsk(2));
+            }
+            assertEquals(expected.size(), book.depth(2, Order.SELL));
+            assertEquals(expected.firstKey(), book.bestAsk(2));
+            assertEquals(expected.firstEntry().getValue(), book.bestQuantity(2, Order.SELL));
+            long[] prices = new long[100];
+            long[] qty = new long[100];
+            assertEquals(100, book.topLevels(2, Order.SELL, 100, prices, qty, null));
+            int i = 0;
+            for (var e : expected.entrySet()) {
+                if (i == 100)
+                    break;
+                assertEquals(e.getKey(), prices[i]);
+                assertEquals(e.getValue(), qty[i]);
+                i++;
+            }
+            book.clear();
+            assertEquals(0, book.depth(2, Order.SELL));
+            assertEquals(PriceLevelBook.NO_PRICE, book.bestAsk(2));
+        }
+    }
+}
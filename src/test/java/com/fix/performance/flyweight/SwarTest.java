@@ -0,0 +1,123 @@
+package com.fix.performance.flyweight;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesStore;
+
+public class SwarTest {
+    private static final byte[] ALPHABET =
+            "0123456789-./:=A\u0001 ".getBytes(StandardCharsets.ISO_8859_1);
+
+    @Test
+    void parsersMatchScalarOnEdgeCases() {
+        String[] cases = {"", "0", "7", "12345678", "123456789", "1234567812345678",
+                "1760600000123456789", "99999999999999999999", "-42", "4-2", "187.25", "187.2",
+                "187", ".5", "-0.07", "1.2.3", "12345678.123", "00000000000000001",
+                "2147483647", "2147483648", "12a45678", "1234567/", "1234567:", "-12345678.99"};
+        for (String s : cases)
+            assertSameAsScalar(s, 0);
+    }
+
+    @Test
+    void parsersMatchScalarOnRandomInput() {
+        Random rnd = new Random(11);
+        for (int n = 0; n < 20_000; n++) {
+            int len = rnd.nextInt(31);
+            StringBuilder sb = new StringBuilder(len);
+            boolean digitsOnly = rnd.nextBoolean();
+            for (int i = 0; i < len; i++) {
+                sb.append(digitsOnly ? (char) ('0' + rnd.nextInt(10))
+                        : (char) ALPHABET[rnd.nextInt(ALPHABET.length)]);
+            }
+            assertSameAsScalar(sb.toString(), rnd.nextInt(8));
+        }
+    }
+
+    @Test
+    void indexOfFindsFirstOccurrenceAtAnyOffset() {
+        for (int len = 0; len <= 24; len++) {
+            for (int at = 0; at <= len; at++) {
+                byte[] b = new byte[len];
+                for (int i = 0; i < len; i++)
+                    b[i] = (byte) ('a' + i % 26);
+                if (at < len)
+                    b[at] = 1;
+                // A later match and bytes with the high bit set must not shift the result
+                if (at + 1 < len)
+                    b[at + 1] = 1;
+                if (at > 0)
+                    b[at - 1] = (byte) 0x81;
+                Bytes<?> bytes = direct(b, 3);
+                long start = bytes.readPosition();
+                long end = bytes.readLimit();
+                assertEquals(start + at, Swar.indexOf(bytes.bytesStore(), start, end, (byte) 1),
+                        "len=" + len + " at=" + at);
+                bytes.releaseLast();
+            }
+        }
+    }
+
+    @Test
+    void byteSumMatchesScalarAtAnyOffsetAndLength() {
+        Random rnd = new Random(3);
+        for (int len = 0; len <= 40; len++) {
+            byte[] b = new byte[len];
+            rnd.nextBytes(b);
+            for (int offset = 0; offset < 8; offset++) {
+                Bytes<?> bytes = direct(b, offset);
+                long start = bytes.readPosition();
+                long end = bytes.readLimit();
+                assertEquals(Swar.byteSumScalar(bytes.bytesStore(), start, end),
+                        Swar.byteSum(bytes.bytesStore(), start, end),
+                        "len=" + len + " offset=" + offset);
+                bytes.releaseLast();
+            }
+        }
+    }
+
+    @Test
+    void digitBlockCheck() {
+        assertTrue(Swar.isEightDigits(word("01234567")));
+        assertTrue(Swar.isEightDigits(word("99999999")));
+        assertFalse(Swar.isEightDigits(word("0123456:")));
+        assertFalse(Swar.isEightDigits(word("/1234567")));
+        assertFalse(Swar.isEightDigits(word("1234.567")));
+        assertEquals(12_345_678L, Swar.parseEightDigits(word("12345678")));
+        assertEquals(90_000_001L, Swar.parseEightDigits(word("90000001")));
+    }
+
+    private static void assertSameAsScalar(String s, int offset) {
+        Bytes<?> bytes = direct(s.getBytes(StandardCharsets.ISO_8859_1), offset);
+        BytesStore<?, ?> store = bytes.bytesStore();
+        long start = bytes.readPosition();
+        long end = bytes.readLimit();
+        assertEquals(Swar.parseLongScalar(store, start, end), Swar.parseLong(store, start, end), s);
+        assertEquals(Swar.parseIntScalar(store, start, end), Swar.parseInt(store, start, end), s);
+        assertEquals(Swar.parsePriceCentsScalar(store, start, end),
+                Swar.parsePriceCents(store, start, end), s);
+        bytes.releaseLast();
+    }
+
+    /** Copies {@code b} behind {@code offset} filler bytes so reads start unaligned. */
+    private static Bytes<?> direct(byte[] b, int offset) {
+        Bytes<?> bytes = Bytes.allocateElasticDirect(64);
+        for (int i = 0; i < offset; i++)
+            bytes.writeByte((byte) '9');
+        bytes.write(b);
+        bytes.readSkip(offset);
+        return bytes;
+    }
+
+    private static long word(String eight) {
+        long w = 0;
+        byte[] b = eight.getBytes(StandardCharsets.US_ASCII);
+        for (int i = 7; i >= 0; i--)
+            w = (w << 8) | (b[i] & 0xFF);
+        return w;
+    }
+}
@@ -0,0 +1,87 @@
+package com.fix.performance.flyweight;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import net.openhft.chronicle.bytes.Bytes;
+
+public class SymbolTableTest {
+
+    @Test
+    void assignsDenseIdsAndResolvesThemBack() {
+        SymbolTable table = new SymbolTable();
+        Bytes<?> msg = Bytes.from("55=AAPL\u000155=MSFT\u000155=AAPL\u0001");
+        int aapl = table.idOf(msg.bytesStore(), 3, 7);
+        int msft = table.idOf(msg.bytesStore(), 11, 15);
+
+        assertEquals(0, aapl);
+        assertEquals(1, msft);
+        assertEquals(aapl, table.idOf(msg.bytesStore(), 19, 23));
+        assertEquals(aapl, table.idOf("AAPL"));
+        assertEquals("MSFT", table.symbol(msft));
+        assertEquals(2, table.size());
+        assertThrows(IllegalArgumentException.class, () -> table.symbol(2));
+    }
+
+    @Test
+    void prefixesAndEmptySymbolsAreDistinct() {
+        SymbolTable table = new SymbolTable(1);
+        int bt = table.idOf("BT");
+        int bta = table.idOf("BT.A");
+        int empty = table.idOf("");
+        assertNotEquals(bt, bta);
+        assertNotEquals(bt, empty);
+        assertEquals("", table.symbol(empty));
+        assertEquals(bta, table.idOf("BT.A"));
+    }
+
+    @Test
+    void keepsIdsStableAcrossResizes() {
+        SymbolTable table = new SymbolTable(4);
+        for (int i = 0; i < 20_000; i++)
+            assertEquals(i, table.idOf("S" + i));
+        for (int i = 0; i < 20_000; i++) {
+            assertEquals(i, table.idOf("S" + i));
+            assertEquals("S" + i, table.symbol(i));
+        }
+    }
+
+    @Test
+    void concurrentThreadsAgreeOnIds() throws Exception {
+        SymbolTable table = new SymbolTable(16);
+        int threads = 4;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<int[]>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    int[] ids = new int[2_000];
+                    for (int i = 0; i < ids.length; i++)
+                        ids[i] = table.idOf("SYM" + i);
+                    return ids;
+                }));
+            }
+            start.countDown();
+            int[] first = results.get(0).get();
+            for (Future<int[]> f : results) {
+                int[] ids = f.get();
+                for (int i = 0; i < ids.length; i++) {
+                    assertEquals(first[i], ids[i]);
+                    assertEquals("SYM" + i, table.symbol(ids[i]));
+                }
+            }
+            assertEquals(2_000, table.size());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.fix.performance.flyweight.gen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import com.fix.performance.fix.FixMessageBuilder;
+import net.openhft.chronicle.bytes.Bytes;
+
+public class GeneratedDecoderTest {
+
+    @Test
+    void decodesNewOrderSingleFromBuilder() {
+        FixMessageBuilder b = new FixMessageBuilder("SENDER", "TARGET");
+        NewOrderSingleDecoder nos = new NewOrderSingleDecoder();
+
+        assertTrue(nos.wrap(Bytes.from(
+                b.buildNewOrderSingle("123456789", "AAPL", '2', 500, 18_725, 0L, 42L))));
+        assertEquals(123456789L, nos.clOrdIDAsLong());
+        assertEquals("AAPL", nos.appendSymbol(new StringBuilder()).toString());
+        assertEquals('2', nos.side());
+        assertEquals(500, nos.orderQty());
+        assertEquals(18_725, nos.priceCents());
+        assertEquals("SENDER", nos.appendSenderCompID(new StringBuilder()).toString());
+        assertEquals(42L, nos.sendEpochNanos());
+        assertTrue(nos.hasBodyLength());
+    }
+
+    @Test
+    void absentFieldsResetBetweenMessages() {
+        FixMessageBuilder b = new FixMessageBuilder("SENDER", "TARGET");
+        NewOrderSingleDecoder nos = new NewOrderSingleDecoder();
+        nos.wrap(Bytes.from(b.buildNewOrderSingle("1", "AAPL", '1', 100, 100, 0L, 7L)));
+        assertTrue(nos.hasPrice());
+
+        nos.wrap(Bytes.from(fix("35=D|11=2|55=MSFT|54=1|38=10|40=1|")));
+        assertFalse(nos.hasPrice());
+        assertEquals(Long.MIN_VALUE, nos.priceCents());
+        assertEquals(FixMessageBuilder.NO_SEND_TIME, nos.sendEpochNanos());
+        assertEquals(2L, nos.clOrdIDAsLong());
+    }
+
+    @Test
+    void reportsTypeMismatch() {
+        FixMessageBuilder b = new FixMessageBuilder("SENDER", "TARGET");
+        OrderCancelRequestDecoder cancel = new OrderCancelRequestDecoder();
+        assertFalse(cancel.wrap(Bytes.from(b.buildNewOrderSingle("1", "AAPL", '1', 1, 1, 0L))));
+        assertTrue(cancel.wrap(Bytes.from(b.buildOrderCancelRequest("2", "1", "AAPL", '1', 0L))));
+        assertEquals(1L, cancel.origClOrdIDAsLong());
+        assertEquals(2L, cancel.clOrdIDAsLong());
+    }
+
+    @Test
+    void decodesCancelReplaceAndExecutionReport() {
+        OrderCancelReplaceRequestDecoder replace = new OrderCancelReplaceRequestDecoder();
+        assertTrue(replace.wrap(Bytes.from(
+                fix("8=FIX.4.4|9=60|35=G|11=8|41=7|55=IBM|54=1|38=250|40=2|44=101.5|10=000|"))));
+        assertEquals(7L, replace.origClOrdIDAsLong());
+        assertEquals(250, replace.orderQty());
+        assertEquals(10_150, replace.priceCents());
+        assertEquals('2', replace.ordType());
+
+        ExecutionReportDecoder er = new ExecutionReportDecoder();
+        assertTrue(er.wrap(Bytes.from(fix("8=FIX.4.4|9=99|35=8|37=O-1|11=8|17=E-1|150=F|39=1"
+                + "|453=2|448=ALICE|452=3|448=BOB|452=11|55=IBM|54=1|38=250|32=100|31=101.25"
+                + "|151=150|14=100|6=101.25|10=000|"))));
+        assertEquals("O-1", er.appendOrderID(new StringBuilder()).toString());
+        assertEquals('F', er.execType());
+        assertEquals('1', er.ordStatus());
+        assertEquals(100, er.lastQty());
+        assertEquals(10_125, er.lastPxCents());
+        assertEquals(150, er.leavesQty());
+        assertEquals(100, er.cumQty());
+        assertEquals(10_125, er.avgPxCents());
+        assertEquals(2, er.noPartyIDs());
+        assertFalse(er.hasText());
+    }
+
+    @Test
+    void fieldsPassedInByAnotherScanReadLikeAWrap() {
+        Bytes<?> msg = Bytes.from(fix("35=G|11=8|41=7|38=250|44=101.5|50001=42|"));
+        OrderCancelReplaceRequestDecoder replace = new OrderCancelReplaceRequestDecoder();
+        replace.wrap(msg);
+        replace.begin(msg.bytesStore());
+        // Offsets of "41=7" and "38=250" only
+        long base = msg.readPosition();
+        replace.field(41, base + 13, base + 14);
+        replace.field(38, base + 18, base + 21);
+        replace.field(9999, base, base + 1);
+        assertEquals(7L, replace.origClOrdIDAsLong());
+        assertEquals(250, replace.orderQty());
+        assertFalse(replace.hasClOrdID(), "fields from the previous wrap are gone");
+        assertFalse(replace.hasPrice());
+        assertEquals(FixMessageBuilder.NO_SEND_TIME, replace.sendEpochNanos());
+    }
+
+    private static String fix(String pipes) {
+        return pipes.replace('|', '\u0001');
+    }
+}
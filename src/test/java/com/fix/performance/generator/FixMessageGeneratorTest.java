@@ -121,6 +121,62 @@ public class FixMessageGeneratorTest {
         }
     }
 
+    @Test
+    void mixedFlowClosesEveryOrderThroughTheFlyweightConsumer() throws Exception {
+        tempDir = java.nio.file.Path.of("data", "test-" + System.nanoTime());
+        Files.createDirectories(tempDir);
+        Path queuePath = tempDir.resolve("fix.q");
+
+        GenerationResult res = new FixMessageGenerator().generate(queuePath, 5_000, 11L, "SND",
+                "TGT", null, null, new MessageMix(30, 30));
+        assertTrue(res.replaceCount() > 0);
+        assertTrue(res.execReportCount() > 0);
+        assertEquals(res.nosCount() + res.cancelCount() + res.replaceCount()
+                + res.execReportCount(), res.totalMessages());
+
+        try (ChronicleQueueService svc = new ChronicleQueueService(queuePath)) {
+            List<String> all = svc.readAll();
+            assertEquals(res.replaceCount(),
+                    all.stream().filter(m -> m.contains("35=G\u0001")).count());
+            assertEquals(res.execReportCount(),
+                    all.stream().filter(m -> m.contains("35=8\u0001")).count());
+        }
+        // Every order ends cancelled or filled, replaced ones under their latest ClOrdID
+        try (com.fix.performance.FlyweightConsumer consumer =
+                new com.fix.performance.FlyweightConsumer()) {
+            consumer.consume(queuePath);
+            assertEquals(0, consumer.getOpenOrdersMap().size());
+        }
+    }
+
+    @Test
+    void replaceQuantityAlwaysExceedsWhatIsAlreadyFilled() throws Exception {
+        tempDir = java.nio.file.Path.of("data", "test-" + System.nanoTime());
+        Files.createDirectories(tempDir);
+        Path queuePath = tempDir.resolve("fix.q");
+
+        new FixMessageGenerator().generate(queuePath, 20_000, 5L, "SND", "TGT", null, null,
+                new MessageMix(40, 40));
+        try (ChronicleQueueService svc = new ChronicleQueueService(queuePath)) {
+            // CumQty by live ClOrdID, carried over to the new ClOrdID on each replace
+            java.util.Map<String, Long> cumQty = new java.util.HashMap<>();
+            long partiallyFilledReplaces = 0;
+            for (String m : svc.readAll()) {
+                if (m.contains("35=8\u0001")) {
+                    cumQty.put(tag(m, "\u000111"), Long.parseLong(tag(m, "\u000114")));
+                } else if (m.contains("35=G\u0001")) {
+                    long cum = cumQty.getOrDefault(tag(m, "\u000141"), 0L);
+                    long qty = Long.parseLong(tag(m, "\u000138"));
+                    assertTrue(qty > cum, "OrderQty " + qty + " <= CumQty " + cum + ": " + m);
+                    cumQty.put(tag(m, "\u000111"), cum);
+                    if (cum > 0)
+                        partiallyFilledReplaces++;
+                }
+            }
+            assertTrue(partiallyFilledReplaces > 0, "no replace of a partially filled order");
+        }
+    }
+
     private static String tag(String msg, String tag) {
         String needle = tag + "=";
         int i = msg.indexOf(needle);
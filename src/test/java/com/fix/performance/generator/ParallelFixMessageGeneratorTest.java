@@ -0,0 +1,100 @@
+package com.fix.performance.generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import com.fix.performance.queue.ChronicleQueueService;
+
+public class ParallelFixMessageGeneratorTest {
+    private Path tempDir;
+
+    @AfterEach
+    void cleanup() throws Exception {
+        if (tempDir != null) {
+            Files.walk(tempDir).sorted((a, b) -> b.getNameCount() - a.getNameCount()).forEach(p -> {
+                try {
+                    Files.deleteIfExists(p);
+                } catch (Exception ignored) {
+                }
+            });
+        }
+    }
+
+    @Test
+    void outputDependsOnSeedNotThreadCount() throws Exception {
+        tempDir = java.nio.file.Path.of("data", "test-" + System.nanoTime());
+        ParallelFixMessageGenerator gen = new ParallelFixMessageGenerator(256);
+
+        GenerationResult single = gen.generate(tempDir.resolve("t1.q"), 3001, 99L, "SND", "TGT",
+                null, 1);
+        GenerationResult parallel = gen.generate(tempDir.resolve("t4.q"), 3001, 99L, "SND", "TGT",
+                null, 4);
+
+        assertEquals(3002, single.totalMessages(), "rounded up to whole order/cancel pairs");
+        assertEquals(single, parallel);
+        assertEquals(single.nosCount(), single.cancelCount());
+        assertEquals(withoutTimeFields(read(tempDir.resolve("t1.q"))),
+                withoutTimeFields(read(tempDir.resolve("t4.q"))));
+    }
+
+    @Test
+    void everyOrderIsCancelledWithin100Messages() throws Exception {
+        tempDir = java.nio.file.Path.of("data", "test-" + System.nanoTime());
+        // Small chunks so plenty of orders sit near a chunk boundary
+        new ParallelFixMessageGenerator(128).generate(tempDir.resolve("fix.q"), 5000, 7L, "SND",
+                "TGT", null, 3);
+
+        List<String> all = read(tempDir.resolve("fix.q"));
+        assertEquals(5000, all.size());
+        Map<String, Integer> nosIndex = new HashMap<>();
+        Map<String, Integer> cancelIndex = new HashMap<>();
+        for (int i = 0; i < all.size(); i++) {
+            String m = all.get(i);
+            assertEquals(Integer.toString(i + 1), tag(m, "11"), "ClOrdID is the stream position");
+            if (m.contains("\u000135=D\u0001"))
+                nosIndex.put(tag(m, "11"), i);
+            else
+                assertEquals(null, cancelIndex.put(tag(m, "41"), i), "one cancel per order");
+        }
+        assertEquals(nosIndex.keySet(), cancelIndex.keySet());
+        for (var e : nosIndex.entrySet()) {
+            int dist = cancelIndex.get(e.getKey()) - e.getValue();
+            assertTrue(dist > 0 && dist <= 100, "order " + e.getKey() + " cancelled after " + dist);
+        }
+    }
+
+    private static List<String> read(Path queuePath) {
+        try (ChronicleQueueService svc = new ChronicleQueueService(queuePath)) {
+            return svc.readAll();
+        }
+    }
+
+    /** Drops SendingTime, TransactTime and CheckSum, which depend on when a chunk was encoded. */
+    private static List<String> withoutTimeFields(List<String> messages) {
+        List<String> out = new ArrayList<>(messages.size());
+        for (String m : messages) {
+            StringBuilder sb = new StringBuilder();
+            for (String f : m.split("\u0001")) {
+                if (f.startsWith("52=") || f.startsWith("60=") || f.startsWith("10=")
+                        || f.startsWith("9="))
+                    continue;
+                sb.append(f).append('|');
+            }
+            out.add(sb.toString());
+        }
+        return out;
+    }
+
+    private static String tag(String msg, String tag) {
+        String needle = "\u0001" + tag + "=";
+        int s = msg.indexOf(needle) + needle.length();
+        return msg.substring(s, msg.indexOf('\u0001', s));
+    }
+}
@@ -0,0 +1,46 @@
+package com.fix.performance.generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import com.fix.performance.metrics.EpochNanoClock;
+
+public class SendPacerTest {
+
+    @Test
+    void intendedTimesFollowTheRateNotTheSender() throws Exception {
+        SendPacer pacer = new SendPacer(10_000); // one every 100 µs
+        long first = pacer.awaitNext();
+        long prev = first;
+        for (int i = 1; i < 50; i++) {
+            if (i == 20)
+                Thread.sleep(5); // stall the sender: later stamps must not shift
+            long t = pacer.awaitNext();
+            assertEquals(100_000L, t - prev, "spacing at " + i);
+            prev = t;
+        }
+        assertEquals(49L * 100_000, prev - first);
+        assertTrue(EpochNanoClock.now() >= prev, "never sends before the due time");
+        assertTrue(pacer.lateSends() > 0, "the stall made later sends late");
+        assertTrue(pacer.maxLagNs() >= 1_000_000, "lag " + pacer.maxLagNs());
+    }
+
+    @Test
+    void burstsShareTheirDueTime() {
+        SendPacer pacer = new SendPacer(100_000, 10); // 10 every 100 µs
+        long[] t = new long[30];
+        for (int i = 0; i < t.length; i++)
+            t[i] = pacer.awaitNext();
+        for (int i = 0; i < t.length; i++)
+            assertEquals(t[i - i % 10], t[i], "message " + i);
+        assertEquals(100_000L, t[10] - t[0]);
+        assertEquals(200_000L, t[20] - t[0]);
+    }
+
+    @Test
+    void rejectsNonPositiveRate() {
+        assertThrows(IllegalArgumentException.class, () -> new SendPacer(0));
+        assertThrows(IllegalArgumentException.class, () -> new SendPacer(1000, 0));
+    }
+}
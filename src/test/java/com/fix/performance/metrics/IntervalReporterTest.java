@@ -0,0 +1,65 @@
+package com.fix.performance.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.HdrHistogram.Recorder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class IntervalReporterTest {
+    private Path tempDir;
+
+    @AfterEach
+    void cleanup() throws Exception {
+        if (tempDir != null) {
+            Files.walk(tempDir).sorted((a, b) -> b.getNameCount() - a.getNameCount()).forEach(p -> {
+                try {
+                    Files.deleteIfExists(p);
+                } catch (Exception ignored) {
+                }
+            });
+        }
+    }
+
+    @Test
+    void writesIntervalsAndKeepsRunTotals() throws Exception {
+        tempDir = java.nio.file.Path.of("data", "test-" + System.nanoTime());
+        Path metrics = tempDir.resolve("fly.txt");
+        Recorder service = new Recorder(3);
+        Recorder e2e = new Recorder(3);
+        AtomicLong messages = new AtomicLong();
+
+        IntervalReporter reporter = IntervalReporter.beside(metrics, 20, messages::get)
+                .add("service", service).add("e2e", e2e).start();
+        for (int i = 1; i <= 10; i++) {
+            service.recordValue(i * 100);
+            messages.incrementAndGet();
+        }
+        Thread.sleep(60);
+        for (int i = 1; i <= 5; i++) {
+            service.recordValue(i * 100);
+            e2e.recordValue(i * 1_000);
+            messages.incrementAndGet();
+        }
+        reporter.close();
+
+        assertEquals(15, reporter.total("service").getTotalCount());
+        assertEquals(5, reporter.total("e2e").getTotalCount());
+        assertEquals(1000, reporter.total("service").getMaxValue());
+
+        List<String> csv = Files.readAllLines(tempDir.resolve("fly.csv"));
+        assertTrue(csv.get(0).startsWith("elapsed_ms,messages,msgs_per_sec,service_count,"),
+                csv.get(0));
+        assertEquals(3 + 2 * 6, csv.get(0).split(",").length);
+        assertTrue(csv.size() >= 3, "at least one timed interval plus the final one: " + csv);
+        long rowMessages = 0;
+        for (String row : csv.subList(1, csv.size()))
+            rowMessages += Long.parseLong(row.split(",")[1]);
+        assertEquals(15, rowMessages);
+        assertTrue(Files.size(tempDir.resolve("fly.hlog")) > 0);
+    }
+}
@@ -0,0 +1,159 @@
+package com.fix.performance.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import com.fix.performance.fix.FixMessageBuilder;
+import com.fix.performance.queue.ChronicleQueueService;
+import com.fix.performance.ring.WaitStrategy;
+
+public class FixAcceptorTest {
+    private static final long OLD_STAMP = 1_700_000_000_000_000_000L;
+    private Path tempDir;
+    private FixAcceptor acceptor;
+    private Thread acceptorThread;
+
+    @AfterEach
+    void cleanup() throws Exception {
+        if (acceptor != null)
+            stopAcceptor();
+        if (tempDir != null) {
+            Files.walk(tempDir).sorted((a, b) -> b.getNameCount() - a.getNameCount()).forEach(p -> {
+                try {
+                    Files.deleteIfExists(p);
+                } catch (Exception ignored) {
+                }
+            });
+        }
+    }
+
+    @Test
+    void loadClientReplayIsJournaledWithFreshStampsAndValidChecksums() throws Exception {
+        tempDir = Path.of("data", "test-" + System.nanoTime());
+        Path source = tempDir.resolve("source.q");
+        Path journal = tempDir.resolve("journal.q");
+        FixMessageBuilder b = new FixMessageBuilder("SND", "TGT");
+        List<String> sent = new ArrayList<>();
+        try (ChronicleQueueService svc = new ChronicleQueueService(source)) {
+            // Enough to fill the receive buffer many times over and cut messages at its end
+            for (int i = 0; i < 2_000; i++) {
+                String msg = i % 2 == 0
+                        ? b.buildNewOrderSingle(Integer.toString(i), "AAPL", '1', 100, 12345, 0L,
+                                OLD_STAMP)
+                        : b.buildOrderCancelRequest(Integer.toString(i), Integer.toString(i - 1),
+                                "AAPL", '1', 0L, OLD_STAMP);
+                sent.add(msg);
+                svc.writeFix(msg);
+            }
+        }
+
+        int port = startAcceptor(journal);
+        FixLoadClient client = new FixLoadClient(new InetSocketAddress("127.0.0.1", port), null);
+        assertEquals(sent.size(), client.replay(source));
+        assertEquals(sent.size(), client.restamped());
+        await(acceptor::messages, sent.size());
+        stopAcceptor();
+
+        List<String> journaled;
+        try (ChronicleQueueService svc = new ChronicleQueueService(journal)) {
+            journaled = svc.readAll();
+        }
+        assertEquals(sent.size(), journaled.size());
+        for (int i = 0; i < sent.size(); i++) {
+            String msg = journaled.get(i);
+            assertEquals(withoutStampAndChecksum(sent.get(i)), withoutStampAndChecksum(msg));
+            int trailer = msg.lastIndexOf("10=");
+            assertEquals(FixMessageBuilder.checksum(
+                    msg.substring(0, trailer).getBytes(StandardCharsets.US_ASCII)),
+                    Integer.parseInt(msg.substring(trailer + 3, trailer + 6)), msg);
+            int stamp = msg.indexOf("\u000150001=") + 7;
+            assertTrue(Long.parseLong(msg.substring(stamp, msg.indexOf('\u0001', stamp)))
+                    > OLD_STAMP);
+        }
+    }
+
+    @Test
+    void framesMessagesSplitAcrossManyReads() throws Exception {
+        tempDir = Path.of("data", "test-" + System.nanoTime());
+        Path journal = tempDir.resolve("journal.q");
+        FixMessageBuilder b = new FixMessageBuilder("SND", "TGT");
+        List<String> sent = List.of(b.buildNewOrderSingle("1", "AAPL", '1', 100, 12345, 0L),
+                b.buildNewOrderSingle("2", "MSFT", '2', 200, 23456, 0L),
+                b.buildOrderCancelRequest("3", "1", "AAPL", '1', 0L));
+        byte[] bytes = String.join("", sent).getBytes(StandardCharsets.US_ASCII);
+
+        int port = startAcceptor(journal);
+        try (SocketChannel ch = SocketChannel.open(new InetSocketAddress("127.0.0.1", port))) {
+            ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            for (int i = 0, n; i < bytes.length; i += n) {
+                n = Math.min(1 + i % 7, bytes.length - i);
+                ch.write(ByteBuffer.wrap(bytes, i, n));
+                Thread.sleep(1);
+            }
+            await(acceptor::messages, sent.size());
+        }
+        stopAcceptor();
+
+        try (ChronicleQueueService svc = new ChronicleQueueService(journal)) {
+            assertEquals(sent, svc.readAll());
+        }
+    }
+
+    @Test
+    void closesConnectionThatSendsSomethingOtherThanFix() throws Exception {
+        tempDir = Path.of("data", "test-" + System.nanoTime());
+        int port = startAcceptor(tempDir.resolve("journal.q"));
+        try (SocketChannel ch = SocketChannel.open(new InetSocketAddress("127.0.0.1", port))) {
+            ch.write(ByteBuffer.wrap("GET / HTTP/1.1\r\n\r\n".getBytes(StandardCharsets.US_ASCII)));
+            await(acceptor::framingErrors, 1);
+        }
+        assertEquals(0, acceptor.messages());
+    }
+
+    private int startAcceptor(Path journalPath) throws Exception {
+        CompletableFuture<FixAcceptor> started = new CompletableFuture<>();
+        // The journal is opened on the thread that appends to it
+        acceptorThread = new Thread(() -> {
+            try (ChronicleQueueService journal = new ChronicleQueueService(journalPath);
+                    FixAcceptor a = new FixAcceptor(journal, 0, WaitStrategy.yielding())) {
+                started.complete(a);
+                a.run();
+            } catch (Throwable t) {
+                started.completeExceptionally(t);
+            }
+        }, "test-acceptor");
+        acceptorThread.start();
+        acceptor = started.get(10, TimeUnit.SECONDS);
+        return acceptor.port();
+    }
+
+    private void stopAcceptor() throws InterruptedException {
+        acceptor.stop();
+        acceptorThread.join(10_000);
+        acceptor = null;
+    }
+
+    private static void await(LongSupplier counter, long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (counter.getAsLong() < expected && System.nanoTime() < deadline)
+            Thread.sleep(1);
+        assertEquals(expected, counter.getAsLong());
+    }
+
+    private static String withoutStampAndChecksum(String msg) {
+        return msg.replaceAll("\u000150001=\\d+", "").replaceAll("10=\\d{3}\u0001$", "");
+    }
+}
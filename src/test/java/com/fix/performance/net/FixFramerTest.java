@@ -0,0 +1,106 @@
+package com.fix.performance.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import com.fix.performance.fix.FixMessageBuilder;
+import net.openhft.chronicle.bytes.Bytes;
+
+public class FixFramerTest {
+    private final FixMessageBuilder b = new FixMessageBuilder("SND", "TGT");
+
+    @Test
+    void framesAStreamReadInRandomChunksThroughASmallBuffer() throws Exception {
+        List<String> sent = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            sent.add(i % 3 == 0 ? b.buildOrderCancelRequest("c" + i, "o" + i, "MSFT", '2', i)
+                    : b.buildNewOrderSingle("o" + i, "AAPL", '1', i, 10_000 + i, i));
+        }
+        byte[] stream = String.join("", sent).getBytes(StandardCharsets.US_ASCII);
+        Random rnd = new Random(7);
+        List<String> framed = new ArrayList<>();
+        // Room for about two messages, so partial tails are carried and compacted constantly
+        try (FixFramer framer = new FixFramer(320)) {
+            ReadableByteChannel in = new ChunkedChannel(stream, rnd);
+            while (framer.readFrom(in) >= 0) {
+                assertTrue(framer.drain(frame -> framed.add(frame.toString())) >= 0);
+            }
+            assertEquals(0, framer.pending());
+        }
+        assertEquals(sent, framed);
+    }
+
+    @Test
+    void frameAllStopsBeforeAPartialMessageAndLeavesItReadable() {
+        String first = b.buildNewOrderSingle("1", "AAPL", '1', 100, 12345, 0L);
+        String second = b.buildOrderCancelRequest("2", "1", "AAPL", '1', 0L);
+        Bytes<?> batch = Bytes.from(first + second + second.substring(0, 30));
+        List<String> framed = new ArrayList<>();
+        assertEquals(2, FixFramer.frameAll(batch, frame -> framed.add(frame.toString())));
+        assertEquals(List.of(first, second), framed);
+        assertEquals(second.substring(0, 30), batch.toString());
+        // Too short even to read BodyLength
+        assertEquals(0, FixFramer.frameAll(Bytes.from("8=FIX.4.4\u00019=1"), f -> {}));
+    }
+
+    @Test
+    void rejectsBytesThatAreNotFix() {
+        String nos = b.buildNewOrderSingle("1", "AAPL", '1', 100, 12345, 0L);
+        String wrongLength = nos.replaceFirst("\u00019=\\d+", "\u00019=10");
+        for (String bad : new String[] {"GET / HTTP/1.1\r\n", "8=FIX.4.4\u00019=x1\u0001",
+                "8=FIX.4.4\u000135=D\u0001", wrongLength}) {
+            Bytes<?> bytes = Bytes.from(nos + bad);
+            assertEquals(FixFramer.MALFORMED, FixFramer.frameAll(bytes, f -> {}), bad);
+            assertEquals(bad, bytes.toString(), "stops at the bad message");
+        }
+    }
+
+    @Test
+    void messageLongerThanTheBufferIsMalformed() throws Exception {
+        byte[] nos = b.buildNewOrderSingle("1", "AAPL", '1', 100, 12345, 0L)
+                .getBytes(StandardCharsets.US_ASCII);
+        try (FixFramer framer = new FixFramer(nos.length - 1)) {
+            ReadableByteChannel in = new ChunkedChannel(nos, new Random(1));
+            int result = 0;
+            while (result >= 0 && framer.readFrom(in) >= 0)
+                result = framer.drain(f -> {});
+            assertEquals(FixFramer.MALFORMED, result);
+        }
+    }
+
+    /** Hands out {@code data} in random chunks of 1 to 100 bytes. */
+    private static final class ChunkedChannel implements ReadableByteChannel {
+        private final byte[] data;
+        private final Random rnd;
+        private int pos;
+
+        ChunkedChannel(byte[] data, Random rnd) {
+            this.data = data;
+            this.rnd = rnd;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) {
+            if (pos == data.length)
+                return -1;
+            int n = Math.min(Math.min(1 + rnd.nextInt(100), dst.remaining()), data.length - pos);
+            dst.put(data, pos, n);
+            pos += n;
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {}
+    }
+}
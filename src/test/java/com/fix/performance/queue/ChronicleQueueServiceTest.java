@@ -0,0 +1,223 @@
+package com.fix.performance.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import com.fix.performance.fix.FixMessageBuilder;
+import com.fix.performance.ring.WaitStrategy;
+import net.openhft.chronicle.bytes.Bytes;
+
+public class ChronicleQueueServiceTest {
+    private Path tempDir;
+
+    @AfterEach
+    void cleanup() throws Exception {
+        if (tempDir != null) {
+            Files.walk(tempDir).sorted((a, b) -> b.getNameCount() - a.getNameCount()).forEach(p -> {
+                try {
+                    Files.deleteIfExists(p);
+                } catch (Exception ignored) {
+                }
+            });
+        }
+    }
+
+    @AfterAll
+    static void cleanupAll() throws Exception {
+        Path dataDir = java.nio.file.Path.of("data");
+        if (!java.nio.file.Files.exists(dataDir))
+            return;
+        try (java.util.stream.Stream<Path> stream = java.nio.file.Files.list(dataDir)) {
+            stream.filter(p -> p.getFileName().toString().startsWith("test-")).forEach(p -> {
+                try {
+                    java.nio.file.Files.walk(p)
+                            .sorted((a, b) -> b.getNameCount() - a.getNameCount()).forEach(q -> {
+                                try {
+                                    java.nio.file.Files.deleteIfExists(q);
+                                } catch (Exception ignored) {
+                                }
+                            });
+                } catch (Exception ignored) {
+                }
+            });
+        }
+    }
+
+    @Test
+    void rawFormatRoundTripsAndIsRecorded() throws Exception {
+        tempDir = java.nio.file.Path.of("data", "test-" + System.nanoTime());
+        Files.createDirectories(tempDir);
+        Path queuePath = tempDir.resolve("fix.q");
+
+        FixMessageBuilder b = new FixMessageBuilder("SND", "TGT");
+        String nos = b.buildNewOrderSingle("1", "AAPL", '1', 100, 12345, 1L);
+        String can = b.buildOrderCancelRequest("2", "1", "AAPL", '1', 2L);
+
+        try (ChronicleQueueService svc = new ChronicleQueueService(queuePath, QueueFormat.RAW)) {
+            svc.writeFix(nos);
+            svc.writeFixBytes(Bytes.from(can));
+        }
+
+        // Reopened without a format: the recorded one is used
+        try (ChronicleQueueService svc = new ChronicleQueueService(queuePath)) {
+            assertEquals(QueueFormat.RAW, svc.format());
+            assertEquals(List.of(nos, can), svc.readAll());
+
+            List<String> viaBytes = new ArrayList<>();
+            svc.forEachBytes(bytes -> viaBytes.add(ascii(bytes)));
+            assertEquals(List.of(nos, can), viaBytes);
+
+            List<Long> lengths = new ArrayList<>();
+            svc.forEachBytesStore(store -> lengths.add(store.readRemaining()));
+            assertEquals(List.of((long) nos.length(), (long) can.length()), lengths);
+        }
+    }
+
+    @Test
+    void refusesToReopenWithDifferentFormat() throws Exception {
+        tempDir = java.nio.file.Path.of("data", "test-" + System.nanoTime());
+        Files.createDirectories(tempDir);
+        Path queuePath = tempDir.resolve("fix.q");
+
+        try (ChronicleQueueService svc = new ChronicleQueueService(queuePath, QueueFormat.RAW)) {
+            svc.writeFix("8=FIX.4.4\u00019=5\u000135=0\u000110=000\u0001");
+        }
+        assertThrows(IllegalStateException.class,
+                () -> new ChronicleQueueService(queuePath, QueueFormat.WIRE).close());
+    }
+
+    @Test
+    void wireIsTheDefault() throws Exception {
+        tempDir = java.nio.file.Path.of("data", "test-" + System.nanoTime());
+        Files.createDirectories(tempDir);
+        Path queuePath = tempDir.resolve("fix.q");
+
+        try (ChronicleQueueService svc = new ChronicleQueueService(queuePath)) {
+            assertEquals(QueueFormat.WIRE, svc.format());
+            svc.writeFix("8=FIX.4.4\u00019=5\u000135=0\u000110=000\u0001");
+            assertEquals(1, svc.readAll().size());
+        }
+    }
+
+    @Test
+    void tailPicksUpLiveAppendsUntilStopped() throws Exception {
+        tempDir = java.nio.file.Path.of("data", "test-" + System.nanoTime());
+        Files.createDirectories(tempDir);
+        Path queuePath = tempDir.resolve("fix.q");
+        String hb = "8=FIX.4.4\u00019=5\u000135=0\u000110=000\u0001";
+
+        try (ChronicleQueueService writer = new ChronicleQueueService(queuePath, QueueFormat.RAW);
+                ChronicleQueueService reader = new ChronicleQueueService(queuePath)) {
+            writer.writeFix(hb);
+            AtomicLong seen = new AtomicLong();
+            AtomicBoolean running = new AtomicBoolean(true);
+            CompletableFuture<TailStats> tail = CompletableFuture.supplyAsync(
+                    () -> reader.tailBytes(bytes -> seen.incrementAndGet(), WaitStrategy.backoff(),
+                            running::get));
+
+            // Appended while the tailer is already polling
+            for (int i = 0; i < 99; i++)
+                writer.writeFix(hb);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (seen.get() < 100 && System.nanoTime() < deadline)
+                Thread.sleep(1);
+            running.set(false);
+
+            TailStats stats = tail.get(10, TimeUnit.SECONDS);
+            assertEquals(100, stats.messages());
+            assertEquals(100, seen.get());
+            assertTrue(stats.idlePolls() > 0);
+        }
+    }
+
+    @Test
+    void namedTailerResumesWhereItStopped() throws Exception {
+        tempDir = java.nio.file.Path.of("data", "test-" + System.nanoTime());
+        Files.createDirectories(tempDir);
+        Path queuePath = tempDir.resolve("fix.q");
+
+        try (ChronicleQueueService svc = new ChronicleQueueService(queuePath, QueueFormat.RAW)) {
+            for (int i = 0; i < 5; i++)
+                svc.writeFix("8=FIX.4.4\u000135=0\u0001112=" + i + "\u0001");
+        }
+        List<String> seen = new ArrayList<>();
+        try (ChronicleQueueService svc = new ChronicleQueueService(queuePath)) {
+            svc.forEachBytes(ReadRange.named("risk"), bytes -> seen.add(ascii(bytes)));
+        }
+        assertEquals(5, seen.size());
+
+        // Reopened: only the excerpts appended since are read, another name starts over
+        try (ChronicleQueueService svc = new ChronicleQueueService(queuePath)) {
+            svc.writeFix("8=FIX.4.4\u000135=0\u0001112=5\u0001");
+            seen.clear();
+            svc.forEachBytes(ReadRange.named("risk"), bytes -> seen.add(ascii(bytes)));
+            assertEquals(List.of("8=FIX.4.4\u000135=0\u0001112=5\u0001"), seen);
+            seen.clear();
+            svc.forEachBytes(ReadRange.named("audit"), bytes -> seen.add(ascii(bytes)));
+            assertEquals(6, seen.size());
+        }
+    }
+
+    @Test
+    void rangeReadsFromThroughToIndexInclusive() throws Exception {
+        tempDir = java.nio.file.Path.of("data", "test-" + System.nanoTime());
+        Files.createDirectories(tempDir);
+        Path queuePath = tempDir.resolve("fix.q");
+
+        try (ChronicleQueueService svc = new ChronicleQueueService(queuePath, QueueFormat.RAW)) {
+            for (int i = 0; i < 10; i++)
+                svc.writeFix("8=FIX.4.4\u000135=0\u0001112=" + i + "\u0001");
+            List<Long> indexes = new ArrayList<>();
+            try (FixTailer tailer = svc.createTailer()) {
+                while (tailer.readBytes(bytes -> {}))
+                    indexes.add(tailer.lastIndex());
+            }
+
+            List<String> seen = new ArrayList<>();
+            long last = svc.forEachBytes(new ReadRange(null, indexes.get(3), indexes.get(5)),
+                    bytes -> seen.add(ascii(bytes)));
+            assertEquals(3, seen.size());
+            assertTrue(seen.get(0).endsWith("112=3\u0001"));
+            assertEquals(indexes.get(5), last);
+
+            // A bounded tail returns at the end index even though it is still running
+            AtomicLong tailed = new AtomicLong();
+            TailStats stats = svc.tailBytes(new ReadRange("ranged", ReadRange.UNBOUNDED,
+                    indexes.get(1)), bytes -> tailed.incrementAndGet(), WaitStrategy.backoff(),
+                    () -> true);
+            assertEquals(2, stats.messages());
+            assertEquals(2, tailed.get());
+            // ... and leaves the named tailer just past it
+            seen.clear();
+            svc.forEachBytes(ReadRange.named("ranged"), bytes -> seen.add(ascii(bytes)));
+            assertEquals(8, seen.size());
+            assertTrue(seen.get(0).endsWith("112=2\u0001"));
+
+            // ... and also returns when the end index is the last excerpt in the queue
+            tailed.set(0);
+            stats = svc.tailBytes(new ReadRange(null, indexes.get(7), indexes.get(9)),
+                    bytes -> tailed.incrementAndGet(), WaitStrategy.backoff(), () -> true);
+            assertEquals(3, stats.messages());
+            assertEquals(3, tailed.get());
+        }
+        assertThrows(IllegalArgumentException.class, () -> new ReadRange(null, 5, 4));
+    }
+
+    private static String ascii(Bytes<?> bytes) {
+        StringBuilder sb = new StringBuilder();
+        for (long i = bytes.readPosition(); i < bytes.readLimit(); i++)
+            sb.append((char) bytes.readUnsignedByte(i));
+        return sb.toString();
+    }
+}